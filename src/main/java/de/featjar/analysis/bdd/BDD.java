@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.bdd;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A Boolean function represented by a root node in a {@link BDDManager}.
+ * Queries traverse the nodes reachable from the root once in topological order, so their runtime is linear in the
+ * size of this BDD.
+ * Solution counts are computed once and reused for counting and sampling.
+ *
+ * @author Sebastian Krieter
+ */
+public class BDD {
+
+    private final BDDManager manager;
+    private final int root;
+
+    /**
+     * The nodes reachable from the root, excluding terminal nodes, with children before parents.
+     */
+    private int[] nodes;
+
+    /**
+     * For each node of the manager up to the root, its index in {@link #nodes}.
+     */
+    private int[] nodeIndices;
+
+    /**
+     * For each entry of {@link #nodes}, the number of solutions of the node over the variables at or below its level.
+     */
+    private BigInteger[] solutionCounts;
+
+    /**
+     * Creates a new BDD.
+     *
+     * @param manager the manager
+     * @param root the root node
+     */
+    public BDD(BDDManager manager, int root) {
+        this.manager = manager;
+        this.root = root;
+    }
+
+    /**
+     * {@return the manager}
+     */
+    public BDDManager getManager() {
+        return manager;
+    }
+
+    /**
+     * {@return the root node}
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * {@return the number of nodes reachable from the root, excluding terminal nodes}
+     */
+    public int size() {
+        return getNodes().length;
+    }
+
+    /**
+     * {@return whether this function has any solution}
+     */
+    public boolean isSatisfiable() {
+        return root != BDDManager.FALSE;
+    }
+
+    /**
+     * {@return whether this function is true for all assignments}
+     */
+    public boolean isTautology() {
+        return root == BDDManager.TRUE;
+    }
+
+    /**
+     * {@return the conjunction of this and another function}
+     *
+     * @param other the other function, from the same manager
+     */
+    public BDD and(BDD other) {
+        return new BDD(manager, manager.and(root, other.root));
+    }
+
+    /**
+     * {@return the disjunction of this and another function}
+     *
+     * @param other the other function, from the same manager
+     */
+    public BDD or(BDD other) {
+        return new BDD(manager, manager.or(root, other.root));
+    }
+
+    /**
+     * {@return the negation of this function}
+     */
+    public BDD not() {
+        return new BDD(manager, manager.not(root));
+    }
+
+    /**
+     * {@return this function with given variables existentially quantified}
+     *
+     * @param variables the variables
+     */
+    public BDD exists(int... variables) {
+        return new BDD(manager, manager.exists(root, variables));
+    }
+
+    /**
+     * {@return the solutions of this function that contain all literals of a given partial assignment}
+     * Unassigned entries (i.e., {@code 0}) are ignored.
+     *
+     * @param assignment the partial assignment
+     */
+    public BDD condition(ABooleanAssignment assignment) {
+        int[] literals = Arrays.stream(assignment.get())
+                .filter(literal -> literal != 0)
+                .toArray();
+        return new BDD(manager, manager.and(root, manager.cube(literals)));
+    }
+
+    /**
+     * {@return whether a given solution satisfies this function}
+     * Unassigned variables are considered {@code false}.
+     *
+     * @param solution the solution, indexed by variable
+     */
+    public boolean test(BooleanSolution solution) {
+        int[] literals = solution.get();
+        int node = root;
+        while (node > BDDManager.TRUE) {
+            int variable = manager.getNodeVariable(node);
+            node = variable <= literals.length && literals[variable - 1] > 0
+                    ? manager.getHigh(node)
+                    : manager.getLow(node);
+        }
+        return node == BDDManager.TRUE;
+    }
+
+    /**
+     * {@return the number of solutions of this function over all variables of the manager}
+     */
+    public BigInteger countSolutions() {
+        if (root <= BDDManager.TRUE) {
+            return root == BDDManager.TRUE ? BigInteger.ONE.shiftLeft(manager.getVariableCount()) : BigInteger.ZERO;
+        }
+        return getSolutionCount(root).shiftLeft(manager.getNodeLevel(root));
+    }
+
+    /**
+     * {@return a solution of this function drawn uniformly at random from all solutions}
+     * The result is empty if this function is unsatisfiable.
+     *
+     * @param random the random number generator
+     */
+    public Result<BooleanSolution> sample(Random random) {
+        if (root == BDDManager.FALSE) {
+            return Result.empty();
+        }
+        int[] variableOrder = manager.getVariableOrder();
+        int[] literals = new int[variableOrder.length];
+        int level = 0;
+        int node = root;
+        while (true) {
+            int nodeLevel = manager.getNodeLevel(node);
+            for (; level < nodeLevel; level++) {
+                int variable = variableOrder[level];
+                literals[variable - 1] = random.nextBoolean() ? variable : -variable;
+            }
+            if (node == BDDManager.TRUE) {
+                break;
+            }
+            int low = manager.getLow(node);
+            int high = manager.getHigh(node);
+            BigInteger lowCount = getWeightedCount(low, nodeLevel);
+            BigInteger highCount = getWeightedCount(high, nodeLevel);
+            BigInteger choice = nextBigInteger(random, lowCount.add(highCount));
+            int variable = manager.getNodeVariable(node);
+            if (choice.compareTo(lowCount) < 0) {
+                literals[variable - 1] = -variable;
+                node = low;
+            } else {
+                literals[variable - 1] = variable;
+                node = high;
+            }
+            level = nodeLevel + 1;
+        }
+        return Result.of(new BooleanSolution(literals, false));
+    }
+
+    /**
+     * {@return all literals that are contained in every solution of this function}
+     * The result is empty if this function is unsatisfiable.
+     */
+    public Result<BooleanAssignment> getImpliedLiterals() {
+        if (root == BDDManager.FALSE) {
+            return Result.empty();
+        }
+        int variableCount = manager.getVariableCount();
+        boolean[] canBeTrue = new boolean[variableCount];
+        boolean[] canBeFalse = new boolean[variableCount];
+        int[] skippedLevels = new int[variableCount + 1];
+        skip(skippedLevels, -1, manager.getNodeLevel(root));
+        for (int node : getNodes()) {
+            int level = manager.getNodeLevel(node);
+            int low = manager.getLow(node);
+            int high = manager.getHigh(node);
+            if (low != BDDManager.FALSE) {
+                canBeFalse[level] = true;
+                skip(skippedLevels, level, manager.getNodeLevel(low));
+            }
+            if (high != BDDManager.FALSE) {
+                canBeTrue[level] = true;
+                skip(skippedLevels, level, manager.getNodeLevel(high));
+            }
+        }
+        int[] literals = new int[variableCount];
+        int literalCount = 0;
+        int skipCount = 0;
+        int[] variableOrder = manager.getVariableOrder();
+        for (int level = 0; level < variableCount; level++) {
+            skipCount += skippedLevels[level];
+            if (skipCount == 0 && canBeTrue[level] != canBeFalse[level]) {
+                int variable = variableOrder[level];
+                literals[literalCount++] = canBeTrue[level] ? variable : -variable;
+            }
+        }
+        return Result.of(new BooleanAssignment(Arrays.copyOf(literals, literalCount)));
+    }
+
+    /**
+     * Marks all levels strictly between two levels as skipped by an edge, using a difference array.
+     */
+    private static void skip(int[] skippedLevels, int fromLevel, int toLevel) {
+        if (fromLevel + 1 < toLevel) {
+            skippedLevels[fromLevel + 1]++;
+            skippedLevels[toLevel]--;
+        }
+    }
+
+    private BigInteger getWeightedCount(int child, int parentLevel) {
+        if (child == BDDManager.FALSE) {
+            return BigInteger.ZERO;
+        }
+        BigInteger count = child == BDDManager.TRUE ? BigInteger.ONE : getSolutionCount(child);
+        return count.shiftLeft(manager.getNodeLevel(child) - parentLevel - 1);
+    }
+
+    private BigInteger getSolutionCount(int node) {
+        if (solutionCounts == null) {
+            int[] nodes = getNodes();
+            solutionCounts = new BigInteger[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                int level = manager.getNodeLevel(nodes[i]);
+                solutionCounts[i] = getWeightedCount(manager.getLow(nodes[i]), level)
+                        .add(getWeightedCount(manager.getHigh(nodes[i]), level));
+            }
+        }
+        return solutionCounts[nodeIndices[node]];
+    }
+
+    private int[] getNodes() {
+        if (nodes == null) {
+            nodeIndices = new int[manager.getNodeCount()];
+            int[] reachableNodes = new int[16];
+            int nodeCount = 0;
+            if (root > BDDManager.TRUE) {
+                reachableNodes[nodeCount++] = root;
+                nodeIndices[root] = -1;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                int node = reachableNodes[i];
+                if (nodeCount + 2 > reachableNodes.length) {
+                    reachableNodes = Arrays.copyOf(reachableNodes, reachableNodes.length << 1);
+                }
+                int low = manager.getLow(node);
+                if (low > BDDManager.TRUE && nodeIndices[low] == 0) {
+                    nodeIndices[low] = -1;
+                    reachableNodes[nodeCount++] = low;
+                }
+                int high = manager.getHigh(node);
+                if (high > BDDManager.TRUE && nodeIndices[high] == 0) {
+                    nodeIndices[high] = -1;
+                    reachableNodes[nodeCount++] = high;
+                }
+            }
+            reachableNodes = Arrays.copyOf(reachableNodes, nodeCount);
+            // nodes are created after their children, so ascending order is a topological order
+            Arrays.sort(reachableNodes);
+            for (int i = 0; i < nodeCount; i++) {
+                nodeIndices[reachableNodes[i]] = i;
+            }
+            nodes = reachableNodes;
+        }
+        return nodes;
+    }
+
+    private static BigInteger nextBigInteger(Random random, BigInteger bound) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.bdd;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.structure.CompiledFormula;
+import de.featjar.formula.structure.IFormula;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds {@link BDD BDDs} from formulas and clause lists.
+ * Formulas are first compiled into a {@link CompiledFormula}, whose postfix program is then executed on BDD nodes.
+ * Clauses are built directly and conjoined pairwise in a balanced order.
+ * <p>
+ * The variable order of the manager refers to the indices of a {@link VariableMap}.
+ * {@link #computeOrder(BooleanClauseList)} computes an order that places variables of the same clauses close to each
+ * other, which usually leads to much smaller BDDs than the order of the variable map.
+ *
+ * @author Sebastian Krieter
+ */
+public class BDDBuilder {
+
+    private static final int MAXIMUM_ORDER_ITERATIONS = 32;
+
+    private final BDDManager manager;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param manager the manager storing the built BDDs
+     */
+    public BDDBuilder(BDDManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Creates a new builder with a new manager for the order of a given variable map.
+     *
+     * @param variableMap the variable map
+     */
+    public BDDBuilder(VariableMap variableMap) {
+        this(new BDDManager(variableMap.getVariableCount()));
+    }
+
+    /**
+     * Creates a new builder with a new manager for a given clause list, using {@link #computeOrder(BooleanClauseList)}.
+     *
+     * @param clauseList the clause list
+     */
+    public BDDBuilder(BooleanClauseList clauseList) {
+        this(new BDDManager(computeOrder(clauseList)));
+    }
+
+    /**
+     * {@return the manager}
+     */
+    public BDDManager getManager() {
+        return manager;
+    }
+
+    /**
+     * {@return the BDD of a given formula}
+     * Supports the same expressions as {@link CompiledFormula#compile(IFormula, VariableMap)}.
+     * Fails if the formula contains a variable that is not contained in the variable map.
+     *
+     * @param formula the formula
+     * @param variableMap the variable map, whose indices are used for the variables of the manager
+     */
+    public Result<BDD> build(IFormula formula, VariableMap variableMap) {
+        if (variableMap.getVariableCount() > manager.getVariableCount()) {
+            return Result.empty(new Problem(
+                    "Manager has less variables than variable map: " + manager.getVariableCount(),
+                    Problem.Severity.ERROR));
+        }
+        return CompiledFormula.compile(formula, variableMap).flatMap(this::execute);
+    }
+
+    private Result<BDD> execute(CompiledFormula compiledFormula) {
+        int[] program = compiledFormula.getProgram();
+        int[] stack = new int[Math.max(1, compiledFormula.getMaximumStackSize())];
+        int top = 0;
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case CompiledFormula.POSITIVE_LITERAL:
+                    stack[top++] = manager.literal(program[pc++]);
+                    break;
+                case CompiledFormula.NEGATIVE_LITERAL:
+                    stack[top++] = manager.literal(-program[pc++]);
+                    break;
+                case CompiledFormula.CONSTANT: {
+                    int value = program[pc++];
+                    if (value == CompiledFormula.UNKNOWN) {
+                        return Result.empty(
+                                new Problem("Formula contains unmapped variables", Problem.Severity.ERROR));
+                    }
+                    stack[top++] = value == CompiledFormula.TRUE ? BDDManager.TRUE : BDDManager.FALSE;
+                    break;
+                }
+                case CompiledFormula.AND: {
+                    int count = program[pc++];
+                    top -= count;
+                    stack[top] = conjoin(stack, top, top + count);
+                    top++;
+                    break;
+                }
+                case CompiledFormula.OR: {
+                    int count = program[pc++];
+                    int node = BDDManager.FALSE;
+                    for (int i = top - count; i < top; i++) {
+                        node = manager.or(node, stack[i]);
+                    }
+                    top -= count;
+                    stack[top++] = node;
+                    break;
+                }
+                case CompiledFormula.NOT:
+                    stack[top - 1] = manager.not(stack[top - 1]);
+                    break;
+                case CompiledFormula.IMPLIES: {
+                    int right = stack[--top];
+                    stack[top - 1] = manager.or(manager.not(stack[top - 1]), right);
+                    break;
+                }
+                case CompiledFormula.BI_IMPLIES: {
+                    int right = stack[--top];
+                    stack[top - 1] = manager.not(manager.xor(stack[top - 1], right));
+                    break;
+                }
+                case CompiledFormula.CARDINAL: {
+                    int count = program[pc++];
+                    int lowerBound = program[pc++];
+                    int upperBound = program[pc++];
+                    top -= count;
+                    stack[top] = cardinal(
+                            stack,
+                            top,
+                            count,
+                            lowerBound == Range.OPEN ? 0 : lowerBound,
+                            upperBound == Range.OPEN ? count : upperBound);
+                    top++;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(program[pc - 1]));
+            }
+        }
+        return Result.of(new BDD(manager, stack[0]));
+    }
+
+    /**
+     * {@return the BDD of a given clause list}
+     * The clause list must not have more variables than the manager.
+     *
+     * @param clauseList the clause list
+     */
+    public BDD build(BooleanClauseList clauseList) {
+        List<BooleanClause> clauses = clauseList.getAll();
+        int[] nodes = new int[clauses.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = manager.clause(clauses.get(i).get());
+        }
+        return new BDD(manager, conjoin(nodes, 0, nodes.length));
+    }
+
+    /**
+     * {@return a variable order for a given clause list}
+     * Uses the FORCE heuristic, which repeatedly moves each variable to the average center of gravity of the clauses
+     * containing it, as long as the total span of all clauses decreases.
+     *
+     * @param clauseList the clause list
+     */
+    public static int[] computeOrder(BooleanClauseList clauseList) {
+        int variableCount = clauseList.getVariableCount();
+        List<BooleanClause> clauses = clauseList.getAll();
+        int[] order = new int[variableCount];
+        Arrays.setAll(order, i -> i + 1);
+        int[] positions = new int[variableCount + 1];
+        for (int i = 0; i < variableCount; i++) {
+            positions[order[i]] = i;
+        }
+        long span = computeSpan(clauses, positions);
+        double[] gravitySums = new double[variableCount + 1];
+        int[] occurrences = new int[variableCount + 1];
+        for (int iteration = 0; iteration < MAXIMUM_ORDER_ITERATIONS; iteration++) {
+            Arrays.fill(gravitySums, 0);
+            Arrays.fill(occurrences, 0);
+            for (BooleanClause clause : clauses) {
+                int[] literals = clause.get();
+                if (literals.length == 0) {
+                    continue;
+                }
+                double centerOfGravity = 0;
+                for (int literal : literals) {
+                    centerOfGravity += positions[Math.abs(literal)];
+                }
+                centerOfGravity /= literals.length;
+                for (int literal : literals) {
+                    gravitySums[Math.abs(literal)] += centerOfGravity;
+                    occurrences[Math.abs(literal)]++;
+                }
+            }
+            long[] keys = new long[variableCount];
+            for (int variable = 1; variable <= variableCount; variable++) {
+                double position = occurrences[variable] == 0
+                        ? positions[variable]
+                        : gravitySums[variable] / occurrences[variable];
+                keys[variable - 1] = ((long) (position * 1024) << 24) | (positions[variable] & 0xFFFFFF);
+            }
+            Arrays.sort(keys);
+            int[] newPositions = new int[variableCount + 1];
+            int[] newOrder = new int[variableCount];
+            for (int i = 0; i < variableCount; i++) {
+                int variable = order[(int) (keys[i] & 0xFFFFFF)];
+                newOrder[i] = variable;
+                newPositions[variable] = i;
+            }
+            long newSpan = computeSpan(clauses, newPositions);
+            if (newSpan >= span) {
+                break;
+            }
+            span = newSpan;
+            order = newOrder;
+            positions = newPositions;
+        }
+        return order;
+    }
+
+    private static long computeSpan(List<BooleanClause> clauses, int[] positions) {
+        long span = 0;
+        for (BooleanClause clause : clauses) {
+            int minimum = Integer.MAX_VALUE;
+            int maximum = Integer.MIN_VALUE;
+            for (int literal : clause.get()) {
+                int position = positions[Math.abs(literal)];
+                minimum = Math.min(minimum, position);
+                maximum = Math.max(maximum, position);
+            }
+            if (minimum <= maximum) {
+                span += maximum - minimum;
+            }
+        }
+        return span;
+    }
+
+    private int conjoin(int[] nodes, int from, int to) {
+        if (from == to) {
+            return BDDManager.TRUE;
+        } else if (from + 1 == to) {
+            return nodes[from];
+        }
+        int middle = (from + to) >>> 1;
+        int left = conjoin(nodes, from, middle);
+        return left == BDDManager.FALSE ? BDDManager.FALSE : manager.and(left, conjoin(nodes, middle, to));
+    }
+
+    /**
+     * Counts the true children with a row of nodes, where the node at index {@code j} is true if exactly {@code j} of
+     * the children seen so far are true.
+     */
+    private int cardinal(int[] nodes, int from, int count, int lowerBound, int upperBound) {
+        int[] counters = new int[count + 1];
+        counters[0] = BDDManager.TRUE;
+        for (int i = 0; i < count; i++) {
+            int child = nodes[from + i];
+            for (int j = i + 1; j >= 0; j--) {
+                int withChild = j > 0 ? counters[j - 1] : BDDManager.FALSE;
+                counters[j] = manager.ite(child, withChild, counters[j]);
+            }
+        }
+        int node = BDDManager.FALSE;
+        for (int j = Math.max(0, lowerBound); j <= Math.min(count, upperBound); j++) {
+            node = manager.or(node, counters[j]);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.bdd;
+
+import java.util.Arrays;
+
+/**
+ * Stores the nodes of reduced ordered binary decision diagrams (BDDs) over a fixed variable order and implements
+ * operations on them.
+ * A node is identified by an {@code int}, where {@link #FALSE} and {@link #TRUE} are the terminal nodes.
+ * Nodes are hash-consed in a unique table with open addressing, such that equal functions are represented by the same
+ * node, and results of operations are memoized in a direct-mapped cache, in which colliding entries are overwritten.
+ * <p>
+ * Nodes are never freed, so a manager should be used for a bounded number of operations (e.g., compiling a model
+ * once and querying it afterwards).
+ * Instances are not thread-safe.
+ *
+ * @author Sebastian Krieter
+ */
+public class BDDManager {
+
+    /**
+     * The terminal node representing {@code false}.
+     */
+    public static final int FALSE = 0;
+
+    /**
+     * The terminal node representing {@code true}.
+     */
+    public static final int TRUE = 1;
+
+    private static final int AND = 1;
+    private static final int OR = 2;
+    private static final int XOR = 3;
+    private static final int NOT = 4;
+    private static final int ITE = 5;
+    private static final int RESTRICT = 6;
+    private static final int EXISTS = 7;
+
+    private static final int MINIMUM_CAPACITY = 1 << 10;
+
+    private final int variableCount;
+    private final int[] levelToVariable;
+    private final int[] variableToLevel;
+
+    private int[] nodeLevels;
+    private int[] nodeLows;
+    private int[] nodeHighs;
+    private int nodeCount;
+
+    private int[] uniqueTable;
+
+    private int[] cacheOperations;
+    private int[] cacheFirstOperands;
+    private int[] cacheSecondOperands;
+    private int[] cacheThirdOperands;
+    private int[] cacheResults;
+
+    private int epoch;
+    private byte[] restrictedValues;
+    private boolean[] quantifiedLevels;
+    private int lastMarkedLevel;
+
+    /**
+     * Creates a new manager for variables {@code 1} to {@code variableCount} in ascending order.
+     *
+     * @param variableCount the number of variables
+     */
+    public BDDManager(int variableCount) {
+        this(identityOrder(variableCount));
+    }
+
+    /**
+     * Creates a new manager for a given variable order.
+     *
+     * @param variableOrder all variables from {@code 1} to {@code variableOrder.length}, from the root to the leaves
+     */
+    public BDDManager(int[] variableOrder) {
+        variableCount = variableOrder.length;
+        levelToVariable = variableOrder.clone();
+        variableToLevel = new int[variableCount + 1];
+        Arrays.fill(variableToLevel, -1);
+        for (int level = 0; level < variableCount; level++) {
+            int variable = variableOrder[level];
+            if (variable < 1 || variable > variableCount || variableToLevel[variable] >= 0) {
+                throw new IllegalArgumentException("Not a permutation: " + Arrays.toString(variableOrder));
+            }
+            variableToLevel[variable] = level;
+        }
+        nodeLevels = new int[MINIMUM_CAPACITY];
+        nodeLows = new int[MINIMUM_CAPACITY];
+        nodeHighs = new int[MINIMUM_CAPACITY];
+        nodeLevels[FALSE] = variableCount;
+        nodeLevels[TRUE] = variableCount;
+        nodeCount = 2;
+        uniqueTable = new int[MINIMUM_CAPACITY << 1];
+        resizeCache(MINIMUM_CAPACITY << 1);
+        restrictedValues = new byte[variableCount];
+        quantifiedLevels = new boolean[variableCount];
+    }
+
+    private static int[] identityOrder(int variableCount) {
+        int[] order = new int[variableCount];
+        Arrays.setAll(order, i -> i + 1);
+        return order;
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the variable order, from the root to the leaves}
+     */
+    public int[] getVariableOrder() {
+        return levelToVariable.clone();
+    }
+
+    /**
+     * {@return the level of a given variable, where {@code 0} is the level of the root}
+     *
+     * @param variable the variable
+     */
+    public int getLevel(int variable) {
+        return variableToLevel[variable];
+    }
+
+    /**
+     * {@return the number of nodes stored in this manager, including the terminal nodes}
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * {@return the level of a given node, which is {@link #getVariableCount()} for terminal nodes}
+     *
+     * @param node the node
+     */
+    public int getNodeLevel(int node) {
+        return nodeLevels[node];
+    }
+
+    /**
+     * {@return the variable tested by a given node, or {@code 0} for terminal nodes}
+     *
+     * @param node the node
+     */
+    public int getNodeVariable(int node) {
+        return node > TRUE ? levelToVariable[nodeLevels[node]] : 0;
+    }
+
+    /**
+     * {@return the child of a given node if its variable is {@code false}}
+     *
+     * @param node the node
+     */
+    public int getLow(int node) {
+        return nodeLows[node];
+    }
+
+    /**
+     * {@return the child of a given node if its variable is {@code true}}
+     *
+     * @param node the node
+     */
+    public int getHigh(int node) {
+        return nodeHighs[node];
+    }
+
+    /**
+     * {@return the node representing a given literal}
+     *
+     * @param literal the literal
+     */
+    public int literal(int literal) {
+        int level = variableToLevel[Math.abs(literal)];
+        return literal > 0 ? makeNode(level, FALSE, TRUE) : makeNode(level, TRUE, FALSE);
+    }
+
+    /**
+     * {@return the node representing the conjunction of given literals}
+     *
+     * @param literals the literals
+     */
+    public int cube(int... literals) {
+        int[] sortedLiterals = sortByLevel(literals);
+        int node = TRUE;
+        for (int i = sortedLiterals.length - 1; i >= 0; i--) {
+            int literal = sortedLiterals[i];
+            int level = variableToLevel[Math.abs(literal)];
+            if (i + 1 < sortedLiterals.length && sortedLiterals[i + 1] == literal) {
+                continue;
+            } else if (i + 1 < sortedLiterals.length && sortedLiterals[i + 1] == -literal) {
+                return FALSE;
+            }
+            node = literal > 0 ? makeNode(level, FALSE, node) : makeNode(level, node, FALSE);
+        }
+        return node;
+    }
+
+    /**
+     * {@return the node representing the disjunction of given literals}
+     *
+     * @param literals the literals
+     */
+    public int clause(int... literals) {
+        int[] sortedLiterals = sortByLevel(literals);
+        int node = FALSE;
+        for (int i = sortedLiterals.length - 1; i >= 0; i--) {
+            int literal = sortedLiterals[i];
+            int level = variableToLevel[Math.abs(literal)];
+            if (i + 1 < sortedLiterals.length && sortedLiterals[i + 1] == literal) {
+                continue;
+            } else if (i + 1 < sortedLiterals.length && sortedLiterals[i + 1] == -literal) {
+                return TRUE;
+            }
+            node = literal > 0 ? makeNode(level, node, TRUE) : makeNode(level, TRUE, node);
+        }
+        return node;
+    }
+
+    /**
+     * {@return the negation of a node}
+     *
+     * @param node the node
+     */
+    public int not(int node) {
+        if (node <= TRUE) {
+            return node ^ 1;
+        }
+        int result = lookup(NOT, node, 0, 0);
+        if (result < 0) {
+            result = makeNode(nodeLevels[node], not(nodeLows[node]), not(nodeHighs[node]));
+            store(NOT, node, 0, 0, result);
+        }
+        return result;
+    }
+
+    /**
+     * {@return the conjunction of two nodes}
+     *
+     * @param first the first node
+     * @param second the second node
+     */
+    public int and(int first, int second) {
+        return apply(AND, first, second);
+    }
+
+    /**
+     * {@return the disjunction of two nodes}
+     *
+     * @param first the first node
+     * @param second the second node
+     */
+    public int or(int first, int second) {
+        return apply(OR, first, second);
+    }
+
+    /**
+     * {@return the exclusive disjunction of two nodes}
+     *
+     * @param first the first node
+     * @param second the second node
+     */
+    public int xor(int first, int second) {
+        return apply(XOR, first, second);
+    }
+
+    /**
+     * {@return the node representing "if {@code condition} then {@code then} else {@code otherwise}"}
+     *
+     * @param condition the condition
+     * @param then the node if the condition is {@code true}
+     * @param otherwise the node if the condition is {@code false}
+     */
+    public int ite(int condition, int then, int otherwise) {
+        if (condition == TRUE || then == otherwise) {
+            return then;
+        } else if (condition == FALSE) {
+            return otherwise;
+        } else if (then == TRUE && otherwise == FALSE) {
+            return condition;
+        } else if (then == FALSE && otherwise == TRUE) {
+            return not(condition);
+        } else if (then == TRUE || condition == then) {
+            return or(condition, otherwise);
+        } else if (otherwise == FALSE || condition == otherwise) {
+            return and(condition, then);
+        }
+        int result = lookup(ITE, condition, then, otherwise);
+        if (result < 0) {
+            int level = Math.min(nodeLevels[condition], Math.min(nodeLevels[then], nodeLevels[otherwise]));
+            int low = ite(low(condition, level), low(then, level), low(otherwise, level));
+            int high = ite(high(condition, level), high(then, level), high(otherwise, level));
+            result = makeNode(level, low, high);
+            store(ITE, condition, then, otherwise, result);
+        }
+        return result;
+    }
+
+    /**
+     * {@return the cofactor of a node with respect to given literals}
+     * The variables of the literals do not occur in the result.
+     *
+     * @param node the node
+     * @param literals the literals
+     */
+    public int restrict(int node, int... literals) {
+        if (literals.length == 0 || node <= TRUE) {
+            return node;
+        }
+        nextEpoch();
+        lastMarkedLevel = -1;
+        for (int literal : literals) {
+            int level = variableToLevel[Math.abs(literal)];
+            restrictedValues[level] = (byte) (literal > 0 ? 1 : -1);
+            lastMarkedLevel = Math.max(lastMarkedLevel, level);
+        }
+        try {
+            return restrict(node);
+        } finally {
+            for (int literal : literals) {
+                restrictedValues[variableToLevel[Math.abs(literal)]] = 0;
+            }
+        }
+    }
+
+    /**
+     * {@return the existential quantification of given variables in a node}
+     *
+     * @param node the node
+     * @param variables the variables
+     */
+    public int exists(int node, int... variables) {
+        if (variables.length == 0 || node <= TRUE) {
+            return node;
+        }
+        nextEpoch();
+        lastMarkedLevel = -1;
+        for (int variable : variables) {
+            int level = variableToLevel[Math.abs(variable)];
+            quantifiedLevels[level] = true;
+            lastMarkedLevel = Math.max(lastMarkedLevel, level);
+        }
+        try {
+            return exists(node);
+        } finally {
+            for (int variable : variables) {
+                quantifiedLevels[variableToLevel[Math.abs(variable)]] = false;
+            }
+        }
+    }
+
+    /**
+     * {@return the node with a given level and children, creating it if it does not exist yet}
+     * Returns the child if both children are equal.
+     *
+     * @param level the level
+     * @param low the child if the variable is {@code false}
+     * @param high the child if the variable is {@code true}
+     */
+    protected int makeNode(int level, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        int mask = uniqueTable.length - 1;
+        int index = hash(level, low, high) & mask;
+        int node;
+        while ((node = uniqueTable[index]) != 0) {
+            if (nodeLevels[node] == level && nodeLows[node] == low && nodeHighs[node] == high) {
+                return node;
+            }
+            index = (index + 1) & mask;
+        }
+        if (nodeCount == nodeLevels.length) {
+            int capacity = nodeCount << 1;
+            nodeLevels = Arrays.copyOf(nodeLevels, capacity);
+            nodeLows = Arrays.copyOf(nodeLows, capacity);
+            nodeHighs = Arrays.copyOf(nodeHighs, capacity);
+        }
+        node = nodeCount++;
+        nodeLevels[node] = level;
+        nodeLows[node] = low;
+        nodeHighs[node] = high;
+        uniqueTable[index] = node;
+        if (nodeCount << 1 > uniqueTable.length) {
+            resizeUniqueTable(uniqueTable.length << 1);
+        }
+        return node;
+    }
+
+    private int apply(int operation, int first, int second) {
+        switch (operation) {
+            case AND:
+                if (first == FALSE || second == FALSE) {
+                    return FALSE;
+                } else if (first == TRUE || first == second) {
+                    return second;
+                } else if (second == TRUE) {
+                    return first;
+                }
+                break;
+            case OR:
+                if (first == TRUE || second == TRUE) {
+                    return TRUE;
+                } else if (first == FALSE || first == second) {
+                    return second;
+                } else if (second == FALSE) {
+                    return first;
+                }
+                break;
+            case XOR:
+                if (first == second) {
+                    return FALSE;
+                } else if (first == FALSE) {
+                    return second;
+                } else if (second == FALSE) {
+                    return first;
+                } else if (first == TRUE) {
+                    return not(second);
+                } else if (second == TRUE) {
+                    return not(first);
+                }
+                break;
+            default:
+                throw new IllegalStateException(String.valueOf(operation));
+        }
+        if (first > second) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        int result = lookup(operation, first, second, 0);
+        if (result < 0) {
+            int level = Math.min(nodeLevels[first], nodeLevels[second]);
+            int low = apply(operation, low(first, level), low(second, level));
+            int high = apply(operation, high(first, level), high(second, level));
+            result = makeNode(level, low, high);
+            store(operation, first, second, 0, result);
+        }
+        return result;
+    }
+
+    private int restrict(int node) {
+        int level = nodeLevels[node];
+        if (level > lastMarkedLevel) {
+            return node;
+        }
+        int result = lookup(RESTRICT, node, epoch, 0);
+        if (result < 0) {
+            byte value = restrictedValues[level];
+            if (value > 0) {
+                result = restrict(nodeHighs[node]);
+            } else if (value < 0) {
+                result = restrict(nodeLows[node]);
+            } else {
+                result = makeNode(level, restrict(nodeLows[node]), restrict(nodeHighs[node]));
+            }
+            store(RESTRICT, node, epoch, 0, result);
+        }
+        return result;
+    }
+
+    private int exists(int node) {
+        int level = nodeLevels[node];
+        if (level > lastMarkedLevel) {
+            return node;
+        }
+        int result = lookup(EXISTS, node, epoch, 0);
+        if (result < 0) {
+            int low = exists(nodeLows[node]);
+            int high = exists(nodeHighs[node]);
+            if (quantifiedLevels[level]) {
+                result = or(low, high);
+            } else {
+                result = makeNode(level, low, high);
+            }
+            store(EXISTS, node, epoch, 0, result);
+        }
+        return result;
+    }
+
+    private int low(int node, int level) {
+        return nodeLevels[node] == level ? nodeLows[node] : node;
+    }
+
+    private int high(int node, int level) {
+        return nodeLevels[node] == level ? nodeHighs[node] : node;
+    }
+
+    private int[] sortByLevel(int[] literals) {
+        long[] keys = new long[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            keys[i] = ((long) variableToLevel[Math.abs(literals[i])] << 32) | (literals[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        int[] sortedLiterals = new int[literals.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedLiterals[i] = (int) keys[i];
+        }
+        return sortedLiterals;
+    }
+
+    private void nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            epoch = 1;
+            Arrays.fill(cacheOperations, 0);
+        }
+    }
+
+    private int lookup(int operation, int first, int second, int third) {
+        int index = hash(operation + 31 * first, second, third) & (cacheOperations.length - 1);
+        return cacheOperations[index] == operation
+                        && cacheFirstOperands[index] == first
+                        && cacheSecondOperands[index] == second
+                        && cacheThirdOperands[index] == third
+                ? cacheResults[index]
+                : -1;
+    }
+
+    private void store(int operation, int first, int second, int third, int result) {
+        int index = hash(operation + 31 * first, second, third) & (cacheOperations.length - 1);
+        cacheOperations[index] = operation;
+        cacheFirstOperands[index] = first;
+        cacheSecondOperands[index] = second;
+        cacheThirdOperands[index] = third;
+        cacheResults[index] = result;
+    }
+
+    private void resizeUniqueTable(int capacity) {
+        uniqueTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int node = 2; node < nodeCount; node++) {
+            int index = hash(nodeLevels[node], nodeLows[node], nodeHighs[node]) & mask;
+            while (uniqueTable[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            uniqueTable[index] = node;
+        }
+        resizeCache(capacity);
+    }
+
+    private void resizeCache(int capacity) {
+        cacheOperations = new int[capacity];
+        cacheFirstOperands = new int[capacity];
+        cacheSecondOperands = new int[capacity];
+        cacheThirdOperands = new int[capacity];
+        cacheResults = new int[capacity];
+    }
+
+    private static int hash(int first, int second, int third) {
+        int hash = first * 0x9E3779B9 + second;
+        hash = hash * 0x85EBCA6B + third;
+        return hash ^ (hash >>> 15);
+    }
+}
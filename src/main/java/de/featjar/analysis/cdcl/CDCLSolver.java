@@ -0,0 +1,698 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.cdcl;
+
+import de.featjar.analysis.IConfigurationUpdater;
+import de.featjar.analysis.ISolver;
+import de.featjar.analysis.RuntimeContradictionException;
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanClauseListPropagator;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Conflict-driven clause learning SAT solver for a {@link BooleanClauseList}.
+ * Builds on the watched-literal propagation of {@link BooleanClauseListPropagator} and adds VSIDS branching with
+ * phase saving, first-UIP clause learning, Luby restarts, and deletion of learned clauses with a high literal block
+ * distance.
+ * Clauses can be added between calls and all learned clauses are kept across calls.
+ * Clauses that are only needed for a single call (i.e., excluded interactions in
+ * {@link #complete(Collection, Collection, Collection)}) are guarded by an activation variable, which is reused by all
+ * calls. Afterwards, these clauses and all clauses learned from them are deleted, such that the number of variables
+ * and clauses does not grow with the number of calls.
+ *
+ * @author Sebastian Krieter
+ */
+public class CDCLSolver extends BooleanClauseListPropagator implements ISolver, IConfigurationUpdater {
+
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final double ACTIVITY_LIMIT = 1e100;
+    private static final int RESTART_UNIT = 100;
+    private static final int TIMEOUT_CHECK_INTERVAL = 64;
+    private static final double LEARNED_CLAUSE_GROWTH = 1.1;
+
+    private final int originalVariableCount;
+
+    private double[] activities;
+    private double activityIncrement = 1;
+    private int[] heap;
+    private int[] heapIndices;
+    private int heapSize;
+    private boolean[] phases;
+
+    /**
+     * For each clause, its literal block distance if it was learned, {@code 0} otherwise.
+     */
+    private int[] clauseLbds;
+
+    private int learnedClauseCount;
+    private double maximumLearnedClauseCount;
+
+    private int[] model = new int[0];
+
+    private boolean[] seen;
+    private int[] learnedClause = new int[16];
+    private int[] levelStamps = new int[16];
+    private int levelStamp;
+
+    private Duration timeout = Duration.ZERO;
+    private boolean isTimeoutOccurred;
+    private long deadline;
+    private long conflictCount;
+    private long timeoutCheckCount;
+
+    /**
+     * The variable that guards the clauses of excluded interactions, or {@code 0} if there was no such clause yet.
+     */
+    private int activationVariable;
+
+    /**
+     * Creates a new solver for a given clause list.
+     * If the clause list is obviously unsatisfiable, the solver is created anyway and reports no solution.
+     *
+     * @param clauseList the clause list
+     */
+    public CDCLSolver(BooleanClauseList clauseList) {
+        super(new BooleanClauseList(clauseList.getVariableCount()));
+        originalVariableCount = variableCount;
+        int capacity = values.length;
+        activities = new double[capacity];
+        phases = new boolean[capacity];
+        seen = new boolean[capacity];
+        heap = new int[capacity];
+        heapIndices = new int[capacity];
+        Arrays.fill(heapIndices, -1);
+        for (int variable = 1; variable <= variableCount; variable++) {
+            insertIntoHeap(variable);
+        }
+        clauseLbds = new int[clauses.length];
+        for (BooleanClause clause : clauseList.getAll()) {
+            try {
+                addClause(clause.get());
+            } catch (RuntimeContradictionException e) {
+                break;
+            }
+        }
+        maximumLearnedClauseCount = Math.max(clauseCount / 3.0, 1000);
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * {@inheritDoc} A zero or negative timeout disables the timeout.
+     */
+    @Override
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout == null ? Duration.ZERO : timeout;
+    }
+
+    @Override
+    public boolean isTimeoutOccurred() {
+        return isTimeoutOccurred;
+    }
+
+    /**
+     * {@return the number of conflicts that occurred in all calls so far}
+     */
+    public long getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * {@return the number of learned clauses that are currently kept}
+     */
+    public int getLearnedClauseCount() {
+        return learnedClauseCount;
+    }
+
+    /**
+     * {@return whether the clauses are satisfiable under given assumptions}
+     * The result is empty if a timeout occurs.
+     *
+     * @param assumptions the assumed literals
+     */
+    public Result<Boolean> hasSolution(int... assumptions) {
+        Boolean isSatisfiable = solve(assumptions);
+        return isSatisfiable == null
+                ? Result.empty(ISolver.getTimeoutProblem(null))
+                : Result.of(isSatisfiable);
+    }
+
+    /**
+     * {@return a solution of the clauses under given assumptions}
+     * The result is empty if there is no solution or a timeout occurs.
+     *
+     * @param assumptions the assumed literals
+     */
+    public Result<BooleanSolution> findSolution(int... assumptions) {
+        Boolean isSatisfiable = solve(assumptions);
+        if (isSatisfiable == null) {
+            return Result.empty(ISolver.getTimeoutProblem(null));
+        }
+        return isSatisfiable ? Result.of(getModel()) : Result.empty();
+    }
+
+    @Override
+    public Result<BooleanSolution> update(ABooleanAssignment partialSolution) {
+        return findSolution(Arrays.stream(partialSolution.get())
+                .filter(literal -> literal != 0)
+                .toArray());
+    }
+
+    /**
+     * {@inheritDoc}
+     * The solution contains all literals of each interaction in {@code include} and not all literals of any
+     * interaction in {@code exclude}.
+     * Interactions in {@code choose} are included greedily in the given order, if possible.
+     * Interactions that are already contained in the current solution are accepted without calling the solver again.
+     * If a timeout occurs while choosing, the solution found so far is returned.
+     */
+    @Override
+    public Result<BooleanSolution> complete(
+            Collection<int[]> include, Collection<int[]> exclude, Collection<int[]> choose) {
+        if (isContradiction) {
+            return Result.empty();
+        }
+        int[] assumptions = new int[16];
+        int assumptionCount = 0;
+        boolean hasExclusions = exclude != null && !exclude.isEmpty();
+        try {
+            if (hasExclusions) {
+                if (activationVariable == 0) {
+                    activationVariable = addVariable();
+                }
+                assumptions[assumptionCount++] = activationVariable;
+                for (int[] interaction : exclude) {
+                    int[] clause = new int[interaction.length + 1];
+                    clause[0] = -activationVariable;
+                    for (int i = 0; i < interaction.length; i++) {
+                        clause[i + 1] = -interaction[i];
+                    }
+                    addClause(clause);
+                }
+            }
+            if (include != null) {
+                for (int[] interaction : include) {
+                    assumptions = ensureCapacity(assumptions, assumptionCount + interaction.length);
+                    System.arraycopy(interaction, 0, assumptions, assumptionCount, interaction.length);
+                    assumptionCount += interaction.length;
+                }
+            }
+            Boolean isSatisfiable = solve(Arrays.copyOf(assumptions, assumptionCount));
+            if (isSatisfiable == null) {
+                return Result.empty(ISolver.getTimeoutProblem(null));
+            } else if (!isSatisfiable) {
+                return Result.empty();
+            }
+            BooleanSolution solution = getModel();
+            if (choose != null) {
+                for (int[] interaction : choose) {
+                    assumptions = ensureCapacity(assumptions, assumptionCount + interaction.length);
+                    System.arraycopy(interaction, 0, assumptions, assumptionCount, interaction.length);
+                    if (solution.containsAll(interaction)) {
+                        assumptionCount += interaction.length;
+                        continue;
+                    }
+                    isSatisfiable = solve(Arrays.copyOf(assumptions, assumptionCount + interaction.length));
+                    if (isSatisfiable == null) {
+                        break;
+                    } else if (isSatisfiable) {
+                        assumptionCount += interaction.length;
+                        solution = getModel();
+                    }
+                }
+            }
+            return Result.of(solution);
+        } finally {
+            if (hasExclusions) {
+                removeActivationClauses();
+            }
+        }
+    }
+
+    /**
+     * Searches for a solution under given assumptions.
+     * Afterwards, all decision levels are undone and a found solution can be retrieved with {@link #getModel()}.
+     *
+     * @param assumptions the assumed literals
+     * @return {@code true} if a solution was found, {@code false} if there is none, and {@code null} on timeout
+     */
+    protected Boolean solve(int[] assumptions) {
+        isTimeoutOccurred = false;
+        undoAll();
+        if (isContradiction) {
+            return Boolean.FALSE;
+        }
+        deadline = timeout.isZero() || timeout.isNegative() ? 0 : System.nanoTime() + timeout.toNanos();
+        for (int restart = 0; ; restart++) {
+            Boolean result = search(assumptions, RESTART_UNIT * luby(restart));
+            undoAll();
+            if (result != null || isTimeoutOccurred) {
+                return result;
+            }
+            if (learnedClauseCount >= maximumLearnedClauseCount) {
+                reduceLearnedClauses();
+                maximumLearnedClauseCount *= LEARNED_CLAUSE_GROWTH;
+            }
+        }
+    }
+
+    /**
+     * {@return the solution found by the last successful call of {@link #solve(int[])}}
+     */
+    protected BooleanSolution getModel() {
+        return new BooleanSolution(Arrays.copyOf(model, originalVariableCount), false);
+    }
+
+    private Boolean search(int[] assumptions, long conflictLimit) {
+        long conflicts = 0;
+        while (true) {
+            if (!propagate()) {
+                if (isContradiction) {
+                    return Boolean.FALSE;
+                }
+                conflictCount++;
+                conflicts++;
+                int clauseSize = analyze(conflict);
+                int backtrackLevel = clauseSize == 1 ? 0 : levels[Math.abs(learnedClause[1])];
+                int lbd = computeLbd(clauseSize);
+                undo(backtrackLevel);
+                if (clauseSize == 1) {
+                    enqueue(learnedClause[0], NO_REASON);
+                } else {
+                    int clauseIndex = attachClause(Arrays.copyOf(learnedClause, clauseSize));
+                    clauseLbds[clauseIndex] = lbd;
+                    learnedClauseCount++;
+                    enqueue(learnedClause[0], clauseIndex);
+                }
+                activityIncrement /= VARIABLE_DECAY;
+                if (isDeadlineExceeded()) {
+                    return null;
+                }
+            } else {
+                if (conflicts >= conflictLimit || isDeadlineExceeded()) {
+                    return null;
+                }
+                int literal = 0;
+                while (decisionLevel < assumptions.length) {
+                    int assumption = assumptions[decisionLevel];
+                    int value = getValue(assumption);
+                    if (value > 0) {
+                        newDecisionLevel();
+                    } else if (value < 0) {
+                        return Boolean.FALSE;
+                    } else {
+                        literal = assumption;
+                        break;
+                    }
+                }
+                if (literal == 0) {
+                    literal = pickBranchLiteral();
+                    if (literal == 0) {
+                        model = Arrays.copyOfRange(values, 1, variableCount + 1);
+                        return Boolean.TRUE;
+                    }
+                }
+                newDecisionLevel();
+                enqueue(literal, NO_REASON);
+            }
+        }
+    }
+
+    /**
+     * Checks the deadline at every {@link #TIMEOUT_CHECK_INTERVAL}th call, which happens at each conflict and decision.
+     *
+     * @return whether a timeout occurred
+     */
+    private boolean isDeadlineExceeded() {
+        if (deadline != 0 && ++timeoutCheckCount % TIMEOUT_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            isTimeoutOccurred = true;
+        }
+        return isTimeoutOccurred;
+    }
+
+    /**
+     * Derives a first-UIP clause from a conflicting clause into {@link #learnedClause}.
+     * The asserting literal is placed first and a literal of the highest remaining decision level second.
+     *
+     * @param conflictingClause the index of the conflicting clause
+     * @return the number of literals of the learned clause
+     */
+    private int analyze(int conflictingClause) {
+        int clauseSize = 1;
+        int pathCount = 0;
+        int literal = 0;
+        int trailIndex = trailSize - 1;
+        int clauseIndex = conflictingClause;
+        do {
+            int[] clause = clauses[clauseIndex];
+            for (int i = literal == 0 ? 0 : 1; i < clause.length; i++) {
+                int otherLiteral = clause[i];
+                int variable = Math.abs(otherLiteral);
+                if (!seen[variable] && levels[variable] > 0) {
+                    seen[variable] = true;
+                    bumpActivity(variable);
+                    if (levels[variable] >= decisionLevel) {
+                        pathCount++;
+                    } else {
+                        learnedClause = ensureCapacity(learnedClause, clauseSize + 1);
+                        learnedClause[clauseSize++] = otherLiteral;
+                    }
+                }
+            }
+            while (!seen[Math.abs(trail[trailIndex--])]) {}
+            literal = trail[trailIndex + 1];
+            clauseIndex = reasons[Math.abs(literal)];
+            seen[Math.abs(literal)] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnedClause[0] = -literal;
+
+        int analyzedSize = clauseSize;
+        clauseSize = 1;
+        for (int i = 1; i < analyzedSize; i++) {
+            int otherLiteral = learnedClause[i];
+            if (!isRedundant(otherLiteral)) {
+                learnedClause[i] = learnedClause[clauseSize];
+                learnedClause[clauseSize++] = otherLiteral;
+            }
+        }
+        for (int i = 1; i < analyzedSize; i++) {
+            seen[Math.abs(learnedClause[i])] = false;
+        }
+
+        if (clauseSize > 2) {
+            int maximumIndex = 1;
+            for (int i = 2; i < clauseSize; i++) {
+                if (levels[Math.abs(learnedClause[i])] > levels[Math.abs(learnedClause[maximumIndex])]) {
+                    maximumIndex = i;
+                }
+            }
+            int swap = learnedClause[1];
+            learnedClause[1] = learnedClause[maximumIndex];
+            learnedClause[maximumIndex] = swap;
+        }
+        return clauseSize;
+    }
+
+    private boolean isRedundant(int literal) {
+        int reason = reasons[Math.abs(literal)];
+        if (reason == NO_REASON) {
+            return false;
+        }
+        int[] clause = clauses[reason];
+        for (int i = 1; i < clause.length; i++) {
+            int variable = Math.abs(clause[i]);
+            if (!seen[variable] && levels[variable] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int computeLbd(int clauseSize) {
+        if (++levelStamp == Integer.MAX_VALUE) {
+            Arrays.fill(levelStamps, 0);
+            levelStamp = 1;
+        }
+        levelStamps = ensureCapacity(levelStamps, decisionLevel + 1);
+        int lbd = 0;
+        for (int i = 0; i < clauseSize; i++) {
+            int level = levels[Math.abs(learnedClause[i])];
+            if (levelStamps[level] != levelStamp) {
+                levelStamps[level] = levelStamp;
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+
+    /**
+     * Deletes half of the learned clauses with a literal block distance above two, preferring those with the highest
+     * distance, and removes all clauses and literals that are fixed without assumptions.
+     * Must be called without any decision level.
+     */
+    private void reduceLearnedClauses() {
+        int[] candidates = new int[learnedClauseCount];
+        int candidateCount = 0;
+        for (int i = 0; i < clauseCount; i++) {
+            if (clauseLbds[i] > 2) {
+                candidates[candidateCount++] = i;
+            }
+        }
+        long[] keys = new long[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            keys[i] = ((long) -clauseLbds[candidates[i]] << 32) | candidates[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < candidateCount / 2; i++) {
+            clauses[(int) keys[i]] = null;
+        }
+        compactClauses();
+    }
+
+    /**
+     * Deletes all clauses that contain the activation variable, that is, the clauses of excluded interactions and all
+     * clauses learned from them, and unassigns the activation variable if it is fixed.
+     * Learned clauses that do not contain the activation variable do not depend on excluded interactions and are kept.
+     */
+    private void removeActivationClauses() {
+        undoAll();
+        int literal = values[activationVariable];
+        if (literal != 0) {
+            // fixed by a learned unit clause or by a clause of an excluded interaction, but implies no other literal
+            int index = 0;
+            while (trail[index] != literal) {
+                index++;
+            }
+            System.arraycopy(trail, index + 1, trail, index, trailSize - index - 1);
+            trailSize--;
+            if (propagationHead > index) {
+                propagationHead--;
+            }
+            unassigned(literal);
+            values[activationVariable] = 0;
+            reasons[activationVariable] = NO_REASON;
+        }
+        for (int i = 0; i < clauseCount; i++) {
+            for (int otherLiteral : clauses[i]) {
+                if (Math.abs(otherLiteral) == activationVariable) {
+                    clauses[i] = null;
+                    break;
+                }
+            }
+        }
+        compactClauses();
+    }
+
+    /**
+     * Removes all deleted clauses (i.e., {@code null} entries), all clauses that are satisfied without assumptions,
+     * and all literals that are false without assumptions, and watches the remaining clauses again.
+     * Must be called without any decision level.
+     */
+    private void compactClauses() {
+        int keptCount = 0;
+        learnedClauseCount = 0;
+        for (int i = 0; i < clauseCount; i++) {
+            int[] clause = clauses[i];
+            if (clause == null) {
+                continue;
+            }
+            int size = 0;
+            boolean isSatisfied = false;
+            for (int literal : clause) {
+                int value = getValue(literal);
+                if (value > 0) {
+                    isSatisfied = true;
+                    break;
+                } else if (value == 0) {
+                    clause[size++] = literal;
+                }
+            }
+            if (isSatisfied) {
+                continue;
+            }
+            clauses[keptCount] = size == clause.length ? clause : Arrays.copyOf(clause, size);
+            clauseLbds[keptCount] = clauseLbds[i];
+            if (clauseLbds[i] > 0) {
+                learnedClauseCount++;
+            }
+            keptCount++;
+        }
+        Arrays.fill(clauses, keptCount, clauseCount, null);
+        clauseCount = keptCount;
+        Arrays.fill(watchCounts, 0);
+        for (int i = 0; i < clauseCount; i++) {
+            watch(clauses[i][0], i);
+            watch(clauses[i][1], i);
+        }
+        for (int i = 0; i < trailSize; i++) {
+            reasons[Math.abs(trail[i])] = NO_REASON;
+        }
+    }
+
+    @Override
+    protected int attachClause(int[] clause) {
+        int clauseIndex = super.attachClause(clause);
+        if (clauseIndex >= clauseLbds.length) {
+            clauseLbds = Arrays.copyOf(clauseLbds, clauses.length);
+        }
+        clauseLbds[clauseIndex] = 0;
+        return clauseIndex;
+    }
+
+    @Override
+    protected int addVariable() {
+        int variable = super.addVariable();
+        if (variable >= activities.length) {
+            int capacity = values.length;
+            activities = Arrays.copyOf(activities, capacity);
+            phases = Arrays.copyOf(phases, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            heapIndices = Arrays.copyOf(heapIndices, capacity);
+            Arrays.fill(heapIndices, variable, capacity, -1);
+        }
+        insertIntoHeap(variable);
+        return variable;
+    }
+
+    @Override
+    protected void unassigned(int literal) {
+        int variable = Math.abs(literal);
+        phases[variable] = literal > 0;
+        if (heapIndices[variable] < 0) {
+            insertIntoHeap(variable);
+        }
+    }
+
+    private int pickBranchLiteral() {
+        while (heapSize > 0) {
+            int variable = removeMaximumFromHeap();
+            if (values[variable] == 0) {
+                return phases[variable] ? variable : -variable;
+            }
+        }
+        return 0;
+    }
+
+    private void bumpActivity(int variable) {
+        if ((activities[variable] += activityIncrement) > ACTIVITY_LIMIT) {
+            for (int i = 1; i <= variableCount; i++) {
+                activities[i] /= ACTIVITY_LIMIT;
+            }
+            activityIncrement /= ACTIVITY_LIMIT;
+        }
+        if (heapIndices[variable] >= 0) {
+            siftUp(heapIndices[variable]);
+        }
+    }
+
+    private void insertIntoHeap(int variable) {
+        heapIndices[variable] = heapSize;
+        heap[heapSize++] = variable;
+        siftUp(heapSize - 1);
+    }
+
+    private int removeMaximumFromHeap() {
+        int variable = heap[0];
+        heapIndices[variable] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndices[last] = 0;
+            siftDown(0);
+        }
+        return variable;
+    }
+
+    private void siftUp(int index) {
+        int variable = heap[index];
+        double activity = activities[variable];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            int parent = heap[parentIndex];
+            if (activities[parent] >= activity) {
+                break;
+            }
+            heap[index] = parent;
+            heapIndices[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = variable;
+        heapIndices[variable] = index;
+    }
+
+    private void siftDown(int index) {
+        int variable = heap[index];
+        double activity = activities[variable];
+        while (true) {
+            int childIndex = (index << 1) + 1;
+            if (childIndex >= heapSize) {
+                break;
+            }
+            if (childIndex + 1 < heapSize && activities[heap[childIndex + 1]] > activities[heap[childIndex]]) {
+                childIndex++;
+            }
+            int child = heap[childIndex];
+            if (activities[child] <= activity) {
+                break;
+            }
+            heap[index] = child;
+            heapIndices[child] = index;
+            index = childIndex;
+        }
+        heap[index] = variable;
+        heapIndices[variable] = index;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length << 1));
+    }
+
+    /**
+     * {@return the element at a given index of the Luby sequence (1, 1, 2, 1, 1, 2, 4, ...)}
+     *
+     * @param index the index, starting at zero
+     */
+    private static long luby(int index) {
+        int size = 1;
+        int sequence = 0;
+        while (size < index + 1) {
+            sequence++;
+            size = (size << 1) + 1;
+        }
+        while (size - 1 != index) {
+            size = (size - 1) >> 1;
+            sequence--;
+            index = index % size;
+        }
+        return 1L << sequence;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.ddnnf;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A Boolean function in smooth deterministic decomposable negation normal form (d-DNNF).
+ * Nodes are stored in flat arrays in topological order, such that children come before their parents and the last
+ * node is the root.
+ * An {@link #AND} node without children is {@code true} and an {@link #OR} node without children is {@code false}.
+ * <p>
+ * Every query is answered with a single pass over all nodes, so its runtime is linear in the size of the d-DNNF.
+ * Queries accept assumptions, which are literals that must be contained in all considered solutions.
+ * Solution counts without assumptions are computed once and reused.
+ * <p>
+ * Smoothness is required, that is, all children of an {@link #OR} node must contain the same variables and every
+ * variable must occur in the root.
+ * {@link DDNNFCompiler} creates such d-DNNFs.
+ *
+ * @author Sebastian Krieter
+ */
+public class DDNNF {
+
+    /**
+     * The kind of a literal node.
+     */
+    public static final byte LITERAL = 0;
+
+    /**
+     * The kind of a conjunction, whose children do not share any variables.
+     */
+    public static final byte AND = 1;
+
+    /**
+     * The kind of a disjunction, whose children do not share any solutions.
+     */
+    public static final byte OR = 2;
+
+    private final int variableCount;
+    private final byte[] kinds;
+    private final int[] values;
+    private final int[] childStarts;
+    private final int[] children;
+
+    private BigInteger[] counts;
+
+    /**
+     * Creates a new d-DNNF.
+     * The children of node {@code i} are stored in {@code children} from index {@code childStarts[i]} (inclusive) to
+     * index {@code childStarts[i + 1]} (exclusive) and must be smaller than {@code i}.
+     *
+     * @param variableCount the number of variables
+     * @param kinds for each node, its kind
+     * @param values for each node, its literal if it is a literal node, its decision variable if it is an {@link #OR}
+     *     node that decides a variable, and {@code 0} otherwise
+     * @param childStarts for each node, the start of its children, followed by the total number of children
+     * @param children the children of all nodes
+     */
+    public DDNNF(int variableCount, byte[] kinds, int[] values, int[] childStarts, int[] children) {
+        if (kinds.length == 0 || values.length != kinds.length || childStarts.length != kinds.length + 1) {
+            throw new IllegalArgumentException("Inconsistent number of nodes");
+        }
+        for (int node = 0; node < kinds.length; node++) {
+            if (Math.abs(values[node]) > variableCount) {
+                throw new IllegalArgumentException("Invalid variable in node " + node);
+            }
+            boolean isValid = kinds[node] == LITERAL
+                    ? values[node] != 0 && childStarts[node] == childStarts[node + 1]
+                    : kinds[node] == AND || kinds[node] == OR;
+            if (!isValid) {
+                throw new IllegalArgumentException("Invalid node " + node);
+            }
+            for (int i = childStarts[node]; i < childStarts[node + 1]; i++) {
+                if (children[i] < 0 || children[i] >= node) {
+                    throw new IllegalArgumentException("Invalid child of node " + node);
+                }
+            }
+        }
+        this.variableCount = variableCount;
+        this.kinds = kinds;
+        this.values = values;
+        this.childStarts = childStarts;
+        this.children = children;
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the number of nodes}
+     */
+    public int getNodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * {@return the number of edges}
+     */
+    public int getEdgeCount() {
+        return childStarts[kinds.length];
+    }
+
+    /**
+     * {@return the root node}
+     */
+    public int getRoot() {
+        return kinds.length - 1;
+    }
+
+    /**
+     * {@return the kind of a given node}
+     *
+     * @param node the node
+     */
+    public byte getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * {@return the literal of a literal node or the decision variable of an {@link #OR} node, or {@code 0}}
+     *
+     * @param node the node
+     */
+    public int getValue(int node) {
+        return values[node];
+    }
+
+    /**
+     * {@return the children of a given node}
+     *
+     * @param node the node
+     */
+    public int[] getChildren(int node) {
+        return Arrays.copyOfRange(children, childStarts[node], childStarts[node + 1]);
+    }
+
+    /**
+     * {@return the number of solutions that contain all given literals}
+     *
+     * @param assumptions the literals
+     */
+    public BigInteger countSolutions(int... assumptions) {
+        return getCounts(assumptions)[getRoot()];
+    }
+
+    /**
+     * {@return for each literal, the number of solutions that contain it and all given literals}
+     * The count of a positive literal {@code l} is stored at index {@code 2 * (l - 1)} and the count of its negation
+     * at index {@code 2 * (l - 1) + 1}.
+     * All counts are computed in one pass by propagating the partial derivative of the root count down to the
+     * literal nodes.
+     *
+     * @param assumptions the literals
+     */
+    public BigInteger[] countLiteralSolutions(int... assumptions) {
+        BigInteger[] counts = getCounts(assumptions);
+        BigInteger[] derivatives = new BigInteger[kinds.length];
+        Arrays.fill(derivatives, BigInteger.ZERO);
+        derivatives[getRoot()] = BigInteger.ONE;
+        BigInteger[] literalCounts = new BigInteger[2 * variableCount];
+        Arrays.fill(literalCounts, BigInteger.ZERO);
+        BigInteger[] suffixProducts = new BigInteger[0];
+        for (int node = kinds.length - 1; node >= 0; node--) {
+            BigInteger derivative = derivatives[node];
+            if (derivative.signum() == 0) {
+                continue;
+            }
+            int start = childStarts[node];
+            int end = childStarts[node + 1];
+            switch (kinds[node]) {
+                case LITERAL: {
+                    if (counts[node].signum() != 0) {
+                        int literal = values[node];
+                        int index = 2 * (Math.abs(literal) - 1) + (literal > 0 ? 0 : 1);
+                        literalCounts[index] = literalCounts[index].add(derivative);
+                    }
+                    break;
+                }
+                case AND: {
+                    if (suffixProducts.length < end - start + 1) {
+                        suffixProducts = new BigInteger[end - start + 1];
+                    }
+                    suffixProducts[end - start] = BigInteger.ONE;
+                    for (int i = end - 1; i >= start; i--) {
+                        suffixProducts[i - start] = suffixProducts[i - start + 1].multiply(counts[children[i]]);
+                    }
+                    BigInteger prefixProduct = derivative;
+                    for (int i = start; i < end; i++) {
+                        int child = children[i];
+                        derivatives[child] =
+                                derivatives[child].add(prefixProduct.multiply(suffixProducts[i - start + 1]));
+                        prefixProduct = prefixProduct.multiply(counts[child]);
+                    }
+                    break;
+                }
+                case OR: {
+                    for (int i = start; i < end; i++) {
+                        int child = children[i];
+                        derivatives[child] = derivatives[child].add(derivative);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(kinds[node]));
+            }
+        }
+        return literalCounts;
+    }
+
+    /**
+     * {@return a solution drawn uniformly at random from all solutions that contain all given literals}
+     * The result is empty if there is no such solution.
+     * Only nodes of the sampled solution are visited, so drawing a sample after the solutions have been counted takes
+     * linear time in the size of the sampled sub-circuit.
+     *
+     * @param random the random number generator
+     * @param assumptions the literals
+     */
+    public Result<BooleanSolution> sample(Random random, int... assumptions) {
+        BigInteger[] counts = getCounts(assumptions);
+        if (counts[getRoot()].signum() == 0) {
+            return Result.empty();
+        }
+        int[] literals = new int[variableCount];
+        int[] stack = new int[16];
+        int stackSize = 0;
+        stack[stackSize++] = getRoot();
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int start = childStarts[node];
+            int end = childStarts[node + 1];
+            switch (kinds[node]) {
+                case LITERAL:
+                    literals[Math.abs(values[node]) - 1] = values[node];
+                    break;
+                case AND:
+                    if (stackSize + end - start > stack.length) {
+                        stack = Arrays.copyOf(stack, Math.max(stack.length << 1, stackSize + end - start));
+                    }
+                    for (int i = start; i < end; i++) {
+                        stack[stackSize++] = children[i];
+                    }
+                    break;
+                case OR: {
+                    BigInteger choice = nextBigInteger(random, counts[node]);
+                    for (int i = start; i < end; i++) {
+                        choice = choice.subtract(counts[children[i]]);
+                        if (choice.signum() < 0) {
+                            stack[stackSize++] = children[i];
+                            break;
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(kinds[node]));
+            }
+        }
+        return Result.of(new BooleanSolution(literals, false));
+    }
+
+    private BigInteger[] getCounts(int... assumptions) {
+        if (assumptions.length == 0 && counts != null) {
+            return counts;
+        }
+        boolean[] excludedLiterals = new boolean[2 * variableCount];
+        for (int literal : assumptions) {
+            int variable = Math.abs(literal);
+            if (variable == 0 || variable > variableCount) {
+                throw new IllegalArgumentException(String.valueOf(literal));
+            }
+            excludedLiterals[2 * (variable - 1) + (literal > 0 ? 1 : 0)] = true;
+        }
+        BigInteger[] nodeCounts = new BigInteger[kinds.length];
+        for (int node = 0; node < kinds.length; node++) {
+            int start = childStarts[node];
+            int end = childStarts[node + 1];
+            switch (kinds[node]) {
+                case LITERAL: {
+                    int literal = values[node];
+                    nodeCounts[node] = excludedLiterals[2 * (Math.abs(literal) - 1) + (literal > 0 ? 0 : 1)]
+                            ? BigInteger.ZERO
+                            : BigInteger.ONE;
+                    break;
+                }
+                case AND: {
+                    BigInteger count = BigInteger.ONE;
+                    for (int i = start; i < end && count.signum() != 0; i++) {
+                        count = count.multiply(nodeCounts[children[i]]);
+                    }
+                    nodeCounts[node] = count;
+                    break;
+                }
+                case OR: {
+                    BigInteger count = BigInteger.ZERO;
+                    for (int i = start; i < end; i++) {
+                        count = count.add(nodeCounts[children[i]]);
+                    }
+                    nodeCounts[node] = count;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(kinds[node]));
+            }
+        }
+        if (assumptions.length == 0) {
+            counts = nodeCounts;
+        }
+        return nodeCounts;
+    }
+
+    private static BigInteger nextBigInteger(Random random, BigInteger bound) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.ddnnf;
+
+import de.featjar.analysis.RuntimeContradictionException;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanClauseListPropagator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Top-down compiler from a {@link BooleanClauseList} into a smooth {@link DDNNF}.
+ * Decides one variable at a time and splits the remaining clauses into components that do not share any variables,
+ * which are compiled independently and conjoined.
+ * Each component is identified by its variables and its clauses that are not satisfied yet, and components that were
+ * compiled before are looked up in a cache.
+ * <p>
+ * After each decision, literals are propagated with the watched-literal propagation of
+ * {@link BooleanClauseListPropagator}.
+ * In addition, both literals of each clause that became binary due to the decision are probed (i.e., implicit
+ * boolean constraint propagation): if assuming the negation of a literal leads to a conflict, the literal is implied.
+ * Variables that are not contained in any remaining clause are added as free variables, so the result is smooth.
+ *
+ * @author Sebastian Krieter
+ */
+public class DDNNFCompiler extends BooleanClauseListPropagator {
+
+    private static final int FALSE_NODE = 0;
+    private static final int TRUE_NODE = 1;
+
+    /**
+     * Identifies a component by its sorted variables and sorted clauses, stored as variable-length encoded
+     * differences.
+     */
+    private static final class ComponentSignature {
+        private final byte[] data;
+        private final int hashCode;
+
+        private ComponentSignature(byte[] data) {
+            this.data = data;
+            hashCode = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ComponentSignature && Arrays.equals(data, ((ComponentSignature) obj).data);
+        }
+    }
+
+    private final HashMap<ComponentSignature, Integer> cache = new HashMap<>();
+
+    private int[][] occurrences;
+    private int[] clauseStamps;
+    private int[] variableStamps;
+    private int stamp;
+    private int[] variableQueue;
+    private int[] clauseQueue;
+    private int[] occurrenceCounts;
+    private byte[] signatureBuffer = new byte[64];
+
+    private byte[] kinds;
+    private int[] nodeValues;
+    private int[] childStarts;
+    private int[] children;
+    private int nodeCount;
+    private int[] literalNodes;
+    private int[] freeNodes;
+
+    /**
+     * Creates a new compiler for a given clause list.
+     * If the clause list is obviously unsatisfiable, the compiler is created anyway and compiles to {@code false}.
+     *
+     * @param clauseList the clause list
+     */
+    public DDNNFCompiler(BooleanClauseList clauseList) {
+        super(new BooleanClauseList(clauseList.getVariableCount()));
+        for (BooleanClause clause : clauseList.getAll()) {
+            try {
+                addClause(clause.get());
+            } catch (RuntimeContradictionException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@return the d-DNNF of all clauses}
+     */
+    public DDNNF compile() {
+        undoAll();
+        initialize();
+        int root;
+        if (isContradiction()) {
+            root = FALSE_NODE;
+        } else {
+            int[] variables = new int[variableCount];
+            int variableIndex = 0;
+            for (int variable = 1; variable <= variableCount; variable++) {
+                if (values[variable] == 0) {
+                    variables[variableIndex++] = variable;
+                }
+            }
+            int[] componentClauses = new int[clauseCount];
+            Arrays.setAll(componentClauses, i -> i);
+            root = conjoinComponents(0, Arrays.copyOf(variables, variableIndex), componentClauses);
+        }
+        DDNNF ddnnf = createDDNNF(root);
+        cache.clear();
+        occurrences = null;
+        kinds = null;
+        nodeValues = null;
+        childStarts = null;
+        children = null;
+        return ddnnf;
+    }
+
+    private void initialize() {
+        int[] occurrenceSizes = new int[variableCount + 1];
+        for (int i = 0; i < clauseCount; i++) {
+            for (int literal : clauses[i]) {
+                occurrenceSizes[Math.abs(literal)]++;
+            }
+        }
+        occurrences = new int[variableCount + 1][];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            occurrences[variable] = new int[occurrenceSizes[variable]];
+        }
+        Arrays.fill(occurrenceSizes, 0);
+        for (int i = 0; i < clauseCount; i++) {
+            for (int literal : clauses[i]) {
+                int variable = Math.abs(literal);
+                occurrences[variable][occurrenceSizes[variable]++] = i;
+            }
+        }
+        clauseStamps = new int[clauseCount];
+        variableStamps = new int[variableCount + 1];
+        stamp = 0;
+        variableQueue = new int[variableCount];
+        clauseQueue = new int[clauseCount];
+        occurrenceCounts = new int[variableCount + 1];
+
+        kinds = new byte[64];
+        nodeValues = new int[64];
+        childStarts = new int[65];
+        children = new int[128];
+        nodeCount = 0;
+        literalNodes = new int[(variableCount + 1) << 1];
+        freeNodes = new int[variableCount + 1];
+        newNode(DDNNF.OR, 0);
+        newNode(DDNNF.AND, 0);
+    }
+
+    private int compileComponent(int[] variables, int[] componentClauses) {
+        ComponentSignature signature = getSignature(variables, componentClauses);
+        Integer cachedNode = cache.get(signature);
+        if (cachedNode != null) {
+            return cachedNode;
+        }
+        int variable = selectVariable(variables, componentClauses);
+        int level = decisionLevel;
+        int high = compileBranch(variable, variables, componentClauses, level);
+        int low = compileBranch(-variable, variables, componentClauses, level);
+        int node;
+        if (high == FALSE_NODE) {
+            node = low;
+        } else if (low == FALSE_NODE) {
+            node = high;
+        } else {
+            node = newNode(DDNNF.OR, variable, high, low);
+        }
+        cache.put(signature, node);
+        return node;
+    }
+
+    private int compileBranch(int literal, int[] variables, int[] componentClauses, int level) {
+        int node = FALSE_NODE;
+        if (assume(literal) && probe(componentClauses, level)) {
+            node = conjoinComponents(levelStarts[level], variables, componentClauses);
+        }
+        undo(level);
+        return node;
+    }
+
+    /**
+     * Probes both unassigned literals of each clause that became binary above a given decision level.
+     */
+    private boolean probe(int[] componentClauses, int level) {
+        for (int clauseIndex : componentClauses) {
+            int[] clause = clauses[clauseIndex];
+            int firstLiteral = 0;
+            int secondLiteral = 0;
+            int unassignedCount = 0;
+            boolean isShortened = false;
+            boolean isSatisfied = false;
+            for (int literal : clause) {
+                int value = getValue(literal);
+                if (value > 0) {
+                    isSatisfied = true;
+                    break;
+                } else if (value < 0) {
+                    isShortened |= levels[Math.abs(literal)] > level;
+                } else if (unassignedCount++ == 0) {
+                    firstLiteral = literal;
+                } else {
+                    secondLiteral = literal;
+                }
+            }
+            if (isSatisfied || !isShortened || unassignedCount != 2) {
+                continue;
+            }
+            for (int literal : new int[] {firstLiteral, secondLiteral}) {
+                if (getValue(literal) == 0) {
+                    int probeLevel = decisionLevel;
+                    boolean isFailed = !assume(-literal);
+                    undo(probeLevel);
+                    if (isFailed && !assume(literal)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@return the conjunction of all literals assigned since a given position in the trail, all free variables, and
+     * all components of the remaining clauses}
+     */
+    private int conjoinComponents(int trailStart, int[] variables, int[] componentClauses) {
+        int[] nodeChildren = new int[trailSize - trailStart + variables.length];
+        int childCount = 0;
+        for (int i = trailStart; i < trailSize; i++) {
+            nodeChildren[childCount++] = getLiteralNode(trail[i]);
+        }
+
+        int memberStamp = ++stamp;
+        int visitedStamp = ++stamp;
+        for (int clauseIndex : componentClauses) {
+            clauseStamps[clauseIndex] = memberStamp;
+        }
+        List<int[]> subComponentVariables = new ArrayList<>();
+        List<int[]> subComponentClauses = new ArrayList<>();
+        for (int variable : variables) {
+            if (values[variable] != 0 || variableStamps[variable] == visitedStamp) {
+                continue;
+            }
+            variableStamps[variable] = visitedStamp;
+            variableQueue[0] = variable;
+            int variableEnd = 1;
+            int clauseEnd = 0;
+            for (int variableStart = 0; variableStart < variableEnd; variableStart++) {
+                for (int clauseIndex : occurrences[variableQueue[variableStart]]) {
+                    if (clauseStamps[clauseIndex] != memberStamp) {
+                        continue;
+                    }
+                    clauseStamps[clauseIndex] = visitedStamp;
+                    if (isSatisfied(clauses[clauseIndex])) {
+                        continue;
+                    }
+                    clauseQueue[clauseEnd++] = clauseIndex;
+                    for (int literal : clauses[clauseIndex]) {
+                        int otherVariable = Math.abs(literal);
+                        if (values[otherVariable] == 0 && variableStamps[otherVariable] != visitedStamp) {
+                            variableStamps[otherVariable] = visitedStamp;
+                            variableQueue[variableEnd++] = otherVariable;
+                        }
+                    }
+                }
+            }
+            if (clauseEnd == 0) {
+                nodeChildren[childCount++] = getFreeNode(variable);
+            } else {
+                int[] subVariables = Arrays.copyOf(variableQueue, variableEnd);
+                int[] subClauses = Arrays.copyOf(clauseQueue, clauseEnd);
+                Arrays.sort(subVariables);
+                Arrays.sort(subClauses);
+                subComponentVariables.add(subVariables);
+                subComponentClauses.add(subClauses);
+            }
+        }
+
+        for (int i = 0; i < subComponentVariables.size(); i++) {
+            int node = compileComponent(subComponentVariables.get(i), subComponentClauses.get(i));
+            if (node == FALSE_NODE) {
+                return FALSE_NODE;
+            }
+            nodeChildren[childCount++] = node;
+        }
+        switch (childCount) {
+            case 0:
+                return TRUE_NODE;
+            case 1:
+                return nodeChildren[0];
+            default:
+                return newNode(DDNNF.AND, 0, Arrays.copyOf(nodeChildren, childCount));
+        }
+    }
+
+    private boolean isSatisfied(int[] clause) {
+        for (int literal : clause) {
+            if (values[Math.abs(literal)] == literal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@return the unassigned variable with the most occurrences in the clauses of a component}
+     */
+    private int selectVariable(int[] variables, int[] componentClauses) {
+        for (int clauseIndex : componentClauses) {
+            for (int literal : clauses[clauseIndex]) {
+                occurrenceCounts[Math.abs(literal)]++;
+            }
+        }
+        int bestVariable = 0;
+        int bestCount = -1;
+        for (int variable : variables) {
+            if (values[variable] == 0 && occurrenceCounts[variable] > bestCount) {
+                bestVariable = variable;
+                bestCount = occurrenceCounts[variable];
+            }
+        }
+        for (int clauseIndex : componentClauses) {
+            for (int literal : clauses[clauseIndex]) {
+                occurrenceCounts[Math.abs(literal)] = 0;
+            }
+        }
+        return bestVariable;
+    }
+
+    private ComponentSignature getSignature(int[] variables, int[] componentClauses) {
+        int size = 0;
+        int previous = 0;
+        for (int variable : variables) {
+            size = writeNumber(size, variable - previous);
+            previous = variable;
+        }
+        size = writeNumber(size, 0);
+        previous = -1;
+        for (int clauseIndex : componentClauses) {
+            size = writeNumber(size, clauseIndex - previous);
+            previous = clauseIndex;
+        }
+        return new ComponentSignature(Arrays.copyOf(signatureBuffer, size));
+    }
+
+    private int writeNumber(int size, int number) {
+        if (size + 5 > signatureBuffer.length) {
+            signatureBuffer = Arrays.copyOf(signatureBuffer, signatureBuffer.length << 1);
+        }
+        while ((number & ~0x7F) != 0) {
+            signatureBuffer[size++] = (byte) ((number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        signatureBuffer[size++] = (byte) number;
+        return size;
+    }
+
+    private int getLiteralNode(int literal) {
+        int index = getLiteralIndex(literal);
+        if (literalNodes[index] == 0) {
+            literalNodes[index] = newNode(DDNNF.LITERAL, literal);
+        }
+        return literalNodes[index];
+    }
+
+    private int getFreeNode(int variable) {
+        if (freeNodes[variable] == 0) {
+            freeNodes[variable] =
+                    newNode(DDNNF.OR, variable, getLiteralNode(variable), getLiteralNode(-variable));
+        }
+        return freeNodes[variable];
+    }
+
+    private int newNode(byte kind, int value, int... nodeChildren) {
+        if (nodeCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, nodeCount << 1);
+            nodeValues = Arrays.copyOf(nodeValues, nodeCount << 1);
+            childStarts = Arrays.copyOf(childStarts, (nodeCount << 1) + 1);
+        }
+        int childStart = childStarts[nodeCount];
+        if (childStart + nodeChildren.length > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length << 1, childStart + nodeChildren.length));
+        }
+        System.arraycopy(nodeChildren, 0, children, childStart, nodeChildren.length);
+        kinds[nodeCount] = kind;
+        nodeValues[nodeCount] = value;
+        childStarts[nodeCount + 1] = childStart + nodeChildren.length;
+        return nodeCount++;
+    }
+
+    /**
+     * {@return a d-DNNF containing only the nodes reachable from a given root}
+     */
+    private DDNNF createDDNNF(int root) {
+        int[] newIndices = new int[root + 1];
+        Arrays.fill(newIndices, -1);
+        newIndices[root] = 0;
+        for (int node = root; node >= 0; node--) {
+            if (newIndices[node] >= 0) {
+                for (int i = childStarts[node]; i < childStarts[node + 1]; i++) {
+                    newIndices[children[i]] = 0;
+                }
+            }
+        }
+        int newNodeCount = 0;
+        int newChildCount = 0;
+        for (int node = 0; node <= root; node++) {
+            if (newIndices[node] >= 0) {
+                newIndices[node] = newNodeCount++;
+                newChildCount += childStarts[node + 1] - childStarts[node];
+            }
+        }
+        byte[] newKinds = new byte[newNodeCount];
+        int[] newValues = new int[newNodeCount];
+        int[] newChildStarts = new int[newNodeCount + 1];
+        int[] newChildren = new int[newChildCount];
+        int childIndex = 0;
+        for (int node = 0; node <= root; node++) {
+            int newNode = newIndices[node];
+            if (newNode >= 0) {
+                newKinds[newNode] = kinds[node];
+                newValues[newNode] = nodeValues[node];
+                newChildStarts[newNode] = childIndex;
+                for (int i = childStarts[node]; i < childStarts[node + 1]; i++) {
+                    newChildren[childIndex++] = newIndices[children[i]];
+                }
+            }
+        }
+        newChildStarts[newNodeCount] = childIndex;
+        return new DDNNF(variableCount, newKinds, newValues, newChildStarts, newChildren);
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The implication graph of all binary clauses of a clause list.
+ * Each literal is a node and each binary clause {@code a | b} yields the edges {@code -a -> b} and {@code -b -> a}, so
+ * a literal implies all literals reachable from it.
+ * Other clauses are ignored, so all implications are valid for the clause list, but not all of its implications are
+ * found.
+ * <p>
+ * On creation, the strongly connected components of the graph are computed, whose literals are equivalent.
+ * Components are numbered such that every edge leads to a component with a smaller or equal number, which allows to
+ * answer many reachability queries without a search.
+ * Other queries search the graph of components, unless {@link #computeTransitiveClosure()} has been called, which
+ * stores for each component the set of all reachable components.
+ * Components are processed in parallel in layers of equal distance to the sinks of the graph.
+ * <p>
+ * Queries may be run concurrently, but not concurrently with {@link #computeTransitiveClosure()}.
+ *
+ * @author Sebastian Krieter
+ */
+public class BinaryImplicationGraph {
+
+    /**
+     * Stores the state of a search in the graph of components for one thread.
+     */
+    private final class Search {
+        private final int[] visits = new int[componentCount];
+        private final int[] queue = new int[componentCount];
+        private int visit;
+
+        /**
+         * Visits all components reachable from a given component in breadth-first order, but does not expand
+         * components with a number less than a given minimum.
+         *
+         * @return whether the visitor returned {@code true} for any component, which stops the search
+         */
+        private boolean search(int from, int minimum, IntPredicate visitor) {
+            if (++visit == 0) {
+                Arrays.fill(visits, 0);
+                visit = 1;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            visits[from] = visit;
+            while (head < tail) {
+                int component = queue[head++];
+                if (visitor.test(component)) {
+                    return true;
+                }
+                for (int i = componentSuccessorStarts[component]; i < componentSuccessorStarts[component + 1]; i++) {
+                    int successor = componentSuccessors[i];
+                    if (successor >= minimum && visits[successor] != visit) {
+                        visits[successor] = visit;
+                        queue[tail++] = successor;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private final int variableCount;
+
+    /**
+     * The successors of each node in compressed sparse row format, where the node of a literal {@code l} has the
+     * index {@code l + variableCount}.
+     */
+    private final int[] successorStarts;
+
+    private final int[] successors;
+
+    private final int[] components;
+    private final int componentCount;
+    private final int[] memberStarts;
+    private final int[] members;
+    private final int[] componentSuccessorStarts;
+    private final int[] componentSuccessors;
+
+    /**
+     * The components grouped by their maximum distance to a sink of the graph of components.
+     */
+    private final int[] layerStarts;
+
+    private final int[] layers;
+
+    private final boolean isSatisfiable;
+
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    /**
+     * For each component {@code c}, the bit set of all components reachable from {@code c}, which only contains
+     * components less than or equal to {@code c}.
+     */
+    private long[][] closure;
+
+    /**
+     * Creates the implication graph of the binary clauses of a given clause list.
+     *
+     * @param clauseList the clause list
+     */
+    public BinaryImplicationGraph(BooleanClauseList clauseList) {
+        List<BooleanClause> clauses = clauseList.getAll();
+        int maximumVariable = clauseList.getVariableCount();
+        for (BooleanClause clause : clauses) {
+            for (int literal : clause.get()) {
+                maximumVariable = Math.max(maximumVariable, Math.abs(literal));
+            }
+        }
+        variableCount = maximumVariable;
+        int nodeCount = 2 * variableCount + 1;
+
+        successorStarts = new int[nodeCount + 1];
+        for (BooleanClause clause : clauses) {
+            int[] literals = clause.get();
+            if (literals.length == 2) {
+                successorStarts[-literals[0] + variableCount + 1]++;
+                successorStarts[-literals[1] + variableCount + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            successorStarts[i + 1] += successorStarts[i];
+        }
+        successors = new int[successorStarts[nodeCount]];
+        int[] successorCounts = Arrays.copyOf(successorStarts, nodeCount);
+        for (BooleanClause clause : clauses) {
+            int[] literals = clause.get();
+            if (literals.length == 2) {
+                successors[successorCounts[-literals[0] + variableCount]++] = literals[1];
+                successors[successorCounts[-literals[1] + variableCount]++] = literals[0];
+            }
+        }
+
+        components = new int[nodeCount];
+        componentCount = computeComponents();
+
+        memberStarts = new int[componentCount + 1];
+        for (int literal = -variableCount; literal <= variableCount; literal++) {
+            if (literal != 0) {
+                memberStarts[components[literal + variableCount] + 1]++;
+            }
+        }
+        for (int i = 0; i < componentCount; i++) {
+            memberStarts[i + 1] += memberStarts[i];
+        }
+        members = new int[memberStarts[componentCount]];
+        int[] memberCounts = Arrays.copyOf(memberStarts, componentCount);
+        for (int literal = -variableCount; literal <= variableCount; literal++) {
+            if (literal != 0) {
+                members[memberCounts[components[literal + variableCount]]++] = literal;
+            }
+        }
+
+        componentSuccessorStarts = new int[componentCount + 1];
+        int[] componentSuccessorList = new int[Math.max(16, successors.length)];
+        int componentSuccessorCount = 0;
+        int[] addedSuccessors = new int[componentCount];
+        int[] layerIndices = new int[componentCount];
+        int layerCount = 0;
+        for (int component = 0; component < componentCount; component++) {
+            componentSuccessorStarts[component] = componentSuccessorCount;
+            int layerIndex = 0;
+            for (int i = memberStarts[component]; i < memberStarts[component + 1]; i++) {
+                int node = members[i] + variableCount;
+                for (int j = successorStarts[node]; j < successorStarts[node + 1]; j++) {
+                    int successor = components[successors[j] + variableCount];
+                    if (successor != component && addedSuccessors[successor] != component + 1) {
+                        addedSuccessors[successor] = component + 1;
+                        componentSuccessorList[componentSuccessorCount++] = successor;
+                        layerIndex = Math.max(layerIndex, layerIndices[successor] + 1);
+                    }
+                }
+            }
+            layerIndices[component] = layerIndex;
+            layerCount = Math.max(layerCount, layerIndex + 1);
+        }
+        componentSuccessorStarts[componentCount] = componentSuccessorCount;
+        componentSuccessors = Arrays.copyOf(componentSuccessorList, componentSuccessorCount);
+
+        layerStarts = new int[layerCount + 1];
+        for (int component = 0; component < componentCount; component++) {
+            layerStarts[layerIndices[component] + 1]++;
+        }
+        for (int i = 0; i < layerCount; i++) {
+            layerStarts[i + 1] += layerStarts[i];
+        }
+        layers = new int[componentCount];
+        int[] layerCounts = Arrays.copyOf(layerStarts, layerCount);
+        for (int component = 0; component < componentCount; component++) {
+            layers[layerCounts[layerIndices[component]]++] = component;
+        }
+
+        boolean hasComplementaryLiterals = false;
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (components[variable + variableCount] == components[-variable + variableCount]) {
+                hasComplementaryLiterals = true;
+                break;
+            }
+        }
+        isSatisfiable = !hasComplementaryLiterals;
+    }
+
+    /**
+     * Computes the strongly connected components with Tarjan's algorithm.
+     * A component is numbered when it is completed, which happens after all components reachable from it.
+     *
+     * @return the number of components
+     */
+    private int computeComponents() {
+        int nodeCount = components.length;
+        int[] indices = new int[nodeCount];
+        int[] lowLinks = new int[nodeCount];
+        boolean[] isOnStack = new boolean[nodeCount];
+        int[] componentStack = new int[nodeCount];
+        int componentStackSize = 0;
+        int[] callStack = new int[nodeCount];
+        int[] edgeIndices = new int[nodeCount];
+        int nextIndex = 1;
+        int nextComponent = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (root == variableCount || indices[root] != 0) {
+                continue;
+            }
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            indices[root] = lowLinks[root] = nextIndex++;
+            componentStack[componentStackSize++] = root;
+            isOnStack[root] = true;
+            edgeIndices[root] = successorStarts[root];
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+                if (edgeIndices[node] < successorStarts[node + 1]) {
+                    int successor = successors[edgeIndices[node]++] + variableCount;
+                    if (indices[successor] == 0) {
+                        indices[successor] = lowLinks[successor] = nextIndex++;
+                        componentStack[componentStackSize++] = successor;
+                        isOnStack[successor] = true;
+                        edgeIndices[successor] = successorStarts[successor];
+                        callStack[callStackSize++] = successor;
+                    } else if (isOnStack[successor]) {
+                        lowLinks[node] = Math.min(lowLinks[node], indices[successor]);
+                    }
+                } else {
+                    callStackSize--;
+                    if (callStackSize > 0) {
+                        int parent = callStack[callStackSize - 1];
+                        lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                    }
+                    if (lowLinks[node] == indices[node]) {
+                        int member;
+                        do {
+                            member = componentStack[--componentStackSize];
+                            isOnStack[member] = false;
+                            components[member] = nextComponent;
+                        } while (member != node);
+                        nextComponent++;
+                    }
+                }
+            }
+        }
+        components[variableCount] = -1;
+        return nextComponent;
+    }
+
+    private int getNode(int literal) {
+        int variable = Math.abs(literal);
+        if (variable == 0 || variable > variableCount) {
+            throw new IllegalArgumentException(String.valueOf(literal));
+        }
+        return literal + variableCount;
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return all literals directly implied by a given literal}
+     *
+     * @param literal the literal
+     */
+    public int[] getSuccessors(int literal) {
+        int node = getNode(literal);
+        return Arrays.copyOfRange(successors, successorStarts[node], successorStarts[node + 1]);
+    }
+
+    /**
+     * {@return whether no literal is equivalent to its negation}
+     * Otherwise, the binary clauses and thus the clause list are unsatisfiable.
+     */
+    public boolean isSatisfiable() {
+        return isSatisfiable;
+    }
+
+    /**
+     * {@return the number of strongly connected components}
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * {@return the strongly connected component of a given literal}
+     *
+     * @param literal the literal
+     */
+    public int getComponent(int literal) {
+        return components[getNode(literal)];
+    }
+
+    /**
+     * {@return whether two given literals are equivalent}
+     *
+     * @param literal1 the first literal
+     * @param literal2 the second literal
+     */
+    public boolean areEquivalent(int literal1, int literal2) {
+        return getComponent(literal1) == getComponent(literal2);
+    }
+
+    /**
+     * {@return all literals that are equivalent to a given literal, including the literal itself}
+     *
+     * @param literal the literal
+     */
+    public BooleanAssignment getEquivalentLiterals(int literal) {
+        int component = getComponent(literal);
+        return new BooleanAssignment(Arrays.copyOfRange(members, memberStarts[component], memberStarts[component + 1]));
+    }
+
+    /**
+     * {@return all classes of equivalent literals (i.e., atomic sets), including classes with only one literal}
+     * Each class is contained once, either with the positive literal of its smallest variable or with its negation.
+     * The result is empty if the graph is not {@link #isSatisfiable() satisfiable}.
+     */
+    public List<BooleanAssignment> getEquivalenceClasses() {
+        List<BooleanAssignment> equivalenceClasses = new ArrayList<>();
+        if (isSatisfiable) {
+            for (int component = 0; component < componentCount; component++) {
+                int start = memberStarts[component];
+                int end = memberStarts[component + 1];
+                int smallestLiteral = members[start];
+                for (int i = start + 1; i < end; i++) {
+                    if (Math.abs(members[i]) < Math.abs(smallestLiteral)) {
+                        smallestLiteral = members[i];
+                    }
+                }
+                if (smallestLiteral > 0) {
+                    equivalenceClasses.add(new BooleanAssignment(Arrays.copyOfRange(members, start, end)));
+                }
+            }
+        }
+        return equivalenceClasses;
+    }
+
+    /**
+     * {@return whether a given literal implies another given literal}
+     * Takes constant time if the {@link #computeTransitiveClosure() transitive closure} has been computed.
+     *
+     * @param literal1 the first literal
+     * @param literal2 the second literal
+     */
+    public boolean implies(int literal1, int literal2) {
+        return reaches(getComponent(literal1), getComponent(literal2));
+    }
+
+    private boolean reaches(int from, int to) {
+        if (from == to) {
+            return true;
+        } else if (to > from) {
+            return false;
+        } else if (closure != null) {
+            return (closure[from][to >>> 6] & (1L << to)) != 0;
+        }
+        return searches.get().search(from, to, component -> component == to);
+    }
+
+    /**
+     * {@return all literals implied by a given literal, excluding the literal itself}
+     * If the literal is {@link #isFailed(int) failed}, the result contains complementary literals.
+     *
+     * @param literal the literal
+     */
+    public BooleanAssignment getImpliedLiterals(int literal) {
+        int from = getComponent(literal);
+        int[] impliedLiterals;
+        if (closure != null) {
+            long[] reachableComponents = closure[from];
+            impliedLiterals = IntStream.range(0, from + 1)
+                    .filter(component -> (reachableComponents[component >>> 6] & (1L << component)) != 0)
+                    .flatMap(component -> Arrays.stream(members, memberStarts[component], memberStarts[component + 1]))
+                    .toArray();
+        } else {
+            IntStream.Builder builder = IntStream.builder();
+            searches.get().search(from, 0, component -> {
+                for (int i = memberStarts[component]; i < memberStarts[component + 1]; i++) {
+                    builder.add(members[i]);
+                }
+                return false;
+            });
+            impliedLiterals = builder.build().toArray();
+        }
+        return new BooleanAssignment(IntStream.of(impliedLiterals)
+                .filter(impliedLiteral -> impliedLiteral != literal)
+                .sorted()
+                .toArray());
+    }
+
+    /**
+     * {@return whether a given literal implies its own negation}
+     * Then, the negation of the literal is implied by the clause list.
+     *
+     * @param literal the literal
+     */
+    public boolean isFailed(int literal) {
+        return implies(literal, -literal);
+    }
+
+    /**
+     * {@return all failed literals in ascending order}
+     * A component is failed if it reaches a failed component, so components are processed in layers, starting with
+     * the sinks of the graph of components, and only components that do not reach a failed component are searched.
+     */
+    public BooleanAssignment getFailedLiterals() {
+        boolean[] isFailed = new boolean[componentCount];
+        for (int layer = 0; layer < layerStarts.length - 1; layer++) {
+            IntStream.range(layerStarts[layer], layerStarts[layer + 1]).parallel().forEach(i -> {
+                int component = layers[i];
+                for (int j = componentSuccessorStarts[component]; j < componentSuccessorStarts[component + 1]; j++) {
+                    if (isFailed[componentSuccessors[j]]) {
+                        isFailed[component] = true;
+                        return;
+                    }
+                }
+                int negatedComponent = components[-members[memberStarts[component]] + variableCount];
+                isFailed[component] = reaches(component, negatedComponent);
+            });
+        }
+        return new BooleanAssignment(IntStream.rangeClosed(-variableCount, variableCount)
+                .filter(literal -> literal != 0 && isFailed[components[literal + variableCount]])
+                .toArray());
+    }
+
+    /**
+     * Computes and stores for each component the set of all reachable components.
+     * Requires quadratic memory in the number of components.
+     */
+    public void computeTransitiveClosure() {
+        if (closure != null) {
+            return;
+        }
+        long[][] reachableComponents = new long[componentCount][];
+        for (int layer = 0; layer < layerStarts.length - 1; layer++) {
+            IntStream.range(layerStarts[layer], layerStarts[layer + 1]).parallel().forEach(i -> {
+                int component = layers[i];
+                long[] words = new long[(component >>> 6) + 1];
+                words[component >>> 6] = 1L << component;
+                for (int j = componentSuccessorStarts[component]; j < componentSuccessorStarts[component + 1]; j++) {
+                    long[] successorWords = reachableComponents[componentSuccessors[j]];
+                    for (int k = 0; k < successorWords.length; k++) {
+                        words[k] |= successorWords[k];
+                    }
+                }
+                reachableComponents[component] = words;
+            });
+        }
+        closure = reachableComponents;
+    }
+
+    /**
+     * {@return whether the transitive closure has been computed}
+     */
+    public boolean hasTransitiveClosure() {
+        return closure != null;
+    }
+}
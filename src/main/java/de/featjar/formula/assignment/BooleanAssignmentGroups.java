@@ -45,6 +45,11 @@ public class BooleanAssignmentGroups extends AAssignmentGroups<ABooleanAssignmen
 
     public BooleanClauseList toClauseList(int groupIndex) {
         List<? extends ABooleanAssignment> group = assignmentGroups.get(groupIndex);
+        if (group instanceof BooleanClauseArena) {
+            final BooleanClauseList list = ((BooleanClauseArena) group).toClauseList();
+            list.setVariableCount(variableMap.getVariableCount());
+            return list;
+        }
         final BooleanClauseList list = new BooleanClauseList(group.size(), variableMap.getVariableCount());
         group.stream().map(ABooleanAssignment::toClause).forEach(list::add);
         return list;
@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A list of Boolean clauses stored in compressed sparse row format.
+ * The literals of all clauses are stored consecutively in a single array and a second array stores the offset of
+ * each clause, so a clause only costs one additional integer instead of an object with its own array.
+ * Like in a {@link BooleanClause}, the literals of each clause are sorted in ascending order.
+ * <p>
+ * This class implements the {@link java.util.List} interface, such that it can be used wherever a list of clauses is
+ * expected (e.g., in {@link BooleanAssignmentGroups}).
+ * However, {@link #get(int)} creates a new {@link BooleanClause} on every call.
+ * To avoid these allocations, use {@link #view(int)}, {@link #views()}, or {@link #forEachClause(ClauseConsumer)},
+ * which access the literals in place.
+ * Clauses can only be appended, the list does not support removing or replacing single clauses.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanClauseArena extends AbstractList<BooleanClause> implements RandomAccess {
+
+    /**
+     * Consumes the literals of a clause in place.
+     */
+    @FunctionalInterface
+    public interface ClauseConsumer {
+
+        /**
+         * Consumes the literals of a clause, which are stored in a given array from index {@code start} (inclusive)
+         * to index {@code end} (exclusive).
+         * The array must not be modified.
+         *
+         * @param literals the literal array of the arena
+         * @param start the start of the clause
+         * @param end the end of the clause
+         */
+        void accept(int[] literals, int start, int end);
+    }
+
+    /**
+     * A view on a single clause of an arena, which reads its literals in place.
+     * A view becomes invalid when the arena is cleared.
+     */
+    public final class ClauseView {
+
+        private int index;
+
+        private ClauseView(int index) {
+            this.index = index;
+        }
+
+        /**
+         * {@return the index of the viewed clause}
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * {@return the number of literals in the viewed clause}
+         */
+        public int size() {
+            return offsets[index + 1] - offsets[index];
+        }
+
+        /**
+         * {@return the literal at a given position of the viewed clause}
+         *
+         * @param position the position
+         */
+        public int get(int position) {
+            return literals[offsets[index] + position];
+        }
+
+        /**
+         * {@return whether the viewed clause contains a given literal}
+         *
+         * @param literal the literal
+         */
+        public boolean contains(int literal) {
+            return Arrays.binarySearch(literals, offsets[index], offsets[index + 1], literal) >= 0;
+        }
+
+        /**
+         * {@return a copy of the literals of the viewed clause}
+         */
+        public int[] toArray() {
+            return Arrays.copyOfRange(literals, offsets[index], offsets[index + 1]);
+        }
+
+        /**
+         * {@return a new clause with the literals of the viewed clause}
+         */
+        public BooleanClause toClause() {
+            return new BooleanClause(toArray());
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    private int[] literals;
+    private int[] offsets;
+    private int literalCount;
+    private int clauseCount;
+    private int variableCount;
+
+    /**
+     * Creates a new empty arena.
+     *
+     * @param variableCount the number of variables
+     */
+    public BooleanClauseArena(int variableCount) {
+        this(variableCount, 16, 64);
+    }
+
+    /**
+     * Creates a new empty arena with a given initial capacity.
+     *
+     * @param variableCount the number of variables
+     * @param clauseCapacity the expected number of clauses
+     * @param literalCapacity the expected total number of literals
+     */
+    public BooleanClauseArena(int variableCount, int clauseCapacity, int literalCapacity) {
+        this.variableCount = variableCount;
+        literals = new int[Math.max(1, literalCapacity)];
+        offsets = new int[Math.max(1, clauseCapacity) + 1];
+    }
+
+    /**
+     * Creates a new arena containing all clauses of a given clause list.
+     *
+     * @param clauseList the clause list
+     */
+    public BooleanClauseArena(BooleanClauseList clauseList) {
+        this(
+                clauseList.getVariableCount(),
+                clauseList.getAll().size(),
+                clauseList.getAll().stream().mapToInt(ABooleanAssignment::size).sum());
+        for (BooleanClause clause : clauseList.getAll()) {
+            int[] clauseLiterals = clause.get();
+            addClause(clauseLiterals, 0, clauseLiterals.length);
+        }
+    }
+
+    /**
+     * Creates a copy of a given arena.
+     *
+     * @param other the arena
+     */
+    public BooleanClauseArena(BooleanClauseArena other) {
+        variableCount = other.variableCount;
+        literalCount = other.literalCount;
+        clauseCount = other.clauseCount;
+        literals = Arrays.copyOf(other.literals, Math.max(1, literalCount));
+        offsets = Arrays.copyOf(other.offsets, clauseCount + 1);
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Sets the number of variables.
+     *
+     * @param variableCount the number of variables
+     */
+    public void setVariableCount(int variableCount) {
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * {@return the number of clauses}
+     */
+    @Override
+    public int size() {
+        return clauseCount;
+    }
+
+    /**
+     * {@return the total number of literals in all clauses}
+     */
+    public int getLiteralCount() {
+        return literalCount;
+    }
+
+    /**
+     * {@return a new clause with the literals of the clause at a given index}
+     *
+     * @param index the index
+     */
+    @Override
+    public BooleanClause get(int index) {
+        return view(index).toClause();
+    }
+
+    /**
+     * {@return a view on the clause at a given index}
+     *
+     * @param index the index
+     */
+    public ClauseView view(int index) {
+        checkIndex(index);
+        return new ClauseView(index);
+    }
+
+    /**
+     * {@return views on all clauses in order}
+     * All iterators return the same view object for each of their steps, which is moved to the next clause.
+     */
+    public Iterable<ClauseView> views() {
+        return () -> new Iterator<>() {
+            private final ClauseView view = new ClauseView(-1);
+
+            @Override
+            public boolean hasNext() {
+                return view.index + 1 < clauseCount;
+            }
+
+            @Override
+            public ClauseView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                view.index++;
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Passes the literals of each clause in order to a given consumer without copying them.
+     *
+     * @param consumer the consumer
+     */
+    public void forEachClause(ClauseConsumer consumer) {
+        for (int i = 0; i < clauseCount; i++) {
+            consumer.accept(literals, offsets[i], offsets[i + 1]);
+        }
+    }
+
+    /**
+     * {@return the number of literals in the clause at a given index}
+     *
+     * @param index the index
+     */
+    public int getClauseSize(int index) {
+        checkIndex(index);
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * {@return the literal at a given position of the clause at a given index}
+     *
+     * @param index the index of the clause
+     * @param position the position in the clause
+     */
+    public int getLiteral(int index, int position) {
+        checkIndex(index);
+        return literals[offsets[index] + position];
+    }
+
+    /**
+     * Appends a clause.
+     *
+     * @param clauseLiterals the literals of the clause
+     * @return the index of the new clause
+     */
+    public int addClause(int... clauseLiterals) {
+        return addClause(clauseLiterals, 0, clauseLiterals.length);
+    }
+
+    /**
+     * Appends a clause with the literals of a given array from index {@code start} (inclusive) to index {@code end}
+     * (exclusive).
+     * The array is not modified.
+     *
+     * @param clauseLiterals the literal array
+     * @param start the start of the clause
+     * @param end the end of the clause
+     * @return the index of the new clause
+     */
+    public int addClause(int[] clauseLiterals, int start, int end) {
+        int length = end - start;
+        ensureCapacity(clauseCount + 1, literalCount + length);
+        System.arraycopy(clauseLiterals, start, literals, literalCount, length);
+        Arrays.sort(literals, literalCount, literalCount + length);
+        literalCount += length;
+        offsets[++clauseCount] = literalCount;
+        return clauseCount - 1;
+    }
+
+    @Override
+    public boolean add(BooleanClause clause) {
+        int[] clauseLiterals = clause.get();
+        addClause(clauseLiterals, 0, clauseLiterals.length);
+        return true;
+    }
+
+    /**
+     * Appends all clauses of a given collection.
+     * If the collection is an arena, its literals and offsets are copied in bulk.
+     *
+     * @param clauses the clauses
+     * @return whether any clause was appended
+     */
+    @Override
+    public boolean addAll(Collection<? extends BooleanClause> clauses) {
+        if (clauses instanceof BooleanClauseArena) {
+            BooleanClauseArena other = (BooleanClauseArena) clauses;
+            int otherClauseCount = other.clauseCount;
+            int otherLiteralCount = other.literalCount;
+            ensureCapacity(clauseCount + otherClauseCount, literalCount + otherLiteralCount);
+            System.arraycopy(other.literals, 0, literals, literalCount, otherLiteralCount);
+            for (int i = 1; i <= otherClauseCount; i++) {
+                offsets[clauseCount + i] = literalCount + other.offsets[i];
+            }
+            clauseCount += otherClauseCount;
+            literalCount += otherLiteralCount;
+            return otherClauseCount > 0;
+        }
+        ensureCapacity(clauseCount + clauses.size(), literalCount);
+        return super.addAll(clauses);
+    }
+
+    /**
+     * Removes all clauses, but keeps the allocated capacity.
+     */
+    @Override
+    public void clear() {
+        clauseCount = 0;
+        literalCount = 0;
+    }
+
+    /**
+     * Reduces the allocated capacity to the current number of clauses and literals.
+     */
+    public void trimToSize() {
+        literals = Arrays.copyOf(literals, Math.max(1, literalCount));
+        offsets = Arrays.copyOf(offsets, clauseCount + 1);
+    }
+
+    /**
+     * {@return a new clause list containing all clauses of this arena}
+     */
+    public BooleanClauseList toClauseList() {
+        BooleanClauseList clauseList = new BooleanClauseList(clauseCount, variableCount);
+        for (int i = 0; i < clauseCount; i++) {
+            clauseList.add(new BooleanClause(Arrays.copyOfRange(literals, offsets[i], offsets[i + 1])));
+        }
+        return clauseList;
+    }
+
+    private void ensureCapacity(int clauseCapacity, int literalCapacity) {
+        if (clauseCapacity >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(2 * offsets.length, clauseCapacity + 1));
+        }
+        if (literalCapacity > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(2 * literals.length, literalCapacity));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= clauseCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + clauseCount);
+        }
+    }
+}
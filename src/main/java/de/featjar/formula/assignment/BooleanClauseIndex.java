@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.base.data.Result;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An occurrence index of Boolean clauses.
+ * For each literal, a sorted array stores the ids of all clauses containing the literal.
+ * Additionally, for each literal {@code l}, an array stores all literals {@code m} such that {@code l} and {@code m}
+ * form a binary clause, which are exactly the literals implied by the negation of {@code l}.
+ * <p>
+ * Clauses are numbered in the order they were added, and ids of removed clauses are not reused.
+ * When the index is created from a clause list, the ids equal the positions in the list and the occurrence arrays are
+ * filled in parallel.
+ * Adding a clause that contains a variable larger than {@link #getVariableCount()} increases the number of variables.
+ * The index keeps the literal arrays of all added clauses, so these clauses must not be modified.
+ * <p>
+ * Queries may be run concurrently, but not concurrently with {@link #add(BooleanClause)} or {@link #remove(int)}.
+ * Literals whose variable is larger than {@link #getVariableCount()} are not contained in any clause.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanClauseIndex {
+
+    private static final int MINIMUM_CHUNK_SIZE = 4096;
+    private static final int[] EMPTY = new int[0];
+
+    private int variableCount;
+
+    private int[][] clauses;
+    private int clauseCount;
+    private int size;
+
+    /**
+     * For each literal {@code l}, the ids of all clauses containing it at index {@code 2 * (|l| - 1)} if it is
+     * positive and {@code 2 * (|l| - 1) + 1} if it is negative.
+     */
+    private int[][] occurrences;
+
+    private int[] occurrenceCounts;
+
+    /**
+     * For each literal, the other literals of all binary clauses containing it, with the same indices as
+     * {@link #occurrences}.
+     */
+    private int[][] binaryNeighbors;
+
+    private int[] binaryNeighborCounts;
+
+    /**
+     * Creates a new empty index.
+     *
+     * @param variableCount the number of variables
+     */
+    public BooleanClauseIndex(int variableCount) {
+        if (variableCount < 0) {
+            throw new IllegalArgumentException(String.format("%d is negative", variableCount));
+        }
+        this.variableCount = variableCount;
+        clauses = new int[16][];
+        occurrences = new int[2 * variableCount][];
+        occurrenceCounts = new int[2 * variableCount];
+        binaryNeighbors = new int[2 * variableCount][];
+        binaryNeighborCounts = new int[2 * variableCount];
+        Arrays.fill(occurrences, EMPTY);
+        Arrays.fill(binaryNeighbors, EMPTY);
+    }
+
+    /**
+     * Creates a new index containing all clauses of a given clause list.
+     * The clauses are split into chunks, which are counted and inserted in parallel.
+     *
+     * @param clauseList the clause list
+     */
+    public BooleanClauseIndex(BooleanClauseList clauseList) {
+        List<BooleanClause> clauseObjects = clauseList.getAll();
+        int maximumVariable = clauseList.getVariableCount();
+        clauseCount = size = clauseObjects.size();
+        clauses = new int[Math.max(16, clauseCount)][];
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = clauseObjects.get(i).get();
+            clauses[i] = literals;
+            for (int literal : literals) {
+                maximumVariable = Math.max(maximumVariable, Math.abs(literal));
+            }
+        }
+        variableCount = maximumVariable;
+        occurrences = new int[2 * variableCount][];
+        occurrenceCounts = new int[2 * variableCount];
+        binaryNeighbors = new int[2 * variableCount][];
+        binaryNeighborCounts = new int[2 * variableCount];
+
+        int chunkCount =
+                Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), clauseCount / MINIMUM_CHUNK_SIZE));
+        int[][] chunkOccurrenceOffsets = new int[chunkCount][];
+        int[][] chunkNeighborOffsets = new int[chunkCount][];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int[] chunkOccurrenceCounts = new int[2 * variableCount];
+            int[] chunkNeighborCounts = new int[2 * variableCount];
+            for (int i = getChunkStart(chunk, chunkCount); i < getChunkStart(chunk + 1, chunkCount); i++) {
+                int[] literals = clauses[i];
+                for (int j = 0; j < literals.length; j++) {
+                    if (j == 0 || literals[j] != literals[j - 1]) {
+                        chunkOccurrenceCounts[getLiteralIndex(literals[j])]++;
+                    }
+                }
+                if (isBinary(literals)) {
+                    chunkNeighborCounts[getLiteralIndex(literals[0])]++;
+                    chunkNeighborCounts[getLiteralIndex(literals[1])]++;
+                }
+            }
+            chunkOccurrenceOffsets[chunk] = chunkOccurrenceCounts;
+            chunkNeighborOffsets[chunk] = chunkNeighborCounts;
+        });
+        for (int literalIndex = 0; literalIndex < 2 * variableCount; literalIndex++) {
+            occurrenceCounts[literalIndex] = toOffsets(chunkOccurrenceOffsets, literalIndex);
+            occurrences[literalIndex] = new int[occurrenceCounts[literalIndex]];
+            binaryNeighborCounts[literalIndex] = toOffsets(chunkNeighborOffsets, literalIndex);
+            binaryNeighbors[literalIndex] = new int[binaryNeighborCounts[literalIndex]];
+        }
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int[] occurrenceOffsets = chunkOccurrenceOffsets[chunk];
+            int[] neighborOffsets = chunkNeighborOffsets[chunk];
+            for (int i = getChunkStart(chunk, chunkCount); i < getChunkStart(chunk + 1, chunkCount); i++) {
+                int[] literals = clauses[i];
+                for (int j = 0; j < literals.length; j++) {
+                    if (j == 0 || literals[j] != literals[j - 1]) {
+                        int literalIndex = getLiteralIndex(literals[j]);
+                        occurrences[literalIndex][occurrenceOffsets[literalIndex]++] = i;
+                    }
+                }
+                if (isBinary(literals)) {
+                    int literalIndex0 = getLiteralIndex(literals[0]);
+                    int literalIndex1 = getLiteralIndex(literals[1]);
+                    binaryNeighbors[literalIndex0][neighborOffsets[literalIndex0]++] = literals[1];
+                    binaryNeighbors[literalIndex1][neighborOffsets[literalIndex1]++] = literals[0];
+                }
+            }
+        });
+    }
+
+    private int getChunkStart(int chunk, int chunkCount) {
+        return (int) ((long) clauseCount * chunk / chunkCount);
+    }
+
+    /**
+     * Replaces the counts of all chunks for a given literal by the offsets at which each chunk starts writing.
+     */
+    private static int toOffsets(int[][] chunkCounts, int literalIndex) {
+        int total = 0;
+        for (int[] counts : chunkCounts) {
+            int count = counts[literalIndex];
+            counts[literalIndex] = total;
+            total += count;
+        }
+        return total;
+    }
+
+    private static boolean isBinary(int[] literals) {
+        return literals.length == 2 && literals[0] != literals[1];
+    }
+
+    private static int getLiteralIndex(int literal) {
+        return 2 * (Math.abs(literal) - 1) + (literal > 0 ? 0 : 1);
+    }
+
+    private int getCheckedLiteralIndex(int literal) {
+        int variable = Math.abs(literal);
+        if (variable == 0) {
+            throw new IllegalArgumentException(String.valueOf(literal));
+        }
+        return variable > variableCount ? -1 : getLiteralIndex(literal);
+    }
+
+    /**
+     * Adds a clause.
+     *
+     * @param clause the clause
+     * @return the id of the clause
+     */
+    public int add(BooleanClause clause) {
+        int[] literals = clause.get();
+        for (int literal : literals) {
+            int variable = Math.abs(literal);
+            if (variable > variableCount) {
+                setVariableCount(variable);
+            }
+        }
+        if (clauseCount == clauses.length) {
+            clauses = Arrays.copyOf(clauses, 2 * clauses.length);
+        }
+        int id = clauseCount++;
+        clauses[id] = literals;
+        size++;
+        for (int j = 0; j < literals.length; j++) {
+            if (j == 0 || literals[j] != literals[j - 1]) {
+                int literalIndex = getLiteralIndex(literals[j]);
+                occurrences[literalIndex] = append(occurrences[literalIndex], occurrenceCounts[literalIndex]++, id);
+            }
+        }
+        if (isBinary(literals)) {
+            addBinaryNeighbor(literals[0], literals[1]);
+            addBinaryNeighbor(literals[1], literals[0]);
+        }
+        return id;
+    }
+
+    private void setVariableCount(int variableCount) {
+        this.variableCount = variableCount;
+        int oldLength = occurrences.length;
+        occurrences = Arrays.copyOf(occurrences, 2 * variableCount);
+        occurrenceCounts = Arrays.copyOf(occurrenceCounts, 2 * variableCount);
+        binaryNeighbors = Arrays.copyOf(binaryNeighbors, 2 * variableCount);
+        binaryNeighborCounts = Arrays.copyOf(binaryNeighborCounts, 2 * variableCount);
+        Arrays.fill(occurrences, oldLength, occurrences.length, EMPTY);
+        Arrays.fill(binaryNeighbors, oldLength, binaryNeighbors.length, EMPTY);
+    }
+
+    private void addBinaryNeighbor(int literal, int neighbor) {
+        int literalIndex = getLiteralIndex(literal);
+        binaryNeighbors[literalIndex] =
+                append(binaryNeighbors[literalIndex], binaryNeighborCounts[literalIndex]++, neighbor);
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, Math.max(4, 2 * array.length));
+        }
+        array[size] = value;
+        return array;
+    }
+
+    /**
+     * Adds all clauses of a given clause list.
+     *
+     * @param clauseList the clause list
+     */
+    public void addAll(BooleanClauseList clauseList) {
+        clauseList.getAll().forEach(this::add);
+    }
+
+    /**
+     * Removes a clause.
+     *
+     * @param id the id of the clause
+     * @return whether the clause was contained in this index
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int[] literals = clauses[id];
+        clauses[id] = null;
+        size--;
+        for (int j = 0; j < literals.length; j++) {
+            if (j == 0 || literals[j] != literals[j - 1]) {
+                int literalIndex = getLiteralIndex(literals[j]);
+                int[] literalOccurrences = occurrences[literalIndex];
+                int count = occurrenceCounts[literalIndex]--;
+                int position = Arrays.binarySearch(literalOccurrences, 0, count, id);
+                System.arraycopy(literalOccurrences, position + 1, literalOccurrences, position, count - position - 1);
+            }
+        }
+        if (isBinary(literals)) {
+            removeBinaryNeighbor(literals[0], literals[1]);
+            removeBinaryNeighbor(literals[1], literals[0]);
+        }
+        return true;
+    }
+
+    private void removeBinaryNeighbor(int literal, int neighbor) {
+        int literalIndex = getLiteralIndex(literal);
+        int[] neighbors = binaryNeighbors[literalIndex];
+        int count = binaryNeighborCounts[literalIndex]--;
+        int position = 0;
+        while (neighbors[position] != neighbor) {
+            position++;
+        }
+        System.arraycopy(neighbors, position + 1, neighbors, position, count - position - 1);
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the number of clauses in this index}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the number of ids assigned so far, including the ids of removed clauses}
+     */
+    public int getIdCount() {
+        return clauseCount;
+    }
+
+    /**
+     * {@return whether this index contains a clause with a given id}
+     *
+     * @param id the id
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < clauseCount && clauses[id] != null;
+    }
+
+    /**
+     * {@return the clause with a given id, if it is contained in this index}
+     *
+     * @param id the id
+     */
+    public Result<BooleanClause> getClause(int id) {
+        return contains(id) ? Result.of(new BooleanClause(clauses[id].clone())) : Result.empty();
+    }
+
+    /**
+     * {@return the ids of all clauses containing a given literal in ascending order}
+     *
+     * @param literal the literal
+     */
+    public int[] getClauses(int literal) {
+        int literalIndex = getCheckedLiteralIndex(literal);
+        return literalIndex < 0 ? EMPTY : Arrays.copyOf(occurrences[literalIndex], occurrenceCounts[literalIndex]);
+    }
+
+    /**
+     * Passes the ids of all clauses containing a given literal in ascending order to a given consumer.
+     * The consumer must not modify this index.
+     *
+     * @param literal the literal
+     * @param consumer the consumer
+     */
+    public void forEachClause(int literal, IntConsumer consumer) {
+        int literalIndex = getCheckedLiteralIndex(literal);
+        if (literalIndex >= 0) {
+            int[] literalOccurrences = occurrences[literalIndex];
+            for (int i = 0, count = occurrenceCounts[literalIndex]; i < count; i++) {
+                consumer.accept(literalOccurrences[i]);
+            }
+        }
+    }
+
+    /**
+     * {@return the ids of all clauses containing any of the given variables, positive or negative}
+     *
+     * @param variables the variables
+     */
+    public BitSet getTouchingClauses(int... variables) {
+        BitSet touchingClauses = new BitSet(clauseCount);
+        for (int variable : variables) {
+            forEachClause(variable, touchingClauses::set);
+            forEachClause(-variable, touchingClauses::set);
+        }
+        return touchingClauses;
+    }
+
+    /**
+     * {@return the number of clauses containing a given literal}
+     *
+     * @param literal the literal
+     */
+    public int countOccurrences(int literal) {
+        int literalIndex = getCheckedLiteralIndex(literal);
+        return literalIndex < 0 ? 0 : occurrenceCounts[literalIndex];
+    }
+
+    /**
+     * {@return for each literal, the number of clauses containing it}
+     * The count of a positive literal {@code l} is stored at index {@code 2 * (l - 1)} and the count of its negation
+     * at index {@code 2 * (l - 1) + 1}.
+     */
+    public int[] getOccurrenceCounts() {
+        return Arrays.copyOf(occurrenceCounts, 2 * variableCount);
+    }
+
+    /**
+     * {@return all literals that form a binary clause together with a given literal}
+     * These are the literals implied by the negation of the given literal.
+     * A literal occurs once for each such binary clause.
+     *
+     * @param literal the literal
+     */
+    public int[] getBinaryNeighbors(int literal) {
+        int literalIndex = getCheckedLiteralIndex(literal);
+        return literalIndex < 0
+                ? EMPTY
+                : Arrays.copyOf(binaryNeighbors[literalIndex], binaryNeighborCounts[literalIndex]);
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.base.data.Pair;
+import de.featjar.formula.VariableMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Reduces a {@link BooleanClauseList} by unit propagation, equivalent-literal substitution, pure-literal elimination,
+ * and bounded variable elimination (i.e., replacing all clauses of a variable by their resolvents if this does not
+ * increase the number of clauses).
+ * Fixed, substituted, and eliminated variables are removed from the variable map, and each step is recorded in a
+ * {@link ReconstructionStack}.
+ * Unit propagation and equivalent-literal substitution preserve all solutions.
+ * Bounded variable elimination preserves all solutions when projected onto the remaining variables.
+ * Pure-literal elimination only preserves satisfiability and is therefore disabled by default.
+ * Does not modify its input.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanClauseListPreprocessor {
+
+    private static final int OCCURRENCE_LIMIT = 64;
+    private static final int RESOLVENT_LENGTH_LIMIT = 32;
+
+    private boolean isEquivalentLiteralSubstitution = true;
+    private boolean isPureLiteralElimination = false;
+    private boolean isVariableElimination = true;
+    private IntPredicate isEliminable = variable -> true;
+
+    private int variableCount;
+    private ArrayList<int[]> clauses;
+    private int[][] occurrenceLists;
+    private int[] occurrenceListSizes;
+    private int[] occurrenceCounts;
+    private int[] values;
+    private boolean[] isRemoved;
+    private ArrayDeque<Integer> units;
+    private boolean isUnsatisfiable;
+    private ReconstructionStack reconstructionStack;
+
+    /**
+     * Sets whether variables that are equivalent to another literal are substituted.
+     *
+     * @param isEquivalentLiteralSubstitution whether equivalent literals are substituted
+     */
+    public void setEquivalentLiteralSubstitution(boolean isEquivalentLiteralSubstitution) {
+        this.isEquivalentLiteralSubstitution = isEquivalentLiteralSubstitution;
+    }
+
+    /**
+     * Sets whether variables that only occur with one polarity are fixed.
+     * This only preserves satisfiability, but not all solutions.
+     *
+     * @param isPureLiteralElimination whether pure literals are eliminated
+     */
+    public void setPureLiteralElimination(boolean isPureLiteralElimination) {
+        this.isPureLiteralElimination = isPureLiteralElimination;
+    }
+
+    /**
+     * Sets whether bounded variable elimination is applied.
+     *
+     * @param isVariableElimination whether variables are eliminated
+     */
+    public void setVariableElimination(boolean isVariableElimination) {
+        this.isVariableElimination = isVariableElimination;
+    }
+
+    /**
+     * Sets which variables may be removed by bounded variable elimination and pure-literal elimination.
+     * By default, all variables may be removed.
+     *
+     * @param isEliminable tests whether a variable index may be removed
+     */
+    public void setEliminable(IntPredicate isEliminable) {
+        this.isEliminable = isEliminable;
+    }
+
+    /**
+     * {@return the reduced clause list, its variables, and the reconstruction stack}
+     * If the clause list is found to be unsatisfiable, the reduced clause list contains only the empty clause.
+     *
+     * @param clauseList the clause list
+     * @param variableMap the variables of the clause list
+     */
+    public Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> apply(
+            BooleanClauseList clauseList, VariableMap variableMap) {
+        variableCount = variableMap.getVariableCount();
+        clauses = new ArrayList<>(clauseList.size());
+        occurrenceLists = new int[2 * variableCount + 1][];
+        occurrenceListSizes = new int[2 * variableCount + 1];
+        occurrenceCounts = new int[2 * variableCount + 1];
+        values = new int[variableCount + 1];
+        isRemoved = new boolean[variableCount + 1];
+        units = new ArrayDeque<>();
+        isUnsatisfiable = false;
+        reconstructionStack = new ReconstructionStack(variableMap);
+
+        for (BooleanClause clause : clauseList.getAll()) {
+            addClause(clause.get());
+        }
+        propagate();
+        boolean hasChanged = true;
+        while (hasChanged && !isUnsatisfiable) {
+            hasChanged = false;
+            if (isEquivalentLiteralSubstitution && !isUnsatisfiable) {
+                hasChanged |= substituteEquivalentLiterals();
+                propagate();
+            }
+            if (isPureLiteralElimination && !isUnsatisfiable) {
+                hasChanged |= eliminatePureLiterals();
+                propagate();
+            }
+            if (isVariableElimination && !isUnsatisfiable) {
+                hasChanged |= eliminateVariables();
+                propagate();
+            }
+        }
+        Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> result = createResult(variableMap);
+
+        clauses = null;
+        occurrenceLists = null;
+        occurrenceListSizes = null;
+        occurrenceCounts = null;
+        values = null;
+        isRemoved = null;
+        units = null;
+        reconstructionStack = null;
+        return result;
+    }
+
+    private Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> createResult(VariableMap variableMap) {
+        List<String> variableNames = variableMap.getVariableNames();
+        List<String> reducedVariableNames = new ArrayList<>();
+        int[] originalToReducedVariables = new int[variableCount + 1];
+        int[] reducedToOriginalVariables = new int[variableCount];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (!isRemoved[variable]) {
+                reducedToOriginalVariables[reducedVariableNames.size()] = variable;
+                reducedVariableNames.add(variableNames.get(variable - 1));
+                originalToReducedVariables[variable] = reducedVariableNames.size();
+            }
+        }
+        VariableMap reducedVariableMap = VariableMap.of(reducedVariableNames);
+        reconstructionStack.setReducedVariables(
+                reducedVariableMap, Arrays.copyOf(reducedToOriginalVariables, reducedVariableNames.size()));
+
+        BooleanClauseList reducedClauseList = new BooleanClauseList(reducedVariableNames.size());
+        if (isUnsatisfiable) {
+            reducedClauseList.add(new BooleanClause());
+        } else {
+            for (int[] clause : clauses) {
+                if (clause != null) {
+                    int[] reducedClause = new int[clause.length];
+                    for (int i = 0; i < clause.length; i++) {
+                        int variable = originalToReducedVariables[Math.abs(clause[i])];
+                        reducedClause[i] = clause[i] > 0 ? variable : -variable;
+                    }
+                    reducedClauseList.add(new BooleanClause(reducedClause, false));
+                }
+            }
+        }
+        return new Pair<>(new Pair<>(reducedClauseList, reducedVariableMap), reconstructionStack);
+    }
+
+    /**
+     * Adds a clause after removing duplicate and {@code false} literals.
+     * Ignores tautologies and satisfied clauses, and schedules unit clauses for propagation.
+     *
+     * @param literals the literals of the clause
+     */
+    private void addClause(int[] literals) {
+        int[] clause = literals.clone();
+        Arrays.sort(clause);
+        int length = 0;
+        for (int literal : clause) {
+            int value = values[Math.abs(literal)];
+            if (value == literal) {
+                return;
+            } else if (value == 0 && (length == 0 || clause[length - 1] != literal)) {
+                clause[length++] = literal;
+            }
+        }
+        for (int i = 0; i < length && clause[i] < 0; i++) {
+            if (Arrays.binarySearch(clause, i + 1, length, -clause[i]) >= 0) {
+                return;
+            }
+        }
+        if (length == 0) {
+            isUnsatisfiable = true;
+            return;
+        }
+        clause = length == clause.length ? clause : Arrays.copyOf(clause, length);
+        if (length == 1) {
+            units.add(clause[0]);
+        }
+        int index = clauses.size();
+        clauses.add(clause);
+        for (int literal : clause) {
+            int literalIndex = literal + variableCount;
+            int[] occurrenceList = occurrenceLists[literalIndex];
+            if (occurrenceList == null) {
+                occurrenceList = new int[4];
+                occurrenceLists[literalIndex] = occurrenceList;
+            } else if (occurrenceListSizes[literalIndex] == occurrenceList.length) {
+                occurrenceList = Arrays.copyOf(occurrenceList, 2 * occurrenceList.length);
+                occurrenceLists[literalIndex] = occurrenceList;
+            }
+            occurrenceList[occurrenceListSizes[literalIndex]++] = index;
+            occurrenceCounts[literalIndex]++;
+        }
+    }
+
+    private void removeClause(int index) {
+        int[] clause = clauses.get(index);
+        if (clause != null) {
+            for (int literal : clause) {
+                occurrenceCounts[literal + variableCount]--;
+            }
+            clauses.set(index, null);
+        }
+    }
+
+    /**
+     * {@return the indices of all remaining clauses that contain the given literal}
+     * Removes indices of removed clauses from the occurrence list.
+     *
+     * @param literal the literal
+     */
+    private int[] getOccurrences(int literal) {
+        int literalIndex = literal + variableCount;
+        int[] occurrenceList = occurrenceLists[literalIndex];
+        if (occurrenceList == null) {
+            return new int[0];
+        }
+        int size = 0;
+        for (int i = 0; i < occurrenceListSizes[literalIndex]; i++) {
+            if (clauses.get(occurrenceList[i]) != null) {
+                occurrenceList[size++] = occurrenceList[i];
+            }
+        }
+        occurrenceListSizes[literalIndex] = size;
+        return Arrays.copyOf(occurrenceList, size);
+    }
+
+    private void propagate() {
+        while (!units.isEmpty() && !isUnsatisfiable) {
+            int literal = units.poll();
+            int variable = Math.abs(literal);
+            if (values[variable] == literal) {
+                continue;
+            } else if (values[variable] == -literal) {
+                isUnsatisfiable = true;
+                return;
+            }
+            values[variable] = literal;
+            isRemoved[variable] = true;
+            reconstructionStack.pushFixed(literal);
+            for (int index : getOccurrences(literal)) {
+                removeClause(index);
+            }
+            for (int index : getOccurrences(-literal)) {
+                int[] clause = clauses.get(index);
+                removeClause(index);
+                addClause(clause);
+            }
+        }
+        units.clear();
+    }
+
+    /**
+     * Finds strongly connected components in the implication graph of all binary clauses and replaces each
+     * variable in a component by the component's representative literal.
+     *
+     * @return whether any variable has been substituted
+     */
+    private boolean substituteEquivalentLiterals() {
+        int nodeCount = 2 * variableCount + 1;
+        int[][] successors = new int[nodeCount][];
+        int[] successorCounts = new int[nodeCount];
+        for (int[] clause : clauses) {
+            if (clause != null && clause.length == 2) {
+                successorCounts[-clause[0] + variableCount]++;
+                successorCounts[-clause[1] + variableCount]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            successors[i] = new int[successorCounts[i]];
+            successorCounts[i] = 0;
+        }
+        for (int[] clause : clauses) {
+            if (clause != null && clause.length == 2) {
+                int from = -clause[0] + variableCount;
+                successors[from][successorCounts[from]++] = clause[1];
+                from = -clause[1] + variableCount;
+                successors[from][successorCounts[from]++] = clause[0];
+            }
+        }
+
+        int[] substitutions = new int[variableCount + 1];
+        boolean hasSubstitutions = false;
+        int[] indices = new int[nodeCount];
+        int[] lowLinks = new int[nodeCount];
+        boolean[] isOnStack = new boolean[nodeCount];
+        int[] componentStack = new int[nodeCount];
+        int componentStackSize = 0;
+        int[] callStack = new int[nodeCount];
+        int[] edgeIndices = new int[nodeCount];
+        int nextIndex = 1;
+        for (int root = -variableCount; root <= variableCount; root++) {
+            if (root == 0 || indices[root + variableCount] != 0 || isRemoved[Math.abs(root)]) {
+                continue;
+            }
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            indices[root + variableCount] = lowLinks[root + variableCount] = nextIndex++;
+            componentStack[componentStackSize++] = root;
+            isOnStack[root + variableCount] = true;
+            edgeIndices[root + variableCount] = 0;
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+                int nodeIndex = node + variableCount;
+                if (edgeIndices[nodeIndex] < successors[nodeIndex].length) {
+                    int successor = successors[nodeIndex][edgeIndices[nodeIndex]++];
+                    int successorIndex = successor + variableCount;
+                    if (indices[successorIndex] == 0) {
+                        indices[successorIndex] = lowLinks[successorIndex] = nextIndex++;
+                        componentStack[componentStackSize++] = successor;
+                        isOnStack[successorIndex] = true;
+                        edgeIndices[successorIndex] = 0;
+                        callStack[callStackSize++] = successor;
+                    } else if (isOnStack[successorIndex]) {
+                        lowLinks[nodeIndex] = Math.min(lowLinks[nodeIndex], indices[successorIndex]);
+                    }
+                } else {
+                    callStackSize--;
+                    if (callStackSize > 0) {
+                        int parentIndex = callStack[callStackSize - 1] + variableCount;
+                        lowLinks[parentIndex] = Math.min(lowLinks[parentIndex], lowLinks[nodeIndex]);
+                    }
+                    if (lowLinks[nodeIndex] == indices[nodeIndex]) {
+                        int componentStart = componentStackSize;
+                        do {
+                            componentStart--;
+                            isOnStack[componentStack[componentStart] + variableCount] = false;
+                        } while (componentStack[componentStart] != node);
+                        int representative = getRepresentative(componentStack, componentStart, componentStackSize);
+                        for (int i = componentStart; i < componentStackSize; i++) {
+                            int literal = componentStack[i];
+                            int variable = Math.abs(literal);
+                            if (variable == Math.abs(representative)) {
+                                if (literal != representative) {
+                                    isUnsatisfiable = true;
+                                    return false;
+                                }
+                            } else if (substitutions[variable] == 0) {
+                                substitutions[variable] = literal > 0 ? representative : -representative;
+                                hasSubstitutions = true;
+                            }
+                        }
+                        componentStackSize = componentStart;
+                    }
+                }
+            }
+        }
+        if (!hasSubstitutions) {
+            return false;
+        }
+
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (substitutions[variable] != 0) {
+                reconstructionStack.pushEquivalent(variable, substitutions[variable]);
+                isRemoved[variable] = true;
+            }
+        }
+        for (int index = 0; index < clauses.size(); index++) {
+            int[] clause = clauses.get(index);
+            if (clause != null) {
+                int[] substitutedClause = null;
+                for (int i = 0; i < clause.length; i++) {
+                    int substitution = substitutions[Math.abs(clause[i])];
+                    if (substitution != 0) {
+                        if (substitutedClause == null) {
+                            substitutedClause = clause.clone();
+                        }
+                        substitutedClause[i] = clause[i] > 0 ? substitution : -substitution;
+                    }
+                }
+                if (substitutedClause != null) {
+                    removeClause(index);
+                    addClause(substitutedClause);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@return the literal of the component's variable with the smallest index, preferring variables that are not
+     * eliminable}
+     * As the complementary component contains the same variables, it gets the complementary representative.
+     */
+    private int getRepresentative(int[] component, int start, int end) {
+        int representative = component[start];
+        for (int i = start + 1; i < end; i++) {
+            int literal = component[i];
+            boolean isEliminable = this.isEliminable.test(Math.abs(literal));
+            boolean isRepresentativeEliminable = this.isEliminable.test(Math.abs(representative));
+            if ((isRepresentativeEliminable && !isEliminable)
+                    || (isRepresentativeEliminable == isEliminable && Math.abs(literal) < Math.abs(representative))) {
+                representative = literal;
+            }
+        }
+        return representative;
+    }
+
+    private boolean eliminatePureLiterals() {
+        boolean hasChanged = false;
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (!isRemoved[variable] && isEliminable.test(variable)) {
+                int positiveCount = occurrenceCounts[variable + variableCount];
+                int negativeCount = occurrenceCounts[-variable + variableCount];
+                if (positiveCount > 0 && negativeCount == 0) {
+                    units.add(variable);
+                    hasChanged = true;
+                } else if (positiveCount == 0 && negativeCount > 0) {
+                    units.add(-variable);
+                    hasChanged = true;
+                }
+            }
+        }
+        return hasChanged;
+    }
+
+    /**
+     * Eliminates variables whose clauses can be replaced by at most as many non-tautological resolvents.
+     * Variables are considered in ascending order of their number of possible resolvents.
+     *
+     * @return whether any variable has been eliminated
+     */
+    private boolean eliminateVariables() {
+        List<Integer> candidates = new ArrayList<>();
+        for (int variable = 1; variable <= variableCount; variable++) {
+            if (!isRemoved[variable]
+                    && isEliminable.test(variable)
+                    && occurrenceCounts[variable + variableCount] + occurrenceCounts[-variable + variableCount] > 0
+                    && occurrenceCounts[variable + variableCount] + occurrenceCounts[-variable + variableCount]
+                            <= OCCURRENCE_LIMIT) {
+                candidates.add(variable);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(variable -> (long) occurrenceCounts[variable + variableCount]
+                * occurrenceCounts[-variable + variableCount]));
+
+        boolean hasChanged = false;
+        for (int variable : candidates) {
+            if (isUnsatisfiable) {
+                break;
+            }
+            if (isRemoved[variable]) {
+                continue;
+            }
+            int[] positiveOccurrences = getOccurrences(variable);
+            int[] negativeOccurrences = getOccurrences(-variable);
+            if (positiveOccurrences.length + negativeOccurrences.length == 0
+                    || positiveOccurrences.length + negativeOccurrences.length > OCCURRENCE_LIMIT) {
+                continue;
+            }
+            int maximumResolventCount = positiveOccurrences.length + negativeOccurrences.length;
+            List<int[]> resolvents = new ArrayList<>();
+            for (int positiveIndex : positiveOccurrences) {
+                for (int negativeIndex : negativeOccurrences) {
+                    int[] resolvent = resolve(clauses.get(positiveIndex), clauses.get(negativeIndex), variable);
+                    if (resolvent != null) {
+                        if (resolvent.length > RESOLVENT_LENGTH_LIMIT) {
+                            resolvents = null;
+                            break;
+                        }
+                        resolvents.add(resolvent);
+                    }
+                }
+                if (resolvents == null || resolvents.size() > maximumResolventCount) {
+                    resolvents = null;
+                    break;
+                }
+            }
+            if (resolvents == null) {
+                continue;
+            }
+
+            for (int positiveIndex : positiveOccurrences) {
+                reconstructionStack.pushWitness(variable, clauses.get(positiveIndex));
+            }
+            reconstructionStack.pushFixed(-variable);
+            isRemoved[variable] = true;
+            for (int index : positiveOccurrences) {
+                removeClause(index);
+            }
+            for (int index : negativeOccurrences) {
+                removeClause(index);
+            }
+            for (int[] resolvent : resolvents) {
+                addClause(resolvent);
+            }
+            propagate();
+            hasChanged = true;
+        }
+        return hasChanged;
+    }
+
+    /**
+     * {@return the resolvent of two sorted clauses on a variable, {@code null} if the resolvent is a tautology}
+     */
+    private static int[] resolve(int[] positiveClause, int[] negativeClause, int variable) {
+        int[] resolvent = new int[positiveClause.length + negativeClause.length - 2];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < positiveClause.length || j < negativeClause.length) {
+            int literal;
+            if (j == negativeClause.length || (i < positiveClause.length && positiveClause[i] <= negativeClause[j])) {
+                literal = positiveClause[i++];
+                if (j < negativeClause.length && negativeClause[j] == literal) {
+                    j++;
+                }
+            } else {
+                literal = negativeClause[j++];
+            }
+            if (Math.abs(literal) != variable) {
+                resolvent[length++] = literal;
+            }
+        }
+        for (int k = 0; k < length && resolvent[k] < 0; k++) {
+            if (Arrays.binarySearch(resolvent, k + 1, length, -resolvent[k]) >= 0) {
+                return null;
+            }
+        }
+        return Arrays.copyOf(resolvent, length);
+    }
+}
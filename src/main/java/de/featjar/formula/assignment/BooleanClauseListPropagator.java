@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.analysis.RuntimeContradictionException;
+import de.featjar.base.data.Result;
+import java.util.Arrays;
+
+/**
+ * Propagates a partial assignment over a {@link BooleanClauseList} using two watched literals per clause.
+ * Literals are assumed one at a time, each opening a new decision level, and all implied literals are recorded on a
+ * trail, such that assumptions can be undone level by level.
+ * Propagation stops at the first clause whose literals are all {@code false}, which can then be queried as
+ * conflicting clause.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanClauseListPropagator {
+
+    /**
+     * Reason of literals that are assumed or contained in a unit clause.
+     */
+    protected static final int NO_REASON = -1;
+
+    /**
+     * Conflict value if there is no conflict.
+     */
+    protected static final int NO_CONFLICT = -1;
+
+    /**
+     * Conflict value if an assumed literal is already {@code false}.
+     */
+    protected static final int ASSUMPTION_CONFLICT = -2;
+
+    protected int variableCount;
+
+    /**
+     * Clauses with at least two literals. The first two literals of each clause are watched.
+     */
+    protected int[][] clauses;
+
+    protected int clauseCount;
+
+    /**
+     * For each literal, the indices of all clauses watching it. Indexed by {@link #getLiteralIndex(int)}.
+     */
+    protected int[][] watches;
+
+    protected int[] watchCounts;
+
+    /**
+     * For each variable, its assigned literal or {@code 0} if unassigned.
+     */
+    protected int[] values;
+
+    /**
+     * For each assigned variable, the decision level at which it was assigned.
+     */
+    protected int[] levels;
+
+    /**
+     * For each assigned variable, the index of the clause that implied it or {@link #NO_REASON}.
+     */
+    protected int[] reasons;
+
+    protected int[] trail;
+    protected int trailSize;
+    protected int propagationHead;
+
+    /**
+     * For each decision level, the trail size before it was opened.
+     */
+    protected int[] levelStarts = new int[16];
+
+    protected int decisionLevel;
+
+    protected int conflict = NO_CONFLICT;
+    protected boolean isContradiction;
+
+    private int[] marks;
+
+    /**
+     * Creates a new propagator for a given clause list and propagates all of its unit clauses.
+     *
+     * @param clauseList the clause list
+     * @throws RuntimeContradictionException if the unit clauses of the clause list propagate to a conflict
+     */
+    public BooleanClauseListPropagator(BooleanClauseList clauseList) {
+        variableCount = clauseList.getVariableCount();
+        clauses = new int[Math.max(16, clauseList.size())][];
+        watches = new int[(variableCount + 1) << 1][];
+        watchCounts = new int[watches.length];
+        values = new int[variableCount + 1];
+        levels = new int[variableCount + 1];
+        reasons = new int[variableCount + 1];
+        Arrays.fill(reasons, NO_REASON);
+        trail = new int[variableCount];
+        marks = new int[variableCount + 1];
+        for (BooleanClause clause : clauseList.getAll()) {
+            addClause(clause.get());
+        }
+    }
+
+    /**
+     * Adds a clause. Undoes all assumptions before and immediately propagates the clause if it is a unit clause.
+     * Duplicate literals are removed and tautologies and clauses that are already satisfied without assumptions are
+     * ignored.
+     *
+     * @param literals the literals of the clause
+     * @throws RuntimeContradictionException if the clause is not satisfiable with the current clauses
+     */
+    public void addClause(int... literals) {
+        undoAll();
+        if (isContradiction) {
+            throw new RuntimeContradictionException();
+        }
+        int[] clause = new int[literals.length];
+        int size = 0;
+        boolean isSatisfied = false;
+        for (int literal : literals) {
+            int variable = Math.abs(literal);
+            if (variable == 0 || variable > variableCount) {
+                throw new IllegalArgumentException(String.valueOf(literal));
+            }
+            int value = getValue(literal);
+            if (value > 0 || marks[variable] == -literal) {
+                isSatisfied = true;
+                break;
+            } else if (value == 0 && marks[variable] == 0) {
+                marks[variable] = literal;
+                clause[size++] = literal;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            marks[Math.abs(clause[i])] = 0;
+        }
+        if (isSatisfied) {
+            return;
+        }
+        switch (size) {
+            case 0:
+                isContradiction = true;
+                throw new RuntimeContradictionException();
+            case 1:
+                enqueue(clause[0], NO_REASON);
+                if (!propagate()) {
+                    throw new RuntimeContradictionException();
+                }
+                break;
+            default:
+                attachClause(size == clause.length ? clause : Arrays.copyOf(clause, size));
+                break;
+        }
+    }
+
+    /**
+     * Opens a new decision level, assigns a literal, and propagates it.
+     * The decision level is opened even if a conflict occurs, such that each call can be reverted by {@link #undo()}.
+     *
+     * @param literal the literal
+     * @return {@code true} if no conflict occurred, {@code false} otherwise
+     */
+    public boolean assume(int literal) {
+        newDecisionLevel();
+        if (isConflicting()) {
+            return false;
+        }
+        int value = getValue(literal);
+        if (value < 0) {
+            conflict = ASSUMPTION_CONFLICT;
+            return false;
+        } else if (value == 0) {
+            enqueue(literal, NO_REASON);
+        }
+        return propagate();
+    }
+
+    /**
+     * Propagates all assigned literals that were not propagated yet.
+     *
+     * @return {@code true} if no conflict occurred, {@code false} otherwise
+     */
+    public boolean propagate() {
+        if (isConflicting()) {
+            return false;
+        }
+        conflict = propagateWatches();
+        if (conflict != NO_CONFLICT && decisionLevel == 0) {
+            isContradiction = true;
+        }
+        return conflict == NO_CONFLICT;
+    }
+
+    /**
+     * Undoes the last decision level, including its conflict, if any.
+     * Does nothing if there is no decision level.
+     */
+    public void undo() {
+        undo(decisionLevel - 1);
+    }
+
+    /**
+     * Undoes all decision levels above a given level.
+     *
+     * @param level the decision level to return to
+     */
+    public void undo(int level) {
+        if (level < 0 || level >= decisionLevel) {
+            return;
+        }
+        int start = levelStarts[level];
+        for (int i = trailSize - 1; i >= start; i--) {
+            int literal = trail[i];
+            int variable = Math.abs(literal);
+            unassigned(literal);
+            values[variable] = 0;
+            reasons[variable] = NO_REASON;
+        }
+        trailSize = start;
+        propagationHead = start;
+        decisionLevel = level;
+        conflict = NO_CONFLICT;
+    }
+
+    /**
+     * Undoes all decision levels.
+     */
+    public void undoAll() {
+        undo(0);
+    }
+
+    /**
+     * {@return whether the last propagation or assumption led to a conflict}
+     */
+    public boolean isConflicting() {
+        return isContradiction || conflict != NO_CONFLICT;
+    }
+
+    /**
+     * {@return whether the clauses propagate to a conflict without any assumption}
+     * In this case, the clauses are unsatisfiable.
+     */
+    public boolean isContradiction() {
+        return isContradiction;
+    }
+
+    /**
+     * {@return the clause whose literals are all false due to the last propagation}
+     * The result is empty if there is no conflict or if the conflict was caused by assuming a literal that was
+     * already {@code false}.
+     */
+    public Result<BooleanClause> getConflictingClause() {
+        return conflict >= 0 ? Result.of(new BooleanClause(clauses[conflict].clone())) : Result.empty();
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the number of clauses with at least two literals}
+     */
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    /**
+     * {@return the current decision level}
+     */
+    public int getDecisionLevel() {
+        return decisionLevel;
+    }
+
+    /**
+     * {@return {@code 1} if a given literal is {@code true}, {@code -1} if it is {@code false}, and {@code 0} if it
+     * is unassigned}
+     *
+     * @param literal the literal
+     */
+    public int getValue(int literal) {
+        int value = values[Math.abs(literal)];
+        return value == 0 ? 0 : value == literal ? 1 : -1;
+    }
+
+    /**
+     * {@return all assigned literals in the order of their assignment}
+     */
+    public int[] getTrail() {
+        return Arrays.copyOf(trail, trailSize);
+    }
+
+    /**
+     * {@return all literals assigned at the current decision level, starting with the assumed literal}
+     */
+    public int[] getImpliedLiterals() {
+        return Arrays.copyOfRange(trail, decisionLevel == 0 ? 0 : levelStarts[decisionLevel - 1], trailSize);
+    }
+
+    /**
+     * {@return the current partial assignment}
+     */
+    public BooleanSolution getSolution() {
+        return new BooleanSolution(Arrays.copyOfRange(values, 1, variableCount + 1), false);
+    }
+
+    /**
+     * {@return the position of a literal in {@link #watches}}
+     *
+     * @param literal the literal
+     */
+    protected static int getLiteralIndex(int literal) {
+        return literal > 0 ? literal << 1 : (-literal << 1) | 1;
+    }
+
+    /**
+     * Stores a clause and watches its first two literals.
+     * The first literal must not be {@code false} unless all literals are {@code false} and the second literal must
+     * not be {@code false} unless it was assigned after all other literals, except the first.
+     *
+     * @param clause the clause, with at least two literals
+     * @return the index of the clause
+     */
+    protected int attachClause(int[] clause) {
+        if (clauseCount == clauses.length) {
+            clauses = Arrays.copyOf(clauses, clauseCount << 1);
+        }
+        int index = clauseCount++;
+        clauses[index] = clause;
+        watch(clause[0], index);
+        watch(clause[1], index);
+        return index;
+    }
+
+    /**
+     * Assigns a literal without propagating it.
+     *
+     * @param literal the literal
+     * @param reason the index of the clause implying the literal or {@link #NO_REASON}
+     */
+    protected void enqueue(int literal, int reason) {
+        int variable = Math.abs(literal);
+        values[variable] = literal;
+        levels[variable] = decisionLevel;
+        reasons[variable] = reason;
+        trail[trailSize++] = literal;
+    }
+
+    /**
+     * Opens a new decision level without assigning a literal.
+     */
+    protected void newDecisionLevel() {
+        if (decisionLevel == levelStarts.length) {
+            levelStarts = Arrays.copyOf(levelStarts, decisionLevel << 1);
+        }
+        levelStarts[decisionLevel++] = trailSize;
+    }
+
+    /**
+     * Adds a new unassigned variable that does not occur in any clause yet.
+     *
+     * @return the new variable
+     */
+    protected int addVariable() {
+        int variable = ++variableCount;
+        if (variable == values.length) {
+            int capacity = values.length << 1;
+            values = Arrays.copyOf(values, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            marks = Arrays.copyOf(marks, capacity);
+            trail = Arrays.copyOf(trail, capacity);
+            watches = Arrays.copyOf(watches, capacity << 1);
+            watchCounts = Arrays.copyOf(watchCounts, capacity << 1);
+        }
+        reasons[variable] = NO_REASON;
+        return variable;
+    }
+
+    /**
+     * Called for each literal that becomes unassigned while undoing decision levels, before it is unassigned.
+     *
+     * @param literal the literal
+     */
+    protected void unassigned(int literal) {}
+
+    /**
+     * Adds a clause to the watch list of one of its literals.
+     *
+     * @param literal the watched literal
+     * @param clauseIndex the index of the clause
+     */
+    protected void watch(int literal, int clauseIndex) {
+        int index = getLiteralIndex(literal);
+        int[] watchList = watches[index];
+        if (watchList == null) {
+            watchList = watches[index] = new int[4];
+        } else if (watchCounts[index] == watchList.length) {
+            watchList = watches[index] = Arrays.copyOf(watchList, watchList.length << 1);
+        }
+        watchList[watchCounts[index]++] = clauseIndex;
+    }
+
+    private int propagateWatches() {
+        while (propagationHead < trailSize) {
+            int falseLiteral = -trail[propagationHead++];
+            int watchIndex = getLiteralIndex(falseLiteral);
+            int[] watchList = watches[watchIndex];
+            int watchCount = watchCounts[watchIndex];
+            int kept = 0;
+            for (int i = 0; i < watchCount; i++) {
+                int clauseIndex = watchList[i];
+                int[] clause = clauses[clauseIndex];
+                if (clause == null) {
+                    continue;
+                }
+                if (clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                int otherLiteral = clause[0];
+                if (values[Math.abs(otherLiteral)] == otherLiteral) {
+                    watchList[kept++] = clauseIndex;
+                    continue;
+                }
+                boolean isMoved = false;
+                for (int j = 2; j < clause.length; j++) {
+                    int literal = clause[j];
+                    if (values[Math.abs(literal)] != -literal) {
+                        clause[1] = literal;
+                        clause[j] = falseLiteral;
+                        watch(literal, clauseIndex);
+                        isMoved = true;
+                        break;
+                    }
+                }
+                if (isMoved) {
+                    continue;
+                }
+                watchList[kept++] = clauseIndex;
+                if (values[Math.abs(otherLiteral)] == -otherLiteral) {
+                    while (++i < watchCount) {
+                        watchList[kept++] = watchList[i];
+                    }
+                    watchCounts[watchIndex] = kept;
+                    propagationHead = trailSize;
+                    return clauseIndex;
+                }
+                enqueue(otherLiteral, clauseIndex);
+            }
+            watchCounts[watchIndex] = kept;
+        }
+        return NO_CONFLICT;
+    }
+}
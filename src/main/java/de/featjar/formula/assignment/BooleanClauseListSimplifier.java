@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Removes redundant clauses from a {@link BooleanClauseList}.
+ * First, each clause is canonicalized (i.e., sorted, without duplicate literals) and tautologies are removed.
+ * Then, duplicate clauses and clauses that are subsumed by another clause are removed.
+ * Optionally, clauses are strengthened by self-subsuming resolution (i.e., if {@code C = l | A} and
+ * {@code D = -l | B} with {@code B} a subset of {@code A}, {@code C} is replaced by {@code A}).
+ * Subsumption candidates are taken from the occurrence list of the rarest literal of a clause and rejected early by
+ * comparing 64-bit clause signatures.
+ * The remaining clauses keep their original order.
+ * Does not modify its input.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanClauseListSimplifier implements Function<BooleanClauseList, BooleanClauseList> {
+
+    private static final int SHARD_SIZE = 1024;
+
+    private final boolean isParallel;
+    private final boolean isSelfSubsuming;
+
+    private int[][] clauses;
+    private long[] signatures;
+    private boolean[] isRemoved;
+    private int[][] occurrences;
+    private int literalOffset;
+
+    /**
+     * Creates a new clause list simplifier that removes duplicate and subsumed clauses and applies self-subsuming
+     * resolution sequentially.
+     */
+    public BooleanClauseListSimplifier() {
+        this(false, true);
+    }
+
+    /**
+     * Creates a new clause list simplifier.
+     *
+     * @param isParallel whether subsumption is checked in parallel over shards of the clause list
+     * @param isSelfSubsuming whether clauses are strengthened by self-subsuming resolution
+     */
+    public BooleanClauseListSimplifier(boolean isParallel, boolean isSelfSubsuming) {
+        this.isParallel = isParallel;
+        this.isSelfSubsuming = isSelfSubsuming;
+    }
+
+    @Override
+    public BooleanClauseList apply(BooleanClauseList clauseList) {
+        List<BooleanClause> originalClauses = clauseList.getAll();
+        IntStream clauseIndices = IntStream.range(0, originalClauses.size());
+        if (isParallel) {
+            clauseIndices = clauseIndices.parallel();
+        }
+        int[][] canonicalClauses = clauseIndices
+                .mapToObj(i -> canonicalize(originalClauses.get(i).get()))
+                .toArray(int[][]::new);
+
+        List<int[]> uniqueClauses = new ArrayList<>(canonicalClauses.length);
+        HashSet<ClauseKey> clauseKeys = new HashSet<>();
+        for (int[] clause : canonicalClauses) {
+            if (clause != null && clauseKeys.add(new ClauseKey(clause))) {
+                uniqueClauses.add(clause);
+            }
+        }
+        clauses = uniqueClauses.toArray(new int[0][]);
+        signatures = new long[clauses.length];
+        isRemoved = new boolean[clauses.length];
+        int maximumVariable = clauseList.getVariableCount();
+        for (int i = 0; i < clauses.length; i++) {
+            signatures[i] = computeSignature(clauses[i]);
+            for (int literal : clauses[i]) {
+                maximumVariable = Math.max(maximumVariable, Math.abs(literal));
+            }
+        }
+        literalOffset = maximumVariable;
+
+        boolean hasChanged = true;
+        while (hasChanged) {
+            buildOccurrences();
+            removeSubsumedClauses();
+            hasChanged = isSelfSubsuming && strengthenClauses();
+        }
+
+        BooleanClauseList simplifiedClauseList = new BooleanClauseList(clauseList.getVariableCount());
+        for (int i = 0; i < clauses.length; i++) {
+            if (!isRemoved[i]) {
+                simplifiedClauseList.add(new BooleanClause(clauses[i], false));
+            }
+        }
+        clauses = null;
+        signatures = null;
+        isRemoved = null;
+        occurrences = null;
+        return simplifiedClauseList;
+    }
+
+    /**
+     * {@return the sorted literals of the given clause without duplicates, {@code null} if the clause is a tautology}
+     *
+     * @param literals the literals
+     */
+    private static int[] canonicalize(int[] literals) {
+        int[] sortedLiterals = literals.clone();
+        Arrays.sort(sortedLiterals);
+        int length = 0;
+        for (int literal : sortedLiterals) {
+            if (length == 0 || sortedLiterals[length - 1] != literal) {
+                sortedLiterals[length++] = literal;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (sortedLiterals[i] > 0) {
+                break;
+            }
+            if (Arrays.binarySearch(sortedLiterals, i + 1, length, -sortedLiterals[i]) >= 0) {
+                return null;
+            }
+        }
+        return length == sortedLiterals.length ? sortedLiterals : Arrays.copyOf(sortedLiterals, length);
+    }
+
+    private static long computeSignature(int[] clause) {
+        long signature = 0;
+        for (int literal : clause) {
+            signature |= 1L << ((literal > 0 ? 2 * literal : -2 * literal + 1) & 63);
+        }
+        return signature;
+    }
+
+    private void buildOccurrences() {
+        int[] occurrenceCounts = new int[2 * literalOffset + 1];
+        for (int i = 0; i < clauses.length; i++) {
+            if (!isRemoved[i]) {
+                for (int literal : clauses[i]) {
+                    occurrenceCounts[literal + literalOffset]++;
+                }
+            }
+        }
+        occurrences = new int[occurrenceCounts.length][];
+        for (int i = 0; i < occurrences.length; i++) {
+            occurrences[i] = new int[occurrenceCounts[i]];
+            occurrenceCounts[i] = 0;
+        }
+        for (int i = 0; i < clauses.length; i++) {
+            if (!isRemoved[i]) {
+                for (int literal : clauses[i]) {
+                    int literalIndex = literal + literalOffset;
+                    occurrences[literalIndex][occurrenceCounts[literalIndex]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all clauses that are a superset of another clause.
+     * Of two equal clauses, the latter one is removed.
+     * As only supersets of a clause are marked, the order in which clauses are processed does not matter, so that
+     * shards of clauses can be processed concurrently.
+     */
+    private void removeSubsumedClauses() {
+        int shardCount = (clauses.length + SHARD_SIZE - 1) / SHARD_SIZE;
+        IntStream shards = IntStream.range(0, shardCount);
+        if (isParallel) {
+            shards = shards.parallel();
+        }
+        shards.forEach(shard -> {
+            int end = Math.min(clauses.length, (shard + 1) * SHARD_SIZE);
+            for (int i = shard * SHARD_SIZE; i < end; i++) {
+                if (!isRemoved[i]) {
+                    removeSupersets(i);
+                }
+            }
+        });
+    }
+
+    private void removeSupersets(int index) {
+        int[] clause = clauses[index];
+        if (clause.length == 0) {
+            for (int j = 0; j < clauses.length; j++) {
+                if (j != index && (clauses[j].length > 0 || j > index)) {
+                    isRemoved[j] = true;
+                }
+            }
+            return;
+        }
+        long signature = signatures[index];
+        for (int j : getRarestOccurrences(clause)) {
+            int[] otherClause = clauses[j];
+            if (j != index
+                    && !isRemoved[j]
+                    && (otherClause.length > clause.length || (otherClause.length == clause.length && j > index))
+                    && (signature & ~signatures[j]) == 0
+                    && isSubset(clause, otherClause)) {
+                isRemoved[j] = true;
+            }
+        }
+    }
+
+    private int[] getRarestOccurrences(int[] clause) {
+        int[] candidates = occurrences[clause[0] + literalOffset];
+        for (int literal : clause) {
+            int[] literalOccurrences = occurrences[literal + literalOffset];
+            if (literalOccurrences.length < candidates.length) {
+                candidates = literalOccurrences;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Applies self-subsuming resolution to all clauses.
+     * For each clause {@code D} and each of its literals {@code l}, removes {@code -l} from every clause that
+     * contains {@code D} with {@code l} flipped.
+     *
+     * @return whether any clause has been strengthened
+     */
+    private boolean strengthenClauses() {
+        boolean hasChanged = false;
+        for (int i = 0; i < clauses.length; i++) {
+            if (isRemoved[i]) {
+                continue;
+            }
+            for (int k = 0; k < clauses[i].length; k++) {
+                int[] clause = clauses[i];
+                int literal = clause[k];
+                int[] flippedClause = clause.clone();
+                flippedClause[k] = -literal;
+                Arrays.sort(flippedClause);
+                long flippedSignature = computeSignature(flippedClause);
+                for (int j : occurrences[-literal + literalOffset]) {
+                    int[] otherClause = clauses[j];
+                    if (j != i
+                            && !isRemoved[j]
+                            && otherClause.length >= clause.length
+                            && (flippedSignature & ~signatures[j]) == 0
+                            && isSubset(flippedClause, otherClause)) {
+                        clauses[j] = remove(otherClause, -literal);
+                        signatures[j] = computeSignature(clauses[j]);
+                        hasChanged = true;
+                    }
+                }
+            }
+        }
+        return hasChanged;
+    }
+
+    private static int[] remove(int[] sortedClause, int literal) {
+        int index = Arrays.binarySearch(sortedClause, literal);
+        int[] newClause = new int[sortedClause.length - 1];
+        System.arraycopy(sortedClause, 0, newClause, 0, index);
+        System.arraycopy(sortedClause, index + 1, newClause, index, newClause.length - index);
+        return newClause;
+    }
+
+    private static boolean isSubset(int[] sortedSubset, int[] sortedSuperset) {
+        if (sortedSubset.length > sortedSuperset.length) {
+            return false;
+        }
+        int j = 0;
+        for (int literal : sortedSubset) {
+            while (j < sortedSuperset.length && sortedSuperset[j] < literal) {
+                j++;
+            }
+            if (j == sortedSuperset.length || sortedSuperset[j] != literal) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    private static final class ClauseKey {
+        private final int[] literals;
+        private final int hashCode;
+
+        private ClauseKey(int[] literals) {
+            this.literals = literals;
+            hashCode = Arrays.hashCode(literals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ClauseKey && Arrays.equals(literals, ((ClauseKey) obj).literals);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A column-oriented index of Boolean solutions.
+ * For each literal, a bit set stores which solutions contain the literal, such that the solutions containing a set of
+ * literals can be computed by intersecting the bit sets of these literals, 64 solutions at a time.
+ * Solutions can be appended at any time and are numbered in the order they were added.
+ * Appending a solution that contains a variable larger than {@link #getVariableCount()} increases the number of
+ * variables.
+ * <p>
+ * Queries may be run concurrently, but not concurrently with {@link #add(ABooleanAssignment)}.
+ * Literals whose variable is larger than {@link #getVariableCount()} are not contained in any solution.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanSolutionIndex {
+
+    private int variableCount;
+
+    /**
+     * For each literal {@code l}, the words of its bit set at index {@code 2 * (|l| - 1)} if it is positive and
+     * {@code 2 * (|l| - 1) + 1} if it is negative, or {@code null} if no solution contains it.
+     */
+    private long[][] columns;
+
+    private int wordCapacity = 1;
+    private int size;
+
+    /**
+     * Creates a new empty index.
+     *
+     * @param variableCount the number of variables
+     */
+    public BooleanSolutionIndex(int variableCount) {
+        if (variableCount < 0) {
+            throw new IllegalArgumentException(String.format("%d is negative", variableCount));
+        }
+        this.variableCount = variableCount;
+        columns = new long[2 * variableCount][];
+    }
+
+    /**
+     * Creates a new index containing the given solutions.
+     *
+     * @param variableCount the number of variables
+     * @param solutions the solutions
+     */
+    public BooleanSolutionIndex(int variableCount, Collection<? extends ABooleanAssignment> solutions) {
+        this(variableCount);
+        wordCapacity = Math.max(1, getWordCount(solutions.size()));
+        solutions.forEach(this::add);
+    }
+
+    private static int getWordCount(int bitCount) {
+        return (bitCount + Long.SIZE - 1) >>> 6;
+    }
+
+    private int getColumnIndex(int literal) {
+        int variable = Math.abs(literal);
+        if (variable == 0) {
+            throw new IllegalArgumentException(String.valueOf(literal));
+        }
+        return variable > variableCount ? -1 : 2 * (variable - 1) + (literal > 0 ? 0 : 1);
+    }
+
+    /**
+     * Appends a solution.
+     * Unassigned entries (i.e., {@code 0}) are ignored.
+     *
+     * @param solution the solution
+     * @return the index of the solution
+     */
+    public int add(ABooleanAssignment solution) {
+        if (size == (wordCapacity << 6)) {
+            wordCapacity <<= 1;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    columns[i] = Arrays.copyOf(columns[i], wordCapacity);
+                }
+            }
+        }
+        int word = size >>> 6;
+        long bit = 1L << size;
+        for (int literal : solution.get()) {
+            if (literal != 0) {
+                int variable = Math.abs(literal);
+                if (variable > variableCount) {
+                    variableCount = variable;
+                    columns = Arrays.copyOf(columns, 2 * variableCount);
+                }
+                int columnIndex = getColumnIndex(literal);
+                long[] column = columns[columnIndex];
+                if (column == null) {
+                    column = columns[columnIndex] = new long[wordCapacity];
+                }
+                column[word] |= bit;
+            }
+        }
+        return size++;
+    }
+
+    /**
+     * Appends all given solutions.
+     *
+     * @param solutions the solutions
+     */
+    public void addAll(Collection<? extends ABooleanAssignment> solutions) {
+        solutions.forEach(this::add);
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the number of solutions}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the solution with a given index}
+     *
+     * @param index the index
+     */
+    public BooleanSolution get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int word = index >>> 6;
+        long bit = 1L << index;
+        int[] literals = new int[variableCount];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            long[] positiveColumn = columns[2 * (variable - 1)];
+            long[] negativeColumn = columns[2 * (variable - 1) + 1];
+            if (positiveColumn != null && (positiveColumn[word] & bit) != 0) {
+                literals[variable - 1] = variable;
+            } else if (negativeColumn != null && (negativeColumn[word] & bit) != 0) {
+                literals[variable - 1] = -variable;
+            }
+        }
+        return new BooleanSolution(literals, false);
+    }
+
+    /**
+     * {@return the indices of all solutions that contain all given literals}
+     *
+     * @param literals the literals
+     */
+    public BitSet getSolutions(int... literals) {
+        return getSolutions(null, literals);
+    }
+
+    /**
+     * {@return the indices of all solutions within a given set of indices that contain all given literals}
+     *
+     * @param candidates the indices of the solutions to consider, or {@code null} for all solutions
+     * @param literals the literals
+     */
+    public BitSet getSolutions(BitSet candidates, int... literals) {
+        long[][] selectedColumns = getColumns(literals);
+        if (selectedColumns == null) {
+            return new BitSet();
+        }
+        int wordCount = getWordCount(size);
+        long[] words = candidates == null ? getAllWords(wordCount) : Arrays.copyOf(candidates.toLongArray(), wordCount);
+        for (long[] column : selectedColumns) {
+            for (int i = 0; i < wordCount; i++) {
+                words[i] &= column[i];
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * {@return the number of solutions that contain all given literals}
+     *
+     * @param literals the literals
+     */
+    public int count(int... literals) {
+        long[][] selectedColumns = getColumns(literals);
+        if (selectedColumns == null) {
+            return 0;
+        } else if (selectedColumns.length == 0) {
+            return size;
+        }
+        int count = 0;
+        int wordCount = getWordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            count += Long.bitCount(intersect(selectedColumns, i));
+        }
+        return count;
+    }
+
+    /**
+     * {@return whether any solution contains all given literals}
+     *
+     * @param literals the literals
+     */
+    public boolean contains(int... literals) {
+        long[][] selectedColumns = getColumns(literals);
+        if (selectedColumns == null) {
+            return false;
+        } else if (selectedColumns.length == 0) {
+            return size > 0;
+        }
+        int wordCount = getWordCount(size);
+        for (int i = 0; i < wordCount; i++) {
+            if (intersect(selectedColumns, i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@return for each given literal set, the number of solutions that contain all of its literals}
+     * The literal sets are processed in parallel.
+     *
+     * @param literalSets the literal sets
+     */
+    public int[] countEach(List<int[]> literalSets) {
+        return IntStream.range(0, literalSets.size())
+                .parallel()
+                .map(i -> count(literalSets.get(i)))
+                .toArray();
+    }
+
+    /**
+     * {@return for each given literal set, whether any solution contains all of its literals}
+     * The literal sets are processed in parallel.
+     *
+     * @param literalSets the literal sets
+     */
+    public boolean[] containsEach(List<int[]> literalSets) {
+        boolean[] contained = new boolean[literalSets.size()];
+        IntStream.range(0, contained.length).parallel().forEach(i -> contained[i] = contains(literalSets.get(i)));
+        return contained;
+    }
+
+    private long intersect(long[][] selectedColumns, int wordIndex) {
+        long word = selectedColumns[0][wordIndex];
+        for (int j = 1; j < selectedColumns.length && word != 0; j++) {
+            word &= selectedColumns[j][wordIndex];
+        }
+        return word;
+    }
+
+    /**
+     * {@return the columns of the given literals, or {@code null} if any literal is not contained in any solution}
+     */
+    private long[][] getColumns(int... literals) {
+        long[][] selectedColumns = new long[literals.length][];
+        for (int i = 0; i < literals.length; i++) {
+            int columnIndex = getColumnIndex(literals[i]);
+            if (columnIndex < 0 || columns[columnIndex] == null) {
+                return null;
+            }
+            selectedColumns[i] = columns[columnIndex];
+        }
+        return selectedColumns;
+    }
+
+    private long[] getAllWords(int wordCount) {
+        long[] words = new long[wordCount];
+        Arrays.fill(words, -1L);
+        if ((size & 0x3F) != 0) {
+            words[wordCount - 1] = (1L << size) - 1;
+        }
+        return words;
+    }
+}
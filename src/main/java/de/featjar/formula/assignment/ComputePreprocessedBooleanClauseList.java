@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.computation.TseitinTransformer;
+import java.util.List;
+
+/**
+ * Reduces a {@link BooleanClauseList} with a {@link BooleanClauseListPreprocessor}.
+ * Yields the reduced clause list with its variables, and a {@link ReconstructionStack} that lifts solutions of the
+ * reduced clause list to the original variables.
+ *
+ * @author Sebastian Krieter
+ */
+public class ComputePreprocessedBooleanClauseList
+        extends AComputation<Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack>> {
+
+    @SuppressWarnings("rawtypes")
+    protected static final Dependency<Pair> CNF = Dependency.newDependency(Pair.class);
+    /**
+     * Determines whether variables that only occur with one polarity are fixed.
+     * If enabled, the result is only equisatisfiable to the input.
+     */
+    public static final Dependency<Boolean> IS_PURE_LITERAL_ELIMINATION = Dependency.newDependency(Boolean.class);
+    /**
+     * Determines whether bounded variable elimination is applied to all variables.
+     * By default, only auxiliary variables introduced by {@link TseitinTransformer} are eliminated, such that all
+     * solutions are preserved when projected onto the remaining variables.
+     */
+    public static final Dependency<Boolean> IS_ELIMINATING_ALL_VARIABLES = Dependency.newDependency(Boolean.class);
+
+    /**
+     * Creates a new clause list preprocessing.
+     *
+     * @param clauseList the input clause list computation
+     */
+    public ComputePreprocessedBooleanClauseList(IComputation<Pair<BooleanClauseList, VariableMap>> clauseList) {
+        super(
+                clauseList, //
+                Computations.of(Boolean.FALSE), //
+                Computations.of(Boolean.FALSE));
+    }
+
+    protected ComputePreprocessedBooleanClauseList(ComputePreprocessedBooleanClauseList other) {
+        super(other);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Result<Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack>> compute(
+            List<Object> dependencyList, Progress progress) {
+        Pair<BooleanClauseList, VariableMap> clauseList =
+                (Pair<BooleanClauseList, VariableMap>) CNF.get(dependencyList);
+        VariableMap variableMap = clauseList.getValue();
+        BooleanClauseListPreprocessor preprocessor = new BooleanClauseListPreprocessor();
+        preprocessor.setPureLiteralElimination(IS_PURE_LITERAL_ELIMINATION.get(dependencyList));
+        if (!IS_ELIMINATING_ALL_VARIABLES.get(dependencyList)) {
+            List<String> variableNames = variableMap.getVariableNames();
+            preprocessor.setEliminable(variable -> variableNames
+                    .get(variable - 1)
+                    .startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX));
+        }
+        return Result.of(preprocessor.apply(clauseList.getKey(), variableMap));
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new ComputePreprocessedBooleanClauseList(this);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import java.util.List;
+
+/**
+ * Removes tautologies, duplicate clauses, and subsumed clauses from a {@link BooleanClauseList}.
+ * The result is equivalent to the input clause list and uses the same variables.
+ *
+ * @author Sebastian Krieter
+ * @see BooleanClauseListSimplifier
+ */
+public class ComputeSimplifiedBooleanClauseList extends AComputation<BooleanClauseList> {
+    public static final Dependency<BooleanClauseList> BOOLEAN_CLAUSE_LIST =
+            Dependency.newDependency(BooleanClauseList.class);
+    /**
+     * Determines whether this computation is parallel.
+     * If enabled, subsumed clauses are searched concurrently on the common fork-join pool.
+     * The result is the same as for a sequential computation.
+     */
+    public static final Dependency<Boolean> IS_PARALLEL = Dependency.newDependency(Boolean.class);
+    /**
+     * Determines whether clauses are strengthened by self-subsuming resolution.
+     */
+    public static final Dependency<Boolean> IS_SELF_SUBSUMING = Dependency.newDependency(Boolean.class);
+
+    /**
+     * Creates a new clause list simplification.
+     *
+     * @param clauseList the input clause list computation
+     */
+    public ComputeSimplifiedBooleanClauseList(IComputation<BooleanClauseList> clauseList) {
+        super(
+                clauseList, //
+                Computations.of(Boolean.FALSE), //
+                Computations.of(Boolean.TRUE));
+    }
+
+    protected ComputeSimplifiedBooleanClauseList(ComputeSimplifiedBooleanClauseList other) {
+        super(other);
+    }
+
+    @Override
+    public Result<BooleanClauseList> compute(List<Object> dependencyList, Progress progress) {
+        BooleanClauseList clauseList = BOOLEAN_CLAUSE_LIST.get(dependencyList);
+        boolean isParallel = IS_PARALLEL.get(dependencyList);
+        boolean isSelfSubsuming = IS_SELF_SUBSUMING.get(dependencyList);
+        return Result.of(new BooleanClauseListSimplifier(isParallel, isSelfSubsuming).apply(clauseList));
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new ComputeSimplifiedBooleanClauseList(this);
+    }
+}
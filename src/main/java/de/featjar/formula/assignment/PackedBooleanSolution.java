@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A (partial) Boolean solution that stores two bits per variable.
+ * For each variable, one bit stores whether it is assigned and another whether it is selected (i.e., {@code true}).
+ * Selected variables are always assigned.
+ * Compared to {@link BooleanSolution}, which stores one {@code int} per variable, this needs a sixteenth of the memory
+ * and allows to compare solutions 64 variables at a time.
+ * <p>
+ * Variables are numbered from {@code 1} to {@link #getVariableCount()}, as in a {@link BooleanSolution}.
+ * Operations on two packed solutions require both to have the same number of variables.
+ *
+ * @author Sebastian Krieter
+ */
+public class PackedBooleanSolution {
+
+    private final int variableCount;
+    private final long[] assigned;
+    private final long[] selected;
+
+    /**
+     * Creates a new packed solution without any assigned variables.
+     *
+     * @param variableCount the number of variables
+     */
+    public PackedBooleanSolution(int variableCount) {
+        if (variableCount < 0) {
+            throw new IllegalArgumentException(String.format("%d is negative", variableCount));
+        }
+        this.variableCount = variableCount;
+        assigned = new long[(variableCount + Long.SIZE - 1) >>> 6];
+        selected = new long[assigned.length];
+    }
+
+    /**
+     * Creates a new packed solution containing all literals of a given assignment.
+     * If the assignment contains a literal and its negation, the last one is used.
+     *
+     * @param assignment the assignment
+     * @param variableCount the number of variables, must be at least the largest variable in the assignment
+     */
+    public PackedBooleanSolution(ABooleanAssignment assignment, int variableCount) {
+        this(variableCount);
+        for (int literal : assignment.get()) {
+            if (literal != 0) {
+                set(literal);
+            }
+        }
+    }
+
+    /**
+     * Creates a new packed solution with the same literals and number of variables as a given solution.
+     *
+     * @param solution the solution
+     */
+    public PackedBooleanSolution(BooleanSolution solution) {
+        this(solution, solution.size());
+    }
+
+    /**
+     * Copies a packed solution.
+     *
+     * @param solution the packed solution
+     */
+    public PackedBooleanSolution(PackedBooleanSolution solution) {
+        variableCount = solution.variableCount;
+        assigned = solution.assigned.clone();
+        selected = solution.selected.clone();
+    }
+
+    private PackedBooleanSolution(int variableCount, long[] assigned, long[] selected) {
+        this.variableCount = variableCount;
+        this.assigned = assigned;
+        this.selected = selected;
+    }
+
+    /**
+     * {@return packed solutions for all solutions of a given list}
+     *
+     * @param solutionList the solution list
+     * @param variableCount the number of variables, must be at least the largest variable in the list
+     */
+    public static List<PackedBooleanSolution> pack(BooleanSolutionList solutionList, int variableCount) {
+        List<PackedBooleanSolution> solutions = new ArrayList<>(solutionList.size());
+        for (BooleanSolution solution : solutionList.getAll()) {
+            solutions.add(new PackedBooleanSolution(solution, variableCount));
+        }
+        return solutions;
+    }
+
+    /**
+     * {@return a solution list containing all given packed solutions}
+     *
+     * @param solutions the packed solutions
+     */
+    public static BooleanSolutionList unpack(Collection<PackedBooleanSolution> solutions) {
+        BooleanSolutionList solutionList = new BooleanSolutionList(solutions.size());
+        for (PackedBooleanSolution solution : solutions) {
+            solutionList.add(solution.toSolution());
+        }
+        return solutionList;
+    }
+
+    /**
+     * {@return the number of variables}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the words storing whether a variable is assigned, the bit {@code i} stores variable {@code i + 1}}
+     */
+    public long[] getAssignedWords() {
+        return assigned.clone();
+    }
+
+    /**
+     * {@return the words storing whether a variable is selected, the bit {@code i} stores variable {@code i + 1}}
+     */
+    public long[] getSelectedWords() {
+        return selected.clone();
+    }
+
+    /**
+     * {@return the literal of a given variable, or {@code 0} if it is unassigned}
+     *
+     * @param variable the variable
+     */
+    public int get(int variable) {
+        int index = checkVariable(variable) - 1;
+        long bit = 1L << index;
+        if ((assigned[index >>> 6] & bit) == 0) {
+            return 0;
+        }
+        return (selected[index >>> 6] & bit) != 0 ? variable : -variable;
+    }
+
+    /**
+     * Assigns the variable of a given literal, replacing its previous value.
+     *
+     * @param literal the literal
+     */
+    public void set(int literal) {
+        int index = checkVariable(Math.abs(literal)) - 1;
+        long bit = 1L << index;
+        assigned[index >>> 6] |= bit;
+        if (literal > 0) {
+            selected[index >>> 6] |= bit;
+        } else {
+            selected[index >>> 6] &= ~bit;
+        }
+    }
+
+    /**
+     * Unassigns a given variable.
+     *
+     * @param variable the variable
+     */
+    public void clear(int variable) {
+        int index = checkVariable(variable) - 1;
+        long bit = ~(1L << index);
+        assigned[index >>> 6] &= bit;
+        selected[index >>> 6] &= bit;
+    }
+
+    /**
+     * {@return the number of assigned variables}
+     */
+    public int countAssigned() {
+        int count = 0;
+        for (long word : assigned) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables assigned to {@code false}}
+     */
+    public int countNegatives() {
+        int count = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            count += Long.bitCount(assigned[i] & ~selected[i]);
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables that are assigned to {@code false} in this and another packed solution}
+     *
+     * @param other the other packed solution
+     */
+    public int countCommonNegatives(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        int count = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            count += Long.bitCount(assigned[i] & ~selected[i] & other.assigned[i] & ~other.selected[i]);
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables whose literals differ in this and another packed solution}
+     * A variable that is assigned in only one of the packed solutions is counted as well.
+     *
+     * @param other the other packed solution
+     */
+    public int countDifferences(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        int count = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            count += Long.bitCount((assigned[i] ^ other.assigned[i]) | (selected[i] ^ other.selected[i]));
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of variables assigned to different values in this and another packed solution}
+     *
+     * @param other the other packed solution
+     */
+    public int countConflicts(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        int count = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            count += Long.bitCount(assigned[i] & other.assigned[i] & (selected[i] ^ other.selected[i]));
+        }
+        return count;
+    }
+
+    /**
+     * {@return the number of given literals whose negation is contained in this packed solution}
+     *
+     * @param literals the literals
+     */
+    public int countConflicts(int... literals) {
+        int count = 0;
+        for (int literal : literals) {
+            if (literal != 0 && get(Math.abs(literal)) == -literal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@return whether any variable is assigned to different values in this and another packed solution}
+     *
+     * @param other the other packed solution
+     */
+    public boolean conflictsWith(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        for (int i = 0; i < assigned.length; i++) {
+            if ((assigned[i] & other.assigned[i] & (selected[i] ^ other.selected[i])) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@return whether the negation of any given literal is contained in this packed solution}
+     *
+     * @param literals the literals
+     */
+    public boolean conflictsWith(int... literals) {
+        for (int literal : literals) {
+            if (literal != 0 && get(Math.abs(literal)) == -literal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@return whether this packed solution contains all literals of another packed solution}
+     *
+     * @param other the other packed solution
+     */
+    public boolean containsAll(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        for (int i = 0; i < assigned.length; i++) {
+            if ((other.assigned[i] & (~assigned[i] | (selected[i] ^ other.selected[i]))) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@return whether this packed solution contains all given literals}
+     *
+     * @param literals the literals
+     */
+    public boolean containsAll(int... literals) {
+        for (int literal : literals) {
+            if (literal == 0 || Math.abs(literal) > variableCount || get(Math.abs(literal)) != literal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@return the literals contained in this and another packed solution}
+     * Equivalent to {@link BooleanSolution#removeConflicts(int[], int[])}.
+     *
+     * @param other the other packed solution
+     */
+    public PackedBooleanSolution retainAll(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        long[] newAssigned = new long[assigned.length];
+        long[] newSelected = new long[assigned.length];
+        for (int i = 0; i < assigned.length; i++) {
+            newAssigned[i] = assigned[i] & other.assigned[i] & ~(selected[i] ^ other.selected[i]);
+            newSelected[i] = selected[i] & newAssigned[i];
+        }
+        return new PackedBooleanSolution(variableCount, newAssigned, newSelected);
+    }
+
+    /**
+     * {@return the literals contained in this packed solution, but not in another one}
+     *
+     * @param other the other packed solution
+     */
+    public PackedBooleanSolution removeAll(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        long[] newAssigned = new long[assigned.length];
+        long[] newSelected = new long[assigned.length];
+        for (int i = 0; i < assigned.length; i++) {
+            newAssigned[i] = assigned[i] & ~(other.assigned[i] & ~(selected[i] ^ other.selected[i]));
+            newSelected[i] = selected[i] & newAssigned[i];
+        }
+        return new PackedBooleanSolution(variableCount, newAssigned, newSelected);
+    }
+
+    /**
+     * {@return the literals of this packed solution together with the literals of another one for all variables that
+     * are unassigned in this packed solution}
+     *
+     * @param other the other packed solution
+     */
+    public PackedBooleanSolution addAll(PackedBooleanSolution other) {
+        checkVariableCount(other);
+        long[] newAssigned = new long[assigned.length];
+        long[] newSelected = new long[assigned.length];
+        for (int i = 0; i < assigned.length; i++) {
+            newAssigned[i] = assigned[i] | other.assigned[i];
+            newSelected[i] = selected[i] | (other.selected[i] & ~assigned[i]);
+        }
+        return new PackedBooleanSolution(variableCount, newAssigned, newSelected);
+    }
+
+    /**
+     * {@return the negation of all literals of this packed solution}
+     */
+    public PackedBooleanSolution inverse() {
+        long[] newSelected = new long[assigned.length];
+        for (int i = 0; i < assigned.length; i++) {
+            newSelected[i] = assigned[i] & ~selected[i];
+        }
+        return new PackedBooleanSolution(variableCount, assigned.clone(), newSelected);
+    }
+
+    /**
+     * {@return a solution containing the same literals as this packed solution}
+     */
+    public BooleanSolution toSolution() {
+        int[] literals = new int[variableCount];
+        for (int variable = 1; variable <= variableCount; variable++) {
+            literals[variable - 1] = get(variable);
+        }
+        return new BooleanSolution(literals, false);
+    }
+
+    /**
+     * {@return an assignment containing the literals of this packed solution}
+     */
+    public BooleanAssignment toAssignment() {
+        int[] literals = new int[countAssigned()];
+        int literalIndex = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            long word = assigned[i];
+            while (word != 0) {
+                int variable = (i << 6) + Long.numberOfTrailingZeros(word) + 1;
+                literals[literalIndex++] = get(variable);
+                word &= word - 1;
+            }
+        }
+        return new BooleanAssignment(literals);
+    }
+
+    private int checkVariable(int variable) {
+        if (variable <= 0 || variable > variableCount) {
+            throw new IllegalArgumentException(String.valueOf(variable));
+        }
+        return variable;
+    }
+
+    private void checkVariableCount(PackedBooleanSolution other) {
+        if (variableCount != other.variableCount) {
+            throw new IllegalArgumentException(String.format(
+                    "Arguments have different lengths (%d != %d)", variableCount, other.variableCount));
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * variableCount + Arrays.hashCode(assigned)) + Arrays.hashCode(selected);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        PackedBooleanSolution other = (PackedBooleanSolution) obj;
+        return variableCount == other.variableCount
+                && Arrays.equals(assigned, other.assigned)
+                && Arrays.equals(selected, other.selected);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PackedBooleanSolution[%s]", toSolution().print());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import de.featjar.formula.VariableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the steps of a {@link BooleanClauseListPreprocessor}, such that solutions of a reduced clause list can be
+ * lifted to solutions of the original clause list.
+ * Steps are replayed in reverse order and are one of the following:
+ * a fixed literal, a variable that is equivalent to a literal, or a clause with a witness literal that is set to
+ * {@code true} if the clause is not satisfied otherwise.
+ *
+ * @author Sebastian Krieter
+ */
+public class ReconstructionStack {
+
+    private static final int FIXED = 0;
+    private static final int EQUIVALENT = 1;
+    private static final int WITNESS = 2;
+
+    private final VariableMap originalVariableMap;
+    private final List<int[]> entries = new ArrayList<>();
+    private VariableMap reducedVariableMap;
+    private int[] reducedToOriginalVariables;
+
+    /**
+     * Creates a new empty reconstruction stack.
+     *
+     * @param originalVariableMap the variables of the original clause list
+     */
+    public ReconstructionStack(VariableMap originalVariableMap) {
+        this.originalVariableMap = originalVariableMap;
+        reducedVariableMap = originalVariableMap;
+        reducedToOriginalVariables = new int[originalVariableMap.getVariableCount()];
+        Arrays.setAll(reducedToOriginalVariables, i -> i + 1);
+    }
+
+    /**
+     * Records that a literal is {@code true} in every solution.
+     *
+     * @param literal the literal
+     */
+    public void pushFixed(int literal) {
+        entries.add(new int[] {FIXED, literal});
+    }
+
+    /**
+     * Records that a variable is equivalent to a literal.
+     *
+     * @param variable the variable
+     * @param literal the literal
+     */
+    public void pushEquivalent(int variable, int literal) {
+        entries.add(new int[] {EQUIVALENT, variable, literal});
+    }
+
+    /**
+     * Records a removed clause and a literal of this clause that must be set to {@code true} if the clause is not
+     * satisfied by its other literals.
+     *
+     * @param witness the witness literal
+     * @param clause the removed clause, including the witness literal
+     */
+    public void pushWitness(int witness, int[] clause) {
+        int[] entry = new int[clause.length + 1];
+        entry[0] = WITNESS;
+        entry[1] = witness;
+        int index = 2;
+        for (int literal : clause) {
+            if (literal != witness) {
+                entry[index++] = literal;
+            }
+        }
+        entries.add(index == entry.length ? entry : Arrays.copyOf(entry, index));
+    }
+
+    /**
+     * Sets the variables of the reduced clause list.
+     *
+     * @param reducedVariableMap the reduced variable map
+     * @param reducedToOriginalVariables for each reduced variable, the corresponding original variable
+     */
+    public void setReducedVariables(VariableMap reducedVariableMap, int[] reducedToOriginalVariables) {
+        this.reducedVariableMap = reducedVariableMap;
+        this.reducedToOriginalVariables = reducedToOriginalVariables;
+    }
+
+    /**
+     * {@return the variables of the original clause list}
+     */
+    public VariableMap getOriginalVariableMap() {
+        return originalVariableMap;
+    }
+
+    /**
+     * {@return the variables of the reduced clause list}
+     */
+    public VariableMap getReducedVariableMap() {
+        return reducedVariableMap;
+    }
+
+    /**
+     * {@return the number of recorded steps}
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * {@return a solution of the original clause list, lifted from a given solution of the reduced clause list}
+     * Variables that are unassigned in the given solution remain unassigned unless a recorded step assigns them.
+     *
+     * @param reducedSolution the solution of the reduced clause list
+     */
+    public BooleanSolution reconstruct(BooleanSolution reducedSolution) {
+        int[] values = new int[originalVariableMap.getVariableCount()];
+        for (int literal : reducedSolution.get()) {
+            if (literal != 0) {
+                int variable = reducedToOriginalVariables[Math.abs(literal) - 1];
+                values[variable - 1] = literal > 0 ? variable : -variable;
+            }
+        }
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            int[] entry = entries.get(i);
+            switch (entry[0]) {
+                case FIXED:
+                    values[Math.abs(entry[1]) - 1] = entry[1];
+                    break;
+                case EQUIVALENT: {
+                    int variable = entry[1];
+                    int literal = entry[2];
+                    int value = values[Math.abs(literal) - 1];
+                    values[variable - 1] = value == 0 ? 0 : value == literal ? variable : -variable;
+                    break;
+                }
+                case WITNESS: {
+                    boolean isSatisfied = false;
+                    for (int j = 2; j < entry.length; j++) {
+                        if (values[Math.abs(entry[j]) - 1] == entry[j]) {
+                            isSatisfied = true;
+                            break;
+                        }
+                    }
+                    if (!isSatisfied) {
+                        values[Math.abs(entry[1]) - 1] = entry[1];
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(entry[0]));
+            }
+        }
+        return new BooleanSolution(values, false);
+    }
+
+    /**
+     * {@return solutions of the original clause list, lifted from given solutions of the reduced clause list}
+     *
+     * @param reducedSolutions the solutions of the reduced clause list
+     */
+    public BooleanSolutionList reconstruct(BooleanSolutionList reducedSolutions) {
+        BooleanSolutionList solutions = new BooleanSolutionList();
+        for (BooleanSolution reducedSolution : reducedSolutions.getAll()) {
+            solutions.add(reconstruct(reducedSolution));
+        }
+        return solutions;
+    }
+}
@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Cosine distance between two literal arrays. Negative literals
  * are treated as negative one, positive literals as one.
@@ -38,6 +40,13 @@ public class CosineNegativeDistance implements IDistanceFunction {
         return (1 - cosineSimilarity) / 2.0;
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        final double sum = solution1.getVariableCount() - 2.0 * solution1.countDifferences(solution2);
+        final double cosineSimilarity = sum / solution1.getVariableCount();
+        return (1 - cosineSimilarity) / 2.0;
+    }
+
     @Override
     public String getName() {
         return "CosineNegative";
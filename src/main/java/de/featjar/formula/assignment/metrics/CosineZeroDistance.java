@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Cosine distance between two literal arrays. Negative literals
  * are treated as zero, positive literals as one.
@@ -44,6 +46,18 @@ public class CosineZeroDistance implements IDistanceFunction {
         return (1 - cosineSimilarity) / 2.0;
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        final int variableCount = solution1.getVariableCount();
+        final int negativesA = solution1.countNegatives();
+        final int negativesB = solution2.countNegatives();
+        final double sumA = variableCount - negativesA;
+        final double sumB = variableCount - negativesB;
+        final double sum = variableCount - (negativesA + negativesB - solution1.countCommonNegatives(solution2));
+        final double cosineSimilarity = sum / Math.sqrt(sumA * sumB);
+        return (1 - cosineSimilarity) / 2.0;
+    }
+
     @Override
     public String getName() {
         return "CosineZero";
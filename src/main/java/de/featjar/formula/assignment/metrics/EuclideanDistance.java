@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Euclidean distance between two literal arrays. Negative literals
  * are treated as zero, positive literals as one.
@@ -37,6 +39,11 @@ public class EuclideanDistance implements IDistanceFunction {
         return Math.sqrt(conflicts);
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        return Math.sqrt(solution1.countDifferences(solution2));
+    }
+
     @Override
     public String getName() {
         return "Euclidean";
@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Hamming distance between two literal arrays.
  *
@@ -36,6 +38,11 @@ public class HammingDistance implements IDistanceFunction {
         return conflicts / literals1.length;
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        return (double) solution1.countDifferences(solution2) / solution1.getVariableCount();
+    }
+
     @Override
     public String getName() {
         return "Hamming";
@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the distance between to literal arrays (e.g., configurations).
  *
@@ -29,5 +31,17 @@ public interface IDistanceFunction {
 
     double computeDistance(final int[] literals1, final int[] literals2);
 
+    /**
+     * {@return the distance between two packed solutions with the same number of variables}
+     * Implementations should compute the same value as {@link #computeDistance(int[], int[])} for the unpacked
+     * solutions without unpacking them.
+     *
+     * @param solution1 the first solution
+     * @param solution2 the second solution
+     */
+    default double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        return computeDistance(solution1.toSolution().get(), solution2.toSolution().get());
+    }
+
     String getName();
 }
@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Sørensen–Dice distance between two literal arrays. Considers
  * only negative literals.
@@ -44,6 +46,15 @@ public class SorensenDiceDeselectedDistance implements IDistanceFunction {
         return 1 - similarity;
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        final double sumA = solution1.countNegatives();
+        final double sumB = solution2.countNegatives();
+        final double sum = solution1.countCommonNegatives(solution2);
+        final double similarity = (2 * sum) / (sumA + sumB);
+        return 1 - similarity;
+    }
+
     @Override
     public String getName() {
         return "SorensenDiceDeselected";
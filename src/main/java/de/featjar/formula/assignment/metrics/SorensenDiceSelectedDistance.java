@@ -20,6 +20,8 @@
  */
 package de.featjar.formula.assignment.metrics;
 
+import de.featjar.formula.assignment.PackedBooleanSolution;
+
 /**
  * Computes the Sørensen–Dice distance between two literal arrays. Considers
  * only positive literals.
@@ -44,6 +46,18 @@ public class SorensenDiceSelectedDistance implements IDistanceFunction {
         return 1 - similarity;
     }
 
+    @Override
+    public double computeDistance(final PackedBooleanSolution solution1, final PackedBooleanSolution solution2) {
+        final int variableCount = solution1.getVariableCount();
+        final int negativesA = solution1.countNegatives();
+        final int negativesB = solution2.countNegatives();
+        final double sumA = variableCount - negativesA;
+        final double sumB = variableCount - negativesB;
+        final double sum = variableCount - (negativesA + negativesB - solution1.countCommonNegatives(solution2));
+        final double similarity = (2 * sum) / (sumA + sumB);
+        return 1 - similarity;
+    }
+
     @Override
     public String getName() {
         return "SorensenDiceSelected";
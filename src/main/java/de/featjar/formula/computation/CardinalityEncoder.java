@@ -0,0 +1,482 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.computation;
+
+import de.featjar.base.data.Range;
+import de.featjar.base.data.Result;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.term.value.IValue;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes cardinality constraints with auxiliary variables.
+ * For a constraint over {@code n} formulas, an encoding defines auxiliary variables {@code o_1, ..., o_m}, such that
+ * {@code o_j} is {@code true} iff at least {@code j} of the formulas are {@code true}.
+ * The constraint is then replaced by a conjunction over these outputs
+ * (i.e., {@code o_k} for a lower bound {@code k} and {@code -o_(l+1)} for an upper bound {@code l}).
+ * <p>
+ * All auxiliary variables are fully defined (i.e., in both directions, as without the Plaisted-Greenbaum
+ * optimization in {@link TseitinTransformer}).
+ * Thus, the replacement can occur at any position and polarity in a formula, as long as the
+ * {@link #getDefinitions() definitions} are added to the top-level conjunction.
+ * The result is equisatisfiable with the original formula and has the same models when projected to the original
+ * variables.
+ * Auxiliary variables are incrementally numbered with {@link #AUXILIARY_VARIABLE_NAME_PREFIX}, which does not clash
+ * with the auxiliary variables of {@link TseitinTransformer}.
+ * <p>
+ * By default, the binomial encoding (i.e., the clauses created by
+ * {@link de.featjar.formula.visitor.ConnectiveSimplifier}) is preferred whenever it has at most as many clauses as
+ * the selected encoding.
+ *
+ * @author Sebastian Krieter
+ */
+public class CardinalityEncoder {
+
+    /**
+     * Prefix for naming auxiliary variables.
+     */
+    public static final String AUXILIARY_VARIABLE_NAME_PREFIX =
+            TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX + "card_";
+
+    /**
+     * Encodings for cardinality constraints.
+     */
+    public enum Encoding {
+        /**
+         * Enumerates all combinations of children without auxiliary variables.
+         * Needs {@code n choose (k + 1)} clauses for at most {@code k} of {@code n} formulas.
+         */
+        BINOMIAL,
+        /**
+         * Sequential counter, which counts the true formulas from left to right.
+         * Needs {@code O(n * k)} clauses.
+         */
+        SEQUENTIAL_COUNTER,
+        /**
+         * Totalizer, which sums up the true formulas in a balanced tree of unary counters.
+         * Needs {@code O(n * k)} clauses, but has a smaller depth than the sequential counter.
+         */
+        TOTALIZER,
+        /**
+         * Odd-even merge sorting network, pruned to the outputs needed for the bounds.
+         * Needs {@code O(n * log(n)^2)} clauses independent of {@code k}.
+         */
+        SORTING_NETWORK,
+        /**
+         * Commander encoding, which recursively groups the formulas under commander variables.
+         * Needs {@code O(n)} clauses.
+         * Only applicable to bounds up to one (e.g., at most one, exactly one); otherwise, the sequential counter is
+         * used.
+         */
+        COMMANDER
+    }
+
+    private static final int COMMANDER_GROUP_SIZE = 3;
+
+    private final Encoding encoding;
+    private final List<IFormula> definitions = new ArrayList<>();
+    private boolean isPreferringBinomial = true;
+    private int currentAuxiliaryVariableIndex = 0;
+
+    private List<IFormula> currentDefinitions;
+
+    /**
+     * Creates a new cardinality encoder.
+     *
+     * @param encoding the encoding
+     */
+    public CardinalityEncoder(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public boolean isPreferringBinomial() {
+        return isPreferringBinomial;
+    }
+
+    /**
+     * Sets whether the binomial encoding is used whenever it has at most as many clauses as the selected encoding.
+     *
+     * @param isPreferringBinomial whether to prefer the binomial encoding
+     */
+    public void setPreferringBinomial(boolean isPreferringBinomial) {
+        this.isPreferringBinomial = isPreferringBinomial;
+    }
+
+    /**
+     * {@return the definitions of all auxiliary variables introduced so far}
+     * Each definition is a clause (i.e., an {@link Or} of literals and, possibly, child formulas).
+     */
+    public List<IFormula> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Encodes a cardinality constraint.
+     * Does not modify the given formulas, but may reuse them in the result and the definitions.
+     *
+     * @param formulas the formulas whose number of true values is constrained
+     * @param range the range of the number of true formulas
+     * @return a formula that replaces the constraint, or an empty result if the binomial encoding should be used
+     */
+    public Result<IFormula> encode(List<? extends IFormula> formulas, Range range) {
+        if (encoding == Encoding.BINOMIAL) {
+            return Result.empty();
+        }
+        final int n = formulas.size();
+        final int lowerBound = range.getLowerBound() == Range.OPEN ? 0 : range.getLowerBound();
+        final int upperBound = range.getUpperBound() == Range.OPEN ? n : range.getUpperBound();
+        final boolean hasLowerBound = lowerBound > 0;
+        final boolean hasUpperBound = upperBound < n;
+        if (lowerBound > n || upperBound < 0 || lowerBound > upperBound) {
+            return Result.of(Expressions.False);
+        }
+        if (!hasLowerBound && !hasUpperBound) {
+            return Result.of(Expressions.True);
+        }
+        final int outputCount = hasUpperBound ? upperBound + 1 : lowerBound;
+
+        final int savedAuxiliaryVariableIndex = currentAuxiliaryVariableIndex;
+        currentDefinitions = new ArrayList<>();
+        final List<Literal> inputs = new ArrayList<>(n);
+        for (IFormula formula : formulas) {
+            inputs.add(toLiteral(formula));
+        }
+        final List<Literal> outputs;
+        switch (encoding) {
+            case TOTALIZER:
+                outputs = totalizer(inputs, 0, n, outputCount);
+                break;
+            case SORTING_NETWORK:
+                outputs = sortingNetwork(inputs, outputCount);
+                break;
+            case COMMANDER:
+                outputs = outputCount <= 2 ? commander(inputs, outputCount) : sequentialCounter(inputs, outputCount);
+                break;
+            case SEQUENTIAL_COUNTER:
+            default:
+                outputs = sequentialCounter(inputs, outputCount);
+                break;
+        }
+
+        final List<IFormula> result = new ArrayList<>(2);
+        if (hasLowerBound) {
+            result.add(getOutput(outputs, lowerBound, true));
+        }
+        if (hasUpperBound) {
+            result.add(getOutput(outputs, upperBound + 1, false));
+        }
+
+        if (isPreferringBinomial) {
+            long binomialClauseCount = 0;
+            if (hasLowerBound) {
+                binomialClauseCount += binomial(n, n - lowerBound + 1);
+            }
+            if (hasUpperBound) {
+                binomialClauseCount += binomial(n, upperBound + 1);
+            }
+            if (binomialClauseCount <= currentDefinitions.size() + result.size()) {
+                currentAuxiliaryVariableIndex = savedAuxiliaryVariableIndex;
+                currentDefinitions = null;
+                return Result.empty();
+            }
+        }
+        definitions.addAll(currentDefinitions);
+        currentDefinitions = null;
+        return Result.of(result.size() == 1 ? result.get(0) : new And(result));
+    }
+
+    private static IFormula getOutput(List<Literal> outputs, int count, boolean isPositive) {
+        final Literal output = count <= outputs.size() ? outputs.get(count - 1) : null;
+        if (output == null) {
+            return isPositive ? Expressions.False : Expressions.True;
+        }
+        return isPositive ? copy(output) : output.invert();
+    }
+
+    /**
+     * {@return n choose k, saturated at {@link Integer#MAX_VALUE}}
+     */
+    private static long binomial(int n, int k) {
+        k = Math.min(k, n - k);
+        long result = 1;
+        for (int i = 1; i <= k && result < Integer.MAX_VALUE; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return Math.min(result, Integer.MAX_VALUE);
+    }
+
+    private Literal toLiteral(IFormula formula) {
+        if (formula instanceof Literal) {
+            return (Literal) formula;
+        }
+        Literal auxiliaryLiteral = newAuxiliaryLiteral();
+        currentDefinitions.add(new Or(auxiliaryLiteral.invert(), formula.cloneTree()));
+        currentDefinitions.add(new Or(copy(auxiliaryLiteral), new Not(formula.cloneTree())));
+        return auxiliaryLiteral;
+    }
+
+    private Literal newAuxiliaryLiteral() {
+        return new Literal(new Variable(AUXILIARY_VARIABLE_NAME_PREFIX + (++currentAuxiliaryVariableIndex)));
+    }
+
+    private static Literal copy(Literal literal) {
+        return new Literal(literal.isPositive(), (IValue) literal.getExpression());
+    }
+
+    /**
+     * Adds a clause to the definitions. Positive literals are added as they are, negative ones are inverted.
+     */
+    private void addClause(List<Literal> positiveLiterals, List<Literal> negativeLiterals) {
+        final List<IFormula> clause = new ArrayList<>(positiveLiterals.size() + negativeLiterals.size());
+        for (Literal literal : negativeLiterals) {
+            clause.add(literal.invert());
+        }
+        for (Literal literal : positiveLiterals) {
+            clause.add(copy(literal));
+        }
+        currentDefinitions.add(new Or(clause));
+    }
+
+    private void addClause(Literal positiveLiteral, Literal... negativeLiterals) {
+        addClause(List.of(positiveLiteral), Arrays.asList(negativeLiterals));
+    }
+
+    /**
+     * Defines {@code output} as the disjunction of {@code inputs}.
+     */
+    private void defineOr(Literal output, List<Literal> inputs) {
+        for (Literal input : inputs) {
+            addClause(output, input);
+        }
+        addClause(inputs, List.of(output));
+    }
+
+    /**
+     * Sequential counter. The output {@code s_(i,j)} is true iff at least {@code j} of the first {@code i} inputs
+     * are true, which is defined as {@code s_(i-1,j) | (x_i & s_(i-1,j-1))}.
+     */
+    private List<Literal> sequentialCounter(List<Literal> inputs, int outputCount) {
+        List<Literal> previous = new ArrayList<>(List.of(inputs.get(0)));
+        for (int i = 1; i < inputs.size(); i++) {
+            final Literal input = inputs.get(i);
+            final List<Literal> current = new ArrayList<>(Math.min(i + 1, outputCount));
+            for (int j = 0; j < Math.min(i + 1, outputCount); j++) {
+                final Literal output = newAuxiliaryLiteral();
+                final Literal sameCount = j < previous.size() ? previous.get(j) : null;
+                final Literal lowerCount = j > 0 ? previous.get(j - 1) : null;
+                if (sameCount != null) {
+                    addClause(output, sameCount);
+                }
+                if (lowerCount != null) {
+                    addClause(output, input, lowerCount);
+                } else {
+                    addClause(output, input);
+                }
+                final List<Literal> reason = new ArrayList<>(2);
+                if (sameCount != null) {
+                    reason.add(sameCount);
+                }
+                reason.add(input);
+                addClause(reason, List.of(output));
+                if (lowerCount != null) {
+                    reason.set(reason.size() - 1, lowerCount);
+                    addClause(reason, List.of(output));
+                }
+                current.add(output);
+            }
+            previous = current;
+        }
+        return previous;
+    }
+
+    /**
+     * Totalizer. Each node merges the unary counts {@code a} and {@code b} of its subtrees into {@code r}, such that
+     * {@code a_i & b_j} implies {@code r_(i+j)} and {@code r_(i+j+1)} implies {@code a_(i+1) | b_(j+1)}.
+     */
+    private List<Literal> totalizer(List<Literal> inputs, int from, int to, int outputCount) {
+        if (to - from == 1) {
+            return List.of(inputs.get(from));
+        }
+        final int middle = (from + to) >>> 1;
+        final List<Literal> left = totalizer(inputs, from, middle, outputCount);
+        final List<Literal> right = totalizer(inputs, middle, to, outputCount);
+        final int size = Math.min(left.size() + right.size(), outputCount);
+        final List<Literal> outputs = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            outputs.add(newAuxiliaryLiteral());
+        }
+        for (int i = 0; i <= left.size(); i++) {
+            for (int j = 0; j <= right.size(); j++) {
+                final List<Literal> literals = new ArrayList<>(2);
+                if (i + j >= 1 && i + j <= size) {
+                    if (i > 0) literals.add(left.get(i - 1));
+                    if (j > 0) literals.add(right.get(j - 1));
+                    addClause(List.of(outputs.get(i + j - 1)), literals);
+                    literals.clear();
+                }
+                if (i + j + 1 <= size) {
+                    if (i < left.size()) literals.add(left.get(i));
+                    if (j < right.size()) literals.add(right.get(j));
+                    addClause(literals, List.of(outputs.get(i + j)));
+                }
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Odd-even merge sorting network. Sorts the inputs in descending order, such that the {@code j}-th wire is true
+     * iff at least {@code j} inputs are true. Only comparators that influence the first {@code outputCount} wires
+     * are encoded, and constant false wires (used for padding) are propagated.
+     */
+    private List<Literal> sortingNetwork(List<Literal> inputs, int outputCount) {
+        int wireCount = 1;
+        while (wireCount < inputs.size()) {
+            wireCount <<= 1;
+        }
+        final List<int[]> comparators = new ArrayList<>();
+        for (int p = 1; p < wireCount; p <<= 1) {
+            for (int k = p; k >= 1; k >>= 1) {
+                for (int j = k % p; j + k < wireCount; j += 2 * k) {
+                    for (int i = 0; i < k && i + j + k < wireCount; i++) {
+                        if ((i + j) / (2 * p) == (i + j + k) / (2 * p)) {
+                            comparators.add(new int[] {i + j, i + j + k});
+                        }
+                    }
+                }
+            }
+        }
+
+        // backward pass: determine which comparator outputs are needed
+        final boolean[] isLive = new boolean[wireCount];
+        Arrays.fill(isLive, 0, outputCount, true);
+        final boolean[][] isNeeded = new boolean[comparators.size()][];
+        for (int c = comparators.size() - 1; c >= 0; c--) {
+            final int[] comparator = comparators.get(c);
+            if (isLive[comparator[0]] || isLive[comparator[1]]) {
+                isNeeded[c] = new boolean[] {isLive[comparator[0]], isLive[comparator[1]]};
+                isLive[comparator[0]] = true;
+                isLive[comparator[1]] = true;
+            }
+        }
+
+        // forward pass: encode needed comparators, null represents a constant false wire
+        final Literal[] wires = new Literal[wireCount];
+        for (int i = 0; i < inputs.size(); i++) {
+            wires[i] = inputs.get(i);
+        }
+        for (int c = 0; c < comparators.size(); c++) {
+            if (isNeeded[c] == null) {
+                continue;
+            }
+            final int[] comparator = comparators.get(c);
+            final Literal a = wires[comparator[0]];
+            final Literal b = wires[comparator[1]];
+            if (a == null || b == null) {
+                wires[comparator[0]] = a == null ? b : a;
+                wires[comparator[1]] = null;
+            } else {
+                if (isNeeded[c][0]) {
+                    final Literal maximum = newAuxiliaryLiteral();
+                    defineOr(maximum, List.of(a, b));
+                    wires[comparator[0]] = maximum;
+                }
+                if (isNeeded[c][1]) {
+                    final Literal minimum = newAuxiliaryLiteral();
+                    addClause(List.of(a), List.of(minimum));
+                    addClause(List.of(b), List.of(minimum));
+                    addClause(minimum, a, b);
+                    wires[comparator[1]] = minimum;
+                }
+            }
+        }
+        return Arrays.asList(wires).subList(0, outputCount);
+    }
+
+    /**
+     * Commander encoding. Groups the inputs, defines for each group whether at least one and at least two of its
+     * inputs are true, and recursively encodes the commanders (i.e., the at-least-one outputs) of all groups.
+     * Returns at most two outputs, null represents a constant false output.
+     */
+    private List<Literal> commander(List<Literal> inputs, int outputCount) {
+        if (inputs.size() <= COMMANDER_GROUP_SIZE) {
+            return commanderGroup(inputs, outputCount);
+        }
+        final List<Literal> commanders = new ArrayList<>();
+        final List<Literal> atLeastTwoLiterals = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i += COMMANDER_GROUP_SIZE) {
+            final List<Literal> groupOutputs = commanderGroup(
+                    inputs.subList(i, Math.min(i + COMMANDER_GROUP_SIZE, inputs.size())), outputCount);
+            commanders.add(groupOutputs.get(0));
+            if (groupOutputs.size() > 1 && groupOutputs.get(1) != null) {
+                atLeastTwoLiterals.add(groupOutputs.get(1));
+            }
+        }
+        final List<Literal> outputs = new ArrayList<>(commander(commanders, outputCount));
+        if (outputCount > 1) {
+            if (outputs.size() > 1 && outputs.get(1) != null) {
+                atLeastTwoLiterals.add(outputs.get(1));
+            }
+            outputs.subList(1, outputs.size()).clear();
+            if (atLeastTwoLiterals.size() == 1) {
+                outputs.add(atLeastTwoLiterals.get(0));
+            } else if (atLeastTwoLiterals.size() > 1) {
+                final Literal atLeastTwo = newAuxiliaryLiteral();
+                defineOr(atLeastTwo, atLeastTwoLiterals);
+                outputs.add(atLeastTwo);
+            }
+        }
+        return outputs;
+    }
+
+    private List<Literal> commanderGroup(List<Literal> inputs, int outputCount) {
+        if (inputs.size() == 1) {
+            return List.of(inputs.get(0));
+        }
+        final Literal atLeastOne = newAuxiliaryLiteral();
+        defineOr(atLeastOne, inputs);
+        if (outputCount <= 1) {
+            return List.of(atLeastOne);
+        }
+        final Literal atLeastTwo = newAuxiliaryLiteral();
+        for (int i = 0; i < inputs.size(); i++) {
+            for (int j = i + 1; j < inputs.size(); j++) {
+                addClause(atLeastTwo, inputs.get(i), inputs.get(j));
+            }
+            final List<Literal> others = new ArrayList<>(inputs);
+            others.remove(i);
+            addClause(others, List.of(atLeastTwo));
+        }
+        return List.of(atLeastOne, atLeastTwo);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.computation;
+
+import de.featjar.base.computation.AComputation;
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.Dependency;
+import de.featjar.base.computation.IComputation;
+import de.featjar.base.computation.Progress;
+import de.featjar.base.data.Pair;
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.structure.ITree;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.ExpressionKind;
+import de.featjar.formula.structure.predicate.Literal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Transforms a formula in negation normal form directly into a {@link BooleanClauseList} and a {@link VariableMap}.
+ * Yields an equivalent result to {@link ComputeCNFFormula} followed by
+ * {@link de.featjar.formula.assignment.ComputeBooleanClauseList}, but does not create an intermediate formula.
+ * Instead, clauses are emitted as primitive literal arrays into a {@link BooleanClauseArena}.
+ * <p>
+ * Each child of the top-level conjunction is either added as a clause (if it is one), transformed with the
+ * distributive law (if the number of literals does not exceed {@link #MAXIMUM_NUMBER_OF_LITERALS}), or transformed
+ * by introducing auxiliary variables (as done by {@link TseitinTransformer}).
+ * Auxiliary variables are unified across all children and appended to the variable map.
+ *
+ * @author Sebastian Krieter
+ */
+public class ComputeCNFClauseList extends AComputation<Pair<BooleanClauseList, VariableMap>> {
+    public static final Dependency<IFormula> NNF_FORMULA = Dependency.newDependency(IFormula.class);
+    /**
+     * Determines whether this computation uses the Plaisted-Greenbaum optimization.
+     */
+    public static final Dependency<Boolean> IS_PLAISTED_GREENBAUM = Dependency.newDependency(Boolean.class);
+    /**
+     * Determines the maximum number of literals available for distributive transformation.
+     */
+    public static final Dependency<Integer> MAXIMUM_NUMBER_OF_LITERALS = Dependency.newDependency(Integer.class);
+
+    /**
+     * Creates a new CNF clause list computation.
+     *
+     * @param nnfFormula the input NNF formula computation
+     */
+    public ComputeCNFClauseList(IComputation<IFormula> nnfFormula) {
+        super(
+                nnfFormula, //
+                Computations.of(Boolean.FALSE), //
+                Computations.of(Integer.MAX_VALUE));
+    }
+
+    protected ComputeCNFClauseList(ComputeCNFClauseList other) {
+        super(other);
+    }
+
+    /**
+     * Sets whether this computation introduces auxiliary variables.
+     *
+     * @param tseitin whether this computation introduces auxiliary variables
+     */
+    public void setTseitin(IComputation<Boolean> tseitin) {
+        setDependencyComputation(
+                MAXIMUM_NUMBER_OF_LITERALS,
+                tseitin.mapResult(ComputeCNFClauseList.class, "setTseitin", b -> b ? 0 : Integer.MAX_VALUE));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Result<Pair<BooleanClauseList, VariableMap>> compute(List<Object> dependencyList, Progress progress) {
+        IFormula nnfFormula = NNF_FORMULA.get(dependencyList);
+        if (nnfFormula instanceof Reference) {
+            nnfFormula = ((Reference) nnfFormula).getExpression();
+        }
+        if (!ExpressionKind.NNF.test(nnfFormula)) {
+            throw new IllegalArgumentException("Formula is not in NNF");
+        }
+        Transformation transformation = new Transformation(
+                VariableMap.of(nnfFormula),
+                IS_PLAISTED_GREENBAUM.get(dependencyList),
+                MAXIMUM_NUMBER_OF_LITERALS.get(dependencyList));
+
+        List<IFormula> children = nnfFormula instanceof And
+                ? (List<IFormula>) nnfFormula.getChildren()
+                : Collections.singletonList(nnfFormula);
+        progress.setTotalSteps(children.size());
+        for (IFormula child : children) {
+            transformation.transform(child);
+            progress.incrementCurrentStep();
+        }
+        return Result.of(transformation.getResult());
+    }
+
+    @Override
+    public ITree<IComputation<?>> cloneNode() {
+        return new ComputeCNFClauseList(this);
+    }
+
+    private static final class Transformation {
+        private static final int[] EMPTY_CLAUSE = new int[0];
+        private static final Comparator<int[]> LENGTH_COMPARATOR = Comparator.comparingInt(c -> c.length);
+
+        private final HashMap<String, Integer> variableIndices = new HashMap<>();
+        private final List<String> variableNames;
+        private final HashMap<IFormula, Integer> auxiliaryVariables = new HashMap<>();
+        private final boolean isPlaistedGreenbaum;
+        private final int maximumNumberOfLiterals;
+
+        private final BooleanClauseArena clauses = new BooleanClauseArena(0, 256, 1024);
+        private final BooleanClauseArena definitions = new BooleanClauseArena(0, 256, 1024);
+        private int[] buffer = new int[16];
+        private long remainingLiterals;
+
+        private Transformation(VariableMap variableMap, boolean isPlaistedGreenbaum, int maximumNumberOfLiterals) {
+            variableNames = new ArrayList<>(variableMap.getVariableNames());
+            for (int i = 0; i < variableNames.size(); i++) {
+                variableIndices.put(variableNames.get(i), i + 1);
+            }
+            this.isPlaistedGreenbaum = isPlaistedGreenbaum;
+            this.maximumNumberOfLiterals = maximumNumberOfLiterals;
+        }
+
+        private Pair<BooleanClauseList, VariableMap> getResult() {
+            clauses.addAll(definitions);
+            clauses.setVariableCount(variableNames.size());
+            return new Pair<>(clauses.toClauseList(), VariableMap.of(variableNames));
+        }
+
+        private int getLiteral(Literal literal) {
+            int index = variableIndices.get(literal.getExpression().getName());
+            return literal.isPositive() ? index : -index;
+        }
+
+        private void transform(IFormula formula) {
+            if (formula instanceof Literal) {
+                clauses.addClause(buffer, 0, append(0, getLiteral((Literal) formula)));
+            } else if (formula instanceof Or && isClause(formula)) {
+                int length = 0;
+                for (IExpression child : formula.getChildren()) {
+                    length = append(length, getLiteral((Literal) child));
+                }
+                clauses.addClause(buffer, 0, length);
+            } else {
+                remainingLiterals = maximumNumberOfLiterals;
+                List<int[]> distributedClauses = distribute(formula);
+                if (distributedClauses != null) {
+                    for (int[] clause : distributedClauses) {
+                        clauses.addClause(clause);
+                    }
+                } else {
+                    tseitin(formula);
+                }
+            }
+        }
+
+        private static boolean isClause(IFormula formula) {
+            for (IExpression child : formula.getChildren()) {
+                if (!(child instanceof Literal)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int append(int length, int literal) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            }
+            buffer[length] = literal;
+            return length + 1;
+        }
+
+        /**
+         * {@return the clauses of the given formula according to the distributive law, or null if the maximum number
+         * of literals is exceeded}
+         * Literals in each clause are sorted by variable.
+         */
+        private List<int[]> distribute(IFormula formula) {
+            if (formula instanceof Literal) {
+                return List.of(new int[] {getLiteral((Literal) formula)});
+            } else if (formula instanceof And) {
+                List<int[]> result = new ArrayList<>();
+                for (IExpression child : formula.getChildren()) {
+                    List<int[]> childClauses = distribute((IFormula) child);
+                    if (childClauses == null) {
+                        return null;
+                    }
+                    result.addAll(childClauses);
+                }
+                return result;
+            } else {
+                List<int[]> result = List.of(EMPTY_CLAUSE);
+                for (IExpression child : formula.getChildren()) {
+                    List<int[]> childClauses = distribute((IFormula) child);
+                    if (childClauses == null) {
+                        return null;
+                    }
+                    List<int[]> product = new ArrayList<>(result.size() * childClauses.size());
+                    for (int[] clause : result) {
+                        for (int[] childClause : childClauses) {
+                            int[] mergedClause = merge(clause, childClause);
+                            if (mergedClause != null) {
+                                remainingLiterals -= mergedClause.length;
+                                if (remainingLiterals < 0) {
+                                    return null;
+                                }
+                                product.add(mergedClause);
+                            }
+                        }
+                    }
+                    result = product;
+                }
+                return removeSubsumed(result);
+            }
+        }
+
+        /**
+         * {@return the union of two clauses sorted by variable, or null if it is a tautology}
+         */
+        private static int[] merge(int[] clause1, int[] clause2) {
+            int[] mergedClause = new int[clause1.length + clause2.length];
+            int i = 0, j = 0, k = 0;
+            while (i < clause1.length && j < clause2.length) {
+                int variable1 = Math.abs(clause1[i]);
+                int variable2 = Math.abs(clause2[j]);
+                if (variable1 < variable2) {
+                    mergedClause[k++] = clause1[i++];
+                } else if (variable1 > variable2) {
+                    mergedClause[k++] = clause2[j++];
+                } else if (clause1[i] == clause2[j]) {
+                    mergedClause[k++] = clause1[i++];
+                    j++;
+                } else {
+                    return null;
+                }
+            }
+            while (i < clause1.length) {
+                mergedClause[k++] = clause1[i++];
+            }
+            while (j < clause2.length) {
+                mergedClause[k++] = clause2[j++];
+            }
+            return k == mergedClause.length ? mergedClause : Arrays.copyOf(mergedClause, k);
+        }
+
+        private static List<int[]> removeSubsumed(List<int[]> clauses) {
+            List<int[]> sortedClauses = new ArrayList<>(clauses);
+            sortedClauses.sort(LENGTH_COMPARATOR);
+            List<int[]> filteredClauses = new ArrayList<>(sortedClauses.size());
+            for (int[] clause : sortedClauses) {
+                boolean isSubsumed = false;
+                for (int[] filteredClause : filteredClauses) {
+                    if (isSubset(filteredClause, clause)) {
+                        isSubsumed = true;
+                        break;
+                    }
+                }
+                if (!isSubsumed) {
+                    filteredClauses.add(clause);
+                }
+            }
+            return filteredClauses;
+        }
+
+        private static boolean isSubset(int[] subset, int[] superset) {
+            int j = 0;
+            for (int literal : subset) {
+                int variable = Math.abs(literal);
+                while (j < superset.length && Math.abs(superset[j]) < variable) {
+                    j++;
+                }
+                if (j == superset.length || superset[j] != literal) {
+                    return false;
+                }
+                j++;
+            }
+            return true;
+        }
+
+        private void tseitin(IFormula formula) {
+            if (formula instanceof And) {
+                for (IExpression child : formula.getChildren()) {
+                    int literal = getTseitinLiteral((IFormula) child);
+                    clauses.addClause(buffer, 0, append(0, literal));
+                }
+            } else {
+                int[] childLiterals = getTseitinLiterals(formula);
+                clauses.addClause(childLiterals);
+            }
+        }
+
+        private int[] getTseitinLiterals(IFormula formula) {
+            List<? extends IExpression> children = formula.getChildren();
+            int[] childLiterals = new int[children.size()];
+            for (int i = 0; i < childLiterals.length; i++) {
+                childLiterals[i] = getTseitinLiteral((IFormula) children.get(i));
+            }
+            return childLiterals;
+        }
+
+        private int getTseitinLiteral(IFormula formula) {
+            if (formula instanceof Literal) {
+                return getLiteral((Literal) formula);
+            }
+            Integer auxiliaryVariable = auxiliaryVariables.get(formula);
+            if (auxiliaryVariable != null) {
+                return auxiliaryVariable;
+            }
+            int[] childLiterals = getTseitinLiterals(formula);
+            variableNames.add(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX
+                    + (variableNames.size() - variableIndices.size() + 1));
+            int auxiliaryLiteral = variableNames.size();
+            auxiliaryVariables.put(formula, auxiliaryLiteral);
+
+            if (formula instanceof And) {
+                for (int childLiteral : childLiterals) {
+                    definitions.addClause(buffer, 0, append(append(0, -auxiliaryLiteral), childLiteral));
+                }
+                if (!isPlaistedGreenbaum) {
+                    int length = 0;
+                    for (int childLiteral : childLiterals) {
+                        length = append(length, -childLiteral);
+                    }
+                    length = append(length, auxiliaryLiteral);
+                    definitions.addClause(buffer, 0, length);
+                }
+            } else {
+                if (!isPlaistedGreenbaum) {
+                    for (int childLiteral : childLiterals) {
+                        definitions.addClause(buffer, 0, append(append(0, auxiliaryLiteral), -childLiteral));
+                    }
+                }
+                int length = 0;
+                for (int childLiteral : childLiterals) {
+                    length = append(length, childLiteral);
+                }
+                length = append(length, -auxiliaryLiteral);
+                definitions.addClause(buffer, 0, length);
+            }
+            return auxiliaryLiteral;
+        }
+    }
+}
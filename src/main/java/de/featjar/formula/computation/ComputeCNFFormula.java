@@ -20,6 +20,7 @@
  */
 package de.featjar.formula.computation;
 
+import de.featjar.base.FeatJAR;
 import de.featjar.base.computation.AComputation;
 import de.featjar.base.computation.Computations;
 import de.featjar.base.computation.Dependency;
@@ -27,7 +28,9 @@ import de.featjar.base.computation.IComputation;
 import de.featjar.base.computation.Progress;
 import de.featjar.base.data.Result;
 import de.featjar.base.tree.structure.ITree;
+import de.featjar.formula.structure.ExpressionInterner;
 import de.featjar.formula.structure.FormulaNormalForm;
+import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
 import de.featjar.formula.structure.connective.Or;
@@ -37,7 +40,7 @@ import de.featjar.formula.structure.predicate.Literal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Transforms a formula into strict conjunctive normal form.
@@ -54,11 +57,15 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
     /**
      * Determines the maximum number of literals available for distributive
      * transformation.
+     * Each child of the top-level conjunction is transformed with Tseitin's transformation right away if the
+     * estimated number of literals of its distributive transformation exceeds this number.
      */
     public static final Dependency<Integer> MAXIMUM_NUMBER_OF_LITERALS = Dependency.newDependency(Integer.class);
     /**
-     * Determines whether this computation is parallel. Use with care! Enabling
-     * parallel computation makes the result of this computation indeterministic.
+     * Determines whether this computation is parallel.
+     * If enabled, the children of a top-level conjunction are transformed concurrently on the common fork-join pool.
+     * The result is the same as for a sequential computation (i.e., clauses and auxiliary variables are ordered and
+     * numbered according to the input order).
      */
     public static final Dependency<Boolean> IS_PARALLEL = Dependency.newDependency(Boolean.class);
 
@@ -67,6 +74,13 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
      */
     public static final Dependency<Boolean> IS_STRICT = Dependency.newDependency(Boolean.class);
 
+    /**
+     * Determines whether the input formula is interned with an {@link ExpressionInterner} before transformation.
+     * Shares identical subformulas and unifies auxiliary variables by identity instead of by structural equality.
+     * The resulting formula may share subformulas as well.
+     */
+    public static final Dependency<Boolean> IS_INTERNING = Dependency.newDependency(Boolean.class);
+
     /**
      * Creates a new CNF formula computation.
      *
@@ -78,7 +92,8 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
                 Computations.of(Boolean.FALSE), //
                 Computations.of(Integer.MAX_VALUE), //
                 Computations.of(Boolean.FALSE), //
-                Computations.of(Boolean.TRUE));
+                Computations.of(Boolean.TRUE), //
+                Computations.of(Boolean.FALSE));
     }
 
     protected ComputeCNFFormula(ComputeCNFFormula other) {
@@ -112,30 +127,49 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
         boolean isPlaistedGreenbaum = IS_PLAISTED_GREENBAUM.get(dependencyList);
         boolean isParallel = IS_PARALLEL.get(dependencyList);
         boolean isStrict = IS_STRICT.get(dependencyList);
+        ExpressionInterner interner = IS_INTERNING.get(dependencyList) ? new ExpressionInterner() : null;
+        if (interner != null) {
+            nnfFormula = interner.intern(nnfFormula);
+        }
 
-        List<IFormula> clauseFormulas =
-                isParallel ? Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
-        List<TseitinTransformer.Substitution> substitutions =
-                isParallel ? Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
-        Consumer<IFormula> transformer = formula -> {
-            transform(formula, clauseFormulas, substitutions, isPlaistedGreenbaum, maximumNumberOfLiterals);
+        List<IFormula> children = nnfFormula instanceof And
+                ? (List<IFormula>) nnfFormula.getChildren()
+                : Collections.singletonList(nnfFormula);
+        int childrenCount = children.size();
+        progress.setTotalSteps(childrenCount);
+
+        // each child has its own buffers, such that the result does not depend on the order of execution
+        List<IFormula>[] childClauseFormulas = new List[childrenCount];
+        List<TseitinTransformer.Substitution>[] childSubstitutions = new List[childrenCount];
+        IntStream childIndices = IntStream.range(0, childrenCount);
+        if (isParallel) {
+            childIndices = childIndices.parallel();
+        }
+        childIndices.forEach(i -> {
+            childClauseFormulas[i] = new ArrayList<>();
+            childSubstitutions[i] = new ArrayList<>();
+            transform(
+                    children.get(i),
+                    i,
+                    childClauseFormulas[i],
+                    childSubstitutions[i],
+                    isPlaistedGreenbaum,
+                    maximumNumberOfLiterals);
             progress.incrementCurrentStep();
-        };
-
-        if (nnfFormula instanceof And) {
-            List<IFormula> children = (List<IFormula>) nnfFormula.getChildren();
-            progress.setTotalSteps(children.size());
-            if (isParallel) {
-                children.parallelStream().forEach(transformer);
-            } else {
-                children.forEach(transformer);
-            }
-        } else {
-            progress.setTotalSteps(1);
-            transformer.accept(nnfFormula);
+        });
+
+        List<IFormula> clauseFormulas = new ArrayList<>();
+        List<TseitinTransformer.Substitution> substitutions = new ArrayList<>();
+        for (int i = 0; i < childrenCount; i++) {
+            clauseFormulas.addAll(childClauseFormulas[i]);
+            substitutions.addAll(childSubstitutions[i]);
         }
 
-        TseitinTransformer.unify(substitutions);
+        if (interner != null) {
+            TseitinTransformer.unify(substitutions, interner);
+        } else {
+            TseitinTransformer.unify(substitutions);
+        }
         clauseFormulas.addAll(TseitinTransformer.getClauseFormulas(substitutions));
 
         IFormula cnf = new And(clauseFormulas);
@@ -151,6 +185,7 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
     @SuppressWarnings("unchecked")
     private void transform(
             IFormula formula,
+            int index,
             List<IFormula> clauseFormulas,
             List<TseitinTransformer.Substitution> substitutions,
             boolean isPlaistedGreenbaum,
@@ -161,18 +196,28 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
             clauseFormulas.addAll(
                     (List<? extends IFormula>) toStrictForm(formula).getChildren());
         } else {
-            Result<IFormula> transformationResult = distributiveTransform(
-                    formula,
-                    new DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate(maximumNumberOfLiterals));
-            if (transformationResult.isPresent()) {
-                clauseFormulas.addAll(
-                        (List<? extends IFormula>) transformationResult.get().getChildren());
-                return;
+            DistributiveTransformer.Estimate estimate = estimateDistributiveTransform(formula);
+            boolean isDistributive = estimate.getGeneratedLiteralCount() <= maximumNumberOfLiterals;
+            String strategy = isDistributive ? "distributive" : "tseitin";
+            FeatJAR.log().debug("top-level constraint %d: %s (%s)", index, strategy, estimate);
+            if (isDistributive) {
+                Result<IFormula> transformationResult = distributiveTransform(
+                        formula,
+                        new DistributiveTransformer.MaximumNumberOfLiteralsCancelPredicate(maximumNumberOfLiterals));
+                if (transformationResult.isPresent()) {
+                    clauseFormulas.addAll(
+                            (List<? extends IFormula>) transformationResult.get().getChildren());
+                    return;
+                }
             }
             substitutions.addAll(tseitinTransform(formula, isPlaistedGreenbaum));
         }
     }
 
+    protected DistributiveTransformer.Estimate estimateDistributiveTransform(IFormula formula) {
+        return new DistributiveTransformer().estimate(formula);
+    }
+
     protected Result<IFormula> distributiveTransform(
             IFormula formula, DistributiveTransformer.ICancelPredicate cancelPredicate) {
         return new DistributiveTransformer(true, cancelPredicate).apply(formula);
@@ -193,7 +238,11 @@ public class ComputeCNFFormula extends AComputation<IFormula> {
         } else if (formula instanceof Or) {
             formula = new And(formula);
         } else {
-            formula.replaceChildren(child -> (child instanceof Literal) ? new Or((IFormula) child) : child);
+            List<IFormula> children = new ArrayList<>(formula.getChildrenCount());
+            for (IExpression child : formula.getChildren()) {
+                children.add((child instanceof Literal) ? new Or((IFormula) child) : (IFormula) child);
+            }
+            formula = new And(children);
         }
         return formula;
     }
@@ -37,9 +37,21 @@ import java.util.List;
  */
 public class ComputeNNFFormula extends AComputation<IFormula> {
     protected static final Dependency<IFormula> FORMULA = Dependency.newDependency(IFormula.class);
+    /**
+     * Determines how cardinality constraints are encoded.
+     * All encodings except {@link CardinalityEncoder.Encoding#BINOMIAL} introduce auxiliary variables, such that the
+     * result is only equisatisfiable to the input formula.
+     */
+    public static final Dependency<CardinalityEncoder.Encoding> CARDINALITY_ENCODING =
+            Dependency.newDependency(CardinalityEncoder.Encoding.class);
+    /**
+     * Determines whether the formula is transformed in a single pass with an {@link NNFTransformer}, which builds a new
+     * formula instead of cloning and mutating the input formula in several traversals.
+     */
+    public static final Dependency<Boolean> IS_SINGLE_PASS = Dependency.newDependency(Boolean.class);
 
     public ComputeNNFFormula(IComputation<IFormula> formula) {
-        super(formula);
+        super(formula, Computations.of(CardinalityEncoder.Encoding.BINOMIAL), Computations.of(Boolean.FALSE));
     }
 
     protected ComputeNNFFormula(ComputeNNFFormula other) {
@@ -49,16 +61,22 @@ public class ComputeNNFFormula extends AComputation<IFormula> {
     @Override
     public Result<IFormula> compute(List<Object> dependencyList, Progress progress) {
         IFormula formula = FORMULA.get(dependencyList);
+        CardinalityEncoder.Encoding cardinalityEncoding = CARDINALITY_ENCODING.get(dependencyList);
+        if (IS_SINGLE_PASS.get(dependencyList)) {
+            return new NNFTransformer(cardinalityEncoding).apply(formula);
+        }
         List<Variable> variables = (formula instanceof Reference)
                 ? getVariables(((Reference) formula).getExpression())
                 : getVariables(formula);
         if (variables.isEmpty()) throw new IllegalArgumentException("requires at least one variable");
         Variable variable = variables.get(0);
-        return Reference.mutateClone(formula, reference -> Trees.traverse(reference, new ConnectiveSimplifier())
-                .flatMap(_void -> Trees.traverse(reference, new DeMorganApplier()))
-                .flatMap(_void -> Trees.traverse(reference, new TrueFalseSimplifier()))
-                .flatMap(_void -> Trees.traverse(reference, new TrueFalseRemover(variable)))
-                .flatMap(_void -> Trees.traverse(reference, new TreeSimplifier())));
+        return Reference.mutateClone(
+                formula,
+                reference -> Trees.traverse(reference, new ConnectiveSimplifier(cardinalityEncoding))
+                        .flatMap(_void -> Trees.traverse(reference, new DeMorganApplier()))
+                        .flatMap(_void -> Trees.traverse(reference, new TrueFalseSimplifier()))
+                        .flatMap(_void -> Trees.traverse(reference, new TrueFalseRemover(variable)))
+                        .flatMap(_void -> Trees.traverse(reference, new TreeSimplifier())));
     }
 
     private List<Variable> getVariables(IFormula formula) {
@@ -31,7 +31,7 @@ import de.featjar.formula.structure.predicate.ExpressionKind;
 import de.featjar.formula.structure.predicate.Literal;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Transforms a formula into strict normal form using the distributive law.
@@ -60,7 +60,18 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
     /**
      * Predicate for determining whether to cancel an ongoing distributive transformation.
      */
-    public interface ICancelPredicate extends Function<LinkedHashSet<Literal>, Throwable> {}
+    public interface ICancelPredicate extends Function<LinkedHashSet<Literal>, Throwable> {
+        /**
+         * {@return a throwable if the transformation should be cancelled after creating a clause, {@code null} otherwise}
+         * Override this method if the clause's literals are not needed, which avoids creating the clause.
+         *
+         * @param clause supplies the literals of the clause
+         * @param clauseSize the number of literals in the clause
+         */
+        default Throwable apply(Supplier<LinkedHashSet<Literal>> clause, int clauseSize) {
+            return apply(clause.get());
+        }
+    }
 
     /**
      * Cancels an ongoing distributive transformation when a given maximum number of literals has been exceeded.
@@ -81,7 +92,12 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
 
         @Override
         public Throwable apply(LinkedHashSet<Literal> clause) {
-            currentNumberOfLiterals += clause.size();
+            return apply(() -> clause, clause.size());
+        }
+
+        @Override
+        public Throwable apply(Supplier<LinkedHashSet<Literal>> clause, int clauseSize) {
+            currentNumberOfLiterals += clauseSize;
             return currentNumberOfLiterals > maximumNumberOfLiterals
                     ? new RuntimeException("exceeded maximum number of literals " + maximumNumberOfLiterals
                             + " with clause of size " + currentNumberOfLiterals)
@@ -89,6 +105,52 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         }
     }
 
+    /**
+     * Estimated size of a distributive transformation.
+     * All counts are upper bounds, as they do not account for removed tautologies, duplicates, and subsumed clauses.
+     */
+    public static class Estimate {
+        private final double clauseCount;
+        private final double literalCount;
+        private final double generatedLiteralCount;
+
+        private Estimate(double clauseCount, double literalCount, double generatedLiteralCount) {
+            this.clauseCount = clauseCount;
+            this.literalCount = literalCount;
+            this.generatedLiteralCount = generatedLiteralCount;
+        }
+
+        /**
+         * {@return the estimated number of clauses in the resulting formula}
+         */
+        public double getClauseCount() {
+            return clauseCount;
+        }
+
+        /**
+         * {@return the estimated number of literals in the resulting formula}
+         */
+        public double getLiteralCount() {
+            return literalCount;
+        }
+
+        /**
+         * {@return the estimated number of literals generated during the transformation}
+         * This includes intermediate clauses of nested subformulas and corresponds to the number of literals counted by
+         * {@link MaximumNumberOfLiteralsCancelPredicate}.
+         */
+        public double getGeneratedLiteralCount() {
+            return generatedLiteralCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Estimate[clauses=%.0f, literals=%.0f, generated literals=%.0f]",
+                    clauseCount, literalCount, generatedLiteralCount);
+        }
+    }
+
     protected static class PathElement {
         protected final IExpression expression;
         protected final List<IExpression> newChildren = new ArrayList<>();
@@ -118,7 +180,7 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
      * @param cancelPredicate the cancel predicate, if any
      */
     public DistributiveTransformer(boolean isCNF, ICancelPredicate cancelPredicate) {
-        this.cancelPredicate = cancelPredicate != null ? cancelPredicate : clause -> null;
+        this.cancelPredicate = cancelPredicate;
         this.isCNF = isCNF;
         if (this.isCNF) {
             clauseClass = Or.class;
@@ -129,6 +191,46 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         }
     }
 
+    /**
+     * {@return an estimate of the size of the distributive transformation of a given formula}
+     * Does not transform the formula, but only multiplies the clause counts of the children of each clause.
+     *
+     * @param formula the formula in negation normal form
+     */
+    public Estimate estimate(IFormula formula) {
+        if (formula instanceof And || formula instanceof Or) {
+            boolean isClause = clauseClass == formula.getClass();
+            double clauseCount = isClause ? 1 : 0;
+            double literalCountPerClause = 0;
+            double literalCount = 0;
+            double generatedLiteralCount = 0;
+            boolean isNested = false;
+            for (IExpression child : formula.getChildren()) {
+                Estimate childEstimate = estimate((IFormula) child);
+                generatedLiteralCount += childEstimate.generatedLiteralCount;
+                if (isClause) {
+                    clauseCount *= childEstimate.clauseCount;
+                    if (childEstimate.clauseCount > 0) {
+                        literalCountPerClause += childEstimate.literalCount / childEstimate.clauseCount;
+                    }
+                    isNested |= !(child instanceof Literal);
+                } else {
+                    clauseCount += childEstimate.clauseCount;
+                    literalCount += childEstimate.literalCount;
+                }
+            }
+            if (isClause) {
+                literalCount = clauseCount * literalCountPerClause;
+                if (isNested) {
+                    generatedLiteralCount += literalCount;
+                }
+            }
+            return new Estimate(clauseCount, literalCount, generatedLiteralCount);
+        } else {
+            return new Estimate(1, 1, 0);
+        }
+    }
+
     @Override
     public Result<IFormula> apply(IFormula formula) {
         ExpressionKind.NNF.assertFor(formula);
@@ -185,95 +287,274 @@ public class DistributiveTransformer implements Function<IFormula, Result<IFormu
         if (formula instanceof Literal) {
             return new ArrayList<>();
         } else {
-            ArrayList<LinkedHashSet<Literal>> clauses = new ArrayList<>();
             List<IFormula> children = new ArrayList<>((List<IFormula>) formula.getChildren());
             children.sort(Comparator.comparingInt(ITree::getChildrenCount));
-            transform(children, clauses, new LinkedHashSet<>(children.size() * 2), 0);
+            ClauseCollector collector = new ClauseCollector(children);
+            collector.transform(0);
+            List<int[]> clauses = collector.clauses;
+            clauses.sort(Comparator.comparingInt(clause -> clause.length));
+            boolean[] isSubsumed = findSubsumedClauses(clauses, collector.getVariableCount());
 
             List<IFormula> filteredClauseList = new ArrayList<>(clauses.size());
-            clauses.sort(Comparator.comparingInt(Set::size));
-            int lastIndex = clauses.size();
-            for (int i = 0; i < lastIndex; i++) {
-                LinkedHashSet<Literal> set = clauses.get(i);
-                if (set != null) {
-                    for (int j = i + 1; j < lastIndex; j++) {
-                        LinkedHashSet<Literal> set2 = clauses.get(j);
-                        if (set2 != null) {
-                            if (set2.containsAll(set)) {
-                                clauses.set(j, null);
-                            }
-                        }
-                    }
-                    filteredClauseList.add(clauseConstructor.apply(new ArrayList<>(set)));
+            for (int i = 0; i < clauses.size(); i++) {
+                if (!isSubsumed[i]) {
+                    filteredClauseList.add(clauseConstructor.apply(collector.toLiterals(clauses.get(i))));
                 }
             }
-
             return filteredClauseList;
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void transform(
-            List<IFormula> children, List<LinkedHashSet<Literal>> clauses, LinkedHashSet<Literal> literals, int index)
-            throws CancelledException {
-        if (index == children.size()) {
-            LinkedHashSet<Literal> newClause = new LinkedHashSet<>(literals);
-            Throwable cancelThrowable = cancelPredicate.apply(newClause);
-            if (cancelThrowable != null) {
-                throw new CancelledException(cancelThrowable);
+    /**
+     * Finds all clauses that are a superset of a preceding clause.
+     * Candidates are taken from the occurrence list of the rarest literal of the preceding clause and are rejected
+     * early by comparing 64-bit clause signatures, before a subset test on the sorted literals is performed.
+     *
+     * @param clauses the clauses, sorted by size
+     * @param variableCount the number of variables
+     * @return for each clause, whether it is subsumed
+     */
+    private static boolean[] findSubsumedClauses(List<int[]> clauses, int variableCount) {
+        int clauseCount = clauses.size();
+        int[][] sortedClauses = new int[clauseCount][];
+        long[] signatures = new long[clauseCount];
+        int[] occurrenceCounts = new int[2 * variableCount + 2];
+        for (int i = 0; i < clauseCount; i++) {
+            int[] sortedClause = clauses.get(i).clone();
+            Arrays.sort(sortedClause);
+            sortedClauses[i] = sortedClause;
+            long signature = 0;
+            for (int literal : sortedClause) {
+                signature |= 1L << (getLiteralIndex(literal) & 63);
+                occurrenceCounts[getLiteralIndex(literal)]++;
             }
-            clauses.add(newClause);
-        } else {
-            IExpression child = children.get(index);
-            if (child instanceof Literal) {
-                Literal clauseLiteral = (Literal) child;
-                if (literals.contains(clauseLiteral)) {
-                    transform(children, clauses, literals, index + 1);
-                } else if (!literals.contains(clauseLiteral.invert())) {
-                    literals.add(clauseLiteral);
-                    transform(children, clauses, literals, index + 1);
-                    literals.remove(clauseLiteral);
+            signatures[i] = signature;
+        }
+        int[][] occurrences = new int[occurrenceCounts.length][];
+        for (int i = 0; i < occurrences.length; i++) {
+            occurrences[i] = new int[occurrenceCounts[i]];
+            occurrenceCounts[i] = 0;
+        }
+        for (int i = 0; i < clauseCount; i++) {
+            for (int literal : sortedClauses[i]) {
+                int literalIndex = getLiteralIndex(literal);
+                occurrences[literalIndex][occurrenceCounts[literalIndex]++] = i;
+            }
+        }
+
+        boolean[] isSubsumed = new boolean[clauseCount];
+        for (int i = 0; i < clauseCount; i++) {
+            if (isSubsumed[i]) {
+                continue;
+            }
+            int[] clause = sortedClauses[i];
+            if (clause.length == 0) {
+                Arrays.fill(isSubsumed, i + 1, clauseCount, true);
+                break;
+            }
+            int[] candidates = occurrences[getLiteralIndex(clause[0])];
+            for (int literal : clause) {
+                int[] literalOccurrences = occurrences[getLiteralIndex(literal)];
+                if (literalOccurrences.length < candidates.length) {
+                    candidates = literalOccurrences;
                 }
-            } else {
-                if (isRedundant(literals, child)) {
-                    transform(children, clauses, literals, index + 1);
+            }
+            long signature = signatures[i];
+            for (int j : candidates) {
+                if (j > i
+                        && !isSubsumed[j]
+                        && (signature & ~signatures[j]) == 0
+                        && isSubset(clause, sortedClauses[j])) {
+                    isSubsumed[j] = true;
+                }
+            }
+        }
+        return isSubsumed;
+    }
+
+    private static int getLiteralIndex(int literal) {
+        return literal > 0 ? 2 * literal : -2 * literal + 1;
+    }
+
+    private static boolean isSubset(int[] sortedSubset, int[] sortedSuperset) {
+        if (sortedSubset.length > sortedSuperset.length) {
+            return false;
+        }
+        int j = 0;
+        for (int literal : sortedSubset) {
+            while (j < sortedSuperset.length && sortedSuperset[j] < literal) {
+                j++;
+            }
+            if (j == sortedSuperset.length || sortedSuperset[j] != literal) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    /**
+     * Enumerates the clauses of a single clause formula on integer literals.
+     * Each variable is numbered in order of first occurrence, and the current clause is kept as a stack of literals
+     * in insertion order together with the polarity of each contained variable, so that membership and complement
+     * tests take constant time.
+     */
+    private class ClauseCollector {
+        private final HashMap<Literal, Integer> literalIndices = new HashMap<>();
+        private final ArrayList<Literal> positiveLiterals = new ArrayList<>();
+        private final ArrayList<Literal> negativeLiterals = new ArrayList<>();
+        private final int[] childLiterals;
+        private final int[][][] grandChildren;
+        private final List<int[]> clauses = new ArrayList<>();
+        private int[] literals;
+        private int[] polarities;
+        private int literalCount;
+
+        @SuppressWarnings("unchecked")
+        private ClauseCollector(List<IFormula> children) {
+            positiveLiterals.add(null);
+            negativeLiterals.add(null);
+            int childCount = children.size();
+            childLiterals = new int[childCount];
+            grandChildren = new int[childCount][][];
+            for (int i = 0; i < childCount; i++) {
+                IFormula child = children.get(i);
+                if (child instanceof Literal) {
+                    childLiterals[i] = getIndex((Literal) child);
                 } else {
-                    for (IExpression grandChild : child.getChildren()) {
+                    List<? extends IExpression> childGrandChildren = child.getChildren();
+                    grandChildren[i] = new int[childGrandChildren.size()][];
+                    for (int j = 0; j < childGrandChildren.size(); j++) {
+                        IExpression grandChild = childGrandChildren.get(j);
                         if (grandChild instanceof Literal) {
-                            Literal newlyAddedLiteral = (Literal) grandChild;
-                            if (!literals.contains(newlyAddedLiteral.invert())) {
-                                literals.add(newlyAddedLiteral);
-                                transform(children, clauses, literals, index + 1);
-                                literals.remove(newlyAddedLiteral);
-                            }
+                            grandChildren[i][j] = new int[] {getIndex((Literal) grandChild)};
                         } else {
                             List<Literal> greatGrandChildren = (List<Literal>) grandChild.getChildren();
-                            if (containsNoComplements(literals, greatGrandChildren)) {
-                                List<Literal> newlyAddedLiterals = greatGrandChildren.stream()
-                                        .filter(literals::add)
-                                        .collect(Collectors.toList());
-                                transform(children, clauses, literals, index + 1);
-                                newlyAddedLiterals.forEach(literals::remove);
+                            int[] greatGrandChildLiterals = new int[greatGrandChildren.size()];
+                            for (int k = 0; k < greatGrandChildLiterals.length; k++) {
+                                greatGrandChildLiterals[k] = getIndex(greatGrandChildren.get(k));
                             }
+                            grandChildren[i][j] = greatGrandChildLiterals;
                         }
                     }
                 }
             }
+            literals = new int[Math.max(childCount, 1)];
+            polarities = new int[getVariableCount() + 1];
         }
-    }
 
-    protected boolean containsNoComplements(LinkedHashSet<Literal> literals, List<Literal> greatGrandChildren) {
-        return greatGrandChildren.stream().map(Literal::invert).noneMatch(literals::contains);
-    }
+        private int getIndex(Literal literal) {
+            Integer index = literalIndices.get(literal);
+            if (index == null) {
+                Integer complementIndex = literalIndices.get(literal.invert());
+                if (complementIndex == null) {
+                    positiveLiterals.add(null);
+                    negativeLiterals.add(null);
+                    index = literal.isPositive() ? getVariableCount() : -getVariableCount();
+                } else {
+                    index = -complementIndex;
+                }
+                (index > 0 ? positiveLiterals : negativeLiterals).set(Math.abs(index), literal);
+                literalIndices.put(literal, index);
+            }
+            return index;
+        }
 
-    protected boolean isRedundant(LinkedHashSet<Literal> literals, IExpression child) {
-        return child.getChildren().stream().anyMatch(e -> isRedundant(e, literals));
-    }
+        private int getVariableCount() {
+            return positiveLiterals.size() - 1;
+        }
 
-    @SuppressWarnings("unchecked")
-    protected static boolean isRedundant(IExpression expression, LinkedHashSet<Literal> literals) {
-        return (expression instanceof Literal)
-                ? literals.contains(expression)
-                : literals.containsAll((List<Literal>) expression.getChildren());
+        private List<Literal> toLiterals(int[] clause) {
+            List<Literal> clauseLiterals = new ArrayList<>(clause.length);
+            for (int literal : clause) {
+                clauseLiterals.add(literal > 0 ? positiveLiterals.get(literal) : negativeLiterals.get(-literal));
+            }
+            return clauseLiterals;
+        }
+
+        private boolean contains(int literal) {
+            return polarities[Math.abs(literal)] == literal;
+        }
+
+        private void push(int literal) {
+            if (literalCount == literals.length) {
+                literals = Arrays.copyOf(literals, 2 * literals.length);
+            }
+            literals[literalCount++] = literal;
+            polarities[Math.abs(literal)] = literal;
+        }
+
+        private void pop(int count) {
+            for (int i = 0; i < count; i++) {
+                polarities[Math.abs(literals[--literalCount])] = 0;
+            }
+        }
+
+        private void transform(int index) throws CancelledException {
+            if (index == childLiterals.length) {
+                int[] newClause = Arrays.copyOf(literals, literalCount);
+                if (cancelPredicate != null) {
+                    Throwable cancelThrowable =
+                            cancelPredicate.apply(() -> new LinkedHashSet<>(toLiterals(newClause)), literalCount);
+                    if (cancelThrowable != null) {
+                        throw new CancelledException(cancelThrowable);
+                    }
+                }
+                clauses.add(newClause);
+            } else if (childLiterals[index] != 0) {
+                int clauseLiteral = childLiterals[index];
+                if (contains(clauseLiteral)) {
+                    transform(index + 1);
+                } else if (!contains(-clauseLiteral)) {
+                    push(clauseLiteral);
+                    transform(index + 1);
+                    pop(1);
+                }
+            } else {
+                int[][] childGrandChildren = grandChildren[index];
+                if (isRedundant(childGrandChildren)) {
+                    transform(index + 1);
+                } else {
+                    for (int[] grandChild : childGrandChildren) {
+                        if (containsNoComplements(grandChild)) {
+                            int newlyAddedLiteralCount = 0;
+                            for (int literal : grandChild) {
+                                if (!contains(literal)) {
+                                    push(literal);
+                                    newlyAddedLiteralCount++;
+                                }
+                            }
+                            transform(index + 1);
+                            pop(newlyAddedLiteralCount);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean containsNoComplements(int[] grandChild) {
+            for (int literal : grandChild) {
+                if (contains(-literal)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isRedundant(int[][] childGrandChildren) {
+            for (int[] grandChild : childGrandChildren) {
+                boolean containsAll = true;
+                for (int literal : grandChild) {
+                    if (!contains(literal)) {
+                        containsAll = false;
+                        break;
+                    }
+                }
+                if (containsAll) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -28,6 +28,7 @@ import de.featjar.base.computation.Progress;
 import de.featjar.base.data.Result;
 import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.assignment.BooleanSolutionIndex;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.LinkedHashSet;
@@ -89,7 +90,7 @@ public class GreedySampleReducer extends AComputation<List<BooleanSolution>> {
     private LinkedHashSet<BooleanSolution> reducedSample;
     private LinkedHashSet<Interaction> interactions;
     private BitSet mainIndex;
-    private BitSet[] indices;
+    private BooleanSolutionIndex solutionIndex;
 
     public GreedySampleReducer(GreedySampleReducer other) {
         super(other);
@@ -112,13 +113,11 @@ public class GreedySampleReducer extends AComputation<List<BooleanSolution>> {
         int i = 0;
         for (; ; ) {
             int[] literals = new int[t];
-            BitSet curIndices = (BitSet) mainIndex.clone();
             for (int k2 = 0; k2 < literals.length; k2++) {
                 int var = elementIndices[k2] + 1;
-                int l = marker[k2] ? -var : var;
-                literals[k2] = l;
-                curIndices.and(indices[l + n]);
+                literals[k2] = marker[k2] ? -var : var;
             }
+            BitSet curIndices = solutionIndex.getSolutions(mainIndex, literals);
             int counter = curIndices.cardinality();
             if (counter > 1) {
                 Interaction interaction = new Interaction(literals);
@@ -197,20 +196,14 @@ public class GreedySampleReducer extends AComputation<List<BooleanSolution>> {
         mainIndex = new BitSet(fieldConfigurations.length);
         mainIndex.flip(0, fieldConfigurations.length);
 
-        indices = new BitSet[2 * n + 1];
-        for (int j = 1; j <= n; j++) {
-            BitSet negIndices = new BitSet(fieldConfigurations.length);
-            BitSet posIndices = new BitSet(fieldConfigurations.length);
-            for (int i = 0; i < fieldConfigurations.length; i++) {
-                BooleanSolution config = fieldConfigurations[i];
-                if (config.get(j - 1) < 0) {
-                    negIndices.set(i);
-                } else {
-                    posIndices.set(i);
-                }
+        solutionIndex = new BooleanSolutionIndex(n);
+        for (Config config : fieldConfigurations) {
+            // unassigned variables are indexed as selected
+            int[] literals = new int[n];
+            for (int j = 1; j <= n; j++) {
+                literals[j - 1] = config.get(j - 1) < 0 ? -j : j;
             }
-            indices[n - j] = negIndices;
-            indices[j + n] = posIndices;
+            solutionIndex.add(new BooleanSolution(literals, false));
         }
 
         IntStream.range(t - 1, n).parallel().forEach(this::generate);
@@ -227,11 +220,7 @@ public class GreedySampleReducer extends AComputation<List<BooleanSolution>> {
                     if (reducedSample.stream().anyMatch(c -> c.containsAll(interaction))) {
                         return true;
                     } else {
-                        int[] is = interaction.get();
-                        BitSet curIndices = (BitSet) mainIndex.clone();
-                        for (int k2 = 0; k2 < is.length; k2++) {
-                            curIndices.and(indices[is[k2] + n]);
-                        }
+                        BitSet curIndices = solutionIndex.getSolutions(mainIndex, interaction.get());
                         double s = 1.0 / interaction.getCounter();
                         curIndices.stream()
                                 .mapToObj(i -> fieldConfigurations[i])
@@ -266,11 +255,7 @@ public class GreedySampleReducer extends AComputation<List<BooleanSolution>> {
             List<Interaction> coveredInteractions = interactions.parallelStream()
                     .filter(interaction -> bestConfig.containsAll(interaction))
                     .peek(interaction -> {
-                        int[] is = interaction.get();
-                        BitSet curIndices = (BitSet) mainIndex.clone();
-                        for (int k2 = 0; k2 < is.length; k2++) {
-                            curIndices.and(indices[is[k2] + n]);
-                        }
+                        BitSet curIndices = solutionIndex.getSolutions(mainIndex, interaction.get());
                         double s = 1.0 / interaction.getCounter();
                         curIndices.stream()
                                 .mapToObj(i -> fieldConfigurations[i])
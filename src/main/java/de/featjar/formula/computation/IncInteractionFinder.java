@@ -27,6 +27,7 @@ import de.featjar.base.data.LexicographicIterator;
 import de.featjar.formula.assignment.ABooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.assignment.BooleanSolutionIndex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -52,6 +53,7 @@ public class IncInteractionFinder {
 
     protected List<BooleanSolution> succeedingConfs;
     protected List<BooleanSolution> failingConfs;
+    protected BooleanSolutionIndex succeedingConfsIndex;
 
     protected int verifyCounter;
     protected int[] lastMerge;
@@ -59,6 +61,7 @@ public class IncInteractionFinder {
     public void reset() {
         succeedingConfs = new ArrayList<>();
         failingConfs = new ArrayList<>();
+        succeedingConfsIndex = new BooleanSolutionIndex(0);
     }
 
     public void setUpdater(IConfigurationUpdater updater) {
@@ -274,12 +277,7 @@ public class IncInteractionFinder {
     }
 
     private boolean isCovered(int[] combo) {
-        for (BooleanSolution configuration : succeedingConfs) {
-            if (configuration.containsAll(combo)) {
-                return true;
-            }
-        }
-        return false;
+        return succeedingConfsIndex.contains(combo);
     }
 
     protected Map<Boolean, List<int[]>> group(List<int[]> list, final BooleanSolution newConfig) {
@@ -292,6 +290,7 @@ public class IncInteractionFinder {
         verifyCounter++;
         if (verifier.test(solution) == 0) {
             succeedingConfs.add(solution);
+            succeedingConfsIndex.add(solution);
             return true;
         } else {
             failingConfs.add(solution);
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.computation;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.structure.Expressions;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.ACardinal;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.ExpressionKind;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import de.featjar.formula.structure.term.value.Variable;
+import de.featjar.formula.visitor.ConnectiveSimplifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Transforms a formula into strict negation normal form in a single pass.
+ * Pushes negations down to the literals, replaces complex connectives, removes {@link True} and {@link False},
+ * and merges nested {@link And} and {@link Or} connectives, while building a new formula.
+ * Yields a formula that is equivalent to the one computed by the visitors used in {@link ComputeNNFFormula}, but not
+ * necessarily identical.
+ * Does not modify its input.
+ *
+ * @author Sebastian Krieter
+ */
+public class NNFTransformer implements Function<IFormula, Result<IFormula>> {
+
+    private static class Frame {
+        private final boolean isAnd;
+        private final boolean isNegated;
+        private final List<? extends IExpression> children;
+        private final List<IFormula> newChildren = new ArrayList<>();
+        private int index = 0;
+        private boolean isDecided = false;
+
+        private Frame(boolean isAnd, boolean isNegated, List<? extends IExpression> children) {
+            this.isAnd = isAnd;
+            this.isNegated = isNegated;
+            this.children = children;
+        }
+
+        private boolean hasNext() {
+            return !isDecided && index < children.size();
+        }
+
+        private void add(IFormula newChild) {
+            if (newChild instanceof True) {
+                if (!isAnd) {
+                    isDecided = true;
+                }
+            } else if (newChild instanceof False) {
+                if (isAnd) {
+                    isDecided = true;
+                }
+            } else if (isAnd ? newChild instanceof And : newChild instanceof Or) {
+                newChildren.addAll(getChildren(newChild));
+            } else {
+                newChildren.add(newChild);
+            }
+        }
+
+        private IFormula build() {
+            if (isDecided) {
+                return isAnd ? Expressions.False : Expressions.True;
+            }
+            switch (newChildren.size()) {
+                case 0:
+                    return isAnd ? Expressions.True : Expressions.False;
+                case 1:
+                    return newChildren.get(0);
+                default:
+                    return isAnd ? new And(newChildren) : new Or(newChildren);
+            }
+        }
+    }
+
+    private final CardinalityEncoder.Encoding encoding;
+
+    // state of the current call of apply, reset at its start
+    private CardinalityEncoder cardinalityEncoder;
+    private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+    private IFormula result;
+
+    /**
+     * Creates a new NNF transformer.
+     * Expands cardinality constraints into all combinations of their children.
+     */
+    public NNFTransformer() {
+        this(CardinalityEncoder.Encoding.BINOMIAL);
+    }
+
+    /**
+     * Creates a new NNF transformer.
+     *
+     * @param encoding the encoding for cardinality constraints
+     */
+    public NNFTransformer(CardinalityEncoder.Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    @Override
+    public Result<IFormula> apply(IFormula formula) {
+        Reference reference = null;
+        if (formula instanceof Reference) {
+            reference = (Reference) formula;
+            formula = reference.getExpression();
+        }
+        ExpressionKind.BOOLEAN.assertFor(formula);
+        List<Variable> variables = formula.getVariables();
+        if (variables.isEmpty()) {
+            return Result.empty(new IllegalArgumentException("requires at least one variable"));
+        }
+        cardinalityEncoder = new CardinalityEncoder(encoding);
+        stack.clear();
+
+        IFormula nnf = transform(formula);
+        List<IFormula> definitions = cardinalityEncoder.getDefinitions();
+        if (!definitions.isEmpty()) {
+            Frame definitionFrame = new Frame(true, false, List.of());
+            definitionFrame.add(nnf);
+            // definitions may contain further cardinality constraints, which add further definitions
+            for (int i = 0; i < definitions.size(); i++) {
+                definitionFrame.add(transform(definitions.get(i)));
+            }
+            nnf = definitionFrame.build();
+        }
+
+        Variable variable = variables.get(0);
+        if (nnf instanceof True) {
+            nnf = new Or(new Literal(variable), new Literal(false, variable));
+        } else if (nnf instanceof False) {
+            nnf = new And(new Literal(variable), new Literal(false, variable));
+        }
+        if (reference != null) {
+            Reference nnfReference = new Reference(nnf);
+            nnfReference.setFreeVariables(reference.getFreeVariables());
+            return Result.of(nnfReference);
+        }
+        return Result.of(nnf);
+    }
+
+    private IFormula transform(IFormula formula) {
+        result = null;
+        visit(formula, false);
+        while (!stack.isEmpty()) {
+            Frame frame = stack.getLast();
+            if (frame.hasNext()) {
+                visit((IFormula) frame.children.get(frame.index++), frame.isNegated);
+            } else {
+                stack.removeLast();
+                deliver(frame.build());
+            }
+        }
+        return result;
+    }
+
+    private void visit(IFormula formula, boolean isNegated) {
+        while (true) {
+            if (formula instanceof Not) {
+                formula = (IFormula) ((Not) formula).getExpression();
+                isNegated = !isNegated;
+            } else if (formula instanceof Implies) {
+                List<? extends IExpression> children = formula.getChildren();
+                formula = new Or(new Not((IFormula) children.get(0)), (IFormula) children.get(1));
+            } else if (formula instanceof BiImplies) {
+                List<? extends IExpression> children = formula.getChildren();
+                IFormula left = (IFormula) children.get(0);
+                IFormula right = (IFormula) children.get(1);
+                formula = new And(new Or(new Not(left), right), new Or(new Not(right), left));
+            } else if (formula instanceof ACardinal) {
+                formula = expand((ACardinal) formula);
+            } else {
+                break;
+            }
+        }
+        if (formula instanceof And || formula instanceof Or) {
+            stack.addLast(new Frame(formula instanceof And != isNegated, isNegated, formula.getChildren()));
+        } else if (formula instanceof Literal) {
+            Literal literal = (Literal) formula.cloneTree();
+            if (isNegated) {
+                literal.setPositive(!literal.isPositive());
+            }
+            deliver(literal);
+        } else if (formula instanceof True) {
+            deliver(isNegated ? Expressions.False : Expressions.True);
+        } else if (formula instanceof False) {
+            deliver(isNegated ? Expressions.True : Expressions.False);
+        } else {
+            throw new IllegalArgumentException("unsupported formula " + formula.getName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IFormula expand(ACardinal cardinal) {
+        Result<IFormula> encodedFormula =
+                cardinalityEncoder.encode((List<IFormula>) cardinal.getChildren(), cardinal.getRange());
+        if (encodedFormula.isPresent()) {
+            return encodedFormula.get();
+        }
+        IFormula expandedFormula = ConnectiveSimplifier.expandCardinal(cardinal);
+        if (expandedFormula == null) {
+            throw new IllegalArgumentException("unsupported formula " + cardinal.getName());
+        }
+        return expandedFormula;
+    }
+
+    private void deliver(IFormula formula) {
+        if (stack.isEmpty()) {
+            result = formula;
+        } else {
+            stack.getLast().add(formula);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<IFormula> getChildren(IFormula formula) {
+        return (List<IFormula>) formula.getChildren();
+    }
+}
@@ -26,6 +26,7 @@ import de.featjar.base.data.LexicographicIterator;
 import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.assignment.BooleanClause;
 import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.assignment.BooleanSolutionIndex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -49,12 +50,16 @@ public class PropInteractionFinder {
 
     private List<BooleanSolution> succeedingConfs;
     private List<BooleanSolution> failingConfs;
+    private BooleanSolutionIndex succeedingConfsIndex;
+    private BooleanSolutionIndex failingConfsIndex;
 
     private int verifyCounter;
 
     public void reset() {
         succeedingConfs = new ArrayList<>();
         failingConfs = new ArrayList<>();
+        succeedingConfsIndex = new BooleanSolutionIndex(0);
+        failingConfsIndex = new BooleanSolutionIndex(0);
     }
 
     public void setUpdater(IConfigurationUpdater updater) {
@@ -112,18 +117,8 @@ public class PropInteractionFinder {
                             literals[k] = mask[k] ? l : -l;
                         }
 
-                        int succ = 0;
-                        int fail = 0;
-                        for (BooleanSolution config : failingConfs) {
-                            if (config.containsAll(literals)) {
-                                fail++;
-                            }
-                        }
-                        for (BooleanSolution config : succeedingConfs) {
-                            if (config.containsAll(literals)) {
-                                succ++;
-                            }
-                        }
+                        int succ = succeedingConfsIndex.count(literals);
+                        int fail = failingConfsIndex.count(literals);
                         if (fail == 0 && succ == 0) {
                             BooleanSolution config = updater.complete(List.of(literals), null, null)
                                     .orElse(null);
@@ -277,18 +272,8 @@ public class PropInteractionFinder {
         ArrayList<int[]> merge2 = new ArrayList<>();
         for (BooleanClause literals : collect) {
             if (literals != null) {
-                int succ = 0;
-                int fail = 0;
-                for (BooleanSolution config : failingConfs) {
-                    if (config.containsAll(literals)) {
-                        fail++;
-                    }
-                }
-                for (BooleanSolution config : succeedingConfs) {
-                    if (config.containsAll(literals)) {
-                        succ++;
-                    }
-                }
+                int succ = succeedingConfsIndex.count(literals.get());
+                int fail = failingConfsIndex.count(literals.get());
                 int[] interaction = Arrays.copyOf(literals.get(), literals.size() + 1);
                 interaction[literals.size()] = support(fail, succ);
                 merge2.add(interaction);
@@ -322,9 +307,11 @@ public class PropInteractionFinder {
         BooleanSolution nonCore = new BooleanSolution(solution.removeAll(core.get()));
         if (verifier.test(solution) == 0) {
             succeedingConfs.add(nonCore);
+            succeedingConfsIndex.add(nonCore);
             return true;
         } else {
             failingConfs.add(nonCore);
+            failingConfsIndex.add(nonCore);
             return false;
         }
     }
@@ -22,6 +22,7 @@ package de.featjar.formula.computation;
 
 import de.featjar.base.data.Maps;
 import de.featjar.base.tree.visitor.ITreeVisitor;
+import de.featjar.formula.structure.ExpressionInterner;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
@@ -139,6 +140,38 @@ public class TseitinTransformer
         substitutions.addAll(unifiedSubstitutions.keySet());
     }
 
+    /**
+     * Unifies a given list of substitutions using an expression interner.
+     * Same as {@link #unify(List)}, but compares the substituted formulas by identity of their canonical instances,
+     * which avoids hashing and comparing whole subtrees when the substituted formulas are already interned.
+     * @param substitutions the list of substitutions
+     * @param interner the expression interner
+     */
+    public static void unify(List<Substitution> substitutions, ExpressionInterner interner) {
+        int currentAuxiliaryVariableIndex = 0;
+        IdentityHashMap<IFormula, Substitution> unifiedSubstitutions = new IdentityHashMap<>();
+        List<Substitution> unifiedSubstitutionList = new ArrayList<>();
+        for (Substitution substitution : substitutions) {
+            IFormula originalFormula = interner.intern(substitution.originalFormula);
+            Substitution storedSubstitution = unifiedSubstitutions.get(originalFormula);
+            if (storedSubstitution == null) {
+                unifiedSubstitutions.put(originalFormula, substitution);
+                unifiedSubstitutionList.add(substitution);
+                Variable variable = substitution.getAuxiliaryVariable();
+                if (variable != null) {
+                    variable.setName(AUXILIARY_VARIABLE_NAME_PREFIX + (++currentAuxiliaryVariableIndex));
+                }
+            } else {
+                Variable variable = storedSubstitution.getAuxiliaryVariable();
+                if (variable != null) {
+                    substitution.getAuxiliaryVariable().setName(variable.getName());
+                }
+            }
+        }
+        substitutions.clear();
+        substitutions.addAll(unifiedSubstitutionList);
+    }
+
     /**
      * {@return the clause formulas for a given list of substitutions}
      * Thus, encodes the definitions of all given substitutions.
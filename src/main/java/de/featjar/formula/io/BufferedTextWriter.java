@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Writes text to an output stream through a byte buffer, which is flushed whenever it is full.
+ * Integers are formatted directly into the buffer without creating strings.
+ * <p>
+ * {@link #writeRows(int, IRowEncoder)} writes a sequence of rows, such as lines of a CSV or DIMACS file.
+ * If enabled by {@link #setParallel(boolean)}, batches of rows are encoded in parallel into separate buffers, which are
+ * written in their original order, such that only a bounded number of rows is held in memory at once.
+ *
+ * @author Sebastian Krieter
+ */
+public class BufferedTextWriter implements Flushable {
+
+    /**
+     * Encodes a single row.
+     */
+    @FunctionalInterface
+    public interface IRowEncoder {
+        /**
+         * Writes a given row to a writer.
+         * The writer may be a different one than the writer on which {@link #writeRows(int, IRowEncoder)} was called.
+         *
+         * @param row the index of the row
+         * @param writer the writer
+         * @throws IOException if the writer cannot write to its output stream
+         */
+        void encode(int row, BufferedTextWriter writer) throws IOException;
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int ROWS_PER_BATCH = 1024;
+
+    private final OutputStream outputStream;
+    private byte[] buffer;
+    private int size;
+    private boolean parallel;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param outputStream the output stream
+     */
+    public BufferedTextWriter(OutputStream outputStream) {
+        this(outputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    private BufferedTextWriter(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Sets whether {@link #writeRows(int, IRowEncoder)} encodes rows in parallel.
+     * The encoder must then be safe to call from multiple threads.
+     *
+     * @param parallel whether to encode rows in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Writes a single ASCII character.
+     *
+     * @param c the character
+     * @return this writer
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public BufferedTextWriter write(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes a string in UTF-8.
+     *
+     * @param s the string
+     * @return this writer
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public BufferedTextWriter write(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return write(s.getBytes(StandardCharsets.UTF_8), 0, -1);
+            }
+        }
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an integer in decimal notation.
+     *
+     * @param value the integer
+     * @return this writer
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public BufferedTextWriter write(int value) throws IOException {
+        ensureCapacity(11);
+        // negative values cover Integer.MIN_VALUE
+        int negativeValue = value;
+        if (value < 0) {
+            buffer[size++] = '-';
+        } else {
+            negativeValue = -value;
+        }
+        int digitCount = 1;
+        for (int rest = negativeValue; rest <= -10; rest /= 10) {
+            digitCount++;
+        }
+        size += digitCount;
+        int position = size;
+        do {
+            buffer[--position] = (byte) ('0' - negativeValue % 10);
+            negativeValue /= 10;
+        } while (negativeValue != 0);
+        return this;
+    }
+
+    /**
+     * Writes a range of bytes.
+     *
+     * @param bytes the bytes
+     * @param start the first index (inclusive)
+     * @param end the last index (exclusive), or {@code -1} for the end of the array
+     * @return this writer
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public BufferedTextWriter write(byte[] bytes, int start, int end) throws IOException {
+        int length = (end < 0 ? bytes.length : end) - start;
+        ensureCapacity(length);
+        System.arraycopy(bytes, start, buffer, size, length);
+        size += length;
+        return this;
+    }
+
+    /**
+     * Writes rows with a given encoder in ascending order.
+     *
+     * @param rowCount the number of rows
+     * @param encoder the encoder
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public void writeRows(int rowCount, IRowEncoder encoder) throws IOException {
+        if (!parallel || rowCount <= ROWS_PER_BATCH) {
+            for (int row = 0; row < rowCount; row++) {
+                encoder.encode(row, this);
+            }
+            return;
+        }
+        int batchCount = (rowCount - 1) / ROWS_PER_BATCH + 1;
+        int windowLength = Math.min(batchCount, 4 * ForkJoinPool.getCommonPoolParallelism());
+        BufferedTextWriter[] batches = new BufferedTextWriter[windowLength];
+        Arrays.setAll(batches, i -> new BufferedTextWriter(null, DEFAULT_BUFFER_SIZE));
+        for (int firstBatch = 0; firstBatch < batchCount; firstBatch += batches.length) {
+            int start = firstBatch;
+            int windowSize = Math.min(batches.length, batchCount - firstBatch);
+            try {
+                IntStream.range(0, windowSize).parallel().forEach(i -> {
+                    BufferedTextWriter batch = batches[i];
+                    batch.size = 0;
+                    int end = Math.min(rowCount, (start + i + 1) * ROWS_PER_BATCH);
+                    try {
+                        for (int row = (start + i) * ROWS_PER_BATCH; row < end; row++) {
+                            encoder.encode(row, batch);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (int i = 0; i < windowSize; i++) {
+                write(batches[i].buffer, 0, batches[i].size);
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered bytes to the output stream and flushes it.
+     *
+     * @throws IOException if the output stream cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, size);
+        size = 0;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (size + length > buffer.length) {
+            if (outputStream != null) {
+                flushBuffer();
+            }
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+            }
+        }
+    }
+}
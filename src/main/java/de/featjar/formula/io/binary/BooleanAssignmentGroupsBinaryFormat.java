@@ -31,6 +31,7 @@ import de.featjar.formula.assignment.ABooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignmentGroups;
 import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseArena;
 import de.featjar.formula.assignment.BooleanSolution;
 import java.io.IOException;
 import java.io.InputStream;
@@ -63,6 +64,16 @@ public class BooleanAssignmentGroupsBinaryFormat extends ABinaryFormat<BooleanAs
         writeInt(outputStream, groups.size());
         for (List<? extends ABooleanAssignment> group : groups) {
             writeInt(outputStream, group.size());
+            if (group instanceof BooleanClauseArena) {
+                for (BooleanClauseArena.ClauseView clause : ((BooleanClauseArena) group).views()) {
+                    writeByte(outputStream, BooleanClauseType);
+                    writeInt(outputStream, clause.size());
+                    for (int i = 0; i < clause.size(); i++) {
+                        writeInt(outputStream, clause.get(i));
+                    }
+                }
+                continue;
+            }
             for (ABooleanAssignment assignment : group) {
                 final int[] literals = assignment.get();
                 if (assignment instanceof BooleanSolution) {
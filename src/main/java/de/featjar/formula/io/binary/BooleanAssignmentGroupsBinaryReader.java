@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import static de.featjar.formula.io.binary.BooleanAssignmentGroupsIndexedBinaryFormat.BLOCK_SIZE;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads assignments written by {@link BooleanAssignmentGroupsIndexedBinaryFormat} from a byte buffer.
+ * Only the header and the index are read on creation.
+ * Single assignments are read on demand by looking up their block in the index, such that a memory-mapped file is
+ * only accessed at the pages of the requested assignments.
+ * Files larger than 2 GiB are mapped in overlapping windows, such that each block lies completely within one window.
+ * The last decompressed block is cached, so this class is not thread-safe.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanAssignmentGroupsBinaryReader {
+
+    /**
+     * Distance between the starts of two consecutive windows of a mapped file.
+     * As each window spans up to two steps, any range of at most one step lies completely within one window.
+     */
+    static final long WINDOW_STEP = 1L << 30;
+
+    /**
+     * The windows of the file. Window {@code i} starts at position {@code i * windowStep}.
+     */
+    private final ByteBuffer[] windows;
+
+    private final long windowStep;
+    private final long size;
+    private final boolean isCompressed;
+    private final VariableMap variableMap;
+
+    private final int[] assignmentCounts;
+    private final int[] firstBlocks;
+    private final long[] blockOffsets;
+    private final int[] storedBlockSizes;
+    private final int[] blockSizes;
+
+    private int cachedBlock = -1;
+    private ByteBuffer cachedBlockBuffer;
+    private Inflater inflater;
+
+    /**
+     * {@return a reader for a given file, which is mapped into memory}
+     *
+     * @param path the file
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static BooleanAssignmentGroupsBinaryReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                return new BooleanAssignmentGroupsBinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            final ByteBuffer[] windows = new ByteBuffer[(int) ((size - 1) / WINDOW_STEP) + 1];
+            for (int i = 0; i < windows.length; i++) {
+                final long start = i * WINDOW_STEP;
+                windows[i] = channel.map(
+                        FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Integer.MAX_VALUE));
+            }
+            return new BooleanAssignmentGroupsBinaryReader(windows, WINDOW_STEP, size);
+        }
+    }
+
+    /**
+     * Creates a new reader and reads the header and index of a given buffer.
+     *
+     * @param buffer the buffer, from its position to its limit
+     * @throws IOException if the buffer does not contain a valid file
+     */
+    public BooleanAssignmentGroupsBinaryReader(ByteBuffer buffer) throws IOException {
+        this(new ByteBuffer[] {buffer.slice()}, Integer.MAX_VALUE + 1L, buffer.remaining());
+    }
+
+    /**
+     * Creates a new reader and reads the header and index of a file that is given in windows.
+     * Window {@code i} must contain the bytes of the file from position {@code i * windowStep} to the end of the file
+     * or to at least position {@code (i + 2) * windowStep - 1}.
+     *
+     * @param windows the windows
+     * @param windowStep the distance between the starts of two consecutive windows
+     * @param size the size of the file
+     * @throws IOException if the windows do not contain a valid file
+     */
+    BooleanAssignmentGroupsBinaryReader(ByteBuffer[] windows, long windowStep, long size) throws IOException {
+        this.windows = windows;
+        this.windowStep = windowStep;
+        this.size = size;
+        try {
+            final ByteBuffer header = windows[0].duplicate().order(ByteOrder.BIG_ENDIAN);
+            if (header.getInt() != BooleanAssignmentGroupsIndexedBinaryFormat.MAGIC) {
+                throw new IOException("Invalid file type");
+            }
+            final byte version = header.get();
+            if (version != BooleanAssignmentGroupsIndexedBinaryFormat.VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            isCompressed = (header.get() & BooleanAssignmentGroupsIndexedBinaryFormat.DEFLATE_FLAG) != 0;
+            variableMap = new VariableMap();
+            final int maxIndex = readVarInt(header);
+            for (int i = 1; i <= maxIndex; i++) {
+                final byte[] name = new byte[readVarInt(header)];
+                header.get(name);
+                if (name.length > 0) {
+                    variableMap.add(i, new String(name, StandardCharsets.UTF_8));
+                }
+            }
+
+            final long indexPosition = getRange(size - 8, 8).getLong();
+            final ByteBuffer index = getRange(indexPosition, size - 8 - indexPosition);
+            final int groupCount = index.getInt();
+            assignmentCounts = new int[groupCount];
+            firstBlocks = new int[groupCount];
+            for (int i = 0; i < groupCount; i++) {
+                assignmentCounts[i] = index.getInt();
+                firstBlocks[i] = index.getInt();
+            }
+            final int blockCount = index.getInt();
+            blockOffsets = new long[blockCount];
+            storedBlockSizes = new int[blockCount];
+            blockSizes = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = index.getLong();
+                storedBlockSizes[i] = index.getInt();
+                blockSizes[i] = index.getInt();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid file structure", e);
+        }
+    }
+
+    /**
+     * {@return a buffer whose remaining bytes are the bytes of the file within a given range}
+     *
+     * @param position the start of the range
+     * @param length the length of the range
+     * @throws IOException if the range is not within the file or exceeds a window
+     */
+    private ByteBuffer getRange(long position, long length) throws IOException {
+        if (position < 0 || length < 0 || position > size - length) {
+            throw new IOException("Invalid range of " + length + " bytes at position " + position);
+        }
+        final int window = (int) (position / windowStep);
+        final ByteBuffer buffer = windows[window].duplicate().order(ByteOrder.BIG_ENDIAN);
+        final long offset = position - window * windowStep;
+        if (offset + length > buffer.limit()) {
+            throw new IOException("Range of " + length + " bytes at position " + position + " exceeds its window");
+        }
+        buffer.limit((int) (offset + length));
+        buffer.position((int) offset);
+        return buffer;
+    }
+
+    /**
+     * {@return the variable map}
+     */
+    public VariableMap getVariableMap() {
+        return variableMap;
+    }
+
+    /**
+     * {@return the number of groups}
+     */
+    public int getGroupCount() {
+        return assignmentCounts.length;
+    }
+
+    /**
+     * {@return the number of assignments in a given group}
+     *
+     * @param group the index of the group
+     */
+    public int getAssignmentCount(int group) {
+        return assignmentCounts[group];
+    }
+
+    /**
+     * {@return the assignment at a given index of a given group}
+     * Reads at most one block.
+     *
+     * @param group the index of the group
+     * @param index the index of the assignment within its group
+     * @throws IOException if the assignment cannot be decoded
+     */
+    public ABooleanAssignment get(int group, int index) throws IOException {
+        Objects.checkIndex(index, assignmentCounts[group]);
+        final ByteBuffer block = getBlock(firstBlocks[group] + index / BLOCK_SIZE);
+        return readAssignment(block, block.getInt(4 * (index % BLOCK_SIZE)));
+    }
+
+    /**
+     * {@return all assignments of a given group}
+     *
+     * @param group the index of the group
+     * @throws IOException if an assignment cannot be decoded
+     */
+    public List<ABooleanAssignment> getGroup(int group) throws IOException {
+        final int assignmentCount = assignmentCounts[group];
+        final List<ABooleanAssignment> assignments = new ArrayList<>(assignmentCount);
+        for (int i = 0; i < assignmentCount; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                getBlock(firstBlocks[group] + i / BLOCK_SIZE);
+            }
+            assignments.add(readAssignment(cachedBlockBuffer, cachedBlockBuffer.getInt(4 * (i % BLOCK_SIZE))));
+        }
+        return assignments;
+    }
+
+    /**
+     * {@return all groups with all assignments}
+     *
+     * @throws IOException if an assignment cannot be decoded
+     */
+    public BooleanAssignmentGroups readAll() throws IOException {
+        final List<List<ABooleanAssignment>> groups = new ArrayList<>(getGroupCount());
+        for (int i = 0; i < getGroupCount(); i++) {
+            groups.add(getGroup(i));
+        }
+        return new BooleanAssignmentGroups(variableMap, groups);
+    }
+
+    private ByteBuffer getBlock(int block) throws IOException {
+        if (block != cachedBlock) {
+            try {
+                final ByteBuffer storedBlock = getRange(blockOffsets[block], storedBlockSizes[block]);
+                if (isCompressed) {
+                    final byte[] bytes = new byte[blockSizes[block]];
+                    if (inflater == null) {
+                        inflater = new Inflater();
+                    } else {
+                        inflater.reset();
+                    }
+                    inflater.setInput(storedBlock);
+                    if (inflater.inflate(bytes) != bytes.length || !inflater.finished()) {
+                        throw new IOException("Invalid block size in block " + block);
+                    }
+                    cachedBlockBuffer = ByteBuffer.wrap(bytes);
+                } else {
+                    cachedBlockBuffer = storedBlock.slice();
+                }
+            } catch (DataFormatException | IllegalArgumentException e) {
+                throw new IOException("Invalid block " + block, e);
+            }
+            cachedBlock = block;
+        }
+        return cachedBlockBuffer;
+    }
+
+    private static ABooleanAssignment readAssignment(ByteBuffer block, int offset) throws IOException {
+        try {
+            final ByteBuffer record = block.duplicate();
+            record.position(offset);
+            final byte type = record.get();
+            final int[] literals = new int[readVarInt(record)];
+            switch (type) {
+                case BooleanAssignmentGroupsIndexedBinaryFormat.BooleanSolutionType: {
+                    int packedValues = 0;
+                    for (int i = 0; i < literals.length; i++) {
+                        if ((i & 3) == 0) {
+                            packedValues = record.get();
+                        }
+                        switch ((packedValues >>> ((i & 3) << 1)) & 0b11) {
+                            case BooleanAssignmentGroupsIndexedBinaryFormat.POSITIVE_VALUE:
+                                literals[i] = i + 1;
+                                break;
+                            case BooleanAssignmentGroupsIndexedBinaryFormat.NEGATIVE_VALUE:
+                                literals[i] = -(i + 1);
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                    return new BooleanSolution(literals, false);
+                }
+                case BooleanAssignmentGroupsIndexedBinaryFormat.BooleanClauseType:
+                    readDeltas(record, literals);
+                    return new BooleanClause(literals, false);
+                case BooleanAssignmentGroupsIndexedBinaryFormat.BooleanAssignmentType:
+                    readDeltas(record, literals);
+                    return new BooleanAssignment(literals);
+                default:
+                    throw new IOException("Unknown type " + type);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Invalid assignment at offset " + offset, e);
+        }
+    }
+
+    private static void readDeltas(ByteBuffer record, int[] literals) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < literals.length; i++) {
+            final int zigZag = readVarInt(record);
+            previous += (zigZag >>> 1) ^ -(zigZag & 1);
+            literals[i] = previous;
+        }
+    }
+
+    static int readVarInt(ByteBuffer record) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = record.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable-length integer");
+    }
+}
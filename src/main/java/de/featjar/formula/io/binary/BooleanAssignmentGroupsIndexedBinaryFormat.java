@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.io.binary.ABinaryFormat;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Reads / Writes a list of assignments in a compact format with an index for random access.
+ * This is the successor of {@link BooleanAssignmentGroupsBinaryFormat}.
+ * <p>
+ * A file starts with a magic number, a version, flags, and the variable names.
+ * Assignments are stored in blocks of up to {@value #BLOCK_SIZE} assignments of the same group, which are optionally
+ * compressed with DEFLATE.
+ * Each block starts with the offsets of its assignments, followed by the assignments.
+ * Clauses and other assignments store the differences between consecutive literals as zig-zag encoded variable-length
+ * integers, which is short for sorted literals.
+ * Solutions store two bits per variable.
+ * The file ends with an index of all groups and blocks, followed by the position of this index.
+ * {@link BooleanAssignmentGroupsBinaryReader} uses the index to read single assignments in constant time.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanAssignmentGroupsIndexedBinaryFormat extends ABinaryFormat<BooleanAssignmentGroups> {
+
+    static final int MAGIC = 0x464A4241;
+    static final byte VERSION = 2;
+    static final byte DEFLATE_FLAG = 0b0000_0001;
+    static final int BLOCK_SIZE = 256;
+
+    static final byte BooleanSolutionType = 0b0000_0001;
+    static final byte BooleanClauseType = 0b0000_0010;
+    static final byte BooleanAssignmentType = 0b0000_0100;
+
+    static final int NEGATIVE_VALUE = 0b10;
+    static final int POSITIVE_VALUE = 0b01;
+
+    private final boolean compress;
+
+    /**
+     * Creates a new format that compresses blocks.
+     */
+    public BooleanAssignmentGroupsIndexedBinaryFormat() {
+        this(true);
+    }
+
+    /**
+     * Creates a new format.
+     *
+     * @param compress whether blocks are compressed when writing
+     */
+    public BooleanAssignmentGroupsIndexedBinaryFormat(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public void write(BooleanAssignmentGroups assignmentSpace, AOutputMapper outputMapper) throws IOException {
+        final OutputStream outputStream = outputMapper.get().getOutputStream();
+        final VariableMap variableMap = assignmentSpace.getVariableMap();
+        final int maxIndex = variableMap.maxIndex();
+        final ByteEncoder header = new ByteEncoder();
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(compress ? DEFLATE_FLAG : 0);
+        header.writeVarInt(maxIndex);
+        for (int i = 1; i <= maxIndex; i++) {
+            final byte[] name = variableMap.get(i).orElse("").getBytes(StandardCharsets.UTF_8);
+            header.writeVarInt(name.length);
+            header.writeBytes(name, name.length);
+        }
+        outputStream.write(header.bytes, 0, header.size);
+        long position = header.size;
+
+        final List<? extends List<? extends ABooleanAssignment>> groups = assignmentSpace.getGroups();
+        final ByteEncoder groupIndex = new ByteEncoder();
+        final ByteEncoder blockIndex = new ByteEncoder();
+        final ByteEncoder block = new ByteEncoder();
+        final ByteEncoder compressedBlock = new ByteEncoder();
+        final Deflater deflater = new Deflater();
+        int blockCount = 0;
+        try {
+            for (List<? extends ABooleanAssignment> group : groups) {
+                groupIndex.writeInt(group.size());
+                groupIndex.writeInt(blockCount);
+                for (int start = 0; start < group.size(); start += BLOCK_SIZE) {
+                    final int end = Math.min(group.size(), start + BLOCK_SIZE);
+                    block.size = 0;
+                    block.ensureCapacity(4 * (end - start));
+                    block.size = 4 * (end - start);
+                    for (int i = start; i < end; i++) {
+                        block.setInt(4 * (i - start), block.size);
+                        writeAssignment(block, group, i);
+                    }
+                    final ByteEncoder storedBlock;
+                    if (compress) {
+                        deflater.reset();
+                        deflater.setInput(block.bytes, 0, block.size);
+                        deflater.finish();
+                        compressedBlock.size = 0;
+                        while (!deflater.finished()) {
+                            compressedBlock.ensureCapacity(block.size / 2 + 64);
+                            compressedBlock.size += deflater.deflate(
+                                    compressedBlock.bytes,
+                                    compressedBlock.size,
+                                    compressedBlock.bytes.length - compressedBlock.size);
+                        }
+                        storedBlock = compressedBlock;
+                    } else {
+                        storedBlock = block;
+                    }
+                    outputStream.write(storedBlock.bytes, 0, storedBlock.size);
+                    blockIndex.writeLong(position);
+                    blockIndex.writeInt(storedBlock.size);
+                    blockIndex.writeInt(block.size);
+                    position += storedBlock.size;
+                    blockCount++;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        final ByteEncoder footer = new ByteEncoder();
+        footer.writeInt(groups.size());
+        footer.writeBytes(groupIndex.bytes, groupIndex.size);
+        footer.writeInt(blockCount);
+        footer.writeBytes(blockIndex.bytes, blockIndex.size);
+        footer.writeLong(position);
+        outputStream.write(footer.bytes, 0, footer.size);
+        outputStream.flush();
+    }
+
+    private static void writeAssignment(ByteEncoder block, List<? extends ABooleanAssignment> group, int index) {
+        if (group instanceof BooleanClauseArena) {
+            final BooleanClauseArena arena = (BooleanClauseArena) group;
+            final int size = arena.getClauseSize(index);
+            block.writeByte(BooleanClauseType);
+            block.writeVarInt(size);
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                final int literal = arena.getLiteral(index, i);
+                block.writeVarInt(ByteEncoder.zigZag(literal - previous));
+                previous = literal;
+            }
+            return;
+        }
+        final ABooleanAssignment assignment = group.get(index);
+        final int[] literals = assignment.get();
+        if (assignment instanceof BooleanSolution) {
+            block.writeByte(BooleanSolutionType);
+            block.writeVarInt(literals.length);
+            final int byteCount = (literals.length + 3) / 4;
+            block.ensureCapacity(byteCount);
+            Arrays.fill(block.bytes, block.size, block.size + byteCount, (byte) 0);
+            for (int i = 0; i < literals.length; i++) {
+                final int l = literals[i];
+                if (l != 0) {
+                    block.bytes[block.size + (i >> 2)] |= (l > 0 ? POSITIVE_VALUE : NEGATIVE_VALUE) << ((i & 3) << 1);
+                }
+            }
+            block.size += byteCount;
+        } else if (assignment instanceof BooleanClause || assignment instanceof BooleanAssignment) {
+            block.writeByte(assignment instanceof BooleanClause ? BooleanClauseType : BooleanAssignmentType);
+            block.writeVarInt(literals.length);
+            int previous = 0;
+            for (int l : literals) {
+                block.writeVarInt(ByteEncoder.zigZag(l - previous));
+                previous = l;
+            }
+        } else {
+            throw new IllegalArgumentException(assignment.getClass().toString());
+        }
+    }
+
+    @Override
+    public Result<BooleanAssignmentGroups> parse(AInputMapper inputMapper) {
+        try {
+            final byte[] bytes = inputMapper.get().getInputStream().readAllBytes();
+            return Result.of(new BooleanAssignmentGroupsBinaryReader(ByteBuffer.wrap(bytes)).readAll());
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "BooleanAssignmentIndexedBinary";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "fja";
+    }
+}
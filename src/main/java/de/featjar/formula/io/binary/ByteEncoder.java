@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte array with methods for encoding values in big-endian order and as variable-length integers.
+ *
+ * @author Sebastian Krieter
+ */
+final class ByteEncoder {
+    byte[] bytes = new byte[1 << 12];
+    int size;
+
+    void ensureCapacity(int length) {
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + length));
+        }
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    void writeInt(int value) {
+        ensureCapacity(4);
+        setInt(size, value);
+        size += 4;
+    }
+
+    void setInt(int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] values, int length) {
+        ensureCapacity(length);
+        System.arraycopy(values, 0, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * {@return the zig-zag encoding of a given value, which maps values close to zero to small non-negative values}
+     *
+     * @param value the value
+     */
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
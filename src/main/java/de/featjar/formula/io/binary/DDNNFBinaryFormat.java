@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import de.featjar.analysis.ddnnf.DDNNF;
+import de.featjar.base.data.Problem.Severity;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.binary.ABinaryFormat;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Reads / Writes a {@link DDNNF}.
+ * Stores the number of variables and nodes, followed by the kind, value, and children of each node in topological
+ * order.
+ *
+ * @author Sebastian Krieter
+ */
+public class DDNNFBinaryFormat extends ABinaryFormat<DDNNF> {
+
+    @Override
+    public void write(DDNNF ddnnf, AOutputMapper outputMapper) throws IOException {
+        final OutputStream outputStream = outputMapper.get().getOutputStream();
+        final int nodeCount = ddnnf.getNodeCount();
+        writeInt(outputStream, ddnnf.getVariableCount());
+        writeInt(outputStream, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            writeByte(outputStream, ddnnf.getKind(node));
+            writeInt(outputStream, ddnnf.getValue(node));
+            final int[] children = ddnnf.getChildren(node);
+            writeInt(outputStream, children.length);
+            for (int child : children) {
+                writeInt(outputStream, child);
+            }
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public Result<DDNNF> parse(AInputMapper inputMapper) {
+        final InputStream inputStream = inputMapper.get().getInputStream();
+        try {
+            final int variableCount = readInt(inputStream);
+            final int nodeCount = readInt(inputStream);
+            if (variableCount < 0 || nodeCount <= 0) {
+                return Result.empty(new ParseProblem("Invalid header", Severity.ERROR, 0));
+            }
+            final byte[] kinds = new byte[nodeCount];
+            final int[] values = new int[nodeCount];
+            final int[] childStarts = new int[nodeCount + 1];
+            int[] children = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                kinds[node] = readByte(inputStream);
+                values[node] = readInt(inputStream);
+                final int childCount = readInt(inputStream);
+                if (childCount < 0) {
+                    return Result.empty(new ParseProblem("Invalid node " + node, Severity.ERROR, 0));
+                }
+                final int childStart = childStarts[node];
+                if (childStart + childCount > children.length) {
+                    children = Arrays.copyOf(children, Math.max(children.length << 1, childStart + childCount));
+                }
+                for (int i = 0; i < childCount; i++) {
+                    children[childStart + i] = readInt(inputStream);
+                }
+                childStarts[node + 1] = childStart + childCount;
+            }
+            return Result.of(new DDNNF(
+                    variableCount, kinds, values, childStarts, Arrays.copyOf(children, childStarts[nodeCount])));
+        } catch (final IllegalArgumentException e) {
+            return Result.empty(new ParseProblem(e.getMessage(), Severity.ERROR, 0));
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "DDNNFBinary";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "ddnnf";
+    }
+}
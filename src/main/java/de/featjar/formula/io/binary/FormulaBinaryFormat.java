@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.io.binary.ABinaryFormat;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.AQuantifier;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.AtLeast;
+import de.featjar.formula.structure.connective.AtMost;
+import de.featjar.formula.structure.connective.Between;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Choose;
+import de.featjar.formula.structure.connective.Exists;
+import de.featjar.formula.structure.connective.ForAll;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import de.featjar.formula.structure.term.value.IValue;
+import de.featjar.formula.structure.term.value.Variable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads / Writes a formula.
+ * Stores a table of all variables, followed by the nodes of the formula in postorder.
+ * Each node is encoded by an opcode and its operands, such as the number of its children, the bounds of a cardinality
+ * constraint, or the indices of variables in the table.
+ * A node that is contained in the formula more than once is only written once and then referred to by its index,
+ * such that shared subformulas (e.g., created by {@link de.featjar.formula.structure.ExpressionInterner}) stay shared.
+ * Writing and reading is done iteratively, so formulas of any depth are supported.
+ * <p>
+ * Supports {@link Reference references} (including their free variables), connectives, quantifiers,
+ * {@link Literal literals}, {@link True}, and {@link False}.
+ *
+ * @author Sebastian Krieter
+ */
+public class FormulaBinaryFormat extends ABinaryFormat<IFormula> {
+
+    private static final int MAGIC = 0x464A4246;
+    private static final byte VERSION = 1;
+
+    private static final byte BACK_REFERENCE = 0;
+    private static final byte VARIABLE = 1;
+    private static final byte POSITIVE_LITERAL = 2;
+    private static final byte NEGATIVE_LITERAL = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte AND = 6;
+    private static final byte OR = 7;
+    private static final byte NOT = 8;
+    private static final byte IMPLIES = 9;
+    private static final byte BI_IMPLIES = 10;
+    private static final byte AT_LEAST = 11;
+    private static final byte AT_MOST = 12;
+    private static final byte BETWEEN = 13;
+    private static final byte CHOOSE = 14;
+    private static final byte REFERENCE = 15;
+    private static final byte EXISTS = 16;
+    private static final byte FOR_ALL = 17;
+
+    private static final List<Class<?>> VARIABLE_TYPES =
+            List.of(Boolean.class, Integer.class, Long.class, Float.class, Double.class, String.class);
+
+    @Override
+    public void write(IFormula formula, AOutputMapper outputMapper) throws IOException {
+        final List<Variable> variables = new ArrayList<>();
+        final HashMap<List<Object>, Integer> variableIndices = new HashMap<>();
+        final ByteEncoder nodes = new ByteEncoder();
+        final IdentityHashMap<IExpression, Integer> nodeIds = new IdentityHashMap<>();
+        final Set<IExpression> expandedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ArrayDeque<IExpression> stack = new ArrayDeque<>();
+        stack.push(formula);
+        while (!stack.isEmpty()) {
+            final IExpression node = stack.peek();
+            final Integer id = nodeIds.get(node);
+            if (id != null) {
+                stack.pop();
+                nodes.writeByte(BACK_REFERENCE);
+                nodes.writeVarInt(id);
+            } else if (expandedNodes.add(node)) {
+                final List<? extends IExpression> children = node.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            } else {
+                stack.pop();
+                writeNode(nodes, node, variables, variableIndices);
+                nodeIds.put(node, nodeIds.size());
+            }
+        }
+
+        final ByteEncoder header = new ByteEncoder();
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeVarInt(variables.size());
+        for (Variable variable : variables) {
+            final byte[] name = variable.getName().getBytes(StandardCharsets.UTF_8);
+            header.writeVarInt(name.length);
+            header.writeBytes(name, name.length);
+            header.writeByte(VARIABLE_TYPES.indexOf(variable.getType()));
+        }
+        final OutputStream outputStream = outputMapper.get().getOutputStream();
+        outputStream.write(header.bytes, 0, header.size);
+        outputStream.write(nodes.bytes, 0, nodes.size);
+        outputStream.flush();
+    }
+
+    private static void writeNode(
+            ByteEncoder nodes, IExpression node, List<Variable> variables, HashMap<List<Object>, Integer> indices) {
+        if (node instanceof Variable) {
+            nodes.writeByte(VARIABLE);
+            nodes.writeVarInt(getVariableIndex((Variable) node, variables, indices));
+        } else if (node instanceof Literal) {
+            nodes.writeByte(((Literal) node).isPositive() ? POSITIVE_LITERAL : NEGATIVE_LITERAL);
+        } else if (node instanceof True) {
+            nodes.writeByte(TRUE);
+        } else if (node instanceof False) {
+            nodes.writeByte(FALSE);
+        } else if (node instanceof And) {
+            nodes.writeByte(AND);
+            nodes.writeVarInt(node.getChildrenCount());
+        } else if (node instanceof Or) {
+            nodes.writeByte(OR);
+            nodes.writeVarInt(node.getChildrenCount());
+        } else if (node instanceof Not) {
+            nodes.writeByte(NOT);
+        } else if (node instanceof Implies) {
+            nodes.writeByte(IMPLIES);
+        } else if (node instanceof BiImplies) {
+            nodes.writeByte(BI_IMPLIES);
+        } else if (node instanceof AtLeast) {
+            nodes.writeByte(AT_LEAST);
+            nodes.writeVarInt(node.getChildrenCount());
+            nodes.writeVarInt(ByteEncoder.zigZag(((AtLeast) node).getMinimum()));
+        } else if (node instanceof AtMost) {
+            nodes.writeByte(AT_MOST);
+            nodes.writeVarInt(node.getChildrenCount());
+            nodes.writeVarInt(ByteEncoder.zigZag(((AtMost) node).getMaximum()));
+        } else if (node instanceof Between) {
+            nodes.writeByte(BETWEEN);
+            nodes.writeVarInt(node.getChildrenCount());
+            nodes.writeVarInt(ByteEncoder.zigZag(((Between) node).getMinimum()));
+            nodes.writeVarInt(ByteEncoder.zigZag(((Between) node).getMaximum()));
+        } else if (node instanceof Choose) {
+            nodes.writeByte(CHOOSE);
+            nodes.writeVarInt(node.getChildrenCount());
+            nodes.writeVarInt(ByteEncoder.zigZag(((Choose) node).getBound()));
+        } else if (node instanceof Reference) {
+            final Collection<Variable> freeVariables = ((Reference) node).getFreeVariables();
+            nodes.writeByte(REFERENCE);
+            nodes.writeVarInt(freeVariables.size());
+            for (Variable variable : freeVariables) {
+                nodes.writeVarInt(getVariableIndex(variable, variables, indices));
+            }
+        } else if (node instanceof Exists || node instanceof ForAll) {
+            nodes.writeByte(node instanceof Exists ? EXISTS : FOR_ALL);
+            nodes.writeVarInt(getVariableIndex(((AQuantifier) node).getBoundVariable(), variables, indices));
+        } else {
+            throw new IllegalArgumentException(node.getClass().toString());
+        }
+    }
+
+    private static int getVariableIndex(
+            Variable variable, List<Variable> variables, HashMap<List<Object>, Integer> indices) {
+        if (!VARIABLE_TYPES.contains(variable.getType())) {
+            throw new IllegalArgumentException("Unsupported variable type " + variable.getType());
+        }
+        return indices.computeIfAbsent(List.of(variable.getName(), variable.getType()), key -> {
+            variables.add(variable);
+            return variables.size() - 1;
+        });
+    }
+
+    @Override
+    public Result<IFormula> parse(AInputMapper inputMapper) {
+        try {
+            return Result.of(read(ByteBuffer.wrap(inputMapper.get().getInputStream().readAllBytes())));
+        } catch (final ParseException e) {
+            return Result.empty(new ParseProblem(e, e.getErrorOffset()));
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+    }
+
+    private static IFormula read(ByteBuffer buffer) throws ParseException, IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new ParseException("Invalid file type", 0);
+            }
+            final byte version = buffer.get();
+            if (version != VERSION) {
+                throw new ParseException("Unsupported version " + version, 4);
+            }
+            final String[] names = new String[BooleanAssignmentGroupsBinaryReader.readVarInt(buffer)];
+            final Class<?>[] types = new Class<?>[names.length];
+            for (int i = 0; i < names.length; i++) {
+                final byte[] name = new byte[BooleanAssignmentGroupsBinaryReader.readVarInt(buffer)];
+                buffer.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                types[i] = VARIABLE_TYPES.get(buffer.get());
+            }
+
+            final List<IExpression> nodes = new ArrayList<>();
+            IExpression[] stack = new IExpression[16];
+            int stackSize = 0;
+            while (buffer.hasRemaining()) {
+                final int position = buffer.position();
+                final byte opcode = buffer.get();
+                if (opcode == BACK_REFERENCE) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length << 1);
+                    }
+                    stack[stackSize++] = nodes.get(BooleanAssignmentGroupsBinaryReader.readVarInt(buffer));
+                    continue;
+                }
+                final int childrenCount = getChildrenCount(opcode, buffer);
+                if (childrenCount < 0 || childrenCount > stackSize) {
+                    throw new ParseException("Invalid number of children", position);
+                }
+                stackSize -= childrenCount;
+                final List<IFormula> children = new ArrayList<>(childrenCount);
+                for (int i = stackSize; i < stackSize + childrenCount; i++) {
+                    children.add((IFormula) stack[i]);
+                }
+                Arrays.fill(stack, stackSize, stackSize + childrenCount, null);
+                final IExpression node;
+                switch (opcode) {
+                    case VARIABLE: {
+                        final int index = BooleanAssignmentGroupsBinaryReader.readVarInt(buffer);
+                        node = new Variable(names[index], types[index]);
+                        break;
+                    }
+                    case POSITIVE_LITERAL:
+                    case NEGATIVE_LITERAL:
+                        node = new Literal(opcode == POSITIVE_LITERAL, (IValue) stack[--stackSize]);
+                        stack[stackSize] = null;
+                        break;
+                    case TRUE:
+                        node = True.INSTANCE;
+                        break;
+                    case FALSE:
+                        node = False.INSTANCE;
+                        break;
+                    case AND:
+                        node = new And(children);
+                        break;
+                    case OR:
+                        node = new Or(children);
+                        break;
+                    case NOT:
+                        node = new Not(children);
+                        break;
+                    case IMPLIES:
+                        node = new Implies(children);
+                        break;
+                    case BI_IMPLIES:
+                        node = new BiImplies(children);
+                        break;
+                    case AT_LEAST:
+                        node = new AtLeast(readZigZag(buffer), children);
+                        break;
+                    case AT_MOST:
+                        node = new AtMost(readZigZag(buffer), children);
+                        break;
+                    case BETWEEN:
+                        node = new Between(readZigZag(buffer), readZigZag(buffer), children);
+                        break;
+                    case CHOOSE:
+                        node = new Choose(readZigZag(buffer), children);
+                        break;
+                    case REFERENCE: {
+                        final Reference reference = new Reference(children.get(0));
+                        final List<Variable> freeVariables = new ArrayList<>();
+                        for (int i = BooleanAssignmentGroupsBinaryReader.readVarInt(buffer); i > 0; i--) {
+                            final int index = BooleanAssignmentGroupsBinaryReader.readVarInt(buffer);
+                            freeVariables.add(new Variable(names[index], types[index]));
+                        }
+                        if (!freeVariables.isEmpty()) {
+                            reference.setFreeVariables(freeVariables);
+                        }
+                        node = reference;
+                        break;
+                    }
+                    case EXISTS:
+                    case FOR_ALL: {
+                        final int index = BooleanAssignmentGroupsBinaryReader.readVarInt(buffer);
+                        final Variable boundVariable = new Variable(names[index], types[index]);
+                        node = opcode == EXISTS
+                                ? new Exists(boundVariable, children.get(0))
+                                : new ForAll(boundVariable, children.get(0));
+                        break;
+                    }
+                    default:
+                        throw new ParseException("Unknown opcode " + opcode, position);
+                }
+                nodes.add(node);
+                if (stackSize == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length << 1);
+                }
+                stack[stackSize++] = node;
+            }
+            if (stackSize != 1) {
+                throw new ParseException("Expected one formula, but found " + stackSize, buffer.position());
+            }
+            return (IFormula) stack[0];
+        } catch (BufferUnderflowException
+                | ClassCastException
+                | IllegalArgumentException
+                | IndexOutOfBoundsException e) {
+            throw new ParseException("Invalid formula structure: " + e.getMessage(), buffer.position());
+        }
+    }
+
+    /**
+     * {@return the number of formulas on the stack that are children of a node with a given opcode}
+     * The children of a {@link Literal} are handled separately, as they are not formulas.
+     */
+    private static int getChildrenCount(byte opcode, ByteBuffer buffer) throws IOException {
+        switch (opcode) {
+            case AND:
+            case OR:
+            case AT_LEAST:
+            case AT_MOST:
+            case BETWEEN:
+            case CHOOSE:
+                return BooleanAssignmentGroupsBinaryReader.readVarInt(buffer);
+            case NOT:
+            case REFERENCE:
+            case EXISTS:
+            case FOR_ALL:
+                return 1;
+            case IMPLIES:
+            case BI_IMPLIES:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    private static int readZigZag(ByteBuffer buffer) throws IOException {
+        final int zigZag = BooleanAssignmentGroupsBinaryReader.readVarInt(buffer);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    @Override
+    public boolean supportsSerialize() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsParse() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "FormulaBinary";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "fjf";
+    }
+}
@@ -31,10 +31,16 @@ import de.featjar.formula.VariableMap;
 import de.featjar.formula.assignment.ABooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignmentGroups;
 import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.io.BufferedTextWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
 /**
@@ -51,79 +57,135 @@ public class BooleanAssignmentGroupsCSVFormat implements IFormat<BooleanAssignme
     private static final String NEGATIVE_VALUE = "-";
     private static final String NULL_VALUE = "0";
 
-    @Override
-    public void write(BooleanAssignmentGroups assignmentGroups, AOutputMapper outputMapper) throws IOException {
-        final VariableMap variableMap = assignmentGroups.getVariableMap();
-        final List<Pair<Integer, String>> namePairs = variableMap.stream().collect(Collectors.toList());
-        final List<? extends List<? extends ABooleanAssignment>> groups = assignmentGroups.getGroups();
+    private final boolean parallel;
 
-        outputMapper.get().write(serializeHeader(namePairs));
+    /**
+     * Creates a new format that writes rows sequentially.
+     */
+    public BooleanAssignmentGroupsCSVFormat() {
+        this(false);
+    }
 
-        int groupIndex = 0;
-        int assignmentIndex = 0;
-        for (List<? extends ABooleanAssignment> group : groups) {
-            for (final ABooleanAssignment assignment : group) {
-                outputMapper.get().write(serializeAssignment(namePairs, groupIndex, assignmentIndex, assignment));
-                assignmentIndex++;
-            }
-            groupIndex++;
-        }
+    /**
+     * Creates a new format.
+     *
+     * @param parallel whether rows are encoded in parallel when writing
+     */
+    public BooleanAssignmentGroupsCSVFormat(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void write(BooleanAssignmentGroups assignmentGroups, AOutputMapper outputMapper) throws IOException {
+        write(assignmentGroups, outputMapper.get().getOutputStream());
     }
 
     @Override
     public Result<String> serialize(BooleanAssignmentGroups assignmentGroups) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(assignmentGroups, outputStream);
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+        return Result.of(outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private void write(BooleanAssignmentGroups assignmentGroups, OutputStream outputStream) throws IOException {
         final VariableMap variableMap = assignmentGroups.getVariableMap();
         final List<Pair<Integer, String>> namePairs = variableMap.stream().collect(Collectors.toList());
         final List<? extends List<? extends ABooleanAssignment>> groups = assignmentGroups.getGroups();
+        final int[] columnVariables = namePairs.stream().mapToInt(Pair::getKey).toArray();
+        final int maxVariable = Arrays.stream(columnVariables).max().orElse(0);
+        final ThreadLocal<int[]> variableLiterals = ThreadLocal.withInitial(() -> new int[maxVariable + 1]);
 
-        final StringBuilder csv = new StringBuilder();
-        csv.append(serializeHeader(namePairs));
+        final BufferedTextWriter writer = new BufferedTextWriter(outputStream);
+        writer.setParallel(parallel);
+        writeHeader(writer, namePairs);
 
         int groupIndex = 0;
         int assignmentIndex = 0;
         for (List<? extends ABooleanAssignment> group : groups) {
-            for (final ABooleanAssignment assignment : group) {
-                csv.append(serializeAssignment(namePairs, groupIndex, assignmentIndex, assignment));
-                assignmentIndex++;
-            }
+            final int currentGroupIndex = groupIndex;
+            final int firstAssignmentIndex = assignmentIndex;
+            // rows are accessed by index, possibly in parallel
+            final List<? extends ABooleanAssignment> assignments =
+                    group instanceof RandomAccess ? group : new ArrayList<>(group);
+            writer.writeRows(
+                    group.size(),
+                    (i, rowWriter) -> writeAssignment(
+                            rowWriter,
+                            columnVariables,
+                            variableLiterals.get(),
+                            currentGroupIndex,
+                            firstAssignmentIndex + i,
+                            assignments.get(i)));
+            assignmentIndex += group.size();
             groupIndex++;
         }
-
-        return Result.of(csv.toString());
+        writer.flush();
     }
 
-    private String serializeHeader(final List<Pair<Integer, String>> namePairs) {
-        final StringBuilder header = new StringBuilder();
-        header.append(ASSIGNMENT_COLUMN_NAME);
-        header.append(VALUE_SEPARATOR);
-        header.append(GROUP_COLUMN_NAME);
+    private void writeHeader(BufferedTextWriter writer, final List<Pair<Integer, String>> namePairs)
+            throws IOException {
+        writer.write(ASSIGNMENT_COLUMN_NAME);
+        writer.write(VALUE_SEPARATOR);
+        writer.write(GROUP_COLUMN_NAME);
         for (final Pair<Integer, String> namePair : namePairs) {
             final String name = namePair.getValue();
             if (name != null) {
-                header.append(VALUE_SEPARATOR);
-                header.append(name);
+                writer.write(VALUE_SEPARATOR);
+                writer.write(name);
             }
         }
-        header.append(LINE_SEPARATOR);
-        return header.toString();
+        writer.write(LINE_SEPARATOR);
     }
 
-    private String serializeAssignment(
-            final List<Pair<Integer, String>> namePairs,
+    /**
+     * Writes the value of each column variable.
+     * Solutions are indexed by variable directly. For other assignments, the first literal of each variable is
+     * looked up in {@code variableLiterals}, which is filled for the row and cleared again afterwards.
+     */
+    private void writeAssignment(
+            BufferedTextWriter writer,
+            final int[] columnVariables,
+            final int[] variableLiterals,
             int groupIndex,
             int assignmentIndex,
-            final ABooleanAssignment configuration) {
-        final StringBuilder line = new StringBuilder();
-        line.append(assignmentIndex);
-        line.append(VALUE_SEPARATOR);
-        line.append(groupIndex);
-        for (final Pair<Integer, String> namePair : namePairs) {
-            line.append(VALUE_SEPARATOR);
-            final Result<Boolean> value = configuration.getValue(namePair.getKey());
-            line.append(value.isPresent() ? ((boolean) value.get() ? POSITIVE_VALUE : NEGATIVE_VALUE) : NULL_VALUE);
+            final ABooleanAssignment configuration)
+            throws IOException {
+        final int[] literals = configuration.get();
+        writer.write(assignmentIndex);
+        writer.write(VALUE_SEPARATOR);
+        writer.write(groupIndex);
+        if (configuration instanceof BooleanSolution) {
+            for (final int variable : columnVariables) {
+                writer.write(VALUE_SEPARATOR);
+                writeValue(writer, variable <= literals.length ? literals[variable - 1] : 0);
+            }
+        } else {
+            for (final int literal : literals) {
+                final int variable = Math.abs(literal);
+                if (variable < variableLiterals.length && variableLiterals[variable] == 0) {
+                    variableLiterals[variable] = literal;
+                }
+            }
+            for (final int variable : columnVariables) {
+                writer.write(VALUE_SEPARATOR);
+                writeValue(writer, variableLiterals[variable]);
+            }
+            for (final int literal : literals) {
+                final int variable = Math.abs(literal);
+                if (variable < variableLiterals.length) {
+                    variableLiterals[variable] = 0;
+                }
+            }
         }
-        line.append(LINE_SEPARATOR);
-        return line.toString();
+        writer.write(LINE_SEPARATOR);
+    }
+
+    private void writeValue(BufferedTextWriter writer, int literal) throws IOException {
+        writer.write(literal > 0 ? POSITIVE_VALUE : literal < 0 ? NEGATIVE_VALUE : NULL_VALUE);
     }
 
     @Override
@@ -20,16 +20,28 @@
  */
 package de.featjar.formula.io.dimacs;
 
+import de.featjar.base.data.Pair;
 import de.featjar.base.data.Result;
 import de.featjar.base.io.format.IFormat;
 import de.featjar.base.io.format.ParseProblem;
 import de.featjar.base.io.input.AInputMapper;
+import de.featjar.base.io.output.AOutputMapper;
 import de.featjar.formula.VariableMap;
 import de.featjar.formula.assignment.ABooleanAssignment;
 import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import de.featjar.formula.io.BufferedTextWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
 
 /**
  * Reads / Writes a list of configuration.
@@ -38,52 +50,100 @@ import java.util.Objects;
  */
 public class BooleanAssignmentGroupsDimacsFormat implements IFormat<BooleanAssignmentGroups> {
 
+    private final boolean parallel;
+
+    /**
+     * Creates a new format that writes clauses sequentially.
+     */
+    public BooleanAssignmentGroupsDimacsFormat() {
+        this(false);
+    }
+
+    /**
+     * Creates a new format.
+     *
+     * @param parallel whether clauses are encoded in parallel when writing
+     */
+    public BooleanAssignmentGroupsDimacsFormat(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void write(BooleanAssignmentGroups assignmentSpace, AOutputMapper outputMapper) throws IOException {
+        write(assignmentSpace, outputMapper.get().getOutputStream());
+    }
+
     @Override
     public Result<String> serialize(BooleanAssignmentGroups assignmentSpace) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(assignmentSpace, outputStream);
+        } catch (final IOException e) {
+            return Result.empty(e);
+        }
+        return Result.of(outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private void write(BooleanAssignmentGroups assignmentSpace, OutputStream outputStream) throws IOException {
         Objects.requireNonNull(assignmentSpace);
 
-        final StringBuilder sb = new StringBuilder();
+        final BufferedTextWriter writer = new BufferedTextWriter(outputStream);
+        writer.setParallel(parallel);
+        final String lineSeparator = System.lineSeparator();
         List<? extends ABooleanAssignment> cnf = assignmentSpace.getGroups().get(0);
         VariableMap variableMap = assignmentSpace.getVariableMap();
 
-        variableMap.stream().forEach(e -> {
+        for (Pair<Integer, String> e : variableMap.stream().collect(Collectors.toList())) {
             if (e.getValue() != null) {
-                sb.append("c ");
-                sb.append(e.getKey());
-                sb.append(" ");
-                sb.append(e.getValue());
-                sb.append(System.lineSeparator());
+                writer.write("c ");
+                writer.write(e.getKey());
+                writer.write(' ');
+                writer.write(e.getValue());
+                writer.write(lineSeparator);
             }
-        });
+        }
         // Problem
-        sb.append(DimacsConstants.PROBLEM);
-        sb.append(' ');
-        sb.append(DimacsConstants.CNF);
-        sb.append(' ');
-        sb.append(variableMap.getVariableCount());
-        sb.append(' ');
-        sb.append(cnf.size());
-        sb.append(System.lineSeparator());
+        writer.write(DimacsConstants.PROBLEM);
+        writer.write(' ');
+        writer.write(DimacsConstants.CNF);
+        writer.write(' ');
+        writer.write(variableMap.getVariableCount());
+        writer.write(' ');
+        writer.write(cnf.size());
+        writer.write(lineSeparator);
 
         // Clauses
-        for (final ABooleanAssignment clause : cnf) {
-            for (final int l : clause.get()) {
-                sb.append(l);
-                sb.append(' ');
-            }
-            sb.append(DimacsConstants.CLAUSE_END);
-            sb.append(System.lineSeparator());
+        if (cnf instanceof BooleanClauseArena) {
+            final BooleanClauseArena arena = (BooleanClauseArena) cnf;
+            writer.writeRows(arena.size(), (i, rowWriter) -> {
+                final int size = arena.getClauseSize(i);
+                for (int j = 0; j < size; j++) {
+                    rowWriter.write(arena.getLiteral(i, j));
+                    rowWriter.write(' ');
+                }
+                rowWriter.write(DimacsConstants.CLAUSE_END);
+                rowWriter.write(lineSeparator);
+            });
+        } else {
+            // rows are accessed by index, possibly in parallel
+            final List<? extends ABooleanAssignment> clauses = cnf instanceof RandomAccess ? cnf : new ArrayList<>(cnf);
+            writer.writeRows(clauses.size(), (i, rowWriter) -> {
+                for (final int l : clauses.get(i).get()) {
+                    rowWriter.write(l);
+                    rowWriter.write(' ');
+                }
+                rowWriter.write(DimacsConstants.CLAUSE_END);
+                rowWriter.write(lineSeparator);
+            });
         }
-
-        return Result.of(sb.toString());
+        writer.flush();
     }
 
     @Override
     public Result<BooleanAssignmentGroups> parse(AInputMapper inputMapper) {
-        final BooleanAssignmentGroupsDimacsParser r = new BooleanAssignmentGroupsDimacsParser();
-        r.setReadingVariableDirectory(true);
+        final DimacsBufferParser r = new DimacsBufferParser();
         try {
-            return Result.of(r.parse(inputMapper.get().getNonEmptyLineIterator()));
+            return Result.of(r.parse(ByteBuffer.wrap(inputMapper.get().getInputStream().readAllBytes())));
         } catch (final ParseException e) {
             return Result.empty(new ParseProblem(e, e.getErrorOffset()));
         } catch (final Exception e) {
@@ -23,10 +23,9 @@ package de.featjar.formula.io.dimacs;
 import de.featjar.base.io.NonEmptyLineIterator;
 import de.featjar.formula.VariableMap;
 import de.featjar.formula.assignment.BooleanAssignmentGroups;
-import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseArena;
 import java.io.IOException;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -76,6 +75,7 @@ public class BooleanAssignmentGroupsDimacsParser {
 
     /**
      * Reads the input.
+     * The clauses are stored in a single {@link BooleanClauseArena}.
      *
      * @param nonEmptyLineIterator The source to read from.
      * @return a CNF; not null
@@ -103,7 +103,7 @@ public class BooleanAssignmentGroupsDimacsParser {
             }
         }
 
-        final List<BooleanClause> clauses = readClauses(nonEmptyLineIterator);
+        final BooleanClauseArena clauses = readClauses(nonEmptyLineIterator);
         final int actualVariableCount = indexVariables.getVariableCount();
         final int actualClauseCount = clauses.size();
         if (variableCount != actualVariableCount) {
@@ -187,9 +187,9 @@ public class BooleanAssignmentGroupsDimacsParser {
      * @throws ParseException if the input does not conform to the DIMACS CNF file
      *                        format
      */
-    private List<BooleanClause> readClauses(NonEmptyLineIterator nonemptyLineIterator) throws ParseException {
+    private BooleanClauseArena readClauses(NonEmptyLineIterator nonemptyLineIterator) throws ParseException {
         final LinkedList<String> literalQueue = new LinkedList<>();
-        final List<BooleanClause> clauses = new ArrayList<>(clauseCount);
+        final BooleanClauseArena clauses = new BooleanClauseArena(variableCount, clauseCount, 2 * clauseCount);
         int readClausesCount = 0;
         for (String line = nonemptyLineIterator.currentLine(); line != null; line = nonemptyLineIterator.get()) {
             if (commentPattern.matcher(line).matches()) {
@@ -207,9 +207,9 @@ public class BooleanAssignmentGroupsDimacsParser {
                 if (clauseSize < 0) {
                     throw new ParseException("Invalid clause", nonemptyLineIterator.getLineCount());
                 } else if (clauseSize == 0) {
-                    clauses.add(new BooleanClause());
+                    clauses.addClause();
                 } else {
-                    clauses.add(parseClause(readClausesCount, clauseSize, literalQueue, nonemptyLineIterator));
+                    clauses.addClause(parseClause(readClausesCount, clauseSize, literalQueue, nonemptyLineIterator));
                 }
                 readClausesCount++;
 
@@ -220,7 +220,8 @@ public class BooleanAssignmentGroupsDimacsParser {
             } while (!literalQueue.isEmpty());
         }
         if (!literalQueue.isEmpty()) {
-            clauses.add(parseClause(readClausesCount, literalQueue.size(), literalQueue, nonemptyLineIterator));
+            clauses.addClause(
+                    parseClause(readClausesCount, literalQueue.size(), literalQueue, nonemptyLineIterator));
             readClausesCount++;
         }
         if (readClausesCount < clauseCount) {
@@ -229,7 +230,7 @@ public class BooleanAssignmentGroupsDimacsParser {
         return clauses;
     }
 
-    private BooleanClause parseClause(
+    private int[] parseClause(
             int readClausesCount,
             int clauseSize,
             LinkedList<String> literalQueue,
@@ -256,7 +257,7 @@ public class BooleanAssignmentGroupsDimacsParser {
             }
             literals[j] = index;
         }
-        return new BooleanClause(literals);
+        return literals;
     }
 
     /**
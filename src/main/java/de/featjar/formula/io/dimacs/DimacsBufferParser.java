@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.dimacs;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a CNF in DIMACS format from bytes, either from a memory-mapped file or from a byte buffer.
+ * Accepts the same input as {@link BooleanAssignmentGroupsDimacsParser} with reading the variable directory enabled,
+ * but tokenizes literals directly from the bytes without creating strings and stores all clauses in a
+ * {@link BooleanClauseArena}.
+ * <p>
+ * The clauses after the problem definition are split into chunks at clause boundaries, such that files larger than
+ * the maximum size of a buffer can be mapped chunk by chunk.
+ * If {@link #setParallel(boolean) parallel} parsing is enabled, there are at least as many chunks as threads and the
+ * chunks are parsed in parallel.
+ * In either case, the result is the same.
+ * The position of a parse error is only translated into a line number if an error occurs.
+ *
+ * @author Sebastian Krieter
+ */
+public class DimacsBufferParser {
+
+    private static final long MAXIMUM_CHUNK_SIZE = 1 << 28;
+    private static final long MINIMUM_PARALLEL_CHUNK_SIZE = 1 << 20;
+    private static final long MAXIMUM_HEADER_SIZE = 1 << 30;
+    private static final int INITIAL_WINDOW_SIZE = 1 << 16;
+
+    private static final Pattern problemPattern = Pattern.compile(
+            "\\A" + DimacsConstants.PROBLEM + "\\s+" + DimacsConstants.CNF + "\\s+(\\d+)\\s+(\\d+)");
+
+    /**
+     * Provides the bytes of a range of the input.
+     */
+    @FunctionalInterface
+    private interface ISource {
+        ByteBuffer get(long from, long to) throws IOException;
+    }
+
+    /**
+     * The clauses of a chunk or the first parse error in it.
+     */
+    private static final class Chunk {
+        private BooleanClauseArena clauses;
+        private int maximumVariable;
+        private String errorMessage;
+        private long errorPosition;
+    }
+
+    private boolean isParallel = false;
+
+    private VariableMap variableMap;
+    private int variableCount;
+    private int clauseCount;
+
+    /**
+     * Sets whether chunks are parsed in parallel.
+     * Defaults to false.
+     *
+     * @param isParallel whether chunks are parsed in parallel
+     */
+    public void setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+    }
+
+    /**
+     * Reads a memory-mapped file.
+     *
+     * @param path the path of the file
+     * @return a CNF; not null
+     * @throws IOException    if the file cannot be read
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    public BooleanAssignmentGroups parse(Path path) throws ParseException, IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parse(channel.size(), (from, to) -> channel.map(MapMode.READ_ONLY, from, to - from));
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer.
+     * The position of the buffer is not changed.
+     *
+     * @param buffer the buffer
+     * @return a CNF; not null
+     * @throws IOException    if the buffer cannot be read
+     * @throws ParseException if the input does not conform to the DIMACS CNF file format
+     */
+    public BooleanAssignmentGroups parse(ByteBuffer buffer) throws ParseException, IOException {
+        ByteBuffer content = buffer.slice();
+        return parse(content.limit(), (from, to) -> content.duplicate()
+                .position((int) from)
+                .limit((int) to)
+                .slice());
+    }
+
+    private BooleanAssignmentGroups parse(long size, ISource source) throws ParseException, IOException {
+        variableMap = new VariableMap();
+        variableCount = -1;
+        clauseCount = -1;
+        long bodyStart = parseHeader(source.get(0, Math.min(size, MAXIMUM_HEADER_SIZE)));
+        for (int i = 1; i <= variableCount; i++) {
+            if (!variableMap.has(i)) {
+                variableMap.add(i, getUniqueName(i));
+            }
+        }
+
+        long[] boundaries = split(size, bodyStart, source);
+        Chunk[] chunks = new Chunk[boundaries.length - 1];
+        ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = source.get(boundaries[i], boundaries[i + 1]);
+        }
+        IntStream chunkIndices = IntStream.range(0, chunks.length);
+        (isParallel ? chunkIndices.parallel() : chunkIndices)
+                .forEach(i -> chunks[i] = parseChunk(buffers[i], boundaries[i]));
+
+        int actualClauseCount = 0;
+        int literalCount = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.errorMessage != null) {
+                throw new ParseException(chunk.errorMessage, getLineNumber(chunk.errorPosition, source));
+            }
+            if (chunk.maximumVariable > variableCount) {
+                throw new ParseException(
+                        String.format(
+                                "Found variable %d, but only %d variables are declared",
+                                chunk.maximumVariable, variableCount),
+                        1);
+            }
+            actualClauseCount += chunk.clauses.size();
+            literalCount += chunk.clauses.getLiteralCount();
+        }
+        final int actualVariableCount = variableMap.getVariableCount();
+        if (variableCount != actualVariableCount) {
+            throw new ParseException(
+                    String.format("Found %d instead of %d variables", actualVariableCount, variableCount), 1);
+        }
+        if (clauseCount != actualClauseCount) {
+            throw new ParseException(
+                    String.format("Found %d instead of %d clauses", actualClauseCount, clauseCount), 1);
+        }
+
+        BooleanClauseArena clauses;
+        if (chunks.length == 1) {
+            clauses = chunks[0].clauses;
+            clauses.setVariableCount(variableCount);
+        } else {
+            clauses = new BooleanClauseArena(variableCount, actualClauseCount, literalCount);
+            for (int i = 0; i < chunks.length; i++) {
+                clauses.addAll(chunks[i].clauses);
+                chunks[i] = null;
+            }
+        }
+        return new BooleanAssignmentGroups(variableMap, List.of(clauses));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    /**
+     * Reads the comments and the problem definition before the clauses.
+     *
+     * @return the position at which the clauses start
+     */
+    private long parseHeader(ByteBuffer header) throws ParseException {
+        int limit = header.limit();
+        int position = 0;
+        boolean hasProblem = false;
+        while (true) {
+            while (position < limit && (isWhitespace(header.get(position)) || header.get(position) == '\n')) {
+                position++;
+            }
+            if (position == limit) {
+                if (!hasProblem) {
+                    throw new ParseException("Invalid problem format", countLines(header, position));
+                }
+                return position;
+            }
+            byte b = header.get(position);
+            if (b == 'c') {
+                int lineEnd = position;
+                while (lineEnd < limit && header.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                readVariableDirectoryEntry(header, position + 1, lineEnd);
+                position = lineEnd;
+            } else if (hasProblem) {
+                return position;
+            } else if (b == 'p') {
+                position = parseProblem(header, position);
+                hasProblem = true;
+                while (position < limit && isWhitespace(header.get(position))) {
+                    position++;
+                }
+                if (position < limit && header.get(position) != '\n') {
+                    return position;
+                }
+            } else {
+                throw new ParseException("Invalid problem format", countLines(header, position));
+            }
+        }
+    }
+
+    /**
+     * Reads a problem definition.
+     *
+     * @return the position after the clause count
+     */
+    private int parseProblem(ByteBuffer header, int position) throws ParseException {
+        int lineEnd = position;
+        while (lineEnd < header.limit() && header.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        final String line = decode(header, position, lineEnd);
+        final Matcher matcher = problemPattern.matcher(line);
+        if (!matcher.find()) {
+            throw new ParseException("Invalid problem format", countLines(header, position));
+        }
+        try {
+            variableCount = Integer.parseInt(matcher.group(1));
+        } catch (final NumberFormatException e) {
+            throw new ParseException("Variable count is not an integer", countLines(header, position));
+        }
+        try {
+            clauseCount = Integer.parseInt(matcher.group(2));
+        } catch (final NumberFormatException e) {
+            throw new ParseException("Clause count is not an integer", countLines(header, position));
+        }
+        // the matched prefix only consists of ASCII characters, so its length in characters equals its length in bytes
+        return position + matcher.end();
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        return StandardCharsets.UTF_8
+                .decode(buffer.duplicate().position(start).limit(end))
+                .toString();
+    }
+
+    /**
+     * Reads an entry of the variable directory from a comment, which consists of an index and a name separated by a
+     * space.
+     */
+    private void readVariableDirectoryEntry(ByteBuffer header, int start, int end) {
+        String comment = decode(header, start, end).stripLeading();
+        if (comment.endsWith("\r")) {
+            comment = comment.substring(0, comment.length() - 1);
+        }
+        final int firstSeparator = comment.indexOf(' ');
+        if (firstSeparator <= 0 || comment.length() < (firstSeparator + 2)) {
+            return;
+        }
+        final int index;
+        try {
+            index = Integer.parseInt(comment.substring(0, firstSeparator));
+        } catch (final NumberFormatException e) {
+            return;
+        }
+        if (!variableMap.has(index)) {
+            variableMap.add(index, comment.substring(firstSeparator + 1));
+        }
+    }
+
+    private String getUniqueName(int i) {
+        String indexName = Integer.toString(i);
+        String name = indexName;
+        int suffix = 2;
+        while (variableMap.has(name)) {
+            name = indexName + "_" + suffix;
+            suffix++;
+        }
+        return name;
+    }
+
+    /**
+     * Splits the clauses into chunks at clause boundaries.
+     *
+     * @return the start of each chunk, followed by the size of the input
+     */
+    private long[] split(long size, long bodyStart, ISource source) throws IOException {
+        long bodySize = size - bodyStart;
+        long chunkCount = (bodySize + MAXIMUM_CHUNK_SIZE - 1) / MAXIMUM_CHUNK_SIZE;
+        if (isParallel) {
+            chunkCount = Math.max(
+                    chunkCount,
+                    Math.min(4L * ForkJoinPool.getCommonPoolParallelism(), bodySize / MINIMUM_PARALLEL_CHUNK_SIZE));
+        }
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(bodyStart);
+        for (long i = 1; i < chunkCount; i++) {
+            long position = bodyStart + bodySize * i / chunkCount;
+            long lastBoundary = boundaries.get(boundaries.size() - 1);
+            if (position > lastBoundary) {
+                long boundary = findBoundary(size, position, source);
+                if (boundary > lastBoundary && boundary < size) {
+                    boundaries.add(boundary);
+                }
+            }
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * {@return the position after the first clause end in the lines starting after a given position}
+     * Searches windows of increasing size, until a clause end is found or the input ends.
+     */
+    private static long findBoundary(long size, long position, ISource source) throws IOException {
+        for (long windowSize = INITIAL_WINDOW_SIZE; ; windowSize <<= 1) {
+            long windowEnd = Math.min(size, position + windowSize);
+            int boundary = findBoundary(source.get(position, windowEnd), windowEnd == size);
+            if (boundary >= 0) {
+                return position + boundary;
+            } else if (windowEnd == size) {
+                return size;
+            }
+        }
+    }
+
+    private static int findBoundary(ByteBuffer window, boolean isLast) {
+        int limit = window.limit();
+        int position = 0;
+        while (position < limit && window.get(position) != '\n') {
+            position++;
+        }
+        boolean isLineStart = true;
+        while (++position < limit) {
+            byte b = window.get(position);
+            if (b == '\n') {
+                isLineStart = true;
+            } else if (isWhitespace(b)) {
+                continue;
+            } else if (isLineStart && b == 'c') {
+                while (position < limit && window.get(position) != '\n') {
+                    position++;
+                }
+                position--;
+            } else {
+                isLineStart = false;
+                int tokenStart = position;
+                while (position < limit && !isWhitespace(window.get(position)) && window.get(position) != '\n') {
+                    position++;
+                }
+                if (position == limit && !isLast) {
+                    return -1;
+                }
+                if (position - tokenStart == 1 && window.get(tokenStart) == '0') {
+                    return position;
+                }
+                position--;
+            }
+        }
+        return -1;
+    }
+
+    private static Chunk parseChunk(ByteBuffer buffer, long offset) {
+        Chunk chunk = new Chunk();
+        int limit = buffer.limit();
+        BooleanClauseArena clauses = new BooleanClauseArena(0, limit / 16 + 1, limit / 4 + 1);
+        int[] literals = new int[16];
+        int literalCount = 0;
+        int maximumVariable = 0;
+        boolean isLineStart = true;
+        int position = 0;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == '\n') {
+                isLineStart = true;
+                position++;
+                continue;
+            } else if (isWhitespace(b)) {
+                position++;
+                continue;
+            } else if (isLineStart && b == 'c') {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+                continue;
+            }
+            isLineStart = false;
+            int tokenStart = position;
+            boolean isNegative = b == '-';
+            if (isNegative) {
+                position++;
+            }
+            int digitStart = position;
+            long variable = 0;
+            while (position < limit && variable <= Integer.MAX_VALUE) {
+                byte digit = buffer.get(position);
+                if (digit < '0' || digit > '9') {
+                    break;
+                }
+                variable = 10 * variable + (digit - '0');
+                position++;
+            }
+            if (position == digitStart
+                    || variable > Integer.MAX_VALUE
+                    || (variable == 0 && isNegative)
+                    || (position < limit && !isWhitespace(buffer.get(position)) && buffer.get(position) != '\n')) {
+                chunk.errorMessage = "Illegal literal";
+                chunk.errorPosition = offset + tokenStart;
+                return chunk;
+            }
+            if (variable == 0) {
+                clauses.addClause(literals, 0, literalCount);
+                literalCount = 0;
+            } else {
+                if (literalCount == literals.length) {
+                    literals = Arrays.copyOf(literals, 2 * literals.length);
+                }
+                literals[literalCount++] = isNegative ? (int) -variable : (int) variable;
+                maximumVariable = Math.max(maximumVariable, (int) variable);
+            }
+        }
+        if (literalCount > 0) {
+            clauses.addClause(literals, 0, literalCount);
+        }
+        chunk.clauses = clauses;
+        chunk.maximumVariable = maximumVariable;
+        return chunk;
+    }
+
+    private static int countLines(ByteBuffer buffer, int end) {
+        int lineCount = 1;
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                lineCount++;
+            }
+        }
+        return lineCount;
+    }
+
+    private static int getLineNumber(long position, ISource source) throws IOException {
+        int lineCount = 0;
+        for (long start = 0; start < position; start += MAXIMUM_CHUNK_SIZE) {
+            long end = Math.min(position, start + MAXIMUM_CHUNK_SIZE);
+            lineCount += countLines(source.get(start, end), (int) (end - start)) - 1;
+        }
+        return lineCount + 1;
+    }
+}
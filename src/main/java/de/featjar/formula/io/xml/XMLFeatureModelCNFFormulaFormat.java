@@ -22,7 +22,6 @@ package de.featjar.formula.io.xml;
 
 import static de.featjar.base.computation.Computations.*;
 
-import de.featjar.base.data.Result;
 import de.featjar.base.io.format.ParseException;
 import de.featjar.base.tree.Trees;
 import de.featjar.formula.computation.ComputeCNFFormula;
@@ -40,8 +39,6 @@ import de.featjar.formula.visitor.TreeSimplifier;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * Parses feature model CNF formulas from FeatureIDE XML files. Returns a
@@ -62,13 +59,7 @@ public class XMLFeatureModelCNFFormulaFormat extends XMLFeatureModelFormulaForma
     }
 
     @Override
-    protected IFormula parseDocument(Document document) throws ParseException {
-        final Element featureModelElement = getDocumentElement(document, FEATURE_MODEL, EXT_FEATURE_MODEL);
-        parseFeatureTree(getElement(featureModelElement, STRUCT));
-        Result<Element> constraintsElement = getElementResult(featureModelElement, CONSTRAINTS);
-        if (constraintsElement.isPresent()) {
-            parseConstraints(constraintsElement.get());
-        }
+    protected IFormula createFormula() throws ParseException {
         IFormula t = (IFormula) new And(constraints);
         IFormula transformedConstraints = async(t).map(ComputeNNFFormula::new)
                 .map(ComputeCNFFormula::new)
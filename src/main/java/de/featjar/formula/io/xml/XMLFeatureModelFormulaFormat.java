@@ -23,6 +23,8 @@ package de.featjar.formula.io.xml;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.Sets;
 import de.featjar.base.io.format.ParseException;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.base.io.input.AInputMapper;
 import de.featjar.formula.structure.IFormula;
 import de.featjar.formula.structure.connective.And;
 import de.featjar.formula.structure.connective.Or;
@@ -66,6 +68,35 @@ public class XMLFeatureModelFormulaFormat extends AXMLFeatureModelFormat<IFormul
         parseFeatureTree(getElement(featureModelElement, STRUCT));
         Result<Element> constraintsElement = getElementResult(featureModelElement, CONSTRAINTS);
         if (constraintsElement.isPresent()) parseConstraints(constraintsElement.get());
+        return createFormula();
+    }
+
+    /**
+     * Parses a feature model with a {@link XMLFeatureModelStreamParser}, which does not build a DOM document.
+     * The resulting formula is identical to the one returned for the parsed document.
+     *
+     * @param inputMapper the input mapper
+     * @return the parsed formula
+     */
+    @Override
+    public Result<IFormula> parse(AInputMapper inputMapper) {
+        final XMLFeatureModelStreamParser<Literal, Boolean> parser = new XMLFeatureModelStreamParser<>(this);
+        try {
+            parser.parse(inputMapper.get().getInputStream());
+            return Result.of(createFormula(), parser.getProblems());
+        } catch (final ParseException e) {
+            return Result.empty(new ParseProblem(e, parser.getLineNumber()));
+        } catch (final Exception e) {
+            return Result.empty(e);
+        }
+    }
+
+    /**
+     * {@return the formula for the parsed feature labels and constraints}
+     *
+     * @throws ParseException if the constraints cannot be combined to a formula
+     */
+    protected IFormula createFormula() throws ParseException {
         if (constraints.isEmpty()) {
             return new And();
         } else {
@@ -0,0 +1,558 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.xml;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.io.format.ParseException;
+import de.featjar.base.io.format.ParseProblem;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.predicate.Literal;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Parses FeatureIDE XML files with a StAX reader and passes the feature tree and
+ * the constraints to the callbacks of an {@link AXMLFeatureModelFormat}. The
+ * callbacks are invoked in the same order and with the same arguments as by the
+ * DOM-based parsing methods of the format. In contrast to those, only the path
+ * from the root to the current element is kept in memory. Metadata elements are
+ * the only subtrees that are materialized, as the metadata callbacks expect a DOM
+ * {@link Element}.
+ *
+ * @param <U> the type of feature labels
+ * @param <V> the type of constraint labels
+ * @author Sebastian Krieter
+ */
+public class XMLFeatureModelStreamParser<U, V> {
+
+    private static final class FeatureFrame<U> {
+        private final String nodeName;
+        private final U label;
+        private final ArrayList<U> childLabels = new ArrayList<>();
+        private boolean hasChildNodes;
+        private int elementCount;
+
+        private FeatureFrame(String nodeName, U label) {
+            this.nodeName = nodeName;
+            this.label = label;
+        }
+    }
+
+    private static final class ConstraintFrame {
+        private final String nodeName;
+        private final List<IFormula> children = new ArrayList<>();
+
+        private ConstraintFrame(String nodeName) {
+            this.nodeName = nodeName;
+        }
+    }
+
+    private final AXMLFeatureModelFormat<?, U, V> format;
+    private final List<Problem> problems = new ArrayList<>();
+
+    private XMLInputFactory factory;
+    private XMLStreamReader reader;
+    private Document metadataDocument;
+    private int depth;
+
+    /**
+     * Creates a new parser for the given format.
+     *
+     * @param format the format whose callbacks are invoked
+     */
+    public XMLFeatureModelStreamParser(AXMLFeatureModelFormat<?, U, V> format) {
+        this.format = format;
+    }
+
+    /**
+     * {@return the warnings that occurred during parsing}
+     */
+    public List<Problem> getProblems() {
+        return problems;
+    }
+
+    /**
+     * {@return the line of the current position of the parser, or -1 if it is unknown}
+     */
+    public int getLineNumber() {
+        return reader == null ? -1 : reader.getLocation().getLineNumber();
+    }
+
+    /**
+     * Parses a feature model from the given input stream.
+     * The feature tree is parsed before the constraints, as it is done for DOM documents.
+     * If the constraints precede the feature tree in the file, the constraints element is buffered as text until the
+     * feature tree has been parsed. Line numbers of warnings for these constraints are relative to the constraints
+     * element then.
+     *
+     * @param inputStream the input stream
+     * @throws ParseException if the file is not a valid feature model
+     */
+    public void parse(InputStream inputStream) throws ParseException {
+        problems.clear();
+        depth = 0;
+        try {
+            factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(inputStream);
+            try {
+                parseFeatureModel();
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    private void parseFeatureModel() throws XMLStreamException, ParseException {
+        if (!nextChildElement()) {
+            throw new ParseException("No root element!");
+        }
+        final String rootName = reader.getLocalName();
+        if (!AXMLFeatureModelFormat.FEATURE_MODEL.equals(rootName)
+                && !AXMLFeatureModelFormat.EXT_FEATURE_MODEL.equals(rootName)) {
+            throw new ParseException("Unexpected root element " + rootName);
+        }
+        boolean structParsed = false;
+        boolean constraintsParsed = false;
+        String constraints = null;
+        while (nextChildElement()) {
+            final String nodeName = reader.getLocalName();
+            if (!structParsed && AXMLFeatureModelFormat.STRUCT.equals(nodeName)) {
+                parseFeatureTree();
+                structParsed = true;
+            } else if (!constraintsParsed && AXMLFeatureModelFormat.CONSTRAINTS.equals(nodeName)) {
+                if (structParsed) {
+                    parseConstraints();
+                } else {
+                    constraints = copyElement();
+                }
+                constraintsParsed = true;
+            } else {
+                skipElement();
+            }
+        }
+        if (!structParsed) {
+            throw new ParseException("No element " + AXMLFeatureModelFormat.STRUCT);
+        }
+        if (constraints != null) {
+            reader.close();
+            reader = factory.createXMLStreamReader(new StringReader(constraints));
+            depth = 0;
+            nextChildElement();
+            parseConstraints();
+        }
+    }
+
+    private void parseFeatureTree() throws XMLStreamException, ParseException {
+        final ArrayDeque<FeatureFrame<U>> path = new ArrayDeque<>();
+        int rootCount = 0;
+        while (true) {
+            switch (next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    final FeatureFrame<U> parent = path.peek();
+                    if (parent == null) {
+                        if (++rootCount > 1) {
+                            throw new ParseException("Multiple root features!");
+                        }
+                    } else {
+                        parent.hasChildNodes = true;
+                        parent.elementCount++;
+                    }
+                    final String nodeName = reader.getLocalName();
+                    switch (nodeName) {
+                        case AXMLFeatureModelFormat.DESCRIPTION:
+                        case AXMLFeatureModelFormat.GRAPHICS:
+                        case AXMLFeatureModelFormat.PROPERTY:
+                            if (parent != null) {
+                                format.addFeatureMetadata(parent.label, readElement());
+                            } else {
+                                addWarning("Misplaced metadata element " + nodeName);
+                                skipElement();
+                            }
+                            break;
+                        case AXMLFeatureModelFormat.AND:
+                        case AXMLFeatureModelFormat.OR:
+                        case AXMLFeatureModelFormat.ALT:
+                        case AXMLFeatureModelFormat.FEATURE:
+                            path.push(startFeature(parent, nodeName));
+                            break;
+                        default:
+                            skipElement();
+                            break;
+                    }
+                    break;
+                }
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    if (!path.isEmpty()) {
+                        path.peek().hasChildNodes = true;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT: {
+                    if (path.isEmpty()) {
+                        if (rootCount == 0) {
+                            throw new ParseException("No root feature!");
+                        }
+                        return;
+                    }
+                    final FeatureFrame<U> frame = path.pop();
+                    endFeature(frame);
+                    if (!path.isEmpty()) {
+                        path.peek().childLabels.add(frame.label);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    private FeatureFrame<U> startFeature(FeatureFrame<U> parent, String nodeName) throws ParseException {
+        boolean _abstract = false, mandatory = false, hidden = false;
+        String name = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String attributeName = reader.getAttributeLocalName(i);
+            final String attributeValue = reader.getAttributeValue(i);
+            switch (attributeName) {
+                case AXMLFeatureModelFormat.ABSTRACT:
+                    _abstract = attributeValue.equals(AXMLFeatureModelFormat.TRUE);
+                    break;
+                case AXMLFeatureModelFormat.MANDATORY:
+                    mandatory = attributeValue.equals(AXMLFeatureModelFormat.TRUE);
+                    break;
+                case AXMLFeatureModelFormat.NAME:
+                    name = attributeValue;
+                    break;
+                case AXMLFeatureModelFormat.HIDDEN:
+                    hidden = attributeValue.equals(AXMLFeatureModelFormat.TRUE);
+                    break;
+                case AXMLFeatureModelFormat.COORDINATES:
+                    // Legacy case, for backwards compatibility
+                    break;
+                default:
+                    addWarning("Unknown feature attribute: " + attributeName);
+                    break;
+            }
+        }
+        final boolean and = parent != null && AXMLFeatureModelFormat.AND.equals(parent.nodeName);
+        final U featureLabel =
+                format.newFeatureLabel(name, parent == null ? null : parent.label, and && mandatory, _abstract, hidden);
+        return new FeatureFrame<>(nodeName, featureLabel);
+    }
+
+    private void endFeature(FeatureFrame<U> frame) throws ParseException {
+        if (frame.hasChildNodes) {
+            if (frame.elementCount == 0) {
+                addWarning("No feature in group!");
+            }
+            switch (frame.nodeName) {
+                case AXMLFeatureModelFormat.AND:
+                    format.addAndGroup(frame.label, frame.childLabels);
+                    break;
+                case AXMLFeatureModelFormat.OR:
+                    format.addOrGroup(frame.label, frame.childLabels);
+                    break;
+                case AXMLFeatureModelFormat.ALT:
+                    format.addAlternativeGroup(frame.label, frame.childLabels);
+                    break;
+                default:
+                    break;
+            }
+        } else if (!AXMLFeatureModelFormat.FEATURE.equals(frame.nodeName)) {
+            throw new ParseException("Empty group!");
+        }
+    }
+
+    private void parseConstraints() throws XMLStreamException {
+        while (nextChildElement()) {
+            final String nodeName = reader.getLocalName();
+            if (nodeName.equals(AXMLFeatureModelFormat.RULE)) {
+                final int ruleDepth = depth;
+                try {
+                    parseRule();
+                } catch (final XMLStreamException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    addWarning(e.getMessage());
+                    while (depth >= ruleDepth) {
+                        next();
+                    }
+                }
+            } else {
+                addWarning("Encountered unknown node " + nodeName);
+                skipElement();
+            }
+        }
+    }
+
+    private void parseRule() throws XMLStreamException, ParseException {
+        final List<String> attributeNames = new ArrayList<>(reader.getAttributeCount());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributeNames.add(reader.getAttributeLocalName(i));
+        }
+        final V constraintLabel = format.newConstraintLabel();
+        final ConstraintFrame rule = new ConstraintFrame(AXMLFeatureModelFormat.RULE);
+        final ArrayDeque<ConstraintFrame> path = new ArrayDeque<>();
+        path.push(rule);
+        while (!path.isEmpty()) {
+            final int event = next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final ConstraintFrame parent = path.peek();
+                final String nodeName = reader.getLocalName();
+                switch (nodeName) {
+                    case AXMLFeatureModelFormat.DESCRIPTION:
+                    case AXMLFeatureModelFormat.GRAPHICS:
+                    case AXMLFeatureModelFormat.PROPERTY:
+                    case AXMLFeatureModelFormat.TAGS:
+                        if (parent == rule) {
+                            format.addConstraintMetadata(constraintLabel, readElement());
+                        } else {
+                            addWarning("Misplaced metadata element " + nodeName);
+                            skipElement();
+                        }
+                        break;
+                    case AXMLFeatureModelFormat.DISJ:
+                    case AXMLFeatureModelFormat.CONJ:
+                    case AXMLFeatureModelFormat.EQ:
+                    case AXMLFeatureModelFormat.IMP:
+                    case AXMLFeatureModelFormat.NOT:
+                    case AXMLFeatureModelFormat.ATMOST1:
+                        path.push(new ConstraintFrame(nodeName));
+                        break;
+                    case AXMLFeatureModelFormat.VAR:
+                        parent.children.add(new Literal(readTextContent()));
+                        break;
+                    default:
+                        addWarning("Unknown constraint type: " + nodeName);
+                        skipElement();
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                final ConstraintFrame frame = path.pop();
+                if (frame != rule) {
+                    endConstraint(frame, path.peek().children);
+                }
+            }
+        }
+        if (rule.children.size() == 1) {
+            format.addConstraint(constraintLabel, rule.children.get(0));
+            for (final String attributeName : attributeNames) {
+                if (attributeName.equals(AXMLFeatureModelFormat.COORDINATES)) {
+                    addWarning("ignored coordinates");
+                } else {
+                    addWarning("Unknown constraint attribute: " + attributeName);
+                }
+            }
+        } else {
+            addWarning("could not parse constraint node " + AXMLFeatureModelFormat.RULE);
+        }
+    }
+
+    private void endConstraint(ConstraintFrame frame, List<IFormula> nodes) {
+        final List<IFormula> children = frame.children;
+        switch (frame.nodeName) {
+            case AXMLFeatureModelFormat.DISJ:
+                nodes.add(new Or(children));
+                break;
+            case AXMLFeatureModelFormat.CONJ:
+                nodes.add(new And(children));
+                break;
+            case AXMLFeatureModelFormat.EQ:
+                if (children.size() == 2) {
+                    nodes.add(format.biImplies(children.get(0), children.get(1)));
+                } else {
+                    addWarning("unexpected number of operands for equivalence");
+                }
+                break;
+            case AXMLFeatureModelFormat.IMP:
+                if (children.size() == 2) {
+                    nodes.add(format.implies(children.get(0), children.get(1)));
+                } else {
+                    addWarning("unexpected number of operands for implication");
+                }
+                break;
+            case AXMLFeatureModelFormat.NOT:
+                if (children.size() == 1) {
+                    nodes.add(new Not(children.get(0)));
+                } else {
+                    addWarning("unexpected number of operands for negation");
+                }
+                break;
+            case AXMLFeatureModelFormat.ATMOST1:
+                nodes.add(format.atMostOne(children));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Element readElement() throws XMLStreamException, ParseException {
+        if (metadataDocument == null) {
+            try {
+                metadataDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            } catch (final ParserConfigurationException e) {
+                throw new ParseException(e.getMessage());
+            }
+        }
+        final ArrayDeque<Element> path = new ArrayDeque<>();
+        final Element element = createElement();
+        path.push(element);
+        while (!path.isEmpty()) {
+            switch (next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    final Element child = createElement();
+                    path.peek().appendChild(child);
+                    path.push(child);
+                    break;
+                }
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    path.peek().appendChild(metadataDocument.createTextNode(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    path.peek().appendChild(metadataDocument.createCDATASection(reader.getText()));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    path.pop();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return element;
+    }
+
+    private String copyElement() throws XMLStreamException {
+        final StringWriter buffer = new StringWriter();
+        final XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(buffer);
+        final int elementDepth = depth;
+        int event = XMLStreamConstants.START_ELEMENT;
+        while (true) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    writer.writeStartElement(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    writer.writeCharacters(reader.getText());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    break;
+                default:
+                    break;
+            }
+            if (depth < elementDepth) {
+                writer.close();
+                return buffer.toString();
+            }
+            event = next();
+        }
+    }
+
+    private Element createElement() {
+        final Element element = metadataDocument.createElement(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private String readTextContent() throws XMLStreamException {
+        final int elementDepth = depth;
+        final StringBuilder text = new StringBuilder();
+        while (depth >= elementDepth) {
+            switch (next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return text.toString();
+    }
+
+    private void skipElement() throws XMLStreamException {
+        final int elementDepth = depth;
+        while (depth >= elementDepth) {
+            next();
+        }
+    }
+
+    private boolean nextChildElement() throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private int next() throws XMLStreamException {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+        }
+        return event;
+    }
+
+    private void addWarning(String message) {
+        problems.add(new ParseProblem(message, Problem.Severity.WARNING, getLineNumber()));
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import de.featjar.base.data.Range;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.assignment.BooleanSolutionList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Evaluates formulas on a whole list of solutions at once.
+ * The solutions are transposed into bit columns, such that each {@code long} word holds the value of one variable in
+ * 64 solutions.
+ * A {@link CompiledFormula} is then executed once per word, with each instruction being one or a few bitwise
+ * operations.
+ * <p>
+ * If all solutions assign all variables of the formula, each stack entry is a single word.
+ * Otherwise, a dual-rail encoding is used (i.e., one word for solutions in which a value is {@code true} and one for
+ * solutions in which it is {@code false}), which yields the same three-valued semantics as
+ * {@link CompiledFormula#evaluate(int[])}.
+ * Solution {@code i} of the list is represented by bit {@code i} in all results.
+ * <p>
+ * Instances are immutable and can be used concurrently.
+ *
+ * @author Sebastian Krieter
+ */
+public final class BitParallelEvaluator {
+
+    private final int solutionCount;
+    private final int variableCount;
+    private final int wordCount;
+    private final long lastWordMask;
+
+    /**
+     * For word {@code w} and variable {@code v}, bits set at index {@code w * variableCount + v - 1}
+     * mark the solutions in which {@code v} is assigned {@code true} (or {@code false}, respectively).
+     */
+    private final long[] positiveColumns, negativeColumns;
+
+    private final boolean complete;
+
+    /**
+     * Creates a new bit-parallel evaluator for the given solutions.
+     *
+     * @param solutions the solutions
+     */
+    public BitParallelEvaluator(BooleanSolutionList solutions) {
+        List<BooleanSolution> solutionList = solutions.getAll();
+        solutionCount = solutionList.size();
+        int maxVariable = 0;
+        for (BooleanSolution solution : solutionList) {
+            for (int literal : solution.get()) {
+                maxVariable = Math.max(maxVariable, Math.abs(literal));
+            }
+        }
+        variableCount = maxVariable;
+        wordCount = (solutionCount + Long.SIZE - 1) / Long.SIZE;
+        lastWordMask = (solutionCount % Long.SIZE) == 0 ? -1L : (1L << (solutionCount % Long.SIZE)) - 1;
+        positiveColumns = new long[wordCount * variableCount];
+        negativeColumns = new long[wordCount * variableCount];
+
+        long assignedCount = 0;
+        for (int i = 0; i < solutionCount; i++) {
+            final int offset = (i >>> 6) * variableCount - 1;
+            final long bit = 1L << i;
+            for (int literal : solutionList.get(i).get()) {
+                if (literal > 0) {
+                    positiveColumns[offset + literal] |= bit;
+                    assignedCount++;
+                } else if (literal < 0) {
+                    negativeColumns[offset - literal] |= bit;
+                    assignedCount++;
+                }
+            }
+        }
+        complete = assignedCount == (long) solutionCount * variableCount;
+    }
+
+    /**
+     * {@return the number of solutions}
+     */
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    /**
+     * {@return the highest variable index that is assigned in any of the solutions}
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * {@return the solutions for which the given formula evaluates to {@code true}}
+     *
+     * @param formula the formula
+     * @param variableMap the variable map
+     */
+    public BitSet test(IFormula formula, VariableMap variableMap) {
+        return test(CompiledFormula.compile(formula, variableMap).orElseThrow());
+    }
+
+    /**
+     * {@return the solutions for which the given formula evaluates to {@code true}}
+     *
+     * @param formula the compiled formula
+     */
+    public BitSet test(CompiledFormula formula) {
+        long[] trueWords = new long[wordCount];
+        evaluate(formula, trueWords, null);
+        return BitSet.valueOf(trueWords);
+    }
+
+    /**
+     * {@return the evaluation of the given formula for each solution}
+     * Each entry is either {@link CompiledFormula#TRUE}, {@link CompiledFormula#FALSE}, or
+     * {@link CompiledFormula#UNKNOWN}.
+     *
+     * @param formula the compiled formula
+     */
+    public byte[] evaluate(CompiledFormula formula) {
+        long[] trueWords = new long[wordCount];
+        long[] falseWords = new long[wordCount];
+        evaluate(formula, trueWords, falseWords);
+        byte[] values = new byte[solutionCount];
+        for (int i = 0; i < solutionCount; i++) {
+            final long bit = 1L << i;
+            final int word = i >>> 6;
+            values[i] = (trueWords[word] & bit) != 0
+                    ? CompiledFormula.TRUE
+                    : (falseWords[word] & bit) != 0 ? CompiledFormula.FALSE : CompiledFormula.UNKNOWN;
+        }
+        return values;
+    }
+
+    /**
+     * Evaluates the given formula and stores the result as bit masks.
+     *
+     * @param formula the compiled formula
+     * @param trueWords receives the solutions for which the formula evaluates to {@code true}
+     * @param falseWords receives the solutions for which the formula evaluates to {@code false}, may be {@code null}
+     */
+    public void evaluate(CompiledFormula formula, long[] trueWords, long[] falseWords) {
+        final int[] program = formula.getProgram();
+        if (program.length == 0) {
+            return;
+        }
+        final int stackSize = Math.max(1, formula.getMaximumStackSize());
+        final long[] counterPlanes = new long[2 * (32 - Integer.numberOfLeadingZeros(maximumCardinality(program)))];
+        if (isTwoValued(program)) {
+            final long[] stack = new long[stackSize];
+            for (int word = 0; word < wordCount; word++) {
+                final long value = evaluateTwoValued(program, word, stack, counterPlanes) & getWordMask(word);
+                trueWords[word] = value;
+                if (falseWords != null) {
+                    falseWords[word] = ~value & getWordMask(word);
+                }
+            }
+        } else {
+            final long[] trueStack = new long[stackSize];
+            final long[] falseStack = new long[stackSize];
+            for (int word = 0; word < wordCount; word++) {
+                evaluateDualRail(
+                        program, formula.getDefaultValue(), word, trueStack, falseStack, counterPlanes);
+                trueWords[word] = trueStack[0] & getWordMask(word);
+                if (falseWords != null) {
+                    falseWords[word] = falseStack[0] & getWordMask(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@return the solutions that satisfy all clauses of the given clause list}
+     * A clause is satisfied by a solution if the solution assigns at least one of its literals.
+     *
+     * @param clauseList the clause list
+     */
+    public BitSet test(BooleanClauseList clauseList) {
+        final List<BooleanClause> clauses = clauseList.getAll();
+        final long[] trueWords = new long[wordCount];
+        for (int word = 0; word < wordCount; word++) {
+            final int offset = word * variableCount - 1;
+            long value = getWordMask(word);
+            for (int i = 0; i < clauses.size() && value != 0; i++) {
+                long clauseValue = 0;
+                for (int literal : clauses.get(i).get()) {
+                    if (literal > 0) {
+                        if (literal <= variableCount) {
+                            clauseValue |= positiveColumns[offset + literal];
+                        }
+                    } else if (-literal <= variableCount) {
+                        clauseValue |= negativeColumns[offset - literal];
+                    }
+                }
+                value &= clauseValue;
+            }
+            trueWords[word] = value;
+        }
+        return BitSet.valueOf(trueWords);
+    }
+
+    private long getWordMask(int word) {
+        return word == wordCount - 1 ? lastWordMask : -1L;
+    }
+
+    private boolean isTwoValued(int[] program) {
+        for (int pc = 0; pc < program.length; pc += instructionLength(program[pc])) {
+            switch (program[pc]) {
+                case CompiledFormula.POSITIVE_LITERAL:
+                case CompiledFormula.NEGATIVE_LITERAL:
+                    if (!complete || program[pc + 1] > variableCount) {
+                        return false;
+                    }
+                    break;
+                case CompiledFormula.CONSTANT:
+                    if (program[pc + 1] == CompiledFormula.UNKNOWN) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static int maximumCardinality(int[] program) {
+        int maximum = 0;
+        for (int pc = 0; pc < program.length; pc += instructionLength(program[pc])) {
+            if (program[pc] == CompiledFormula.CARDINAL) {
+                maximum = Math.max(maximum, program[pc + 1]);
+            }
+        }
+        return maximum;
+    }
+
+    private static int instructionLength(int opcode) {
+        switch (opcode) {
+            case CompiledFormula.POSITIVE_LITERAL:
+            case CompiledFormula.NEGATIVE_LITERAL:
+            case CompiledFormula.CONSTANT:
+            case CompiledFormula.AND:
+            case CompiledFormula.OR:
+                return 2;
+            case CompiledFormula.NOT:
+            case CompiledFormula.IMPLIES:
+            case CompiledFormula.BI_IMPLIES:
+                return 1;
+            case CompiledFormula.CARDINAL:
+                return 4;
+            default:
+                throw new IllegalStateException(String.valueOf(opcode));
+        }
+    }
+
+    private long evaluateTwoValued(int[] program, int word, long[] stack, long[] counterPlanes) {
+        final int offset = word * variableCount - 1;
+        int top = 0;
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case CompiledFormula.POSITIVE_LITERAL:
+                    stack[top++] = positiveColumns[offset + program[pc++]];
+                    break;
+                case CompiledFormula.NEGATIVE_LITERAL:
+                    stack[top++] = negativeColumns[offset + program[pc++]];
+                    break;
+                case CompiledFormula.CONSTANT:
+                    stack[top++] = program[pc++] == CompiledFormula.TRUE ? -1L : 0L;
+                    break;
+                case CompiledFormula.AND: {
+                    int count = program[pc++];
+                    long value = -1L;
+                    for (int i = top - count; i < top; i++) {
+                        value &= stack[i];
+                    }
+                    top -= count;
+                    stack[top++] = value;
+                    break;
+                }
+                case CompiledFormula.OR: {
+                    int count = program[pc++];
+                    long value = 0L;
+                    for (int i = top - count; i < top; i++) {
+                        value |= stack[i];
+                    }
+                    top -= count;
+                    stack[top++] = value;
+                    break;
+                }
+                case CompiledFormula.NOT:
+                    stack[top - 1] = ~stack[top - 1];
+                    break;
+                case CompiledFormula.IMPLIES: {
+                    long right = stack[--top];
+                    stack[top - 1] = ~stack[top - 1] | right;
+                    break;
+                }
+                case CompiledFormula.BI_IMPLIES: {
+                    long right = stack[--top];
+                    stack[top - 1] = ~(stack[top - 1] ^ right);
+                    break;
+                }
+                case CompiledFormula.CARDINAL: {
+                    int count = program[pc++];
+                    int lowerBound = program[pc++];
+                    int upperBound = program[pc++];
+                    int planeCount = counterPlanes.length / 2;
+                    clear(counterPlanes, 0, planeCount);
+                    for (int i = top - count; i < top; i++) {
+                        increment(counterPlanes, 0, planeCount, stack[i]);
+                    }
+                    top -= count;
+                    stack[top++] = testLowerBound(counterPlanes, 0, planeCount, lowerBound)
+                            & testUpperBound(counterPlanes, 0, planeCount, upperBound);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(program[pc - 1]));
+            }
+        }
+        return stack[0];
+    }
+
+    private void evaluateDualRail(
+            int[] program, byte defaultValue, int word, long[] trueStack, long[] falseStack, long[] counterPlanes) {
+        final int offset = word * variableCount - 1;
+        int top = 0;
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case CompiledFormula.POSITIVE_LITERAL:
+                case CompiledFormula.NEGATIVE_LITERAL: {
+                    boolean positive = program[pc - 1] == CompiledFormula.POSITIVE_LITERAL;
+                    int variable = program[pc++];
+                    long positiveWord = 0, negativeWord = 0;
+                    if (variable <= variableCount) {
+                        positiveWord = positiveColumns[offset + variable];
+                        negativeWord = negativeColumns[offset + variable];
+                    }
+                    long unassignedWord = ~(positiveWord | negativeWord);
+                    if (defaultValue == CompiledFormula.TRUE) {
+                        positiveWord |= unassignedWord;
+                    } else if (defaultValue == CompiledFormula.FALSE) {
+                        negativeWord |= unassignedWord;
+                    }
+                    trueStack[top] = positive ? positiveWord : negativeWord;
+                    falseStack[top++] = positive ? negativeWord : positiveWord;
+                    break;
+                }
+                case CompiledFormula.CONSTANT: {
+                    int value = program[pc++];
+                    trueStack[top] = value == CompiledFormula.TRUE ? -1L : 0L;
+                    falseStack[top++] = value == CompiledFormula.FALSE ? -1L : 0L;
+                    break;
+                }
+                case CompiledFormula.AND: {
+                    int count = program[pc++];
+                    long trueValue = -1L, falseValue = 0L;
+                    for (int i = top - count; i < top; i++) {
+                        trueValue &= trueStack[i];
+                        falseValue |= falseStack[i];
+                    }
+                    top -= count;
+                    trueStack[top] = trueValue;
+                    falseStack[top++] = falseValue;
+                    break;
+                }
+                case CompiledFormula.OR: {
+                    int count = program[pc++];
+                    long trueValue = 0L, falseValue = -1L;
+                    for (int i = top - count; i < top; i++) {
+                        trueValue |= trueStack[i];
+                        falseValue &= falseStack[i];
+                    }
+                    top -= count;
+                    trueStack[top] = trueValue;
+                    falseStack[top++] = falseValue;
+                    break;
+                }
+                case CompiledFormula.NOT: {
+                    long trueValue = trueStack[top - 1];
+                    trueStack[top - 1] = falseStack[top - 1];
+                    falseStack[top - 1] = trueValue;
+                    break;
+                }
+                case CompiledFormula.IMPLIES: {
+                    long rightTrue = trueStack[--top];
+                    long rightFalse = falseStack[top];
+                    long leftTrue = trueStack[top - 1];
+                    long leftFalse = falseStack[top - 1];
+                    trueStack[top - 1] = leftFalse | rightTrue;
+                    falseStack[top - 1] = leftTrue & rightFalse;
+                    break;
+                }
+                case CompiledFormula.BI_IMPLIES: {
+                    long rightTrue = trueStack[--top];
+                    long rightFalse = falseStack[top];
+                    long leftTrue = trueStack[top - 1];
+                    long leftFalse = falseStack[top - 1];
+                    trueStack[top - 1] = (leftTrue & rightTrue) | (leftFalse & rightFalse);
+                    falseStack[top - 1] = (leftTrue & rightFalse) | (leftFalse & rightTrue);
+                    break;
+                }
+                case CompiledFormula.CARDINAL: {
+                    int count = program[pc++];
+                    int lowerBound = program[pc++];
+                    int upperBound = program[pc++];
+                    // counts true values in the first half and possibly true (i.e., not false) values in the second
+                    int planeCount = counterPlanes.length / 2;
+                    clear(counterPlanes, 0, counterPlanes.length);
+                    for (int i = top - count; i < top; i++) {
+                        increment(counterPlanes, 0, planeCount, trueStack[i]);
+                        increment(counterPlanes, planeCount, planeCount, ~falseStack[i]);
+                    }
+                    top -= count;
+                    long trueLower = testLowerBound(counterPlanes, 0, planeCount, lowerBound);
+                    long trueUpper = testUpperBound(counterPlanes, 0, planeCount, upperBound);
+                    long possibleLower = testLowerBound(counterPlanes, planeCount, planeCount, lowerBound);
+                    long possibleUpper = testUpperBound(counterPlanes, planeCount, planeCount, upperBound);
+                    trueStack[top] = trueLower & possibleUpper;
+                    falseStack[top++] = ~possibleLower | ~trueUpper;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(program[pc - 1]));
+            }
+        }
+    }
+
+    private static void clear(long[] planes, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            planes[i] = 0;
+        }
+    }
+
+    /**
+     * Adds one to the bit-sliced counters of all solutions whose bit is set in {@code value}.
+     */
+    private static void increment(long[] planes, int from, int length, long value) {
+        long carry = value;
+        for (int i = from; i < from + length && carry != 0; i++) {
+            long nextCarry = planes[i] & carry;
+            planes[i] ^= carry;
+            carry = nextCarry;
+        }
+    }
+
+    /**
+     * {@return the solutions whose bit-sliced counter is at least {@code bound}}
+     */
+    private static long greaterEqual(long[] planes, int from, int length, int bound) {
+        if (bound <= 0) {
+            return -1L;
+        }
+        if (length < 31 && bound >= (1 << length)) {
+            return 0L;
+        }
+        long greater = 0L, equal = -1L;
+        for (int i = length - 1; i >= 0; i--) {
+            long plane = planes[from + i];
+            if (((bound >>> i) & 1) == 0) {
+                greater |= equal & plane;
+                equal &= ~plane;
+            } else {
+                equal &= plane;
+            }
+        }
+        return greater | equal;
+    }
+
+    private static long testLowerBound(long[] planes, int from, int length, int lowerBound) {
+        return lowerBound == Range.OPEN ? -1L : greaterEqual(planes, from, length, lowerBound);
+    }
+
+    private static long testUpperBound(long[] planes, int from, int length, int upperBound) {
+        return upperBound == Range.OPEN ? -1L : ~greaterEqual(planes, from, length, upperBound + 1);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.visitor.FormulaCompiler;
+import java.util.Arrays;
+
+/**
+ * A formula compiled into a flat, index-based postfix program.
+ * Evaluates the formula on the literal array of a {@link BooleanSolution} (i.e., the entry for variable {@code i}
+ * is stored at index {@code i - 1} and is either {@code i}, {@code -i}, or {@code 0}) without allocating memory.
+ * Uses the same three-valued semantics as {@link IExpression#evaluate(de.featjar.formula.assignment.IAssignment)},
+ * where unassigned and unmapped variables evaluate to {@link #UNKNOWN} (or the given default value).
+ * Instances are created with {@link FormulaCompiler}.
+ * <p>
+ * The methods that do not take an explicit value stack reuse an internal stack and are therefore not thread-safe.
+ * For concurrent evaluation, use {@link #evaluate(int[], byte[])} with a stack from {@link #newStack()}.
+ *
+ * @author Sebastian Krieter
+ */
+public final class CompiledFormula {
+
+    /**
+     * Result of an evaluation to {@code false}.
+     */
+    public static final byte FALSE = 0;
+
+    /**
+     * Result of an evaluation to {@code true}.
+     */
+    public static final byte TRUE = 1;
+
+    /**
+     * Result of an evaluation to an unknown value (i.e., {@code null}).
+     */
+    public static final byte UNKNOWN = 2;
+
+    /**
+     * Pushes the value of a positive literal. Operand: variable index.
+     */
+    public static final int POSITIVE_LITERAL = 0;
+
+    /**
+     * Pushes the value of a negative literal. Operand: variable index.
+     */
+    public static final int NEGATIVE_LITERAL = 1;
+
+    /**
+     * Pushes a constant value. Operand: value.
+     */
+    public static final int CONSTANT = 2;
+
+    /**
+     * Pops values and pushes their conjunction. Operand: number of values.
+     */
+    public static final int AND = 3;
+
+    /**
+     * Pops values and pushes their disjunction. Operand: number of values.
+     */
+    public static final int OR = 4;
+
+    /**
+     * Pops a value and pushes its negation.
+     */
+    public static final int NOT = 5;
+
+    /**
+     * Pops two values and pushes their implication.
+     */
+    public static final int IMPLIES = 6;
+
+    /**
+     * Pops two values and pushes their bi-implication.
+     */
+    public static final int BI_IMPLIES = 7;
+
+    /**
+     * Pops values and pushes whether the number of true values is in a range.
+     * Operands: number of values, lower bound, upper bound (both may be {@link de.featjar.base.data.Range#OPEN}).
+     */
+    public static final int CARDINAL = 8;
+
+    private static final int OPEN = de.featjar.base.data.Range.OPEN;
+
+    private final int[] program;
+    private final int maximumStackSize;
+    private final byte defaultValue;
+    private final byte[] stack;
+
+    /**
+     * Creates a new compiled formula.
+     *
+     * @param program the postfix program
+     * @param maximumStackSize the maximum number of values on the stack during evaluation
+     * @param defaultValue the value of unassigned variables
+     */
+    public CompiledFormula(int[] program, int maximumStackSize, byte defaultValue) {
+        this.program = program;
+        this.maximumStackSize = maximumStackSize;
+        this.defaultValue = defaultValue;
+        this.stack = newStack();
+    }
+
+    /**
+     * {@return a compiled formula for the given formula and variable map}
+     * Unassigned variables evaluate to {@link #UNKNOWN}.
+     *
+     * @param formula the formula
+     * @param variableMap the variable map
+     */
+    public static Result<CompiledFormula> compile(IFormula formula, VariableMap variableMap) {
+        return formula.traverse(new FormulaCompiler(variableMap));
+    }
+
+    /**
+     * {@return a new value stack that can be used for evaluating this formula}
+     */
+    public byte[] newStack() {
+        return new byte[Math.max(1, maximumStackSize)];
+    }
+
+    /**
+     * {@return the postfix program of this formula}
+     */
+    public int[] getProgram() {
+        return Arrays.copyOf(program, program.length);
+    }
+
+    /**
+     * {@return the maximum number of values on the stack during evaluation}
+     */
+    public int getMaximumStackSize() {
+        return maximumStackSize;
+    }
+
+    /**
+     * {@return the value of unassigned variables}
+     * Either {@link #TRUE}, {@link #FALSE}, or {@link #UNKNOWN}.
+     */
+    public byte getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * {@return whether this formula evaluates to {@code true} for the given solution}
+     *
+     * @param solution the solution
+     */
+    public boolean test(BooleanSolution solution) {
+        return evaluate(solution.get(), stack) == TRUE;
+    }
+
+    /**
+     * {@return whether this formula evaluates to {@code true} for the given solution}
+     *
+     * @param solution the solution literals, indexed by variable
+     */
+    public boolean test(int[] solution) {
+        return evaluate(solution, stack) == TRUE;
+    }
+
+    /**
+     * {@return the evaluation of this formula for the given solution, or {@code null} if it is unknown}
+     *
+     * @param solution the solution
+     */
+    public Boolean evaluate(BooleanSolution solution) {
+        switch (evaluate(solution.get(), stack)) {
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * {@return the evaluation of this formula for the given solution}
+     * Either {@link #TRUE}, {@link #FALSE}, or {@link #UNKNOWN}.
+     *
+     * @param solution the solution literals, indexed by variable
+     */
+    public byte evaluate(int[] solution) {
+        return evaluate(solution, stack);
+    }
+
+    /**
+     * {@return the evaluation of this formula for the given solution}
+     * Either {@link #TRUE}, {@link #FALSE}, or {@link #UNKNOWN}.
+     *
+     * @param solution the solution literals, indexed by variable
+     * @param stack the value stack, as returned by {@link #newStack()}
+     */
+    public byte evaluate(int[] solution, byte[] stack) {
+        final int[] program = this.program;
+        int top = 0;
+        int pc = 0;
+        while (pc < program.length) {
+            switch (program[pc++]) {
+                case POSITIVE_LITERAL: {
+                    int variable = program[pc++];
+                    int literal = variable <= solution.length ? solution[variable - 1] : 0;
+                    stack[top++] = literal > 0 ? TRUE : literal < 0 ? FALSE : defaultValue;
+                    break;
+                }
+                case NEGATIVE_LITERAL: {
+                    int variable = program[pc++];
+                    int literal = variable <= solution.length ? solution[variable - 1] : 0;
+                    stack[top++] = literal > 0 ? FALSE : literal < 0 ? TRUE : negate(defaultValue);
+                    break;
+                }
+                case CONSTANT:
+                    stack[top++] = (byte) program[pc++];
+                    break;
+                case AND: {
+                    int count = program[pc++];
+                    byte value = TRUE;
+                    for (int i = top - count; i < top; i++) {
+                        byte childValue = stack[i];
+                        if (childValue == FALSE) {
+                            value = FALSE;
+                            break;
+                        } else if (childValue == UNKNOWN) {
+                            value = UNKNOWN;
+                        }
+                    }
+                    top -= count;
+                    stack[top++] = value;
+                    break;
+                }
+                case OR: {
+                    int count = program[pc++];
+                    byte value = FALSE;
+                    for (int i = top - count; i < top; i++) {
+                        byte childValue = stack[i];
+                        if (childValue == TRUE) {
+                            value = TRUE;
+                            break;
+                        } else if (childValue == UNKNOWN) {
+                            value = UNKNOWN;
+                        }
+                    }
+                    top -= count;
+                    stack[top++] = value;
+                    break;
+                }
+                case NOT:
+                    stack[top - 1] = negate(stack[top - 1]);
+                    break;
+                case IMPLIES: {
+                    byte right = stack[--top];
+                    byte left = stack[top - 1];
+                    stack[top - 1] = left == FALSE || right == TRUE
+                            ? TRUE
+                            : left == TRUE && right == FALSE ? FALSE : UNKNOWN;
+                    break;
+                }
+                case BI_IMPLIES: {
+                    byte right = stack[--top];
+                    byte left = stack[top - 1];
+                    stack[top - 1] = left == UNKNOWN || right == UNKNOWN ? UNKNOWN : left == right ? TRUE : FALSE;
+                    break;
+                }
+                case CARDINAL: {
+                    int count = program[pc++];
+                    int lowerBound = program[pc++];
+                    int upperBound = program[pc++];
+                    int trueCount = 0;
+                    int unknownCount = 0;
+                    for (int i = top - count; i < top; i++) {
+                        byte childValue = stack[i];
+                        if (childValue == TRUE) {
+                            trueCount++;
+                        } else if (childValue == UNKNOWN) {
+                            unknownCount++;
+                        }
+                    }
+                    top -= count;
+                    if (!testLowerBound(lowerBound, trueCount + unknownCount) || !testUpperBound(upperBound, trueCount)) {
+                        stack[top++] = FALSE;
+                    } else if (testLowerBound(lowerBound, trueCount)
+                            && testUpperBound(upperBound, trueCount + unknownCount)) {
+                        stack[top++] = TRUE;
+                    } else {
+                        stack[top++] = UNKNOWN;
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException(String.valueOf(program[pc - 1]));
+            }
+        }
+        return stack[0];
+    }
+
+    private static byte negate(byte value) {
+        return value == TRUE ? FALSE : value == FALSE ? TRUE : UNKNOWN;
+    }
+
+    private static boolean testLowerBound(int lowerBound, int value) {
+        return lowerBound == OPEN || lowerBound <= value;
+    }
+
+    private static boolean testUpperBound(int upperBound, int value) {
+        return upperBound == OPEN || value <= upperBound;
+    }
+}
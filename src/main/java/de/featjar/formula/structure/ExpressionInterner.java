@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import de.featjar.formula.structure.connective.Reference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Hash-conses expressions into maximally shared expression DAGs.
+ * Interning an expression returns a canonical instance, in which structurally equal subexpressions
+ * (including {@link de.featjar.formula.structure.term.value.Variable variables} and
+ * {@link de.featjar.formula.structure.predicate.Literal literals}) are represented by the same object.
+ * Thus, two interned expressions of the same interner are structurally equal iff they are identical,
+ * and their hash codes are cached by this interner (see {@link #hashCode(IExpression)}).
+ * <p>
+ * Interning does not modify its input; all canonical instances are owned by this interner.
+ * Because canonical instances are shared, they must be treated as immutable.
+ * Any {@link Reference} is never shared, as it is intended to enable mutation.
+ * This class is not thread-safe.
+ *
+ * @author Sebastian Krieter
+ */
+public class ExpressionInterner {
+
+    private static final class Key {
+        private final IExpression node;
+        private final int[] childIds;
+        private final int hashCode;
+
+        private Key(IExpression node, int[] childIds, int hashCode) {
+            this.node = node;
+            this.childIds = childIds;
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hashCode == other.hashCode
+                    && node.getClass() == other.node.getClass()
+                    && Arrays.equals(childIds, other.childIds)
+                    && node.equalsNode(other.node);
+        }
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final int hashCode;
+
+        private Entry(int id, int hashCode) {
+            this.id = id;
+            this.hashCode = hashCode;
+        }
+    }
+
+    private final HashMap<Key, IExpression> table = new HashMap<>();
+    private final IdentityHashMap<IExpression, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * {@return the canonical instance of the given expression}
+     * If the given expression is already canonical for this interner, it is returned as is.
+     *
+     * @param <T> the type of the expression
+     * @param expression the expression
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IExpression> T intern(T expression) {
+        if (entries.containsKey(expression)) {
+            return expression;
+        }
+        ArrayDeque<IExpression> stack = new ArrayDeque<>();
+        ArrayDeque<IExpression> results = new ArrayDeque<>();
+        IdentityHashMap<IExpression, IExpression> canonicals = new IdentityHashMap<>();
+        stack.push(expression);
+        while (!stack.isEmpty()) {
+            IExpression current = stack.peek();
+            IExpression canonical = entries.containsKey(current) ? current : canonicals.get(current);
+            if (canonical != null) {
+                stack.pop();
+                results.push(canonical);
+            } else if (!canonicals.containsKey(current)) {
+                canonicals.put(current, null);
+                List<? extends IExpression> children = current.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            } else {
+                stack.pop();
+                int childrenCount = current.getChildrenCount();
+                IExpression[] newChildren = new IExpression[childrenCount];
+                for (int i = 0; i < childrenCount; i++) {
+                    newChildren[i] = results.pop();
+                }
+                canonical = canonicalize(current, newChildren);
+                canonicals.put(current, canonical);
+                results.push(canonical);
+            }
+        }
+        return (T) results.pop();
+    }
+
+    /**
+     * {@return whether the given expression is a canonical instance of this interner}
+     *
+     * @param expression the expression
+     */
+    public boolean isInterned(IExpression expression) {
+        return entries.containsKey(expression);
+    }
+
+    /**
+     * {@return the cached structural hash code of the given canonical expression}
+     * Only consistent with structural equality for expressions of this interner.
+     *
+     * @param expression the expression
+     * @throws IllegalArgumentException if the expression is not interned by this interner
+     */
+    public int hashCode(IExpression expression) {
+        Entry entry = entries.get(expression);
+        if (entry == null) {
+            throw new IllegalArgumentException("expression is not interned " + expression);
+        }
+        return entry.hashCode;
+    }
+
+    /**
+     * {@return the number of distinct canonical expressions in this interner}
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all canonical expressions from this interner.
+     */
+    public void clear() {
+        table.clear();
+        entries.clear();
+    }
+
+    private IExpression canonicalize(IExpression expression, IExpression[] reversedChildren) {
+        int childrenCount = reversedChildren.length;
+        int[] childIds = new int[childrenCount];
+        int hashCode = expression.hashCodeNode();
+        List<IExpression> children = new ArrayList<>(childrenCount);
+        for (int i = childrenCount - 1; i >= 0; i--) {
+            IExpression child = reversedChildren[i];
+            Entry childEntry = entries.get(child);
+            childIds[childrenCount - 1 - i] = childEntry.id;
+            hashCode = 31 * hashCode + childEntry.hashCode;
+            children.add(child);
+        }
+        if (expression instanceof Reference) {
+            return register(newNode(expression, children), hashCode);
+        }
+        Key key = new Key(expression, childIds, hashCode);
+        IExpression canonical = table.get(key);
+        if (canonical == null) {
+            canonical = register(newNode(expression, children), hashCode);
+            table.put(new Key(canonical, childIds, hashCode), canonical);
+        }
+        return canonical;
+    }
+
+    private IExpression newNode(IExpression expression, List<IExpression> children) {
+        IExpression node = (IExpression) expression.cloneNode();
+        if (!children.isEmpty()) {
+            node.setChildren(children);
+        }
+        return node;
+    }
+
+    private IExpression register(IExpression node, int hashCode) {
+        entries.computeIfAbsent(node, n -> new Entry(entries.size(), hashCode));
+        return node;
+    }
+}
@@ -23,6 +23,7 @@ package de.featjar.formula.visitor;
 import de.featjar.base.data.Result;
 import de.featjar.base.data.Void;
 import de.featjar.base.tree.visitor.ITreeVisitor;
+import de.featjar.formula.computation.CardinalityEncoder;
 import de.featjar.formula.structure.Expressions;
 import de.featjar.formula.structure.IExpression;
 import de.featjar.formula.structure.IFormula;
@@ -37,16 +38,40 @@ import java.util.stream.Collectors;
  * Simplifies complex connectives using well-known identities.
  * That is, replaces {@link Implies}, {@link BiImplies}, {@link AtLeast}, {@link AtMost}, {@link Between},
  * and {@link Choose} with {@link And}, {@link Or}, and {@link Not}.
+ * Cardinality constraints are either expanded into all combinations of their children or, if a
+ * {@link CardinalityEncoder} is given, encoded with auxiliary variables, whose definitions are added to the
+ * referenced formula.
  *
  * @author Sebastian Krieter
  */
 public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
 
+    private final CardinalityEncoder.Encoding encoding;
+    private CardinalityEncoder cardinalityEncoder;
     private boolean fail;
 
+    /**
+     * Creates a new connective simplifier.
+     * Expands cardinality constraints into all combinations of their children.
+     */
+    public ConnectiveSimplifier() {
+        this(CardinalityEncoder.Encoding.BINOMIAL);
+    }
+
+    /**
+     * Creates a new connective simplifier.
+     *
+     * @param encoding the encoding for cardinality constraints
+     */
+    public ConnectiveSimplifier(CardinalityEncoder.Encoding encoding) {
+        this.encoding = encoding;
+        reset();
+    }
+
     @Override
     public void reset() {
         fail = false;
+        cardinalityEncoder = new CardinalityEncoder(encoding);
     }
 
     @Override
@@ -76,6 +101,13 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
         if (fail) {
             return TraversalAction.FAIL;
         }
+        if (path.size() == 1 && !cardinalityEncoder.getDefinitions().isEmpty()) {
+            final Reference reference = (Reference) formula;
+            final List<IFormula> conjuncts = new ArrayList<>();
+            conjuncts.add(reference.getExpression());
+            conjuncts.addAll(cardinalityEncoder.getDefinitions());
+            reference.setFormula(new And(conjuncts));
+        }
         return TraversalAction.CONTINUE;
     }
 
@@ -88,6 +120,13 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
             return null;
         }
         final List<IFormula> children = (List<IFormula>) formula.getChildren();
+        if (formula instanceof ACardinal) {
+            final Result<IFormula> encodedFormula =
+                    cardinalityEncoder.encode(children, ((ACardinal) formula).getRange());
+            if (encodedFormula.isPresent()) {
+                return encodedFormula.get();
+            }
+        }
         IFormula newFormula;
         if (formula instanceof Implies) {
             newFormula = new Or(new Not(children.get(0)), children.get(1));
@@ -95,27 +134,46 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
             newFormula = new And( //
                     new Or(new Not(children.get(0)), children.get(1)),
                     new Or(new Not(children.get(1)), children.get(0)));
-        } else if (formula instanceof AtLeast) {
-            newFormula = new And(atLeastK(children, ((AtLeast) formula).getMinimum()));
+        } else if (formula instanceof ACardinal) {
+            newFormula = expandCardinal((ACardinal) formula);
+        } else {
+            newFormula = null;
+        }
+        if (newFormula == null) {
+            fail = true;
+        }
+        return newFormula;
+    }
+
+    /**
+     * {@return a conjunction of all combinations of the given cardinality constraint's children that is equivalent to
+     * the constraint, {@code null} if the kind of cardinality constraint is not supported}
+     * The children are not cloned.
+     *
+     * @param formula the cardinality constraint
+     */
+    @SuppressWarnings("unchecked")
+    public static IFormula expandCardinal(ACardinal formula) {
+        final List<IFormula> children = (List<IFormula>) formula.getChildren();
+        if (formula instanceof AtLeast) {
+            return new And(atLeastK(children, ((AtLeast) formula).getMinimum()));
         } else if (formula instanceof AtMost) {
-            newFormula = new And(atMostK(children, ((AtMost) formula).getMaximum()));
+            return new And(atMostK(children, ((AtMost) formula).getMaximum()));
         } else if (formula instanceof Between) {
             final Between between = (Between) formula;
-            newFormula = new And(
+            return new And(
                     new And(atLeastK(children, between.getMinimum())),
                     new And(atMostK(children, between.getMaximum())));
         } else if (formula instanceof Choose) {
             final Choose choose = (Choose) formula;
-            newFormula = new And(
+            return new And(
                     new And(atLeastK(children, choose.getBound())), new And(atMostK(children, choose.getBound())));
         } else {
-            fail = true;
             return null;
         }
-        return newFormula;
     }
 
-    private List<IFormula> atMostK(List<? extends IFormula> elements, int k) {
+    private static List<IFormula> atMostK(List<? extends IFormula> elements, int k) {
         final int n = elements.size();
 
         // return tautology
@@ -131,7 +189,7 @@ public class ConnectiveSimplifier implements ITreeVisitor<IFormula, Void> {
         return groupElements(elements.stream().map(Not::new).collect(Collectors.toList()), k, n);
     }
 
-    private List<IFormula> atLeastK(List<? extends IFormula> elements, int k) {
+    private static List<IFormula> atLeastK(List<? extends IFormula> elements, int k) {
         final int n = elements.size();
 
         // return tautology
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.visitor;
+
+import de.featjar.base.data.Result;
+import de.featjar.base.tree.visitor.ITreeVisitor;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.structure.CompiledFormula;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.connective.ACardinal;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.BiImplies;
+import de.featjar.formula.structure.connective.Implies;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Or;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.predicate.False;
+import de.featjar.formula.structure.predicate.Literal;
+import de.featjar.formula.structure.predicate.True;
+import de.featjar.formula.structure.term.value.Constant;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles a propositional formula into a {@link CompiledFormula}.
+ * Supports {@link Literal literals}, {@link True}, {@link False}, and the connectives {@link And}, {@link Or},
+ * {@link Not}, {@link Implies}, {@link BiImplies}, {@link ACardinal}, and {@link Reference}.
+ * Fails for any other expression.
+ *
+ * @author Sebastian Krieter
+ */
+public class FormulaCompiler implements ITreeVisitor<IExpression, CompiledFormula> {
+    private final VariableMap variableMap;
+    private Boolean defaultBooleanValue;
+
+    private int[] program = new int[16];
+    private int programSize = 0;
+    private int stackSize = 0;
+    private int maximumStackSize = 0;
+
+    /**
+     * Creates a new formula compiler.
+     *
+     * @param variableMap the variable map used to translate variable names into indices
+     */
+    public FormulaCompiler(VariableMap variableMap) {
+        this.variableMap = variableMap;
+    }
+
+    public Boolean getDefaultBooleanValue() {
+        return defaultBooleanValue;
+    }
+
+    /**
+     * Sets the value of variables that are unassigned or not contained in the variable map.
+     *
+     * @param defaultBooleanValue the default value, {@code null} for unknown
+     */
+    public void setDefaultBooleanValue(Boolean defaultBooleanValue) {
+        this.defaultBooleanValue = defaultBooleanValue;
+    }
+
+    @Override
+    public void reset() {
+        program = new int[16];
+        programSize = 0;
+        stackSize = 0;
+        maximumStackSize = 0;
+    }
+
+    @Override
+    public TraversalAction firstVisit(List<IExpression> path) {
+        final IExpression expression = ITreeVisitor.getCurrentNode(path);
+        if (expression instanceof Literal || expression instanceof True || expression instanceof False) {
+            return TraversalAction.SKIP_CHILDREN;
+        } else if (expression instanceof And
+                || expression instanceof Or
+                || expression instanceof Not
+                || expression instanceof Implies
+                || expression instanceof BiImplies
+                || expression instanceof ACardinal
+                || expression instanceof Reference) {
+            return TraversalAction.CONTINUE;
+        } else {
+            return TraversalAction.FAIL;
+        }
+    }
+
+    @Override
+    public TraversalAction lastVisit(List<IExpression> path) {
+        final IExpression expression = ITreeVisitor.getCurrentNode(path);
+        final int childrenCount = expression.getChildrenCount();
+        if (expression instanceof Literal) {
+            if (!emitLiteral((Literal) expression)) {
+                return TraversalAction.FAIL;
+            }
+        } else if (expression instanceof True) {
+            push(CompiledFormula.CONSTANT, CompiledFormula.TRUE);
+        } else if (expression instanceof False) {
+            push(CompiledFormula.CONSTANT, CompiledFormula.FALSE);
+        } else if (expression instanceof And) {
+            pop(childrenCount);
+            push(CompiledFormula.AND, childrenCount);
+        } else if (expression instanceof Or) {
+            pop(childrenCount);
+            push(CompiledFormula.OR, childrenCount);
+        } else if (expression instanceof Not) {
+            pop(1);
+            push(CompiledFormula.NOT);
+        } else if (expression instanceof Implies) {
+            pop(2);
+            push(CompiledFormula.IMPLIES);
+        } else if (expression instanceof BiImplies) {
+            pop(2);
+            push(CompiledFormula.BI_IMPLIES);
+        } else if (expression instanceof ACardinal) {
+            ACardinal cardinal = (ACardinal) expression;
+            pop(childrenCount);
+            push(
+                    CompiledFormula.CARDINAL,
+                    childrenCount,
+                    cardinal.getRange().getLowerBound(),
+                    cardinal.getRange().getUpperBound());
+        }
+        return TraversalAction.CONTINUE;
+    }
+
+    private boolean emitLiteral(Literal literal) {
+        IExpression value = literal.getExpression();
+        if (value instanceof Variable) {
+            int index = variableMap.get(value.getName()).orElse(0);
+            if (index > 0) {
+                push(
+                        literal.isPositive() ? CompiledFormula.POSITIVE_LITERAL : CompiledFormula.NEGATIVE_LITERAL,
+                        index);
+            } else {
+                push(
+                        CompiledFormula.CONSTANT,
+                        toValue(defaultBooleanValue == null ? null : literal.isPositive() == defaultBooleanValue));
+            }
+            return true;
+        } else if (value instanceof Constant && ((Constant) value).getValue() instanceof Boolean) {
+            boolean constantValue = (Boolean) ((Constant) value).getValue();
+            push(CompiledFormula.CONSTANT, toValue(literal.isPositive() == constantValue));
+            return true;
+        }
+        return false;
+    }
+
+    private static byte toValue(Boolean value) {
+        return value == null ? CompiledFormula.UNKNOWN : value ? CompiledFormula.TRUE : CompiledFormula.FALSE;
+    }
+
+    private void pop(int count) {
+        stackSize -= count;
+    }
+
+    private void push(int... instruction) {
+        if (programSize + instruction.length > program.length) {
+            program = Arrays.copyOf(program, Math.max(2 * program.length, programSize + instruction.length));
+        }
+        System.arraycopy(instruction, 0, program, programSize, instruction.length);
+        programSize += instruction.length;
+        maximumStackSize = Math.max(maximumStackSize, ++stackSize);
+    }
+
+    @Override
+    public Result<CompiledFormula> getResult() {
+        return Result.of(new CompiledFormula(
+                Arrays.copyOf(program, programSize), maximumStackSize, toValue(defaultBooleanValue)));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.bdd;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atLeast;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.choose;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.transform.FormulaCreator;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BDDTest {
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        return clauseList.getAll().stream()
+                .allMatch(clause -> Arrays.stream(clause.get())
+                        .anyMatch(literal -> solution[Math.abs(literal) - 1] == literal));
+    }
+
+    private static List<BooleanAssignment> getSolutions(BooleanClauseList clauseList) {
+        return FormulaCreator.streamAllAssignments(clauseList.getVariableCount())
+                .filter(assignment -> test(clauseList, assignment.get()))
+                .collect(Collectors.toList());
+    }
+
+    private static BooleanClauseList getRandomClauseList(Random random) {
+        int variableCount = 2 + random.nextInt(9);
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        int clauseCount = random.nextInt(3 * variableCount);
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = new int[1 + random.nextInt(3)];
+            for (int j = 0; j < literals.length; j++) {
+                int variable = 1 + random.nextInt(variableCount);
+                literals[j] = random.nextBoolean() ? variable : -variable;
+            }
+            clauseList.add(new BooleanClause(literals));
+        }
+        return clauseList;
+    }
+
+    private static void assertSameEvaluation(IFormula formula) {
+        VariableMap variableMap = VariableMap.of(formula);
+        BDD bdd = new BDDBuilder(variableMap).build(formula, variableMap).orElseThrow();
+        long solutionCount = FormulaCreator.streamAllAssignments(variableMap.getVariableCount())
+                .filter(assignment -> {
+                    boolean value = Boolean.TRUE.equals(formula.evaluate(assignment, variableMap));
+                    assertEquals(value, bdd.test(assignment.toSolution()), assignment::print);
+                    return value;
+                })
+                .count();
+        assertEquals(BigInteger.valueOf(solutionCount), bdd.countSolutions());
+    }
+
+    @Test
+    void buildsFormulas() {
+        assertSameEvaluation(FormulaCreator.getFormula01());
+        assertSameEvaluation(FormulaCreator.getFormula02());
+        assertSameEvaluation(and(
+                biImplies(literal("a"), not(literal("b"))), or(literal(false, "c"), literal("d"), literal("a"))));
+        assertSameEvaluation(or(
+                choose(2, literal("a"), literal("b"), literal(false, "c")),
+                and(atMost(1, literal("a"), literal("d")), atLeast(2, literal("b"), literal("c"), literal("d")))));
+        assertSameEvaluation(between(1, 2, literal("a"), literal("b"), literal("c"), literal("d")));
+    }
+
+    @Test
+    void answersQueriesLikeEnumeration() {
+        Random random = new Random(0);
+        for (int run = 0; run < 200; run++) {
+            BooleanClauseList clauseList = getRandomClauseList(random);
+            int variableCount = clauseList.getVariableCount();
+            List<BooleanAssignment> solutions = getSolutions(clauseList);
+            BDD bdd = new BDDBuilder(clauseList).build(clauseList);
+
+            assertEquals(BigInteger.valueOf(solutions.size()), bdd.countSolutions(), clauseList::print);
+            assertEquals(!solutions.isEmpty(), bdd.isSatisfiable(), clauseList::print);
+            FormulaCreator.streamAllAssignments(variableCount).forEach(assignment -> assertEquals(
+                    test(clauseList, assignment.get()), bdd.test(assignment.toSolution()), clauseList::print));
+
+            Result<BooleanAssignment> impliedLiterals = bdd.getImpliedLiterals();
+            assertEquals(!solutions.isEmpty(), impliedLiterals.isPresent(), clauseList::print);
+            for (int variable = 1; variable <= variableCount; variable++) {
+                for (int literal : new int[] {variable, -variable}) {
+                    boolean implied = !solutions.isEmpty()
+                            && solutions.stream().allMatch(solution -> solution.containsAll(literal));
+                    assertEquals(
+                            implied,
+                            impliedLiterals.isPresent() && impliedLiterals.get().containsAll(literal),
+                            clauseList::print);
+                }
+            }
+
+            int variable = 1 + random.nextInt(variableCount);
+            BooleanAssignment condition = new BooleanAssignment(random.nextBoolean() ? variable : -variable);
+            assertEquals(
+                    BigInteger.valueOf(solutions.stream()
+                            .filter(solution -> solution.containsAll(condition.get()))
+                            .count()),
+                    bdd.condition(condition).countSolutions(),
+                    clauseList::print);
+
+            Result<BooleanSolution> sample = bdd.sample(random);
+            assertEquals(!solutions.isEmpty(), sample.isPresent(), clauseList::print);
+            if (sample.isPresent()) {
+                assertTrue(test(clauseList, sample.get().get()), clauseList::print);
+            }
+        }
+    }
+
+    @Test
+    void combinesFunctions() {
+        BDDManager manager = new BDDManager(new int[] {3, 1, 2});
+        BDD a = new BDD(manager, manager.literal(1));
+        BDD b = new BDD(manager, manager.literal(-2));
+        assertTrue(a.or(a.not()).isTautology());
+        assertFalse(a.and(a.not()).isSatisfiable());
+        assertEquals(BigInteger.valueOf(2), a.and(b).countSolutions());
+        assertEquals(BigInteger.valueOf(6), a.or(b).countSolutions());
+        assertEquals(BigInteger.valueOf(8), a.and(b).exists(1, 2).countSolutions());
+        assertEquals(manager.literal(-2), manager.restrict(a.and(b).getRoot(), 1));
+        assertEquals(BDDManager.FALSE, manager.restrict(a.and(b).getRoot(), -1));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.cdcl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.analysis.RuntimeContradictionException;
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CDCLSolverTest {
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        return clauseList.getAll().stream()
+                .allMatch(clause -> Arrays.stream(clause.get())
+                        .anyMatch(literal -> solution[Math.abs(literal) - 1] == literal));
+    }
+
+    private static boolean hasSolution(BooleanClauseList clauseList, int... assumptions) {
+        int variableCount = clauseList.getVariableCount();
+        int[] solution = new int[variableCount];
+        for (int bits = 0; bits < (1 << variableCount); bits++) {
+            for (int v = 0; v < variableCount; v++) {
+                solution[v] = ((bits >> v) & 1) == 1 ? v + 1 : -(v + 1);
+            }
+            if (Arrays.stream(assumptions).allMatch(literal -> solution[Math.abs(literal) - 1] == literal)
+                    && test(clauseList, solution)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BooleanClauseList getPigeonHoleProblem(int pigeonCount) {
+        int holeCount = pigeonCount - 1;
+        BooleanClauseList clauseList = new BooleanClauseList(pigeonCount * holeCount);
+        for (int pigeon = 0; pigeon < pigeonCount; pigeon++) {
+            int[] literals = new int[holeCount];
+            for (int hole = 0; hole < holeCount; hole++) {
+                literals[hole] = pigeon * holeCount + hole + 1;
+            }
+            clauseList.add(new BooleanClause(literals));
+        }
+        for (int hole = 0; hole < holeCount; hole++) {
+            for (int pigeon = 0; pigeon < pigeonCount; pigeon++) {
+                for (int otherPigeon = pigeon + 1; otherPigeon < pigeonCount; otherPigeon++) {
+                    clauseList.add(new BooleanClause(
+                            -(pigeon * holeCount + hole + 1), -(otherPigeon * holeCount + hole + 1)));
+                }
+            }
+        }
+        return clauseList;
+    }
+
+    private static int getRandomLiteral(Random random, int variableCount) {
+        int variable = 1 + random.nextInt(variableCount);
+        return random.nextBoolean() ? variable : -variable;
+    }
+
+    @Test
+    void solvesLikeEnumeration() {
+        Random random = new Random(0);
+        for (int run = 0; run < 300; run++) {
+            int variableCount = 3 + random.nextInt(10);
+            BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+            int clauseCount = 1 + random.nextInt(5 * variableCount);
+            for (int i = 0; i < clauseCount; i++) {
+                int[] literals = new int[1 + random.nextInt(4)];
+                for (int j = 0; j < literals.length; j++) {
+                    literals[j] = getRandomLiteral(random, variableCount);
+                }
+                clauseList.add(new BooleanClause(literals));
+            }
+            CDCLSolver solver = new CDCLSolver(clauseList);
+            for (int i = 0; i < 5; i++) {
+                int[] assumptions = new int[random.nextInt(4)];
+                for (int j = 0; j < assumptions.length; j++) {
+                    assumptions[j] = getRandomLiteral(random, variableCount);
+                }
+                Result<BooleanSolution> solution = solver.findSolution(assumptions);
+                assertEquals(hasSolution(clauseList, assumptions), solution.isPresent(), clauseList::print);
+                if (solution.isPresent()) {
+                    assertTrue(test(clauseList, solution.get().get()), clauseList::print);
+                    assertTrue(solution.get().containsAll(assumptions), clauseList::print);
+                }
+            }
+            int[] literals = {getRandomLiteral(random, variableCount), getRandomLiteral(random, variableCount)};
+            clauseList.add(new BooleanClause(literals));
+            try {
+                solver.addClause(literals);
+            } catch (RuntimeContradictionException e) {
+                assertTrue(solver.isContradiction());
+            }
+            assertEquals(hasSolution(clauseList), solver.hasSolution().get(), clauseList::print);
+        }
+    }
+
+    @Test
+    void refutesPigeonHoleProblem() {
+        CDCLSolver solver = new CDCLSolver(getPigeonHoleProblem(7));
+        assertFalse(solver.hasSolution().get());
+        assertFalse(solver.isTimeoutOccurred());
+        assertTrue(solver.getConflictCount() > 0);
+    }
+
+    @Test
+    void stopsAtTimeout() {
+        CDCLSolver solver = new CDCLSolver(getPigeonHoleProblem(12));
+        solver.setTimeout(Duration.ofMillis(50));
+        assertFalse(solver.hasSolution().isPresent());
+        assertTrue(solver.isTimeoutOccurred());
+    }
+
+    @Test
+    void completesPartialSolutions() {
+        BooleanClauseList clauseList = new BooleanClauseList(4);
+        clauseList.add(new BooleanClause(-1, 2));
+        clauseList.add(new BooleanClause(-3, -4));
+        CDCLSolver solver = new CDCLSolver(clauseList);
+
+        BooleanSolution solution =
+                solver.complete(List.of(new int[] {1}), List.of(new int[] {3}), null).get();
+        assertTrue(solution.containsAll(1, 2, -3));
+
+        List<int[]> choose = new ArrayList<>();
+        choose.add(new int[] {3});
+        choose.add(new int[] {4});
+        choose.add(new int[] {1, -2});
+        choose.add(new int[] {-1});
+        solution = solver.complete(null, null, choose).get();
+        assertTrue(solution.containsAll(3, -4, -1));
+
+        assertFalse(solver.complete(List.of(new int[] {1}), List.of(new int[] {2}), null)
+                .isPresent());
+        assertTrue(solver.complete(null, List.of(new int[] {2}), null).get().containsAll(-1, -2));
+        assertTrue(solver.update(new BooleanSolution(new int[] {1, 0, 0, 4}, false))
+                .get()
+                .containsAll(1, 2, -3, 4));
+    }
+
+    @Test
+    void keepsSizeForRepeatedExclusions() {
+        Random random = new Random(0);
+        int variableCount = 10;
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        for (int i = 0; i < 30; i++) {
+            clauseList.add(new BooleanClause(
+                    getRandomLiteral(random, variableCount),
+                    getRandomLiteral(random, variableCount),
+                    getRandomLiteral(random, variableCount)));
+        }
+        CDCLSolver solver = new CDCLSolver(clauseList);
+        int clauseCount = solver.getClauseCount();
+        for (int run = 0; run < 2000; run++) {
+            int[] include = {getRandomLiteral(random, variableCount)};
+            int[] exclude = {getRandomLiteral(random, variableCount), getRandomLiteral(random, variableCount)};
+            BooleanClauseList excludingClauseList = new BooleanClauseList(clauseList);
+            excludingClauseList.add(new BooleanClause(-exclude[0], -exclude[1]));
+
+            Result<BooleanSolution> solution = solver.complete(List.of(include), List.of(exclude), null);
+            assertEquals(hasSolution(excludingClauseList, include), solution.isPresent());
+            if (solution.isPresent()) {
+                assertTrue(test(excludingClauseList, solution.get().get()));
+            }
+            assertEquals(variableCount + 1, solver.getVariableCount());
+            assertTrue(solver.getClauseCount() - solver.getLearnedClauseCount() <= clauseCount);
+        }
+        assertEquals(hasSolution(clauseList), solver.hasSolution().get());
+    }
+}
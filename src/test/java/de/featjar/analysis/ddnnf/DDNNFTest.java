@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.analysis.ddnnf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.data.Result;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DDNNFTest {
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        return clauseList.getAll().stream()
+                .allMatch(clause -> Arrays.stream(clause.get())
+                        .anyMatch(literal -> solution[Math.abs(literal) - 1] == literal));
+    }
+
+    private static int getRandomLiteral(Random random, int variableCount) {
+        int variable = 1 + random.nextInt(variableCount);
+        return random.nextBoolean() ? variable : -variable;
+    }
+
+    @Test
+    void answersQueriesLikeEnumeration() {
+        Random random = new Random(0);
+        for (int run = 0; run < 300; run++) {
+            int variableCount = 1 + random.nextInt(10);
+            BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+            int clauseCount = random.nextInt(4 * variableCount + 1);
+            for (int i = 0; i < clauseCount; i++) {
+                int[] literals = new int[1 + random.nextInt(3)];
+                for (int j = 0; j < literals.length; j++) {
+                    literals[j] = getRandomLiteral(random, variableCount);
+                }
+                clauseList.add(new BooleanClause(literals));
+            }
+            int[] assumptions = new int[random.nextInt(3)];
+            for (int j = 0; j < assumptions.length; j++) {
+                assumptions[j] = getRandomLiteral(random, variableCount);
+            }
+
+            long solutionCount = 0;
+            long conditionalSolutionCount = 0;
+            long[] literalCounts = new long[2 * variableCount];
+            int[] solution = new int[variableCount];
+            for (int bits = 0; bits < (1 << variableCount); bits++) {
+                for (int v = 0; v < variableCount; v++) {
+                    solution[v] = ((bits >> v) & 1) == 1 ? v + 1 : -(v + 1);
+                }
+                if (test(clauseList, solution)) {
+                    solutionCount++;
+                    if (Arrays.stream(assumptions).allMatch(literal -> solution[Math.abs(literal) - 1] == literal)) {
+                        conditionalSolutionCount++;
+                        for (int v = 0; v < variableCount; v++) {
+                            literalCounts[2 * v + (solution[v] > 0 ? 0 : 1)]++;
+                        }
+                    }
+                }
+            }
+
+            DDNNF ddnnf = new DDNNFCompiler(clauseList).compile();
+            assertEquals(BigInteger.valueOf(solutionCount), ddnnf.countSolutions(), clauseList::print);
+            assertEquals(
+                    BigInteger.valueOf(conditionalSolutionCount),
+                    ddnnf.countSolutions(assumptions),
+                    clauseList::print);
+            BigInteger[] literalSolutionCounts = ddnnf.countLiteralSolutions(assumptions);
+            for (int i = 0; i < literalCounts.length; i++) {
+                assertEquals(BigInteger.valueOf(literalCounts[i]), literalSolutionCounts[i], clauseList::print);
+            }
+
+            Result<BooleanSolution> sample = ddnnf.sample(random, assumptions);
+            assertEquals(conditionalSolutionCount > 0, sample.isPresent(), clauseList::print);
+            if (sample.isPresent()) {
+                assertTrue(test(clauseList, sample.get().get()), clauseList::print);
+                assertTrue(sample.get().containsAll(assumptions), clauseList::print);
+            }
+        }
+    }
+
+    @Test
+    void samplesUniformly() {
+        BooleanClauseList clauseList = new BooleanClauseList(4);
+        clauseList.add(new BooleanClause(1, 2));
+        clauseList.add(new BooleanClause(-1, 3));
+        clauseList.add(new BooleanClause(-3, -4, 2));
+        DDNNF ddnnf = new DDNNFCompiler(clauseList).compile();
+        assertEquals(BigInteger.valueOf(7), ddnnf.countSolutions());
+
+        Random random = new Random(0);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (int i = 0; i < 7000; i++) {
+            frequencies.merge(Arrays.toString(ddnnf.sample(random).get().get()), 1, Integer::sum);
+        }
+        assertEquals(7, frequencies.size());
+        frequencies.values().forEach(frequency -> assertTrue(frequency > 800 && frequency < 1200));
+    }
+
+    @Test
+    void compilesContradictions() {
+        BooleanClauseList clauseList = new BooleanClauseList(2);
+        clauseList.add(new BooleanClause(1));
+        clauseList.add(new BooleanClause(-1));
+        DDNNF ddnnf = new DDNNFCompiler(clauseList).compile();
+        assertEquals(BigInteger.ZERO, ddnnf.countSolutions());
+        assertFalse(ddnnf.sample(new Random(0)).isPresent());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BinaryImplicationGraphTest {
+
+    private static BooleanClauseList getRandomClauseList(Random random, int variableCount, int clauseCount) {
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = new int[random.nextInt(5) == 0 ? 3 : 2];
+            for (int j = 0; j < literals.length; j++) {
+                int variable = 1 + random.nextInt(variableCount);
+                literals[j] = random.nextBoolean() ? variable : -variable;
+            }
+            clauseList.add(new BooleanClause(literals));
+        }
+        return clauseList;
+    }
+
+    /**
+     * {@return for each pair of literals, whether the first implies the second, indexed by {@code l + variableCount}}
+     */
+    private static boolean[][] computeImplications(BooleanClauseList clauseList) {
+        int variableCount = clauseList.getVariableCount();
+        int nodeCount = 2 * variableCount + 1;
+        boolean[][] implications = new boolean[nodeCount][nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            implications[i][i] = true;
+        }
+        for (BooleanClause clause : clauseList.getAll()) {
+            int[] literals = clause.get();
+            if (literals.length == 2) {
+                implications[-literals[0] + variableCount][literals[1] + variableCount] = true;
+                implications[-literals[1] + variableCount][literals[0] + variableCount] = true;
+            }
+        }
+        for (int k = 0; k < nodeCount; k++) {
+            for (int i = 0; i < nodeCount; i++) {
+                if (implications[i][k]) {
+                    for (int j = 0; j < nodeCount; j++) {
+                        implications[i][j] |= implications[k][j];
+                    }
+                }
+            }
+        }
+        return implications;
+    }
+
+    private static void assertSameImplications(
+            BinaryImplicationGraph graph, boolean[][] implications, int variableCount) {
+        boolean isSatisfiable = true;
+        for (int literal1 = -variableCount; literal1 <= variableCount; literal1++) {
+            if (literal1 == 0) {
+                continue;
+            }
+            boolean[] implied = implications[literal1 + variableCount];
+            for (int literal2 = -variableCount; literal2 <= variableCount; literal2++) {
+                if (literal2 != 0) {
+                    boolean isEquivalent = implied[literal2 + variableCount]
+                            && implications[literal2 + variableCount][literal1 + variableCount];
+                    assertEquals(implied[literal2 + variableCount], graph.implies(literal1, literal2));
+                    assertEquals(isEquivalent, graph.areEquivalent(literal1, literal2));
+                }
+            }
+            int literal = literal1;
+            int node = literal + variableCount;
+            int negatedNode = -literal + variableCount;
+            int[] expectedImpliedLiterals = IntStream.rangeClosed(-variableCount, variableCount)
+                    .filter(l -> l != 0 && l != literal && implied[l + variableCount])
+                    .toArray();
+            assertArrayEquals(expectedImpliedLiterals, graph.getImpliedLiterals(literal).get());
+            assertEquals(implied[negatedNode], graph.isFailed(literal));
+            isSatisfiable &= !(implied[negatedNode] && implications[negatedNode][node]);
+        }
+        assertEquals(isSatisfiable, graph.isSatisfiable());
+
+        int[] expectedFailedLiterals = IntStream.rangeClosed(-variableCount, variableCount)
+                .filter(l -> l != 0 && implications[l + variableCount][-l + variableCount])
+                .toArray();
+        assertArrayEquals(expectedFailedLiterals, graph.getFailedLiterals().get());
+    }
+
+    @Test
+    void answersQueriesLikeTransitiveClosure() {
+        Random random = new Random(0);
+        for (int run = 0; run < 200; run++) {
+            int variableCount = 1 + random.nextInt(12);
+            BooleanClauseList clauseList =
+                    getRandomClauseList(random, variableCount, random.nextInt(2 * variableCount));
+            boolean[][] implications = computeImplications(clauseList);
+            BinaryImplicationGraph graph = new BinaryImplicationGraph(clauseList);
+            assertSameImplications(graph, implications, variableCount);
+            graph.computeTransitiveClosure();
+            assertTrue(graph.hasTransitiveClosure());
+            assertSameImplications(graph, implications, variableCount);
+        }
+    }
+
+    @Test
+    void findsEquivalenceClasses() {
+        BooleanClauseList clauseList = new BooleanClauseList(5);
+        clauseList.add(new BooleanClause(-1, 2));
+        clauseList.add(new BooleanClause(-2, 3));
+        clauseList.add(new BooleanClause(-3, 1));
+        clauseList.add(new BooleanClause(4, 5));
+        clauseList.add(new BooleanClause(-4, -5));
+        clauseList.add(new BooleanClause(1, 4, 5));
+        BinaryImplicationGraph graph = new BinaryImplicationGraph(clauseList);
+        assertTrue(graph.isSatisfiable());
+        assertTrue(graph.areEquivalent(1, 3));
+        assertTrue(graph.areEquivalent(4, -5));
+        assertFalse(graph.implies(-1, 4));
+
+        List<BooleanAssignment> equivalenceClasses = graph.getEquivalenceClasses();
+        assertEquals(2, equivalenceClasses.size());
+        int[] sortedLiterals = equivalenceClasses.stream()
+                .flatMapToInt(equivalenceClass -> IntStream.of(equivalenceClass.get()))
+                .sorted()
+                .toArray();
+        assertArrayEquals(new int[] {-5, 1, 2, 3, 4}, sortedLiterals);
+
+        clauseList.add(new BooleanClause(-1, -3));
+        graph = new BinaryImplicationGraph(clauseList);
+        assertTrue(graph.isSatisfiable());
+        assertArrayEquals(new int[] {1, 2, 3}, graph.getFailedLiterals().get());
+
+        clauseList.add(new BooleanClause(1, 2));
+        graph = new BinaryImplicationGraph(clauseList);
+        assertFalse(graph.isSatisfiable());
+        assertTrue(graph.getEquivalenceClasses().isEmpty());
+    }
+
+    @Test
+    void handlesLargeGraphsInParallel() {
+        Random random = new Random(1);
+        int variableCount = 3000;
+        BooleanClauseList clauseList = getRandomClauseList(random, variableCount, variableCount);
+        BinaryImplicationGraph graph = new BinaryImplicationGraph(clauseList);
+        BooleanAssignment failedLiterals = graph.getFailedLiterals();
+        int[][] queries = new int[1000][];
+        for (int i = 0; i < queries.length; i++) {
+            int literal1 = (1 + random.nextInt(variableCount)) * (random.nextBoolean() ? 1 : -1);
+            int literal2 = (1 + random.nextInt(variableCount)) * (random.nextBoolean() ? 1 : -1);
+            queries[i] = new int[] {literal1, literal2};
+        }
+        boolean[] answers = new boolean[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            answers[i] = graph.implies(queries[i][0], queries[i][1]);
+        }
+        graph.computeTransitiveClosure();
+        assertEquals(failedLiterals, graph.getFailedLiterals());
+        for (int i = 0; i < queries.length; i++) {
+            assertEquals(answers[i], graph.implies(queries[i][0], queries[i][1]));
+        }
+    }
+}
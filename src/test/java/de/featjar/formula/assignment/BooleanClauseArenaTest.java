@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BooleanClauseArenaTest {
+
+    private static BooleanClauseList getRandomClauseList(Random random) {
+        int variableCount = 1 + random.nextInt(20);
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        int clauseCount = random.nextInt(100);
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = new int[random.nextInt(5)];
+            for (int j = 0; j < literals.length; j++) {
+                int variable = 1 + random.nextInt(variableCount);
+                literals[j] = random.nextBoolean() ? variable : -variable;
+            }
+            clauseList.add(new BooleanClause(literals));
+        }
+        return clauseList;
+    }
+
+    @Test
+    void behavesLikeClauseList() {
+        Random random = new Random(0);
+        for (int run = 0; run < 100; run++) {
+            BooleanClauseList clauseList = getRandomClauseList(random);
+            List<BooleanClause> clauses = clauseList.getAll();
+            BooleanClauseArena arena = new BooleanClauseArena(clauseList.getVariableCount());
+            for (BooleanClause clause : clauses) {
+                int[] literals = clause.get();
+                int[] shuffledLiterals = new int[literals.length + 2];
+                for (int i = literals.length - 1; i >= 0; i--) {
+                    shuffledLiterals[literals.length - i] = literals[i];
+                }
+                arena.addClause(shuffledLiterals, 1, literals.length + 1);
+            }
+
+            assertEquals(clauses.size(), arena.size());
+            assertEquals(clauses, arena);
+            assertEquals(clauses.hashCode(), arena.hashCode());
+            assertEquals(clauseList, arena.toClauseList());
+            assertEquals(arena, new BooleanClauseArena(clauseList));
+            assertEquals(clauses.stream().mapToInt(ABooleanAssignment::size).sum(), arena.getLiteralCount());
+
+            List<int[]> visitedClauses = new ArrayList<>();
+            arena.forEachClause((literals, start, end) -> visitedClauses.add(Arrays.copyOfRange(literals, start, end)));
+            int i = 0;
+            for (BooleanClauseArena.ClauseView view : arena.views()) {
+                int[] literals = clauses.get(i).get();
+                assertEquals(i, view.getIndex());
+                assertEquals(literals.length, view.size());
+                assertEquals(literals.length, arena.getClauseSize(i));
+                assertArrayEquals(literals, view.toArray());
+                assertArrayEquals(literals, visitedClauses.get(i));
+                for (int j = 0; j < literals.length; j++) {
+                    assertEquals(literals[j], view.get(j));
+                    assertEquals(literals[j], arena.getLiteral(i, j));
+                    assertTrue(view.contains(literals[j]));
+                }
+                i++;
+            }
+            assertEquals(clauses.size(), i);
+        }
+    }
+
+    @Test
+    void appendsInBulk() {
+        Random random = new Random(1);
+        BooleanClauseArena arena = new BooleanClauseArena(0, 1, 1);
+        List<BooleanClause> clauses = new ArrayList<>();
+        for (int run = 0; run < 20; run++) {
+            BooleanClauseList clauseList = getRandomClauseList(random);
+            clauses.addAll(clauseList.getAll());
+            if (random.nextBoolean()) {
+                arena.addAll(new BooleanClauseArena(clauseList));
+            } else {
+                arena.addAll(clauseList.getAll());
+            }
+            assertEquals(clauses, arena);
+        }
+        BooleanClauseArena copy = new BooleanClauseArena(arena);
+        arena.clear();
+        assertEquals(0, arena.size());
+        assertEquals(0, arena.getLiteralCount());
+        assertEquals(clauses, copy);
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.view(0));
+        assertThrows(UnsupportedOperationException.class, () -> copy.remove(0));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BooleanClauseIndexTest {
+
+    private static BooleanClause getRandomClause(Random random, int variableCount) {
+        int[] literals = new int[1 + random.nextInt(4)];
+        for (int j = 0; j < literals.length; j++) {
+            int variable = 1 + random.nextInt(variableCount);
+            literals[j] = random.nextBoolean() ? variable : -variable;
+        }
+        return new BooleanClause(literals);
+    }
+
+    private static void assertSameOccurrences(BooleanClauseIndex index, List<BooleanClause> clauses) {
+        int variableCount = index.getVariableCount();
+        int[] occurrenceCounts = index.getOccurrenceCounts();
+        for (int variable = 1; variable <= variableCount + 1; variable++) {
+            for (int literal : new int[] {variable, -variable}) {
+                int[] expectedClauses = IntStream.range(0, clauses.size())
+                        .filter(i -> clauses.get(i) != null && clauses.get(i).containsAll(literal))
+                        .toArray();
+                assertArrayEquals(expectedClauses, index.getClauses(literal));
+                assertEquals(expectedClauses.length, index.countOccurrences(literal));
+                if (variable <= variableCount) {
+                    int literalIndex = 2 * (variable - 1) + (literal > 0 ? 0 : 1);
+                    assertEquals(expectedClauses.length, occurrenceCounts[literalIndex]);
+                }
+
+                int[] expectedNeighbors = clauses.stream()
+                        .filter(clause -> clause != null
+                                && clause.size() == 2
+                                && clause.get()[0] != clause.get()[1]
+                                && clause.containsAll(literal))
+                        .mapToInt(clause -> clause.get()[0] == literal ? clause.get()[1] : clause.get()[0])
+                        .sorted()
+                        .toArray();
+                int[] neighbors = index.getBinaryNeighbors(literal);
+                assertArrayEquals(expectedNeighbors, IntStream.of(neighbors).sorted().toArray());
+            }
+        }
+
+        BitSet expectedTouchingClauses = new BitSet();
+        for (int i = 0; i < clauses.size(); i++) {
+            BooleanClause clause = clauses.get(i);
+            if (clause != null && IntStream.of(clause.get()).anyMatch(l -> Math.abs(l) == 1 || Math.abs(l) == 2)) {
+                expectedTouchingClauses.set(i);
+            }
+        }
+        assertEquals(expectedTouchingClauses, index.getTouchingClauses(1, 2));
+        assertEquals(clauses.stream().filter(clause -> clause != null).count(), index.size());
+    }
+
+    @Test
+    void updatesIncrementally() {
+        Random random = new Random(0);
+        for (int run = 0; run < 50; run++) {
+            int variableCount = 2 + random.nextInt(10);
+            BooleanClauseIndex index = new BooleanClauseIndex(1);
+            List<BooleanClause> clauses = new ArrayList<>();
+            for (int step = 0; step < 200; step++) {
+                if (clauses.isEmpty() || random.nextInt(3) > 0) {
+                    BooleanClause clause = getRandomClause(random, variableCount);
+                    assertEquals(clauses.size(), index.add(clause));
+                    clauses.add(clause);
+                } else {
+                    int id = random.nextInt(clauses.size());
+                    assertEquals(clauses.get(id) != null, index.remove(id));
+                    clauses.set(id, null);
+                    assertFalse(index.contains(id));
+                    assertFalse(index.getClause(id).isPresent());
+                }
+            }
+            assertSameOccurrences(index, clauses);
+            for (int id = 0; id < clauses.size(); id++) {
+                if (clauses.get(id) != null) {
+                    assertTrue(index.contains(id));
+                    assertEquals(clauses.get(id), index.getClause(id).get());
+                }
+            }
+        }
+    }
+
+    @Test
+    void buildsLargeClauseListsInParallel() {
+        Random random = new Random(1);
+        int variableCount = 200;
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        for (int i = 0; i < 20_000; i++) {
+            clauseList.add(getRandomClause(random, variableCount));
+        }
+        BooleanClauseIndex index = new BooleanClauseIndex(clauseList);
+        List<BooleanClause> clauses = new ArrayList<>(clauseList.getAll());
+        assertSameOccurrences(index, clauses);
+        for (int i = 0; i < 1000; i++) {
+            int id = random.nextInt(clauses.size());
+            index.remove(id);
+            clauses.set(id, null);
+        }
+        assertSameOccurrences(index, clauses);
+    }
+}
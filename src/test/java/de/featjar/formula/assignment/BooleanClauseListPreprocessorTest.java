@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Pair;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.computation.ComputeCNFFormula;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.computation.TseitinTransformer;
+import de.featjar.formula.structure.IFormula;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BooleanClauseListPreprocessorTest {
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        return clauseList.getAll().stream()
+                .allMatch(clause -> Arrays.stream(clause.get())
+                        .anyMatch(literal -> solution[Math.abs(literal) - 1] == literal));
+    }
+
+    private static List<int[]> getSolutions(BooleanClauseList clauseList, int variableCount) {
+        List<int[]> solutions = new ArrayList<>();
+        for (int bits = 0; bits < (1 << variableCount); bits++) {
+            int[] solution = new int[variableCount];
+            for (int v = 0; v < variableCount; v++) {
+                solution[v] = ((bits >> v) & 1) == 1 ? v + 1 : -(v + 1);
+            }
+            if (test(clauseList, solution)) {
+                solutions.add(solution);
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Checks that every reconstructed solution is a solution of the original clause list and that the solutions of
+     * the reduced clause list are exactly the projections of the original solutions.
+     */
+    private static void assertReconstructs(
+            BooleanClauseList clauseList,
+            VariableMap variableMap,
+            Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> result) {
+        BooleanClauseList reducedClauseList = result.getKey().getKey();
+        VariableMap reducedVariableMap = result.getKey().getValue();
+        ReconstructionStack reconstructionStack = result.getValue();
+        int variableCount = variableMap.getVariableCount();
+        int reducedVariableCount = reducedVariableMap.getVariableCount();
+        assertTrue(reducedVariableCount <= variableCount);
+
+        int[] originalVariables = reducedVariableMap.getVariableNames().stream()
+                .mapToInt(name -> variableMap.get(name).orElseThrow())
+                .toArray();
+        Set<String> projectedSolutions = getSolutions(clauseList, variableCount).stream()
+                .map(solution -> Arrays.toString(IntStream.range(0, reducedVariableCount)
+                        .map(v -> solution[originalVariables[v] - 1] > 0 ? v + 1 : -(v + 1))
+                        .toArray()))
+                .collect(Collectors.toSet());
+        Set<String> reducedSolutions = new HashSet<>();
+        for (int[] reducedSolution : getSolutions(reducedClauseList, reducedVariableCount)) {
+            reducedSolutions.add(Arrays.toString(reducedSolution));
+            BooleanSolution solution = reconstructionStack.reconstruct(new BooleanSolution(reducedSolution, false));
+            assertTrue(Arrays.stream(solution.get()).noneMatch(literal -> literal == 0), solution::print);
+            assertTrue(test(clauseList, solution.get()), clauseList::print);
+        }
+        assertEquals(projectedSolutions, reducedSolutions, clauseList::print);
+    }
+
+    @Test
+    void reconstructsRandomClauseLists() {
+        Random random = new Random(0);
+        int variableCount = 7;
+        VariableMap variableMap = VariableMap.of(
+                IntStream.rangeClosed(1, variableCount).mapToObj(v -> "x" + v).collect(Collectors.toList()));
+        for (int run = 0; run < 200; run++) {
+            BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+            int clauseCount = 1 + random.nextInt(16);
+            for (int i = 0; i < clauseCount; i++) {
+                int[] literals = new int[1 + random.nextInt(3)];
+                for (int j = 0; j < literals.length; j++) {
+                    int variable = 1 + random.nextInt(variableCount);
+                    literals[j] = random.nextBoolean() ? variable : -variable;
+                }
+                clauseList.add(new BooleanClause(literals));
+            }
+            assertReconstructs(
+                    clauseList, variableMap, new BooleanClauseListPreprocessor().apply(clauseList, variableMap));
+        }
+    }
+
+    @Test
+    void substitutesEquivalentLiterals() {
+        VariableMap variableMap = VariableMap.of(List.of("a", "b", "c", "d"));
+        BooleanClauseList clauseList = new BooleanClauseList(4);
+        clauseList.add(new BooleanClause(-1, 2));
+        clauseList.add(new BooleanClause(-2, 3));
+        clauseList.add(new BooleanClause(-3, 1));
+        clauseList.add(new BooleanClause(1, 4));
+        BooleanClauseListPreprocessor preprocessor = new BooleanClauseListPreprocessor();
+        preprocessor.setVariableElimination(false);
+        Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> result =
+                preprocessor.apply(clauseList, variableMap);
+        assertEquals(List.of("a", "d"), result.getKey().getValue().getVariableNames());
+        assertEquals(1, result.getKey().getKey().size());
+        assertReconstructs(clauseList, variableMap, result);
+    }
+
+    @Test
+    void eliminatesAuxiliaryVariables() {
+        IFormula formula = and(
+                implies(literal("a"), or(and(literal("b"), literal("c")), and(literal("d"), literal("e")))),
+                biImplies(literal("b"), or(literal("d"), and(literal("c"), literal("e")))));
+        Pair<BooleanClauseList, VariableMap> clauseList = Computations.of(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                .map(ComputeBooleanClauseList::new)
+                .get()
+                .get();
+        Pair<Pair<BooleanClauseList, VariableMap>, ReconstructionStack> result = Computations.of(clauseList)
+                .map(ComputePreprocessedBooleanClauseList::new)
+                .get()
+                .get();
+        List<String> variableNames = result.getKey().getValue().getVariableNames();
+        assertTrue(variableNames.containsAll(List.of("a", "b", "c", "d", "e")), variableNames::toString);
+        assertTrue(variableNames.size() < clauseList.getValue().getVariableCount(), variableNames::toString);
+        assertTrue(variableNames.stream()
+                .filter(name -> name.startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX))
+                .count()
+                < clauseList.getValue().getVariableNames().stream()
+                        .filter(name -> name.startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX))
+                        .count());
+        assertReconstructs(clauseList.getKey(), clauseList.getValue(), result);
+    }
+}
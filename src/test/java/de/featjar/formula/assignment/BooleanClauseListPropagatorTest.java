@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.analysis.RuntimeContradictionException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BooleanClauseListPropagatorTest {
+
+    private static BooleanClauseList getClauseList(int variableCount, int[]... clauses) {
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        for (int[] clause : clauses) {
+            clauseList.add(new BooleanClause(clause));
+        }
+        return clauseList;
+    }
+
+    /**
+     * Naively propagates assumptions by repeatedly scanning all clauses.
+     *
+     * @return the assignment after propagation or {@code null} if there is a conflict
+     */
+    private static int[] propagate(BooleanClauseList clauseList, int[] assumptions) {
+        int[] values = new int[clauseList.getVariableCount()];
+        for (int literal : assumptions) {
+            if (values[Math.abs(literal) - 1] == -literal) {
+                return null;
+            }
+            values[Math.abs(literal) - 1] = literal;
+        }
+        boolean isChanged = true;
+        while (isChanged) {
+            isChanged = false;
+            for (BooleanClause clause : clauseList.getAll()) {
+                int unassignedLiteral = 0;
+                int unassignedCount = 0;
+                boolean isSatisfied = false;
+                for (int literal : clause.get()) {
+                    int value = values[Math.abs(literal) - 1];
+                    if (value == literal) {
+                        isSatisfied = true;
+                        break;
+                    } else if (value == 0 && literal != unassignedLiteral) {
+                        unassignedLiteral = literal;
+                        unassignedCount++;
+                    }
+                }
+                if (!isSatisfied) {
+                    if (unassignedCount == 0) {
+                        return null;
+                    } else if (unassignedCount == 1) {
+                        values[Math.abs(unassignedLiteral) - 1] = unassignedLiteral;
+                        isChanged = true;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    @Test
+    void propagatesAndUndoesAssumptions() {
+        BooleanClauseList clauseList =
+                getClauseList(5, new int[] {-1, 2}, new int[] {-2, 3, 4}, new int[] {-3, 5}, new int[] {-4, 5});
+        BooleanClauseListPropagator propagator = new BooleanClauseListPropagator(clauseList);
+        assertTrue(propagator.assume(1));
+        assertArrayEquals(new int[] {1, 2}, propagator.getImpliedLiterals());
+        assertTrue(propagator.assume(-3));
+        assertFalse(propagator.isConflicting());
+        assertArrayEquals(new int[] {-3, 4, 5}, propagator.getImpliedLiterals());
+        assertEquals(2, propagator.getDecisionLevel());
+        propagator.undo();
+        assertArrayEquals(new int[] {1, 2, 0, 0, 0}, propagator.getSolution().get());
+        assertFalse(propagator.assume(-5));
+        assertTrue(propagator.isConflicting());
+        assertEquals(new BooleanClause(-2, 3, 4), propagator.getConflictingClause().get());
+        propagator.undo();
+        assertFalse(propagator.isConflicting());
+        assertFalse(propagator.assume(-2));
+        assertFalse(propagator.getConflictingClause().isPresent());
+        propagator.undoAll();
+        assertEquals(0, propagator.getDecisionLevel());
+        assertArrayEquals(new int[0], propagator.getTrail());
+    }
+
+    @Test
+    void detectsContradictions() {
+        assertThrows(
+                RuntimeContradictionException.class,
+                () -> new BooleanClauseListPropagator(
+                        getClauseList(2, new int[] {1}, new int[] {-1, 2}, new int[] {-2, -1})));
+        BooleanClauseListPropagator propagator =
+                new BooleanClauseListPropagator(getClauseList(2, new int[] {1, 2}, new int[] {-1, 2}));
+        assertTrue(propagator.assume(1));
+        assertThrows(RuntimeContradictionException.class, () -> propagator.addClause(-2));
+        assertTrue(propagator.isContradiction());
+        assertFalse(propagator.assume(1));
+    }
+
+    @Test
+    void propagatesLikeNaivePropagation() {
+        Random random = new Random(0);
+        int variableCount = 10;
+        for (int run = 0; run < 200; run++) {
+            BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+            int clauseCount = 1 + random.nextInt(30);
+            for (int i = 0; i < clauseCount; i++) {
+                int[] literals = new int[2 + random.nextInt(3)];
+                for (int j = 0; j < literals.length; j++) {
+                    int variable = 1 + random.nextInt(variableCount);
+                    literals[j] = random.nextBoolean() ? variable : -variable;
+                }
+                clauseList.add(new BooleanClause(literals));
+            }
+            if (propagate(clauseList, new int[0]) == null) {
+                continue;
+            }
+            BooleanClauseListPropagator propagator = new BooleanClauseListPropagator(clauseList);
+            int[] assumptions = new int[1 + random.nextInt(5)];
+            int[][] solutions = new int[assumptions.length + 1][];
+            solutions[0] = propagator.getSolution().get();
+            for (int i = 0; i < assumptions.length; i++) {
+                int variable = 1 + random.nextInt(variableCount);
+                assumptions[i] = random.nextBoolean() ? variable : -variable;
+                int[] expected = propagate(clauseList, Arrays.copyOf(assumptions, i + 1));
+                boolean isPropagated = propagator.assume(assumptions[i]);
+                assertEquals(expected != null, isPropagated, clauseList::print);
+                if (!isPropagated) {
+                    break;
+                }
+                assertArrayEquals(expected, propagator.getSolution().get(), clauseList::print);
+                solutions[i + 1] = expected;
+            }
+            for (int i = propagator.getDecisionLevel() - 1; i >= 0; i--) {
+                propagator.undo();
+                assertArrayEquals(solutions[i], propagator.getSolution().get(), clauseList::print);
+            }
+        }
+    }
+}
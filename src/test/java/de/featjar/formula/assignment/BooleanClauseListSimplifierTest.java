@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BooleanClauseListSimplifierTest {
+
+    private static BooleanClauseList getClauseList(int variableCount, int[]... clauses) {
+        BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+        for (int[] clause : clauses) {
+            clauseList.add(new BooleanClause(clause));
+        }
+        return clauseList;
+    }
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        return clauseList.getAll().stream()
+                .allMatch(clause -> Arrays.stream(clause.get())
+                        .anyMatch(literal -> solution[Math.abs(literal) - 1] == literal));
+    }
+
+    @Test
+    void removesRedundantClauses() {
+        BooleanClauseList clauseList = getClauseList(
+                5,
+                new int[] {1, 2},
+                new int[] {2, 1},
+                new int[] {1, 2, 3},
+                new int[] {-1, 1, 4},
+                new int[] {1, 1},
+                new int[] {-1, 3},
+                new int[] {-2, 3, 5});
+        assertEquals(
+                getClauseList(5, new int[] {1}, new int[] {-1, 3}, new int[] {-2, 3, 5}),
+                new BooleanClauseListSimplifier(false, false).apply(clauseList));
+        assertEquals(
+                getClauseList(5, new int[] {1}, new int[] {3}),
+                new BooleanClauseListSimplifier(false, true).apply(clauseList));
+        assertEquals(7, clauseList.size());
+    }
+
+    @Test
+    void keepsEquivalence() {
+        Random random = new Random(0);
+        int variableCount = 6;
+        for (int run = 0; run < 50; run++) {
+            BooleanClauseList clauseList = new BooleanClauseList(variableCount);
+            int clauseCount = 1 + random.nextInt(40);
+            for (int i = 0; i < clauseCount; i++) {
+                int[] literals = new int[1 + random.nextInt(4)];
+                for (int j = 0; j < literals.length; j++) {
+                    int variable = 1 + random.nextInt(variableCount);
+                    literals[j] = random.nextBoolean() ? variable : -variable;
+                }
+                clauseList.add(new BooleanClause(literals));
+            }
+            BooleanClauseList simplifiedClauseList = new BooleanClauseListSimplifier().apply(clauseList);
+            BooleanClauseList parallelSimplifiedClauseList =
+                    new BooleanClauseListSimplifier(true, true).apply(clauseList);
+            assertEquals(simplifiedClauseList, parallelSimplifiedClauseList);
+            assertTrue(simplifiedClauseList.size() <= clauseList.size());
+
+            int[] solution = new int[variableCount];
+            for (int bits = 0; bits < (1 << variableCount); bits++) {
+                for (int v = 0; v < variableCount; v++) {
+                    solution[v] = ((bits >> v) & 1) == 1 ? v + 1 : -(v + 1);
+                }
+                assertEquals(test(clauseList, solution), test(simplifiedClauseList, solution), clauseList::print);
+            }
+
+            List<BooleanClause> clauses = simplifiedClauseList.getAll();
+            for (int i = 0; i < clauses.size(); i++) {
+                for (int j = 0; j < clauses.size(); j++) {
+                    if (i != j) {
+                        BooleanClause clause = clauses.get(i);
+                        BooleanClause otherClause = clauses.get(j);
+                        assertTrue(
+                                !Arrays.stream(clause.get()).allMatch(literal -> otherClause.indexOf(literal) >= 0),
+                                simplifiedClauseList::print);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BooleanSolutionIndexTest {
+
+    @Test
+    void answersQueriesLikeContainsAll() {
+        Random random = new Random(0);
+        for (int run = 0; run < 100; run++) {
+            int variableCount = 1 + random.nextInt(20);
+            List<BooleanSolution> solutions = new ArrayList<>();
+            BooleanSolutionIndex index = new BooleanSolutionIndex(0);
+            int solutionCount = random.nextInt(300);
+            for (int i = 0; i < solutionCount; i++) {
+                int[] literals = new int[variableCount];
+                for (int v = 0; v < variableCount; v++) {
+                    literals[v] = random.nextInt(6) == 0 ? 0 : random.nextBoolean() ? v + 1 : -(v + 1);
+                }
+                BooleanSolution solution = new BooleanSolution(literals, false);
+                solutions.add(solution);
+                assertEquals(i, index.add(solution));
+            }
+            assertEquals(solutionCount, index.size());
+            if (solutionCount > 0) {
+                int i = random.nextInt(solutionCount);
+                assertArrayEquals(solutions.get(i).get(), index.get(i).get());
+            }
+
+            List<int[]> queries = new ArrayList<>();
+            for (int q = 0; q < 50; q++) {
+                int[] literals = new int[random.nextInt(4)];
+                for (int j = 0; j < literals.length; j++) {
+                    int variable = 1 + random.nextInt(variableCount + 1);
+                    literals[j] = random.nextBoolean() ? variable : -variable;
+                }
+                queries.add(literals);
+
+                BitSet expected = new BitSet();
+                for (int i = 0; i < solutionCount; i++) {
+                    if (solutions.get(i).containsAll(literals)) {
+                        expected.set(i);
+                    }
+                }
+                assertEquals(expected, index.getSolutions(literals));
+                assertEquals(expected.cardinality(), index.count(literals));
+                assertEquals(!expected.isEmpty(), index.contains(literals));
+
+                BitSet candidates = new BitSet();
+                candidates.set(0, solutionCount / 2);
+                expected.and(candidates);
+                assertEquals(expected, index.getSolutions(candidates, literals));
+            }
+
+            int[] counts = index.countEach(queries);
+            boolean[] contained = index.containsEach(queries);
+            for (int q = 0; q < queries.size(); q++) {
+                assertEquals(index.count(queries.get(q)), counts[q]);
+                assertEquals(index.contains(queries.get(q)), contained[q]);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.assignment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.formula.assignment.metrics.CosineZeroDistance;
+import de.featjar.formula.assignment.metrics.HammingDistance;
+import de.featjar.formula.assignment.metrics.IDistanceFunction;
+import de.featjar.formula.assignment.metrics.JaccardDeselectedDistance;
+import de.featjar.formula.assignment.metrics.SorensenDiceSelectedDistance;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PackedBooleanSolutionTest {
+
+    private static int[] getRandomSolution(Random random, int variableCount) {
+        int[] literals = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            int value = random.nextInt(5);
+            literals[i] = value == 0 ? 0 : value % 2 == 0 ? i + 1 : -(i + 1);
+        }
+        return literals;
+    }
+
+    @Test
+    void behavesLikeBooleanSolution() {
+        Random random = new Random(0);
+        for (int run = 0; run < 1000; run++) {
+            int variableCount = 1 + random.nextInt(150);
+            int[] literals1 = getRandomSolution(random, variableCount);
+            int[] literals2 = getRandomSolution(random, variableCount);
+            BooleanSolution solution1 = new BooleanSolution(literals1, false);
+            BooleanSolution solution2 = new BooleanSolution(literals2, false);
+            PackedBooleanSolution packedSolution1 = new PackedBooleanSolution(solution1);
+            PackedBooleanSolution packedSolution2 = new PackedBooleanSolution(solution2);
+
+            assertArrayEquals(literals1, packedSolution1.toSolution().get());
+            assertEquals(solution1.countConflicts(literals2), packedSolution1.countConflicts(packedSolution2));
+            assertEquals(solution1.conflictsWith(literals2), packedSolution1.conflictsWith(packedSolution2));
+            assertArrayEquals(
+                    BooleanSolution.removeConflicts(literals1, literals2),
+                    packedSolution1.retainAll(packedSolution2).toSolution().get());
+            assertArrayEquals(
+                    solution1.inverse().get(),
+                    packedSolution1.inverse().toSolution().get());
+            assertEquals(
+                    packedSolution1.containsAll(packedSolution2),
+                    packedSolution1.containsAll(packedSolution2.toAssignment().get()));
+            assertTrue(packedSolution1.containsAll(packedSolution1.retainAll(packedSolution2)));
+            assertTrue(packedSolution1.addAll(packedSolution2).containsAll(packedSolution1));
+            assertFalse(packedSolution1.removeAll(packedSolution2).conflictsWith(packedSolution1));
+        }
+    }
+
+    @Test
+    void computesSameDistances() {
+        Random random = new Random(0);
+        List<IDistanceFunction> functions = List.of(
+                new HammingDistance(),
+                new CosineZeroDistance(),
+                new JaccardDeselectedDistance(),
+                new SorensenDiceSelectedDistance());
+        for (int run = 0; run < 1000; run++) {
+            int variableCount = 1 + random.nextInt(150);
+            int[] literals1 = getRandomSolution(random, variableCount);
+            int[] literals2 = getRandomSolution(random, variableCount);
+            PackedBooleanSolution packedSolution1 = new PackedBooleanSolution(new BooleanSolution(literals1, false));
+            PackedBooleanSolution packedSolution2 = new PackedBooleanSolution(new BooleanSolution(literals2, false));
+            for (IDistanceFunction function : functions) {
+                assertEquals(
+                        function.computeDistance(literals1, literals2),
+                        function.computeDistance(packedSolution1, packedSolution2),
+                        1e-12,
+                        function.getName());
+            }
+        }
+    }
+
+    @Test
+    void convertsSolutionLists() {
+        BooleanSolutionList solutionList = new BooleanSolutionList();
+        solutionList.add(new BooleanSolution(new int[] {1, -2, 0}, false));
+        solutionList.add(new BooleanSolution(new int[] {-1, 0, 3}, false));
+        List<PackedBooleanSolution> packedSolutions = PackedBooleanSolution.pack(solutionList, 3);
+        assertEquals(-2, packedSolutions.get(0).get(2));
+        assertEquals(0, packedSolutions.get(1).get(2));
+        assertEquals(solutionList, PackedBooleanSolution.unpack(packedSolutions));
+    }
+}
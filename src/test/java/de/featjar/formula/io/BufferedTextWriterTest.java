@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.io.csv.BooleanAssignmentGroupsCSVFormat;
+import de.featjar.formula.io.dimacs.BooleanAssignmentGroupsDimacsFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BufferedTextWriter} and the formats using it.
+ *
+ * @author Sebastian Krieter
+ */
+public class BufferedTextWriterTest {
+
+    private static byte[] writeRows(int rowCount, boolean isParallel) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BufferedTextWriter writer = new BufferedTextWriter(outputStream);
+        writer.setParallel(isParallel);
+        writer.writeRows(rowCount, (row, rowWriter) -> {
+            rowWriter.write(row);
+            rowWriter.write(';');
+            rowWriter.write(-row * 31);
+            rowWriter.write("\n");
+        });
+        writer.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void writesValues() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BufferedTextWriter writer = new BufferedTextWriter(outputStream);
+        for (int value : new int[] {0, 7, -7, 10, -100, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            writer.write(value).write(' ');
+        }
+        writer.write("äb").write(new byte[] {'x', 'y', 'z'}, 1, -1);
+        writer.flush();
+        assertEquals("0 7 -7 10 -100 2147483647 -2147483648 äbyz", outputStream.toString(StandardCharsets.UTF_8));
+
+        StringBuilder expected = new StringBuilder();
+        for (int row = 0; row < 100_000; row++) {
+            expected.append(row).append(';').append(-row * 31).append('\n');
+        }
+        byte[] sequential = writeRows(100_000, false);
+        assertEquals(expected.toString(), new String(sequential, StandardCharsets.UTF_8));
+        assertArrayEquals(sequential, writeRows(100_000, true));
+    }
+
+    @Test
+    void writesCSV() {
+        VariableMap variableMap = VariableMap.of(List.of("A", "B", "C"));
+        BooleanAssignmentGroups groups = new BooleanAssignmentGroups(
+                variableMap,
+                List.of(
+                        List.of(new BooleanSolution(new int[] {1, -2, 0}, false)),
+                        List.of(new BooleanAssignment(-3, 1, 3))));
+        assertEquals(
+                "ID;Group;A;B;C\n0;0;+;-;0\n1;1;+;0;-\n",
+                new BooleanAssignmentGroupsCSVFormat().serialize(groups).get());
+
+        Random random = new Random(0);
+        List<ABooleanAssignment> solutions = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int[] literals = new int[3];
+            for (int variable = 1; variable <= 3; variable++) {
+                literals[variable - 1] = variable * (random.nextInt(3) - 1);
+            }
+            solutions.add(i % 2 == 0 ? new BooleanSolution(literals, false) : new BooleanAssignment(literals));
+        }
+        groups = new BooleanAssignmentGroups(variableMap, List.of(solutions));
+        assertEquals(
+                new BooleanAssignmentGroupsCSVFormat().serialize(groups).get(),
+                new BooleanAssignmentGroupsCSVFormat(true).serialize(groups).get());
+        assertEquals(
+                new BooleanAssignmentGroupsCSVFormat().serialize(groups).get(),
+                new BooleanAssignmentGroupsCSVFormat(true)
+                        .serialize(new BooleanAssignmentGroups(variableMap, List.of(new LinkedList<>(solutions))))
+                        .get());
+    }
+
+    @Test
+    void writesDimacs() {
+        String lineSeparator = System.lineSeparator();
+        VariableMap variableMap = VariableMap.of(List.of("A", "B"));
+        BooleanClauseArena arena = new BooleanClauseArena(2);
+        arena.addClause(1, -2);
+        arena.addClause();
+        List<BooleanClause> clauses = List.of(new BooleanClause(1, -2), new BooleanClause());
+        String expected = String.join(lineSeparator, "c 1 A", "c 2 B", "p cnf 2 2", "-2 1 0", "0", "");
+        assertEquals(
+                expected,
+                new BooleanAssignmentGroupsDimacsFormat()
+                        .serialize(new BooleanAssignmentGroups(variableMap, List.of(arena)))
+                        .get());
+        assertEquals(
+                expected,
+                new BooleanAssignmentGroupsDimacsFormat()
+                        .serialize(new BooleanAssignmentGroups(variableMap, List.of(clauses)))
+                        .get());
+        assertEquals(
+                expected,
+                new BooleanAssignmentGroupsDimacsFormat(true)
+                        .serialize(new BooleanAssignmentGroups(variableMap, List.of(new LinkedList<>(clauses))))
+                        .get());
+
+        Random random = new Random(0);
+        arena = new BooleanClauseArena(2);
+        for (int i = 0; i < 20_000; i++) {
+            arena.addClause(random.nextBoolean() ? 1 : -1, random.nextBoolean() ? 2 : -2);
+        }
+        BooleanAssignmentGroups groups = new BooleanAssignmentGroups(variableMap, List.of(arena));
+        assertEquals(
+                new BooleanAssignmentGroupsDimacsFormat().serialize(groups).get(),
+                new BooleanAssignmentGroupsDimacsFormat(true).serialize(groups).get());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.io.dimacs.DimacsBufferParser;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link DimacsBufferParser}.
+ *
+ * @author Sebastian Krieter
+ */
+public class DimacsBufferParserTest {
+
+    private static BooleanAssignmentGroups parse(String content, boolean isParallel)
+            throws ParseException, IOException {
+        DimacsBufferParser parser = new DimacsBufferParser();
+        parser.setParallel(isParallel);
+        return parser.parse(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int getErrorLine(String content) {
+        return assertThrows(ParseException.class, () -> parse(content, false)).getErrorOffset();
+    }
+
+    @Test
+    void parsesClausesAndVariableDirectory() throws ParseException, IOException {
+        String content = "c 1 A\nc 3 B\n\np cnf 3 4\nc 2 C\n1 -2 0\n-3\n 2 0\nc 1 2 0\n0\n3 1 -1";
+        BooleanAssignmentGroups groups = parse(content, false);
+        VariableMap variableMap = groups.getVariableMap();
+        assertEquals(3, variableMap.getVariableCount());
+        assertEquals("A", variableMap.get(1).orElseThrow());
+        assertEquals("C", variableMap.get(2).orElseThrow());
+        assertEquals("B", variableMap.get(3).orElseThrow());
+        assertEquals(
+                List.of(
+                        new BooleanClause(1, -2),
+                        new BooleanClause(-3, 2),
+                        new BooleanClause(),
+                        new BooleanClause(3, 1, -1)),
+                groups.getFirstGroup());
+
+        groups = parse("p cnf 2 1 1 -2 0\n", false);
+        assertEquals(List.of(new BooleanClause(1, -2)), groups.getFirstGroup());
+        assertEquals("1", groups.getVariableMap().get(1).orElseThrow());
+    }
+
+    @Test
+    void reportsErrors() {
+        assertEquals(2, getErrorLine("c comment\n1 2 0\n"));
+        assertEquals(4, getErrorLine("p cnf 2 2\n1 2 0\nc 0\n1 x 0\n"));
+        assertEquals(2, getErrorLine("p cnf 2 2\n1 -0 0\n"));
+        assertEquals(1, getErrorLine("p cnf 2 2\n1 2 0\n"));
+        assertEquals(1, getErrorLine("p cnf 2 1\n1 3 0\n"));
+    }
+
+    @Test
+    void parsesChunksLikeWholeInput(@TempDir Path directory) throws ParseException, IOException {
+        Random random = new Random(0);
+        int variableCount = 1000;
+        int clauseCount = 300_000;
+        StringBuilder content = new StringBuilder();
+        content.append("c 1 first\np cnf ").append(variableCount).append(' ').append(clauseCount).append('\n');
+        List<BooleanClause> clauses = new ArrayList<>();
+        for (int i = 0; i < clauseCount; i++) {
+            int[] literals = new int[random.nextInt(5)];
+            for (int j = 0; j < literals.length; j++) {
+                int variable = 1 + random.nextInt(variableCount);
+                literals[j] = random.nextBoolean() ? variable : -variable;
+                content.append(literals[j]).append(random.nextInt(8) == 0 ? '\n' : ' ');
+            }
+            if (random.nextInt(100) == 0) {
+                content.append("\nc 0 comment 0\n");
+            }
+            content.append("0\n");
+            clauses.add(new BooleanClause(literals));
+        }
+        Path path = directory.resolve("large.dimacs");
+        Files.writeString(path, content);
+
+        BooleanAssignmentGroups groups = parse(content.toString(), false);
+        assertEquals(clauses, groups.getFirstGroup());
+        assertEquals(groups, parse(content.toString(), true));
+
+        DimacsBufferParser parser = new DimacsBufferParser();
+        parser.setParallel(true);
+        assertEquals(groups, parser.parse(path));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import static de.featjar.formula.structure.Expressions.False;
+import static de.featjar.formula.structure.Expressions.True;
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atLeast;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.choose;
+import static de.featjar.formula.structure.Expressions.exists;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.structure.Expressions.reference;
+import static de.featjar.formula.structure.Expressions.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import de.featjar.base.io.IO;
+import de.featjar.formula.io.binary.FormulaBinaryFormat;
+import de.featjar.formula.structure.ExpressionInterner;
+import de.featjar.formula.structure.IExpression;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Not;
+import de.featjar.formula.structure.connective.Reference;
+import de.featjar.formula.structure.term.value.Variable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link FormulaBinaryFormat}.
+ *
+ * @author Sebastian Krieter
+ */
+public class FormulaBinaryFormatTest {
+
+    private static IFormula saveAndLoad(IFormula formula, Path directory) throws IOException {
+        Path path = directory.resolve("formula.fjf");
+        IO.save(formula, path, new FormulaBinaryFormat());
+        return IO.load(path, new FormulaBinaryFormat()).orElseThrow();
+    }
+
+    @Test
+    void readsWrittenFormulas(@TempDir Path directory) throws IOException {
+        Reference formula = reference(and(
+                or(literal("a"), literal(false, "b"), True),
+                implies(literal("c"), not(literal("a"))),
+                biImplies(literal(false, "c"), False),
+                atLeast(1, literal("a"), literal("b")),
+                atMost(1, literal("b"), literal("c")),
+                between(1, 2, literal("a"), literal("b"), literal("c")),
+                choose(2, literal("a"), literal("b"), literal("c")),
+                exists(variable("d"), literal("d"))));
+        formula.setFreeVariables(List.of(variable("e"), new Variable("f", Integer.class)));
+        IFormula loaded = saveAndLoad(formula, directory);
+        assertEquals(formula, loaded);
+        assertEquals(List.copyOf(formula.getFreeVariables()), List.copyOf(((Reference) loaded).getFreeVariables()));
+        assertEquals(formula, saveAndLoad(loaded, directory));
+
+        Files.write(directory.resolve("formula.fjf"), new byte[] {0x46, 0x4A, 0x42, 0x46, 1, 0, 6, 2});
+        assertFalse(IO.load(directory.resolve("formula.fjf"), new FormulaBinaryFormat()).isPresent());
+    }
+
+    @Test
+    void keepsSharedSubformulas(@TempDir Path directory) throws IOException {
+        IFormula shared = or(literal("a"), literal(false, "b"));
+        IFormula formula = new ExpressionInterner().intern(and(shared, implies(literal("c"), shared), shared));
+        IFormula loaded = saveAndLoad(formula, directory);
+        assertEquals(formula, loaded);
+        assertSame(loaded.getChildren().get(0), loaded.getChildren().get(2));
+        assertSame(loaded.getChildren().get(0), loaded.getChildren().get(1).getChildren().get(1));
+    }
+
+    @Test
+    void readsDeepFormulas(@TempDir Path directory) throws IOException {
+        int depth = 100_000;
+        IFormula formula = literal("a");
+        for (int i = 0; i < depth; i++) {
+            formula = not(formula);
+        }
+        IExpression loaded = saveAndLoad(formula, directory);
+        for (int i = 0; i < depth; i++) {
+            assertInstanceOf(Not.class, loaded);
+            loaded = loaded.getChildren().get(0);
+        }
+        assertEquals(literal("a"), loaded);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.io.IO;
+import de.featjar.base.io.format.IFormat;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseArena;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.io.binary.BooleanAssignmentGroupsBinaryFormat;
+import de.featjar.formula.io.binary.BooleanAssignmentGroupsBinaryReader;
+import de.featjar.formula.io.binary.BooleanAssignmentGroupsIndexedBinaryFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link BooleanAssignmentGroupsIndexedBinaryFormat} and {@link BooleanAssignmentGroupsBinaryReader}.
+ *
+ * @author Sebastian Krieter
+ */
+public class IndexedBinaryFormatTest {
+
+    private static final int VARIABLE_COUNT = 100;
+
+    private static byte[] save(BooleanAssignmentGroups groups, IFormat<BooleanAssignmentGroups> format)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IO.save(groups, outputStream, format);
+        return outputStream.toByteArray();
+    }
+
+    private static BooleanAssignmentGroups getRandomGroups(Random random) {
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= VARIABLE_COUNT; i++) {
+            names.add("Feature" + i);
+        }
+        List<ABooleanAssignment> solutions = new ArrayList<>();
+        List<ABooleanAssignment> clauses = new ArrayList<>();
+        BooleanClauseArena arena = new BooleanClauseArena(VARIABLE_COUNT);
+        for (int i = 0; i < 1000; i++) {
+            int[] literals = new int[VARIABLE_COUNT];
+            for (int variable = 1; variable <= VARIABLE_COUNT; variable++) {
+                literals[variable - 1] = variable * (random.nextInt(5) == 0 ? 0 : random.nextBoolean() ? 1 : -1);
+            }
+            solutions.add(new BooleanSolution(literals, false));
+            int[] clause = random.ints(1 + random.nextInt(4), 1, VARIABLE_COUNT + 1)
+                    .map(variable -> random.nextBoolean() ? variable : -variable)
+                    .distinct()
+                    .toArray();
+            clauses.add(i % 2 == 0 ? new BooleanClause(clause) : new BooleanAssignment(clause));
+            arena.addClause(clause);
+        }
+        return new BooleanAssignmentGroups(VariableMap.of(names), List.of(solutions, clauses, List.of(), arena));
+    }
+
+    @Test
+    void readsWrittenGroups() throws IOException {
+        VariableMap variableMap = VariableMap.of(List.of("A", "B", "Ä"));
+        BooleanAssignmentGroups groups = new BooleanAssignmentGroups(
+                variableMap,
+                List.of(
+                        List.of(new BooleanSolution(new int[] {1, 0, -3}, false), new BooleanClause(-3, 1)),
+                        List.of(),
+                        List.of(new BooleanAssignment(3, -1, 2), new BooleanClause())));
+        for (boolean compress : new boolean[] {false, true}) {
+            byte[] bytes = save(groups, new BooleanAssignmentGroupsIndexedBinaryFormat(compress));
+            BooleanAssignmentGroupsBinaryReader reader =
+                    new BooleanAssignmentGroupsBinaryReader(ByteBuffer.wrap(bytes));
+            assertEquals("Ä", reader.getVariableMap().get(3).orElseThrow());
+            assertEquals(3, reader.getGroupCount());
+            assertEquals(groups.getGroups(), reader.readAll().getGroups());
+            assertEquals(new BooleanAssignment(3, -1, 2), reader.get(2, 0));
+        }
+        assertThrows(IOException.class, () -> new BooleanAssignmentGroupsBinaryReader(ByteBuffer.wrap(new byte[16])));
+    }
+
+    @Test
+    void readsSingleAssignments(@TempDir Path directory) throws IOException {
+        Random random = new Random(0);
+        BooleanAssignmentGroups groups = getRandomGroups(random);
+        byte[] bytes = save(groups, new BooleanAssignmentGroupsIndexedBinaryFormat());
+        assertTrue(bytes.length < 2 * save(groups, new BooleanAssignmentGroupsBinaryFormat()).length / 3);
+        assertTrue(bytes.length < save(groups, new BooleanAssignmentGroupsIndexedBinaryFormat(false)).length);
+
+        Path path = directory.resolve("groups.fja");
+        Files.write(path, bytes);
+        BooleanAssignmentGroupsBinaryReader reader = BooleanAssignmentGroupsBinaryReader.open(path);
+        for (int i = 0; i < 1000; i++) {
+            int group = Arrays.asList(0, 1, 3).get(random.nextInt(3));
+            int index = random.nextInt(groups.getGroups().get(group).size());
+            assertEquals(groups.getGroups().get(group).get(index), reader.get(group, index));
+        }
+        assertEquals(groups.getGroups(), reader.readAll().getGroups());
+    }
+}
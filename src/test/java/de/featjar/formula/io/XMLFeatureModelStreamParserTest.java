@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.structure.Expressions.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import de.featjar.base.data.Problem;
+import de.featjar.base.data.Result;
+import de.featjar.base.io.IO;
+import de.featjar.formula.io.xml.XMLFeatureModelFormulaFormat;
+import de.featjar.formula.io.xml.XMLFeatureModelStreamParser;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Reference;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests {@link XMLFeatureModelStreamParser}.
+ *
+ * @author Sebastian Krieter
+ */
+public class XMLFeatureModelStreamParserTest {
+
+    private static final String STRUCT = "<struct>\n"
+            + "  <and abstract=\"true\" name=\"Root\">\n"
+            + "    <feature mandatory=\"true\" name=\"A\"><description>first</description></feature>\n"
+            + "    <or name=\"B\">\n"
+            + "      <feature name=\"B1\"/>\n"
+            + "      <feature name=\"B2\"/>\n"
+            + "    </or>\n"
+            + "    <alt name=\"C\">\n"
+            + "      <feature name=\"C1\"/>\n"
+            + "      <feature name=\"C2\"/>\n"
+            + "    </alt>\n"
+            + "  </and>\n"
+            + "</struct>\n";
+
+    private static final String CONSTRAINTS = "<constraints>\n"
+            + "  <rule><description>rule</description><imp><var>A</var><not><var>B1</var></not></imp></rule>\n"
+            + "  <rule><imp><var>A</var></imp></rule>\n"
+            + "</constraints>\n";
+
+    private static final String FAULTY_MODEL = "<featureModel>\n"
+            + "<properties><graphics key=\"legendhidden\" value=\"false\"/></properties>\n"
+            + "<struct>\n"
+            + "  <and name=\"Root\" unknown=\"x\">\n"
+            + "    <description>root</description>\n"
+            + "    <feature mandatory=\"true\" name=\"A\"> </feature>\n"
+            + "    <or name=\"B\"><feature name=\"B1\"/><unknown/></or>\n"
+            + "    <alt name=\"C\">\n"
+            + "    </alt>\n"
+            + "    <and mandatory=\"true\" name=\"D\"><feature mandatory=\"true\" name=\"D1\"/></and>\n"
+            + "  </and>\n"
+            + "</struct>\n"
+            + "<constraints>\n"
+            + "  <rule coordinates=\"1\"><eq><var>A</var><conj><var>B1</var><var>D1</var></conj></eq></rule>\n"
+            + "  <rule><atmost1><var>A</var><var>B</var><var>C</var></atmost1></rule>\n"
+            + "  <rule><disj><description/></disj></rule>\n"
+            + "  <unknown/>\n"
+            + "  <rule><unknown/><not><var>A</var><var>B</var></not></rule>\n"
+            + "  <rule><tags>t</tags><imp><var>D</var><not><var>A</var></not></imp></rule>\n"
+            + "</constraints>\n"
+            + "</featureModel>\n";
+
+    /**
+     * Exposes the DOM-based parsing of {@link XMLFeatureModelFormulaFormat} and records its warnings.
+     */
+    private static class DocumentFormat extends XMLFeatureModelFormulaFormat {
+        private final List<String> warnings = new ArrayList<>();
+
+        private IFormula parse(String xml) throws Exception {
+            Document document = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder()
+                    .parse(new InputSource(new StringReader(xml)));
+            return parseDocument(document);
+        }
+
+        @Override
+        protected void addParseProblem(String message, Node node, Problem.Severity severity) {
+            warnings.add(message);
+        }
+    }
+
+    private static Result<IFormula> load(String xml, Path directory) throws IOException {
+        Path path = directory.resolve("model.xml");
+        Files.writeString(path, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + xml);
+        return IO.load(path, new XMLFeatureModelFormulaFormat());
+    }
+
+    private static IFormula expectedFormula() {
+        return and(
+                literal("Root"),
+                implies(literal("A"), literal("Root")),
+                implies(literal("Root"), literal("A")),
+                implies(literal("B"), literal("Root")),
+                implies(literal("B1"), literal("B")),
+                implies(literal("B2"), literal("B")),
+                implies(literal("B"), or(literal("B1"), literal("B2"))),
+                implies(literal("C"), literal("Root")),
+                implies(literal("C1"), literal("C")),
+                implies(literal("C2"), literal("C")),
+                and(implies(literal("C"), or(literal("C1"), literal("C2"))), atMost(1, literal("C1"), literal("C2"))),
+                implies(literal("A"), not(literal("B1"))));
+    }
+
+    private static void assertModel(IFormula formula) {
+        Reference reference = assertInstanceOf(Reference.class, formula);
+        assertEquals(expectedFormula(), reference.getChildren().get(0));
+        assertEquals(
+                List.of(
+                        variable("Root"),
+                        variable("A"),
+                        variable("B"),
+                        variable("B1"),
+                        variable("B2"),
+                        variable("C"),
+                        variable("C1"),
+                        variable("C2")),
+                List.copyOf(reference.getFreeVariables()));
+    }
+
+    @Test
+    void readsFeatureTreeAndConstraints(@TempDir Path directory) throws IOException {
+        Result<IFormula> result = load("<featureModel>\n" + STRUCT + CONSTRAINTS + "</featureModel>\n", directory);
+        assertModel(result.orElseThrow());
+        assertFalse(result.getProblems().isEmpty());
+    }
+
+    @Test
+    void readsConstraintsBeforeFeatureTree(@TempDir Path directory) throws IOException {
+        Result<IFormula> result = load("<featureModel>\n" + CONSTRAINTS + STRUCT + "</featureModel>\n", directory);
+        assertModel(result.orElseThrow());
+    }
+
+    @Test
+    void readsSameFormulaAsDocumentParser(@TempDir Path directory) throws Exception {
+        for (String xml : List.of(
+                "<featureModel>\n" + STRUCT + CONSTRAINTS + "</featureModel>\n",
+                "<featureModel>\n" + CONSTRAINTS + STRUCT + "</featureModel>\n",
+                FAULTY_MODEL)) {
+            DocumentFormat documentFormat = new DocumentFormat();
+            IFormula documentFormula = documentFormat.parse(xml);
+            Result<IFormula> result = load(xml, directory);
+            Reference reference = assertInstanceOf(Reference.class, result.orElseThrow());
+            assertEquals(documentFormula, reference);
+            assertEquals(
+                    List.copyOf(((Reference) documentFormula).getFreeVariables()),
+                    List.copyOf(reference.getFreeVariables()));
+            assertEquals(
+                    documentFormat.warnings,
+                    result.getProblems().stream().map(Problem::getMessage).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void readsDeepFeatureTrees(@TempDir Path directory) throws IOException {
+        int depth = 100_000;
+        StringBuilder xml = new StringBuilder("<featureModel><struct>");
+        for (int i = 0; i < depth; i++) {
+            xml.append("<and name=\"F").append(i).append("\">");
+        }
+        xml.append("<feature name=\"Leaf\"/>");
+        xml.append("</and>".repeat(depth));
+        xml.append("</struct></featureModel>");
+        Reference reference = assertInstanceOf(Reference.class, load(xml.toString(), directory).orElseThrow());
+        assertEquals(depth + 1, reference.getFreeVariables().size());
+        assertEquals(depth + 1, reference.getChildren().get(0).getChildrenCount());
+    }
+}
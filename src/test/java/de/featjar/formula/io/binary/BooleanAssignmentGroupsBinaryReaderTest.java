@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.io.binary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.featjar.base.io.IO;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.ABooleanAssignment;
+import de.featjar.formula.assignment.BooleanAssignmentGroups;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanSolution;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests reading files with {@link BooleanAssignmentGroupsBinaryReader} that are given in multiple windows.
+ *
+ * @author Sebastian Krieter
+ */
+public class BooleanAssignmentGroupsBinaryReaderTest {
+
+    private static final int VARIABLE_COUNT = 40;
+
+    private static ByteBuffer[] getWindows(byte[] bytes, int windowStep, int windowSize) {
+        ByteBuffer[] windows = new ByteBuffer[(bytes.length - 1) / windowStep + 1];
+        for (int i = 0; i < windows.length; i++) {
+            int start = i * windowStep;
+            windows[i] = ByteBuffer.wrap(bytes, start, Math.min(bytes.length - start, windowSize)).slice();
+        }
+        return windows;
+    }
+
+    @Test
+    void readsWindowedFile() throws IOException {
+        Random random = new Random(0);
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= VARIABLE_COUNT; i++) {
+            names.add("Feature" + i);
+        }
+        List<ABooleanAssignment> solutions = new ArrayList<>();
+        List<ABooleanAssignment> clauses = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int[] literals = new int[VARIABLE_COUNT];
+            for (int variable = 1; variable <= VARIABLE_COUNT; variable++) {
+                literals[variable - 1] = random.nextBoolean() ? variable : -variable;
+            }
+            solutions.add(new BooleanSolution(literals, false));
+            clauses.add(new BooleanClause(random.nextInt(VARIABLE_COUNT) + 1, -(random.nextInt(VARIABLE_COUNT) + 1)));
+        }
+        BooleanAssignmentGroups groups =
+                new BooleanAssignmentGroups(VariableMap.of(names), List.of(solutions, List.of(), clauses));
+
+        for (boolean compress : new boolean[] {false, true}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            IO.save(groups, outputStream, new BooleanAssignmentGroupsIndexedBinaryFormat(compress));
+            byte[] bytes = outputStream.toByteArray();
+
+            int windowStep = 8192;
+            BooleanAssignmentGroupsBinaryReader reader = new BooleanAssignmentGroupsBinaryReader(
+                    getWindows(bytes, windowStep, 2 * windowStep), windowStep, bytes.length);
+            for (int i = 0; i < 1000; i++) {
+                int group = random.nextBoolean() ? 0 : 2;
+                int index = random.nextInt(3000);
+                assertEquals(groups.getGroups().get(group).get(index), reader.get(group, index));
+            }
+            assertEquals(groups.getGroups(), reader.readAll().getGroups());
+        }
+    }
+
+    @Test
+    void rejectsRangesBeyondWindows() throws IOException {
+        BooleanAssignmentGroups groups = new BooleanAssignmentGroups(
+                VariableMap.of(List.of("A", "B")), List.of(List.of(new BooleanClause(1, -2))));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IO.save(groups, outputStream, new BooleanAssignmentGroupsIndexedBinaryFormat(false));
+        byte[] bytes = outputStream.toByteArray();
+
+        assertThrows(
+                IOException.class,
+                () -> new BooleanAssignmentGroupsBinaryReader(getWindows(bytes, 8, 8), 8, bytes.length));
+    }
+}
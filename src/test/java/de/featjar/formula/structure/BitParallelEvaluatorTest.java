@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.choose;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.assignment.BooleanSolutionList;
+import de.featjar.formula.transform.FormulaCreator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BitParallelEvaluatorTest {
+
+    private static void assertSameEvaluation(IFormula formula, BooleanSolutionList solutions) {
+        VariableMap variableMap = VariableMap.of(formula);
+        CompiledFormula compiledFormula =
+                CompiledFormula.compile(formula, variableMap).orElseThrow();
+        BitParallelEvaluator evaluator = new BitParallelEvaluator(solutions);
+        byte[] values = evaluator.evaluate(compiledFormula);
+        BitSet trueSolutions = evaluator.test(compiledFormula);
+        List<BooleanSolution> solutionList = solutions.getAll();
+        assertEquals(solutionList.size(), values.length);
+        for (int i = 0; i < solutionList.size(); i++) {
+            byte expected = compiledFormula.evaluate(solutionList.get(i).get());
+            assertEquals(expected, values[i]);
+            assertEquals(expected == CompiledFormula.TRUE, trueSolutions.get(i));
+        }
+    }
+
+    private static BooleanSolutionList getAllSolutions(int variableCount) {
+        return new BooleanSolutionList(FormulaCreator.streamAllAssignments(variableCount)
+                .map(BooleanAssignment::toSolution)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * {@return all solutions in which each variable is either selected, deselected, or unassigned}
+     */
+    private static BooleanSolutionList getAllPartialSolutions(int variableCount) {
+        BooleanSolutionList solutions = new BooleanSolutionList();
+        int count = (int) Math.pow(3, variableCount);
+        for (int i = 0; i < count; i++) {
+            int[] literals = new int[variableCount];
+            for (int v = 0, rest = i; v < variableCount; v++, rest /= 3) {
+                literals[v] = rest % 3 == 0 ? 0 : rest % 3 == 1 ? v + 1 : -(v + 1);
+            }
+            solutions.add(new BooleanSolution(literals, false));
+        }
+        return solutions;
+    }
+
+    @Test
+    void evaluatesLikeCompiledFormula() {
+        IFormula formula = and(
+                biImplies(literal("a"), not(literal("b"))),
+                or(literal(false, "c"), implies(literal("d"), literal("e"))),
+                choose(2, literal("a"), literal("c"), literal(false, "e")),
+                between(1, 3, literal("a"), literal("b"), literal("c"), literal("d"), literal("e")));
+        int variableCount = VariableMap.of(formula).getVariableCount();
+        assertSameEvaluation(formula, getAllSolutions(variableCount));
+        assertSameEvaluation(formula, getAllPartialSolutions(variableCount));
+        assertSameEvaluation(FormulaCreator.getFormula01(), getAllPartialSolutions(4));
+        assertSameEvaluation(FormulaCreator.getFormula02(), getAllPartialSolutions(4));
+    }
+
+    @Test
+    void testsClauseList() {
+        BooleanClauseList clauseList = new BooleanClauseList(3);
+        clauseList.add(new BooleanClause(1, 2));
+        clauseList.add(new BooleanClause(-1, -3));
+        BooleanSolutionList solutions = getAllPartialSolutions(3);
+        BitSet trueSolutions = new BitParallelEvaluator(solutions).test(clauseList);
+        List<BooleanSolution> solutionList = solutions.getAll();
+        for (int i = 0; i < solutionList.size(); i++) {
+            BooleanSolution solution = solutionList.get(i);
+            boolean expected = clauseList.getAll().stream()
+                    .allMatch(clause -> Arrays.stream(clause.get())
+                            .anyMatch(literal -> solution.get()[Math.abs(literal) - 1] == literal));
+            assertEquals(expected, trueSolutions.get(i), solution::print);
+        }
+    }
+}
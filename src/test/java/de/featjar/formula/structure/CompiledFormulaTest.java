@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import static de.featjar.formula.structure.Expressions.False;
+import static de.featjar.formula.structure.Expressions.True;
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atLeast;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.choose;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.structure.Expressions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanSolution;
+import de.featjar.formula.transform.FormulaCreator;
+import org.junit.jupiter.api.Test;
+
+class CompiledFormulaTest {
+
+    private static void assertSameEvaluation(IFormula formula) {
+        VariableMap variableMap = VariableMap.of(formula);
+        CompiledFormula compiledFormula =
+                CompiledFormula.compile(formula, variableMap).orElseThrow();
+        FormulaCreator.streamAllAssignments(variableMap.getVariableCount()).forEach(assignment -> {
+            BooleanSolution solution = assignment.toSolution();
+            assertEquals(formula.evaluate(assignment, variableMap), compiledFormula.evaluate(solution), assignment::print);
+        });
+    }
+
+    @Test
+    void evaluatesLikeFormula() {
+        assertSameEvaluation(FormulaCreator.getFormula01());
+        assertSameEvaluation(FormulaCreator.getFormula02());
+        assertSameEvaluation(reference(and(
+                biImplies(literal("a"), not(literal("b"))),
+                or(literal(false, "c"), True),
+                or(literal("d"), False, literal("a")))));
+        assertSameEvaluation(or(
+                choose(2, literal("a"), literal("b"), literal(false, "c")),
+                and(atMost(1, literal("a"), literal("d")), atLeast(2, literal("b"), literal("c"), literal("d")))));
+        assertSameEvaluation(between(1, 2, literal("a"), literal("b"), literal("c"), literal("d")));
+    }
+
+    @Test
+    void evaluatesPartialSolutions() {
+        IFormula formula = and(or(literal("a"), literal("b")), literal(false, "c"));
+        VariableMap variableMap = VariableMap.of(formula);
+        CompiledFormula compiledFormula =
+                CompiledFormula.compile(formula, variableMap).orElseThrow();
+        int a = variableMap.get("a").orElseThrow();
+        int b = variableMap.get("b").orElseThrow();
+        int c = variableMap.get("c").orElseThrow();
+        assertNull(compiledFormula.evaluate(new BooleanSolution(3, new int[] {a})));
+        assertTrue(compiledFormula.test(new BooleanSolution(3, new int[] {a, -c})));
+        assertFalse(compiledFormula.test(new BooleanSolution(3, new int[] {b, c})));
+        assertEquals(CompiledFormula.FALSE, compiledFormula.evaluate(new BooleanSolution(3, new int[] {-a, -b})
+                .get()));
+    }
+
+    @Test
+    void evaluatesUnmappedVariables() {
+        IFormula formula = or(literal("a"), literal(false, "b"));
+        VariableMap variableMap = VariableMap.of(and(literal("a")));
+        assertNull(CompiledFormula.compile(formula, variableMap)
+                .orElseThrow()
+                .evaluate(new BooleanSolution(-1)));
+        assertTrue(CompiledFormula.compile(formula, variableMap)
+                .orElseThrow()
+                .test(new BooleanSolution(1)));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.structure;
+
+import static de.featjar.formula.structure.Expressions.True;
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.implies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.structure.Expressions.reference;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.connective.Reference;
+import org.junit.jupiter.api.Test;
+
+class ExpressionInternerTest {
+    @Test
+    void sharesEqualSubexpressions() {
+        ExpressionInterner interner = new ExpressionInterner();
+        IFormula formula = and(
+                or(literal("a"), literal(false, "b")),
+                implies(literal("c"), or(literal("a"), literal(false, "b"))),
+                or(literal("a"), literal(false, "b")));
+        IFormula interned = interner.intern(formula);
+        assertEquals(formula, interned);
+        assertNotSame(formula, interned);
+        assertSame(interned.getChildren().get(0), interned.getChildren().get(2));
+        assertSame(
+                interned.getChildren().get(0), interned.getChildren().get(1).getChildren().get(1));
+        assertSame(
+                interned.getChildren().get(0).getChildren().get(0).getChildren().get(0),
+                interned.getChildren().get(1).getChildren().get(1).getChildren().get(0).getChildren().get(0));
+        assertTrue(interner.isInterned(interned));
+        assertSame(interned, interner.intern(interned));
+        assertSame(interned, interner.intern(formula));
+        assertSame(interned, interner.intern((IFormula) formula.cloneTree()));
+    }
+
+    @Test
+    void distinguishesNodeProperties() {
+        ExpressionInterner interner = new ExpressionInterner();
+        IFormula positive = interner.intern(literal("a"));
+        IFormula negative = interner.intern(literal(false, "a"));
+        assertNotSame(positive, negative);
+        assertSame(positive.getChildren().get(0), negative.getChildren().get(0));
+        assertNotSame(interner.intern(or(positive, negative)), interner.intern(and(positive, negative)));
+        assertEquals(interner.hashCode(positive), interner.hashCode(interner.intern(literal("a"))));
+        assertSame(True, interner.intern(True));
+    }
+
+    @Test
+    void doesNotShareReferences() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Reference reference = reference(literal("a"));
+        And formula = and(reference, reference(literal("a")));
+        And interned = interner.intern(formula);
+        assertEquals(formula, interned);
+        assertNotSame(interned.getChildren().get(0), interned.getChildren().get(1));
+        assertSame(
+                interned.getChildren().get(0).getChildren().get(0),
+                interned.getChildren().get(1).getChildren().get(0));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.transform;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atLeast;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.between;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.computation.CardinalityEncoder;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.structure.CompiledFormula;
+import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.ACardinal;
+import de.featjar.formula.structure.connective.And;
+import de.featjar.formula.structure.predicate.ExpressionKind;
+import de.featjar.formula.structure.term.value.Variable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class CardinalityEncoderTest {
+
+    /**
+     * Checks that the definitions have exactly one model for each assignment of the original variables and that,
+     * in this model, the encoded formula evaluates like the cardinality constraint.
+     */
+    @SuppressWarnings("unchecked")
+    private static void assertEncodes(CardinalityEncoder.Encoding encoding, ACardinal cardinal) {
+        CardinalityEncoder encoder = new CardinalityEncoder(encoding);
+        encoder.setPreferringBinomial(false);
+        IFormula encodedFormula = encoder.encode((List<IFormula>) cardinal.getChildren(), cardinal.getRange())
+                .orElseThrow();
+        List<IFormula> definitions = encoder.getDefinitions();
+
+        List<String> variableNames = new ArrayList<>(VariableMap.of(cardinal).getVariableNames());
+        int originalVariableCount = variableNames.size();
+        for (IFormula definition : definitions) {
+            for (Variable variable : definition.getVariables()) {
+                if (!variableNames.contains(variable.getName())) {
+                    variableNames.add(variable.getName());
+                }
+            }
+        }
+        int auxiliaryVariableCount = variableNames.size() - originalVariableCount;
+        assertTrue(auxiliaryVariableCount <= 16, String.valueOf(auxiliaryVariableCount));
+        VariableMap variableMap = VariableMap.of(variableNames);
+        CompiledFormula compiledCardinal =
+                CompiledFormula.compile(cardinal, variableMap).orElseThrow();
+        CompiledFormula compiledFormula =
+                CompiledFormula.compile(encodedFormula, variableMap).orElseThrow();
+        CompiledFormula compiledDefinitions = definitions.isEmpty()
+                ? null
+                : CompiledFormula.compile(new And(definitions), variableMap).orElseThrow();
+
+        int[] solution = new int[variableNames.size()];
+        for (int original = 0; original < (1 << originalVariableCount); original++) {
+            setLiterals(solution, 0, originalVariableCount, original);
+            boolean expected = compiledCardinal.test(solution);
+            int modelCount = 0;
+            for (int auxiliary = 0; auxiliary < (1 << auxiliaryVariableCount); auxiliary++) {
+                setLiterals(solution, originalVariableCount, auxiliaryVariableCount, auxiliary);
+                if (compiledDefinitions == null || compiledDefinitions.test(solution)) {
+                    modelCount++;
+                    assertEquals(expected, compiledFormula.test(solution), cardinal::print);
+                }
+            }
+            assertEquals(1, modelCount, cardinal::print);
+        }
+    }
+
+    private static void setLiterals(int[] solution, int offset, int count, int bits) {
+        for (int i = 0; i < count; i++) {
+            solution[offset + i] = ((bits >> i) & 1) == 1 ? offset + i + 1 : -(offset + i + 1);
+        }
+    }
+
+    private static IFormula[] getLiterals(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> literal(i % 3 != 1, "x" + i))
+                .collect(Collectors.toList())
+                .toArray(new IFormula[0]);
+    }
+
+    private static void assertEncodesAllBounds(CardinalityEncoder.Encoding encoding, int maximumCount) {
+        for (int n = 1; n <= maximumCount; n++) {
+            for (int lowerBound = 0; lowerBound <= n; lowerBound++) {
+                assertEncodes(encoding, atLeast(lowerBound, getLiterals(n)));
+                assertEncodes(encoding, atMost(lowerBound, getLiterals(n)));
+                for (int upperBound = lowerBound; upperBound <= n; upperBound++) {
+                    assertEncodes(encoding, between(lowerBound, upperBound, getLiterals(n)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void sequentialCounter() {
+        assertEncodesAllBounds(CardinalityEncoder.Encoding.SEQUENTIAL_COUNTER, 4);
+    }
+
+    @Test
+    void totalizer() {
+        assertEncodesAllBounds(CardinalityEncoder.Encoding.TOTALIZER, 4);
+    }
+
+    @Test
+    void sortingNetwork() {
+        assertEncodesAllBounds(CardinalityEncoder.Encoding.SORTING_NETWORK, 4);
+    }
+
+    @Test
+    void commander() {
+        assertEncodesAllBounds(CardinalityEncoder.Encoding.COMMANDER, 4);
+        assertEncodes(CardinalityEncoder.Encoding.COMMANDER, atMost(1, getLiterals(7)));
+        assertEncodes(CardinalityEncoder.Encoding.COMMANDER, between(1, 1, getLiterals(7)));
+    }
+
+    @Test
+    void encodesComplexChildren() {
+        for (CardinalityEncoder.Encoding encoding : List.of(
+                CardinalityEncoder.Encoding.SEQUENTIAL_COUNTER,
+                CardinalityEncoder.Encoding.TOTALIZER,
+                CardinalityEncoder.Encoding.SORTING_NETWORK,
+                CardinalityEncoder.Encoding.COMMANDER)) {
+            assertEncodes(
+                    encoding,
+                    between(1, 1, and(literal("a"), literal("b")), literal("c"), or(literal(false, "a"), literal("d"))));
+        }
+    }
+
+    @Test
+    void prefersSmallerEncoding() {
+        IFormula smallFormula = atMost(1, literal("a"), literal("b"), literal("c"));
+        IFormula smallNNF = Computations.of(smallFormula)
+                .map(ComputeNNFFormula::new)
+                .set(ComputeNNFFormula.CARDINALITY_ENCODING, CardinalityEncoder.Encoding.SEQUENTIAL_COUNTER)
+                .get()
+                .get();
+        assertFalse(hasAuxiliaryVariables(smallNNF));
+
+        IFormula largeFormula = atMost(1, getLiterals(30));
+        IFormula largeNNF = Computations.of(largeFormula)
+                .map(ComputeNNFFormula::new)
+                .set(ComputeNNFFormula.CARDINALITY_ENCODING, CardinalityEncoder.Encoding.COMMANDER)
+                .get()
+                .get();
+        assertTrue(hasAuxiliaryVariables(largeNNF));
+        assertTrue(largeNNF.isKind(ExpressionKind.BOOLEAN));
+        assertTrue(largeNNF.getChildrenCount() < 30 * 29 / 2);
+    }
+
+    private static boolean hasAuxiliaryVariables(IFormula formula) {
+        return formula.getVariables().stream()
+                .anyMatch(variable -> variable.getName().startsWith(CardinalityEncoder.AUXILIARY_VARIABLE_NAME_PREFIX));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024 FeatJAR-Development-Team
+ *
+ * This file is part of FeatJAR-formula.
+ *
+ * formula is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3.0 of the License,
+ * or (at your option) any later version.
+ *
+ * formula is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with formula. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * See <https://github.com/FeatureIDE/FeatJAR-formula> for further information.
+ */
+package de.featjar.formula.transform;
+
+import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.literal;
+import static de.featjar.formula.structure.Expressions.not;
+import static de.featjar.formula.structure.Expressions.or;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.featjar.base.computation.Computations;
+import de.featjar.base.data.Pair;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.assignment.BooleanAssignment;
+import de.featjar.formula.assignment.BooleanClause;
+import de.featjar.formula.assignment.BooleanClauseList;
+import de.featjar.formula.computation.ComputeCNFClauseList;
+import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.computation.TseitinTransformer;
+import de.featjar.formula.structure.IFormula;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ComputeCNFClauseListTest {
+
+    private static Pair<BooleanClauseList, VariableMap> toClauseList(IFormula formula, int maximumNumberOfLiterals) {
+        return Computations.of(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFClauseList::new)
+                .set(ComputeCNFClauseList.MAXIMUM_NUMBER_OF_LITERALS, maximumNumberOfLiterals)
+                .get()
+                .get();
+    }
+
+    private static boolean test(BooleanClauseList clauseList, int[] solution) {
+        for (BooleanClause clause : clauseList.getAll()) {
+            boolean isSatisfied = false;
+            for (int literal : clause.get()) {
+                if (solution[Math.abs(literal) - 1] == literal) {
+                    isSatisfied = true;
+                    break;
+                }
+            }
+            if (!isSatisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that each assignment of the original variables that satisfies the formula has exactly one extension
+     * to the auxiliary variables that satisfies the clause list, and all other assignments have none.
+     */
+    private static void assertEquivalent(IFormula formula, Pair<BooleanClauseList, VariableMap> result) {
+        VariableMap variableMap = result.getValue();
+        List<String> variableNames = variableMap.getVariableNames();
+        int originalVariableCount = (int) variableNames.stream()
+                .filter(name -> !name.startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX))
+                .count();
+        int auxiliaryVariableCount = variableNames.size() - originalVariableCount;
+        assertEquals(variableNames.size(), result.getKey().getVariableCount());
+        int[] solution = new int[variableNames.size()];
+        FormulaCreator.streamAllAssignments(originalVariableCount).forEach(assignment -> {
+            System.arraycopy(assignment.get(), 0, solution, 0, originalVariableCount);
+            int modelCount = 0;
+            for (int auxiliary = 0; auxiliary < (1 << auxiliaryVariableCount); auxiliary++) {
+                for (int i = 0; i < auxiliaryVariableCount; i++) {
+                    int variable = originalVariableCount + i + 1;
+                    solution[variable - 1] = ((auxiliary >> i) & 1) == 1 ? variable : -variable;
+                }
+                if (test(result.getKey(), solution)) {
+                    modelCount++;
+                }
+            }
+            Object expected = formula.evaluate(new BooleanAssignment(assignment.get()), variableMap);
+            assertEquals(Boolean.TRUE.equals(expected) ? 1 : 0, modelCount, assignment::print);
+        });
+    }
+
+    @Test
+    void distributive() {
+        for (IFormula formula : getFormulas()) {
+            Pair<BooleanClauseList, VariableMap> result = toClauseList(formula, Integer.MAX_VALUE);
+            assertTrue(result.getValue().getVariableNames().stream()
+                    .noneMatch(name -> name.startsWith(TseitinTransformer.AUXILIARY_VARIABLE_NAME_PREFIX)));
+            assertEquivalent(formula, result);
+        }
+    }
+
+    @Test
+    void tseitin() {
+        for (IFormula formula : getFormulas()) {
+            assertEquivalent(formula, toClauseList(formula, 0));
+        }
+    }
+
+    private static List<IFormula> getFormulas() {
+        return List.of(
+                FormulaCreator.getFormula01(),
+                FormulaCreator.getFormula02(),
+                and(literal("a"), or(literal("b"), literal(false, "c")), literal(false, "d")),
+                not(or(
+                        and(literal("C"), biImplies(or(literal("D"), literal("E")), literal("C"))),
+                        and(or(literal("E"))))),
+                and(
+                        or(and(literal("a"), literal("b")), and(literal("c"), literal("d"))),
+                        or(literal("e"), and(literal("c"), literal("d")), and(literal("a"), literal("b")))));
+    }
+}
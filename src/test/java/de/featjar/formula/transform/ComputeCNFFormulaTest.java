@@ -36,6 +36,7 @@ import de.featjar.base.computation.IComputation;
 import de.featjar.formula.VariableMap;
 import de.featjar.formula.computation.ComputeCNFFormula;
 import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.computation.DistributiveTransformer;
 import de.featjar.formula.structure.IFormula;
 import org.junit.jupiter.api.Test;
 
@@ -59,6 +60,14 @@ class ComputeCNFFormulaTest extends Common {
                 and(or(literal("c"), literal("b")), or(literal("c"), literal("a"))));
     }
 
+    @Test
+    public void toCNFRemovesSubsumedClauses() {
+        TransformationTest.traverseAndAssertFormulaEquals(
+                or(and(literal("a"), literal("b")), and(literal("a"), literal("c"))),
+                this::toCNF,
+                and(or(literal("a")), or(literal("b"), literal("c"))));
+    }
+
     @Test
     void basic() {
         IFormula formula = loadFormula("testFeatureModels/basic.xml");
@@ -111,4 +120,71 @@ class ComputeCNFFormulaTest extends Common {
             assertTrue(tseitinEvaluate == null || tseitinEvaluate == formulaEvaluate, assignment::print);
         });
     }
+
+    @Test
+    void interning() {
+        IFormula formula = and(
+                or(and(literal("a"), literal("b")), and(literal("c"), literal("d"))),
+                or(literal("e"), and(literal("c"), literal("d")), and(literal("a"), literal("b"))),
+                or(and(literal("a"), literal("b")), and(literal("c"), literal("d"))));
+        IFormula tseitinCNF = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                .get()
+                .get();
+        IFormula internedTseitinCNF = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                .set(ComputeCNFFormula.IS_INTERNING, Boolean.TRUE)
+                .get()
+                .get();
+        assertEquals(tseitinCNF, internedTseitinCNF);
+    }
+
+    @Test
+    void parallel() {
+        IFormula formula = loadFormula("GPL/model.xml");
+        IFormula tseitinCNF = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                .get()
+                .get();
+        for (int i = 0; i < 5; i++) {
+            IFormula parallelTseitinCNF = async(formula)
+                    .map(ComputeNNFFormula::new)
+                    .map(ComputeCNFFormula::new)
+                    .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 0)
+                    .set(ComputeCNFFormula.IS_PARALLEL, Boolean.TRUE)
+                    .get()
+                    .get();
+            assertEquals(tseitinCNF.print(), parallelTseitinCNF.print());
+        }
+    }
+
+    @Test
+    void estimatesDistributiveTransform() {
+        IFormula formula = or(and(literal("a"), literal("b")), and(literal("c"), literal("d"), literal("e")));
+        DistributiveTransformer.Estimate estimate = new DistributiveTransformer().estimate(formula);
+        assertEquals(6, estimate.getClauseCount());
+        assertEquals(12, estimate.getLiteralCount());
+        assertEquals(12, estimate.getGeneratedLiteralCount());
+
+        IFormula distributiveCNF = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 12)
+                .get()
+                .get();
+        assertEquals(6, distributiveCNF.getChildrenCount());
+        IFormula tseitinCNF = async(formula)
+                .map(ComputeNNFFormula::new)
+                .map(ComputeCNFFormula::new)
+                .set(ComputeCNFFormula.MAXIMUM_NUMBER_OF_LITERALS, 11)
+                .get()
+                .get();
+        assertTrue(tseitinCNF.getVariables().size() > 5);
+    }
 }
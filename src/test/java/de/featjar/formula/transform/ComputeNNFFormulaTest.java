@@ -23,17 +23,30 @@ package de.featjar.formula.transform;
 import static de.featjar.formula.structure.Expressions.False;
 import static de.featjar.formula.structure.Expressions.True;
 import static de.featjar.formula.structure.Expressions.and;
+import static de.featjar.formula.structure.Expressions.atMost;
+import static de.featjar.formula.structure.Expressions.biImplies;
+import static de.featjar.formula.structure.Expressions.choose;
 import static de.featjar.formula.structure.Expressions.forAll;
 import static de.featjar.formula.structure.Expressions.implies;
 import static de.featjar.formula.structure.Expressions.literal;
 import static de.featjar.formula.structure.Expressions.not;
 import static de.featjar.formula.structure.Expressions.or;
+import static de.featjar.formula.structure.Expressions.reference;
 import static de.featjar.formula.structure.Expressions.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.featjar.base.computation.Computations;
+import de.featjar.base.computation.IComputation;
+import de.featjar.formula.VariableMap;
+import de.featjar.formula.computation.CardinalityEncoder;
 import de.featjar.formula.computation.ComputeNNFFormula;
+import de.featjar.formula.computation.NNFTransformer;
 import de.featjar.formula.structure.IFormula;
+import de.featjar.formula.structure.connective.Reference;
 import de.featjar.formula.structure.predicate.ExpressionKind;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class ComputeNNFFormulaTest {
@@ -64,4 +77,60 @@ class ComputeNNFFormulaTest {
                 and(or(), or(literal("x"), literal(false, "x")), literal("x")) // todo: also remove empty or
                 );
     }
+
+    IComputation<IFormula> toSinglePassNNF(IComputation<IFormula> formula) {
+        return formula.map(ComputeNNFFormula::new).set(ComputeNNFFormula.IS_SINGLE_PASS, Boolean.TRUE);
+    }
+
+    void singlePassNNF(IFormula formula) {
+        IFormula newFormula = toSinglePassNNF(Computations.of(formula)).get().get();
+        IFormula nnf = newFormula instanceof Reference ? ((Reference) newFormula).getExpression() : newFormula;
+        assertTrue(nnf.isKind(ExpressionKind.NNF), newFormula::print);
+        VariableMap variableMap = VariableMap.of(formula);
+        FormulaCreator.streamAllAssignments(variableMap.getVariableCount()).forEach(assignment -> assertEquals(
+                formula.evaluate(assignment, variableMap),
+                newFormula.evaluate(assignment, variableMap),
+                assignment::print));
+    }
+
+    @Test
+    public void toNNFInSinglePass() {
+        TransformationTest.traverseAndAssertFail(and(), this::toSinglePassNNF);
+        TransformationTest.traverseAndAssertFail(
+                implies(literal("a"), forAll(variable("x"), True)), this::toSinglePassNNF);
+        TransformationTest.traverseAndAssertFormulaEquals(and(literal("a")), this::toSinglePassNNF, literal("a"));
+        TransformationTest.traverseAndAssertFormulaEquals(
+                and(not(or(literal("a"), literal("b"))), literal("c")),
+                this::toSinglePassNNF,
+                and(literal(false, "a"), literal(false, "b"), literal("c")));
+        singlePassNNF(implies(literal("a"), False));
+        singlePassNNF(and(True, and(True, and(True), or(False), or(True, False)), literal("x")));
+        singlePassNNF(not(biImplies(literal("a"), implies(not(literal("b")), literal("c")))));
+        singlePassNNF(or(not(choose(2, literal("a"), literal("b"), literal("c"))), atMost(1, literal("a"), True)));
+        singlePassNNF(FormulaCreator.getFormula01());
+        singlePassNNF(FormulaCreator.getFormula02());
+
+        Reference reference = reference(not(biImplies(literal("a"), literal("b"))));
+        reference.setFreeVariables(List.of(variable("a"), variable("b"), variable("c")));
+        singlePassNNF(reference);
+        Reference newReference =
+                assertInstanceOf(Reference.class, toSinglePassNNF(Computations.of(reference)).get().get());
+        assertEquals(List.copyOf(reference.getFreeVariables()), List.copyOf(newReference.getFreeVariables()));
+    }
+
+    @Test
+    public void reusesNNFTransformer() {
+        IFormula[] literals = new IFormula[10];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = literal("x" + i);
+        }
+        IFormula cardinal = atMost(1, literals);
+        IFormula formula = or(literal("a"), not(literal("b")));
+        NNFTransformer transformer = new NNFTransformer(CardinalityEncoder.Encoding.SEQUENTIAL_COUNTER);
+        IFormula cardinalNNF = transformer.apply(cardinal).get();
+        assertEquals(
+                new NNFTransformer(CardinalityEncoder.Encoding.SEQUENTIAL_COUNTER).apply(formula).get(),
+                transformer.apply(formula).get());
+        assertEquals(cardinalNNF, transformer.apply(cardinal).get());
+    }
 }